@@ -94,6 +94,7 @@ public class ComboBox extends DropDown implements DelegateFocusSupport {
 			fireActionEvent();
 			setExpanded(false);
 			selectionPending = true;
+			requestValidation();
 		}
 	}
 
@@ -484,4 +485,4 @@ public class ComboBox extends DropDown implements DelegateFocusSupport {
 		setProperty(this, PROPERTY_TEXT_MATCHING, newValue);
 	}
 
-}
\ No newline at end of file
+}
\ No newline at end of file
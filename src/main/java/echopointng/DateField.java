@@ -338,6 +338,7 @@ public class DateField extends DropDown {
 			return;
 		}
 		selectionPending = true;
+		requestValidation();
 		String text = getTextField().getText();
 		if (dateFormat != null) {
 			try {
@@ -363,6 +364,7 @@ public class DateField extends DropDown {
 	 */
 	protected void updateTextFromDate() {
 		selectionPending = true;
+		requestValidation();
 		CalendarSelectionModel model = getModel();
 		String text = "";
 		if (model.getSelectedDate() != null) {
@@ -380,4 +382,4 @@ public class DateField extends DropDown {
 		selectionPending = false;
 		expansionOverride = false;
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -28,6 +28,10 @@
  */
 package echopointng;
 
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.Serializable;
+
 import nextapp.echo2.app.Border;
 import nextapp.echo2.app.Component;
 import nextapp.echo2.app.Style;
@@ -80,7 +84,25 @@ public class EditableLabelEx extends LabelEx {
 		DEFAULT_STYLE = style;
 	}
 	
+	/**
+	 * <code>TargetListener</code> requests validation of the 
+	 * <code>EditableLabelEx</code> whenever its target changes, so that
+	 * it can be synchronised with it.
+	 */
+	private class TargetListener implements PropertyChangeListener, Serializable {
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+		 */
+		public void propertyChange(PropertyChangeEvent evt) {
+			requestValidation();
+		}
+	}
+	
 	private Component target;
+	
+	private TargetListener targetListener = new TargetListener();
 
 	/**
 	 * Constructs a <code>EditableLabelEx</code> with no target component.
@@ -124,8 +146,12 @@ public class EditableLabelEx extends LabelEx {
 	 *            The target to set.
 	 */
 	public void setTarget(Component target) {
+		if (this.target != null) {
+			this.target.removePropertyChangeListener(targetListener);
+		}
 		this.target = target;
 		if (target != null) {
+			target.addPropertyChangeListener(targetListener);
 			if (!this.isAncestorOf(target)) {
 				add(target);
 			}
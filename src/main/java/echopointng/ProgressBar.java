@@ -336,6 +336,7 @@ public class ProgressBar extends AbleComponent {
 	 */
 	public void invalidate() {
 		invalid = true;
+		requestValidation();
 	}
 
 	/**
@@ -86,7 +86,6 @@ public class TabbedPane extends AbleComponent implements PaneContainer, Stretcha
 				if (index != -1) {
 					getSelectionModel().setSelectedIndex(index);
 				}
-				firePropertyChange(null, null, null);
 			}
 		}
 	}
@@ -149,6 +148,7 @@ public class TabbedPane extends AbleComponent implements PaneContainer, Stretcha
 			SingleSelectionModel srcSelectionModel = (SingleSelectionModel) e.getSource();
 			TabModel model = getModel();
 
+			int oldSelectedIndex = currentlySelectedIndex;
 			int newSelectedIndex = srcSelectionModel.getSelectedIndex();
 			//
 			// remove old content
@@ -166,7 +166,7 @@ public class TabbedPane extends AbleComponent implements PaneContainer, Stretcha
 				}
 			}
 			currentlySelectedIndex = newSelectedIndex;
-			firePropertyChange(null, null, null);
+			firePropertyChange(SELECTION_CHANGED_PROPERTY, Integer.valueOf(oldSelectedIndex), Integer.valueOf(newSelectedIndex));
 		}
 	}
 
@@ -187,6 +187,12 @@ public class TabbedPane extends AbleComponent implements PaneContainer, Stretcha
 
 	public static final String PROPERTY_TAB_SPACING = "tabSpacing";
 
+	/**
+	 * The name of the property change fired when the selected tab changes.
+	 * The old and new values are the previous and current selected indexes.
+	 */
+	public static final String SELECTION_CHANGED_PROPERTY = "tabSelectionChanged";
+
 	/**
 	 * TAB_LINE_AND_CONTENT - shows a border around the tabs and a line betweent
 	 * the tabs and the content
@@ -419,7 +425,6 @@ public class TabbedPane extends AbleComponent implements PaneContainer, Stretcha
 		if ("click".equals(inputName)) {
 			int selectedIndex = Integer.parseInt((String) inputValue);
 			setSelectedIndex(selectedIndex);
-			firePropertyChange(null, null, null);
 		}
 	}
 
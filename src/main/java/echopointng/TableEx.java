@@ -844,6 +844,7 @@ public class TableEx extends Table implements Attributeable, Stretchable {
 	 */
 	protected void invalidate() {
 		valid = false;
+		requestValidation();
 	}
 
 	/**
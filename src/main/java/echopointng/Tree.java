@@ -911,6 +911,7 @@ public class Tree extends AbleComponent {
 	 */
 	public void invalidate() {
 		valid = false;
+		requestValidation();
 		// need this to convince Echo2 that the DOM has changed somehow
 		// firePropertyChange(null, null, null);
 	}
@@ -2072,7 +2073,11 @@ public class Tree extends AbleComponent {
 	 *            node)
 	 */
 	private void markPathsDirty(TreePath parentPath, Object[] nodes, boolean markChildren) {
-
+		if (nodes == null) {
+			// the event identifies the root node itself
+			markPathDirty(parentPath, markChildren);
+			return;
+		}
 		for (int i = nodes.length - 1; i >= 0; i--) {
 			TreePath path = parentPath.pathByAddingChild(nodes[i]);
 			markPathDirty(path, markChildren);
@@ -35,7 +35,11 @@ package echopointng;
  * This file was made part of the EchoPoint project on the 15/07/2005.
  *  
  */
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.List;
 
 import nextapp.echo2.app.Component;
 import nextapp.echo2.app.Style;
@@ -168,7 +172,7 @@ public class TreeTable extends TableEx {
 					if (min != -1 && max != -1) {
 						for (int counter = min; counter <= max; counter++) {
 							if (tableSelectionModel.isSelectedIndex(counter)) {
-								TreePath selPath = treeAndTableCellRenderer.getPathForRow(counter);
+								TreePath selPath = getTreeTableModelAdapter().pathForRow(counter);
 
 								if (selPath != null) {
 									addSelectionPath(selPath);
@@ -293,6 +297,16 @@ public class TreeTable extends TableEx {
 		}
 	}
 
+	/**
+	 * <code>TreeTableModelAdapter</code> adapts a <code>TreeTableModel</code>
+	 * to a <code>TableModel</code>.
+	 * <p>
+	 * It keeps an index of the <code>TreePath</code> displayed at each row,
+	 * which is maintained incrementally as nodes are expanded, collapsed,
+	 * inserted, removed and changed, so that cell values can be looked up in
+	 * constant time. Tree events are translated into table events covering
+	 * only the affected rows.
+	 */
 	static class TreeTableModelAdapter extends AbstractTableModel {
 
 		private TreeTableModel model; // immutable
@@ -301,6 +315,15 @@ public class TreeTable extends TableEx {
 
 		private TreeTable treeTable = null; // logically immutable
 
+		/**
+		 * The TreePath displayed at each row, or null if the index must be
+		 * rebuilt
+		 */
+		private transient List<TreePath> rowPaths;
+
+		/** The root node the row index was built for */
+		private transient Object indexedRoot;
+
 		/**
 		 * Maintains a TreeTableModel and a Tree as purely implementation
 		 * details. Developers can plug in any type of custom TreeTableModel
@@ -327,36 +350,43 @@ public class TreeTable extends TableEx {
 			this.model = model;
 
 			// Install a TreeModelListener that can update the table when
-			// tree changes. We use delayedFireTableDataChanged as we can
-			// not be guaranteed the tree will have finished processing
-			// the event before us.
+			// tree changes. The Tree registers its own model listener before
+			// this adapter is created, so its expanded state has already been
+			// updated by the time we are told about the change.
 			model.addTreeModelListener(new TreeModelListener() {
 				public void treeNodesChanged(TreeModelEvent e) {
-					delayedFireTableDataChanged(e, 0);
+					rowsChanged(e);
 				}
 
 				public void treeNodesInserted(TreeModelEvent e) {
-					delayedFireTableDataChanged(e, 1);
+					rowsInserted(e);
 				}
 
 				public void treeNodesRemoved(TreeModelEvent e) {
-					delayedFireTableDataChanged(e, 2);
+					rowsRemoved(e);
 				}
 
 				public void treeStructureChanged(TreeModelEvent e) {
-					delayedFireTableDataChanged();
+					structureChanged(e);
 				}
 			});
 
 			tree.addTreeExpansionListener(new TreeExpansionListener() {
 				public void treeCollapsed(TreeExpansionEvent event) {
-					fireTableDataChanged();
+					pathCollapsed(event.getPath());
 				}
 
-				// Don't use fireTableRowsInserted() here; the selection model
-				// would get updated twice.
 				public void treeExpanded(TreeExpansionEvent event) {
-					fireTableDataChanged();
+					pathExpanded(event.getPath());
+				}
+			});
+
+			tree.addPropertyChangeListener(new PropertyChangeListener() {
+				public void propertyChange(PropertyChangeEvent evt) {
+					String propertyName = evt.getPropertyName();
+					if (Tree.PROPERTY_ROOT_VISIBLE.equals(propertyName) || Tree.PROPERTY_MODEL.equals(propertyName)) {
+						invalidateRows();
+					}
 				}
 			});
 		}
@@ -383,48 +413,329 @@ public class TreeTable extends TableEx {
 		}
 
 		/**
-		 * Invokes fireTableDataChanged
+		 * Returns the row index, building it if necessary.
+		 */
+		private List<TreePath> getRowPaths() {
+			if (rowPaths == null) {
+				List<TreePath> paths = new ArrayList<TreePath>();
+				Object root = model.getRoot();
+				if (root != null) {
+					TreePath rootPath = new TreePath(root);
+					if (tree.isRootVisible()) {
+						paths.add(rootPath);
+					}
+					if (!model.isLeaf(root) && tree.isExpanded(rootPath)) {
+						addVisibleDescendants(rootPath, paths);
+					}
+				}
+				indexedRoot = root;
+				rowPaths = paths;
+			}
+			return rowPaths;
+		}
+
+		/**
+		 * Appends the paths of all visible descendants of an expanded
+		 * <code>parentPath</code> to <code>paths</code>, in display order.
+		 */
+		private void addVisibleDescendants(TreePath parentPath, List<TreePath> paths) {
+			Object parentNode = parentPath.getLastPathComponent();
+			int cc = model.getChildCount(parentNode);
+			for (int i = 0; i < cc; i++) {
+				Object childNode = model.getChild(parentNode, i);
+				TreePath childPath = parentPath.pathByAddingChild(childNode);
+				paths.add(childPath);
+				if (!model.isLeaf(childNode) && tree.isExpanded(childPath)) {
+					addVisibleDescendants(childPath, paths);
+				}
+			}
+		}
+
+		/**
+		 * Returns the visible descendants of <code>path</code> if it is
+		 * expanded.
+		 */
+		private List<TreePath> getVisibleDescendants(TreePath path) {
+			List<TreePath> paths = new ArrayList<TreePath>();
+			if (!model.isLeaf(path.getLastPathComponent()) && tree.isExpanded(path)) {
+				addVisibleDescendants(path, paths);
+			}
+			return paths;
+		}
+
+		/**
+		 * Discards the row index and tells listeners that all rows may have
+		 * changed.
 		 */
-		private void delayedFireTableDataChanged() {
+		private void invalidateRows() {
+			rowPaths = null;
+			indexedRoot = null;
 			fireTableDataChanged();
 		}
 
 		/**
-		 * Invokes fireTableDataChanged after all the pending events have been
-		 * processed. SwingUtilities.invokeLater is used to handle this.
+		 * Returns the row at which <code>path</code> is displayed in the
+		 * index, or -1 if it is not displayed.
 		 */
-		private void delayedFireTableDataChanged(final TreeModelEvent tme, final int typeChange) {
-			int indices[] = tme.getChildIndices();
-			TreePath path = tme.getTreePath();
-			if (indices != null) {
-				if (tree.isExpanded(path)) { // Dont bother to update if
-					// the parent
-					// node is collapsed
-					int startingRow = tree.getRowForPath(path) + 1;
-					int min = Integer.MAX_VALUE;
-					int max = Integer.MIN_VALUE;
-					for (int i = 0; i < indices.length; i++) {
-						if (indices[i] < min) {
-							min = indices[i];
-						}
-						if (indices[i] > max) {
-							max = indices[i];
-						}
-					}
-					switch (typeChange) {
-					case 0:
-						fireTableRowsUpdated(startingRow + min, startingRow + max);
-						break;
-					case 1:
-						fireTableRowsInserted(startingRow + min, startingRow + max);
-						break;
-					case 2:
-						fireTableRowsDeleted(startingRow + min, startingRow + max);
-						break;
+		private int indexOfPath(TreePath path) {
+			if (rowPaths == null || path == null) {
+				return -1;
+			}
+			return rowPaths.indexOf(path);
+		}
+
+		/**
+		 * Returns the row at which the first descendant of
+		 * <code>path</code> would be displayed, or -1 if the node is not
+		 * displayed. This handles an invisible root, whose children start at
+		 * row 0.
+		 */
+		private int descendantStartRow(TreePath path) {
+			if (rowPaths == null || path == null) {
+				return -1;
+			}
+			if (path.getPathCount() == 1 && !tree.isRootVisible()) {
+				return path.getLastPathComponent() == indexedRoot ? 0 : -1;
+			}
+			int row = rowPaths.indexOf(path);
+			return row == -1 ? -1 : row + 1;
+		}
+
+		/**
+		 * Returns the number of rows starting at <code>startRow</code>
+		 * occupied by descendants of <code>path</code>.
+		 */
+		private int descendantRowCount(TreePath path, int startRow) {
+			int row = startRow;
+			int size = rowPaths.size();
+			while (row < size && path.isDescendant(rowPaths.get(row))) {
+				row++;
+			}
+			return row - startRow;
+		}
+
+		/**
+		 * Returns the rows of the displayed direct children of
+		 * <code>path</code>, in display order.
+		 */
+		private int[] childRows(TreePath path, int startRow) {
+			int childPathCount = path.getPathCount() + 1;
+			int count = descendantRowCount(path, startRow);
+			int[] rows = new int[count];
+			int childCount = 0;
+			for (int row = startRow; row < startRow + count; row++) {
+				if (rowPaths.get(row).getPathCount() == childPathCount) {
+					rows[childCount++] = row;
+				}
+			}
+			int[] result = new int[childCount];
+			System.arraycopy(rows, 0, result, 0, childCount);
+			return result;
+		}
+
+		/**
+		 * Fires an update event for the row displaying <code>path</code>, if
+		 * it is displayed.
+		 */
+		private void fireRowUpdated(TreePath path) {
+			int row = indexOfPath(path);
+			if (row != -1) {
+				fireTableRowsUpdated(row, row);
+			}
+		}
+
+		/**
+		 * Replaces the rows displaying the descendants of <code>path</code>
+		 * with its current visible descendants, firing events for the
+		 * affected row range.
+		 */
+		private void replaceDescendantRows(TreePath path, int startRow) {
+			int oldCount = descendantRowCount(path, startRow);
+			List<TreePath> newPaths = getVisibleDescendants(path);
+			int newCount = newPaths.size();
+
+			rowPaths.subList(startRow, startRow + oldCount).clear();
+			rowPaths.addAll(startRow, newPaths);
+
+			int commonCount = Math.min(oldCount, newCount);
+			if (commonCount > 0) {
+				fireTableRowsUpdated(startRow, startRow + commonCount - 1);
+			}
+			if (newCount > oldCount) {
+				fireTableRowsInserted(startRow + oldCount, startRow + newCount - 1);
+			} else if (oldCount > newCount) {
+				fireTableRowsDeleted(startRow + newCount, startRow + oldCount - 1);
+			}
+		}
+
+		/**
+		 * Called when a path is expanded
+		 */
+		private void pathExpanded(TreePath path) {
+			if (rowPaths == null) {
+				fireTableDataChanged();
+				return;
+			}
+			int startRow = descendantStartRow(path);
+			if (startRow != -1) {
+				replaceDescendantRows(path, startRow);
+				fireRowUpdated(path);
+			}
+		}
+
+		/**
+		 * Called when a path is collapsed
+		 */
+		private void pathCollapsed(TreePath path) {
+			if (rowPaths == null) {
+				fireTableDataChanged();
+				return;
+			}
+			int startRow = descendantStartRow(path);
+			if (startRow != -1) {
+				int count = descendantRowCount(path, startRow);
+				if (count > 0) {
+					rowPaths.subList(startRow, startRow + count).clear();
+					fireTableRowsDeleted(startRow, startRow + count - 1);
+				}
+				fireRowUpdated(path);
+			}
+		}
+
+		/**
+		 * Called when nodes have changed in the model
+		 */
+		private void rowsChanged(TreeModelEvent e) {
+			if (rowPaths == null) {
+				fireTableDataChanged();
+				return;
+			}
+			TreePath path = e.getTreePath();
+			int[] indices = e.getChildIndices();
+			if (indices == null) {
+				// case where the event is fired to identify root.
+				fireRowUpdated(path);
+				return;
+			}
+			int startRow = descendantStartRow(path);
+			if (startRow == -1) {
+				// the parent is not displayed or collapsed
+				return;
+			}
+			int[] rows = childRows(path, startRow);
+			for (int i = 0; i < indices.length; i++) {
+				if (indices[i] >= 0 && indices[i] < rows.length) {
+					fireTableRowsUpdated(rows[indices[i]], rows[indices[i]]);
+				}
+			}
+		}
+
+		/**
+		 * Called when nodes have been inserted into the model
+		 */
+		private void rowsInserted(TreeModelEvent e) {
+			if (rowPaths == null) {
+				fireTableDataChanged();
+				return;
+			}
+			TreePath path = e.getTreePath();
+			int[] indices = e.getChildIndices();
+			Object[] children = e.getChildren();
+			if (indices == null || children == null) {
+				structureChanged(e);
+				return;
+			}
+			int startRow = descendantStartRow(path);
+			if (startRow != -1 && (descendantRowCount(path, startRow) > 0 || tree.isExpanded(path))) {
+				// the indices are in ascending order, so each child's
+				// preceding siblings are already present in the index
+				for (int i = 0; i < indices.length; i++) {
+					int[] rows = childRows(path, startRow);
+					int row;
+					if (indices[i] < rows.length) {
+						row = rows[indices[i]];
+					} else {
+						row = startRow + descendantRowCount(path, startRow);
 					}
+					TreePath childPath = path.pathByAddingChild(children[i]);
+					List<TreePath> newPaths = getVisibleDescendants(childPath);
+					newPaths.add(0, childPath);
+					rowPaths.addAll(row, newPaths);
+					fireTableRowsInserted(row, row + newPaths.size() - 1);
 				}
-			} else { // case where the event is fired to identify root.
+			}
+			// the parent's expando handle may need to change
+			fireRowUpdated(path);
+		}
+
+		/**
+		 * Called when nodes have been removed from the model
+		 */
+		private void rowsRemoved(TreeModelEvent e) {
+			if (rowPaths == null) {
 				fireTableDataChanged();
+				return;
+			}
+			TreePath path = e.getTreePath();
+			int[] indices = e.getChildIndices();
+			Object[] children = e.getChildren();
+			if (indices == null || children == null) {
+				structureChanged(e);
+				return;
+			}
+			// the Tree may already have collapsed a parent that has become a
+			// leaf, so the index rather than the expanded state decides
+			// whether the children are displayed.
+			int startRow = descendantStartRow(path);
+			if (startRow != -1) {
+				for (int i = indices.length - 1; i >= 0; i--) {
+					TreePath childPath = path.pathByAddingChild(children[i]);
+					int row = -1;
+					int[] rows = childRows(path, startRow);
+					if (indices[i] < rows.length && childPath.equals(rowPaths.get(rows[indices[i]]))) {
+						row = rows[indices[i]];
+					} else {
+						row = rowPaths.indexOf(childPath);
+					}
+					if (row != -1) {
+						int count = 1 + descendantRowCount(childPath, row + 1);
+						rowPaths.subList(row, row + count).clear();
+						fireTableRowsDeleted(row, row + count - 1);
+					}
+				}
+			}
+			fireRowUpdated(path);
+		}
+
+		/**
+		 * Called when the structure below a node has changed
+		 */
+		private void structureChanged(TreeModelEvent e) {
+			TreePath path = e.getTreePath();
+			if (rowPaths == null || path == null || (path.getPathCount() == 1 && path.getLastPathComponent() != indexedRoot)) {
+				// a new root, or nothing to compare to
+				int oldCount = rowPaths == null ? -1 : rowPaths.size();
+				rowPaths = null;
+				if (oldCount == -1) {
+					fireTableDataChanged();
+				} else {
+					int newCount = getRowPaths().size();
+					int commonCount = Math.min(oldCount, newCount);
+					if (commonCount > 0) {
+						fireTableRowsUpdated(0, commonCount - 1);
+					}
+					if (newCount > oldCount) {
+						fireTableRowsInserted(oldCount, newCount - 1);
+					} else if (oldCount > newCount) {
+						fireTableRowsDeleted(newCount, oldCount - 1);
+					}
+				}
+				return;
+			}
+			int startRow = descendantStartRow(path);
+			if (startRow != -1) {
+				replaceDescendantRows(path, startRow);
+				fireRowUpdated(path);
 			}
 		}
 
@@ -453,7 +764,9 @@ public class TreeTable extends TableEx {
 		 * @see nextapp.echo2.app.table.TableModel#getRowCount()
 		 */
 		public int getRowCount() {
-			return tree.getRowCount();
+			// a collapsed root is displayed only if it is visible, so the
+			// count always agrees with pathForRow()
+			return getRowPaths().size();
 		}
 
 		/**
@@ -501,7 +814,11 @@ public class TreeTable extends TableEx {
 		}
 
 		TreePath pathForRow(int row) {
-			return tree.getPathForRow(row);
+			List<TreePath> paths = getRowPaths();
+			if (row < 0 || row >= paths.size()) {
+				return null;
+			}
+			return paths.get(row);
 		}
 	}
 
@@ -642,7 +959,7 @@ public class TreeTable extends TableEx {
 	 * @return the <code>TreePath</code> for the given row.
 	 */
 	public TreePath getPathForRow(int row) {
-		return treeAndTableCellRenderer.getPathForRow(row);
+		return getTreeTableModelAdapter().pathForRow(row);
 	}
 
 	/**
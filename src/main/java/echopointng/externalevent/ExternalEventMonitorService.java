@@ -32,16 +32,14 @@ package echopointng.externalevent;
 import java.io.IOException;
 import java.util.Enumeration;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.Set;
-import java.util.WeakHashMap;
 
 import echopointng.ExternalEventMonitor;
 import jakarta.servlet.RequestDispatcher;
 import jakarta.servlet.http.HttpServletRequest;
 import nextapp.echo2.app.ApplicationInstance;
 import nextapp.echo2.app.TaskQueueHandle;
+import nextapp.echo2.webcontainer.ContainerContext;
 import nextapp.echo2.webcontainer.ContainerInstance;
 import nextapp.echo2.webrender.Connection;
 import nextapp.echo2.webrender.Service;
@@ -77,22 +75,33 @@ implements Service {
     public int getVersion() {
         return DO_NOT_CACHE;
     }
-    /** a weak map of external event monitors that want to know about events */
-	private WeakHashMap weakInterestedParties = new WeakHashMap();
-	
-	/** a weak map of applcation instances to task queues */
-	private WeakHashMap weakInstanceQueues = new WeakHashMap();
-	
+    /** 
+     * the handler key of the per session task queue, monitors are keyed 
+     * by their element id and hence never clash with it 
+     */
+    private static final String TASK_QUEUE_KEY = "taskQueue";
+    
+    /**
+     * Guards the creation of the per session task queue.  The monitor of the
+     * <code>ContainerInstance</code> is not used as it is held for the 
+     * duration of each synchronization.
+     */
+    private final Object taskQueueLock = new Object();
 
 	/**
 	 * Registers the <code>ExternalEventMonitor</code> with the service
-	 * that is used to invoke external events.
+	 * that is used to invoke external events.  The registration is held
+	 * by the user's session and hence the monitor is only told about
+	 * events that arrive from that session.
 	 * 
 	 * @param monitor an <code>ExternalEventMonitor</code> to be notified
 	 * of external events.
 	 */
-	public synchronized void register(ExternalEventMonitor monitor) {
-		weakInterestedParties.put(monitor,null);
+	public void register(ExternalEventMonitor monitor) {
+		ContainerContext containerContext = getContainerContext(monitor.getApplicationInstance());
+		if (containerContext != null) {
+			containerContext.registerServiceHandler(this, "c_" + monitor.getRenderId(), monitor);
+		}
 	}
 
 	/**
@@ -102,8 +111,15 @@ implements Service {
 	 * @param monitor an <code>ExternalEventMonitor</code> to be removed from
 	 * being notified of external events.
 	 */
-	public synchronized void deregister(ExternalEventMonitor monitor) {
-		weakInterestedParties.remove(monitor);
+	public void deregister(ExternalEventMonitor monitor) {
+		ContainerContext containerContext = getContainerContext(monitor.getApplicationInstance());
+		if (containerContext != null) {
+			containerContext.unregisterServiceHandler(this, "c_" + monitor.getRenderId());
+		}
+	}
+	
+	private static ContainerContext getContainerContext(ApplicationInstance app) {
+		return app == null ? null : (ContainerContext) app.getContextProperty(ContainerContext.CONTEXT_PROPERTY_NAME);
 	}
     
 
@@ -115,41 +131,39 @@ implements Service {
     	ContainerInstance ci = (ContainerInstance) conn.getUserInstance();
         ApplicationInstance appInstance = ci.getApplicationInstance();
 		if (appInstance != null) {
-			synchronized(this) {
-				Map parameterMap = new HashMap();
-				for (Enumeration e = request.getParameterNames(); e.hasMoreElements();) {
-					String paramName = (String) e.nextElement();
-					String[] paramValues = conn.getRequest().getParameterValues(paramName);
-					parameterMap.put(paramName,paramValues);
-				}
-				final ExternalEvent externalEvent = new ExternalEvent(this,parameterMap);
-				
-				//
-				// create a TaskQueue but only once per app instance.  As it is weak
-				// it will die with the AppInstance and hence so will the TaskQueue
-				// as its referred to by its AppInstance.
-				TaskQueueHandle taskQueueHandle = (TaskQueueHandle) weakInstanceQueues.get(appInstance);
+			Map parameterMap = new HashMap();
+			for (Enumeration e = request.getParameterNames(); e.hasMoreElements();) {
+				String paramName = (String) e.nextElement();
+				String[] paramValues = conn.getRequest().getParameterValues(paramName);
+				parameterMap.put(paramName,paramValues);
+			}
+			final ExternalEvent externalEvent = new ExternalEvent(this,parameterMap);
+			
+			//
+			// create a TaskQueue but only once per session.  It is held 
+			// alongside the monitors and hence dies with the session.
+			TaskQueueHandle taskQueueHandle;
+			synchronized (taskQueueLock) {
+				taskQueueHandle = (TaskQueueHandle) ci.getServiceHandler(this, TASK_QUEUE_KEY);
 				if (taskQueueHandle == null) {
 					taskQueueHandle = appInstance.createTaskQueue();
-					weakInstanceQueues.put(appInstance,taskQueueHandle);
+					ci.registerServiceHandler(this, TASK_QUEUE_KEY, taskQueueHandle);
 				}
-				//
-				// run through all registed event monitors but only tell the ones
-				// that belong to the current app instance.
-				Set set = weakInterestedParties.keySet();
-				for (Iterator iter = set.iterator(); iter.hasNext();) {
-					final ExternalEventMonitor monitor = (ExternalEventMonitor) iter.next();
-					
-					if (appInstance.equals(monitor.getApplicationInstance())) {
-						Runnable task = new Runnable() {
-							public void run() {
-								monitor.fireExternalEvent(externalEvent);
-							}
-						};
-						// tell the peer and hence the listeners about the event but in
-						// a runnable task so that it executes in the main UI thread.
-						appInstance.enqueueTask(taskQueueHandle,task);
-					}
+			}
+			//
+			// run through the event monitors registered by this session
+			Object[] handlers = ci.getServiceHandlers(this);
+			for (int i = 0; i < handlers.length; i++) {
+				if (handlers[i] instanceof ExternalEventMonitor) {
+					final ExternalEventMonitor monitor = (ExternalEventMonitor) handlers[i];
+					Runnable task = new Runnable() {
+						public void run() {
+							monitor.fireExternalEvent(externalEvent);
+						}
+					};
+					// tell the peer and hence the listeners about the event but in
+					// a runnable task so that it executes in the main UI thread.
+					appInstance.enqueueTask(taskQueueHandle,task);
 				}
 			}
 		}
@@ -0,0 +1,303 @@
+package echopointng.image;
+
+/* 
+ * This file is part of the Echo Point Project.  This project is a collection
+ * of Components that have extended the Echo Web Application Framework.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+import java.awt.AWTError;
+import java.awt.HeadlessException;
+import java.awt.Image;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+import echopointng.util.collections.BoundedCache;
+
+/**
+ * <code>TextImageCache</code> holds the caches shared by all
+ * <code>TextImageReference</code>s, across references and sessions.
+ * <p>
+ * The layout cache remembers the outcome of measuring the text and scaling
+ * the background image to fit it. The raster cache remembers the final
+ * encoded image bytes. Both are keyed by the full visual specification of
+ * the image: the text and its attributes, colours and fonts, the background
+ * and replacement image identities, the text angle, alignments, insets,
+ * scaling option, rendering quality and encoder. So two references that
+ * would paint identical images share one entry, regardless of which
+ * session they belong to.
+ * <p>
+ * Images are compared by identity, which means that references that load
+ * their background image separately will not share entries. Loading the
+ * background once, for example via <code>ImageKit.loadImage()</code>, and
+ * reusing that <code>Image</code> gives the best results. Keys only weakly
+ * reference their images, and both caches are bounded by entry count and
+ * weight, so entries for images that are no longer used are not retained
+ * beyond the cache bounds and do not keep the images alive.
+ * <p>
+ * The <code>preRender()</code> methods can be used to warm the caches at
+ * application startup. They only ever draw onto off-screen
+ * <code>BufferedImage</code>s and so work with 
+ * <code>-Djava.awt.headless=true</code>.
+ */
+public class TextImageCache {
+
+	/** The default maximum number of measured layouts held */
+	public static final int DEFAULT_LAYOUT_CACHE_SIZE = 512;
+
+	/** The default maximum weight, in bytes, of the scaled background images held */
+	public static final long DEFAULT_LAYOUT_CACHE_WEIGHT = 8 * 1024 * 1024;
+
+	/** The default maximum number of encoded images held */
+	public static final int DEFAULT_RASTER_CACHE_SIZE = 1024;
+
+	/** The default maximum weight, in bytes, of the encoded images held */
+	public static final long DEFAULT_RASTER_CACHE_WEIGHT = 4 * 1024 * 1024;
+
+	private static boolean enabled = true;
+
+	private static BoundedCache layoutCache = new BoundedCache(DEFAULT_LAYOUT_CACHE_SIZE);
+
+	private static BoundedCache rasterCache = new BoundedCache(DEFAULT_RASTER_CACHE_SIZE, -1, -1, true);
+
+	static {
+		layoutCache.setWeigher(new BoundedCache.Weigher() {
+			public int weigh(Object key, Object value) {
+				Image image = ((Layout) value).backgroundImage;
+				int w = image.getWidth(ImageKit.imageObserver);
+				int h = image.getHeight(ImageKit.imageObserver);
+				return w < 0 || h < 0 ? 0 : w * h * 4;
+			}
+		});
+		layoutCache.setMaximumWeight(DEFAULT_LAYOUT_CACHE_WEIGHT);
+		rasterCache.setWeigher(new BoundedCache.Weigher() {
+			public int weigh(Object key, Object value) {
+				return ((byte[]) value).length;
+			}
+		});
+		rasterCache.setMaximumWeight(DEFAULT_RASTER_CACHE_WEIGHT);
+	}
+
+	/** not instantiable */
+	private TextImageCache() {
+	}
+
+	/**
+	 * <code>Key</code> is a cache key made up of the parts of a visual
+	 * specification. Parts are compared with <code>equals()</code>, except
+	 * those wrapped by <code>identity()</code>.
+	 */
+	static class Key {
+		private Object[] parts;
+		private int hashCode;
+
+		Key(Object[] parts) {
+			this.parts = parts;
+			this.hashCode = Arrays.hashCode(parts);
+		}
+
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key that = (Key) obj;
+			return hashCode == that.hashCode && Arrays.equals(parts, that.parts);
+		}
+
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+	/**
+	 * <code>Identity</code> weakly references an object so that it is
+	 * compared by identity within a <code>Key</code>. Once the object has
+	 * been garbage collected the <code>Identity</code> is only equal to
+	 * itself.
+	 */
+	private static class Identity {
+		private WeakReference<Object> reference;
+		private int hashCode;
+
+		private Identity(Object object) {
+			this.reference = new WeakReference<Object>(object);
+			this.hashCode = System.identityHashCode(object);
+		}
+
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Identity))
+				return false;
+			Object object = reference.get();
+			return object != null && ((Identity) obj).reference.get() == object;
+		}
+
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+	/**
+	 * <code>Layout</code> is the outcome of measuring the text of an image
+	 * and scaling its background to fit: the (possibly scaled) background
+	 * image and the point at which the text is drawn.
+	 */
+	static class Layout {
+		final Image backgroundImage;
+		final int x;
+		final int y;
+
+		Layout(Image backgroundImage, int x, int y) {
+			this.backgroundImage = backgroundImage;
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+	/**
+	 * Returns a key part that compares the given object by identity.
+	 */
+	static Object identity(Object object) {
+		return object == null ? null : new Identity(object);
+	}
+
+	static Layout getLayout(Key key) {
+		return enabled ? (Layout) layoutCache.get(key) : null;
+	}
+
+	static void putLayout(Key key, Layout layout) {
+		if (enabled) {
+			layoutCache.put(key, layout);
+		}
+	}
+
+	static byte[] getEncodedBytes(Key key) {
+		return enabled ? (byte[]) rasterCache.get(key) : null;
+	}
+
+	static void putEncodedBytes(Key key, byte[] bytes) {
+		if (enabled) {
+			rasterCache.put(key, bytes);
+		}
+	}
+
+	/**
+	 * Returns the cache of measured layouts, for example to inspect its hit
+	 * ratio or to change its bounds.
+	 * 
+	 * @return the layout cache
+	 */
+	public static BoundedCache getLayoutCache() {
+		return layoutCache;
+	}
+
+	/**
+	 * Returns the cache of encoded image bytes, for example to inspect its
+	 * hit ratio or to change its bounds.
+	 * 
+	 * @return the raster cache
+	 */
+	public static BoundedCache getRasterCache() {
+		return rasterCache;
+	}
+
+	/**
+	 * Returns true if <code>TextImageReference</code>s share cached layouts
+	 * and encoded images. This is true by default.
+	 * 
+	 * @return true if the caches are in use
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Controls whether <code>TextImageReference</code>s share cached layouts
+	 * and encoded images. Disabling the caches also clears them.
+	 * 
+	 * @param newValue
+	 *            true to use the caches
+	 */
+	public static void setEnabled(boolean newValue) {
+		enabled = newValue;
+		if (!enabled) {
+			clear();
+		}
+	}
+
+	/**
+	 * Removes all entries from both caches.
+	 */
+	public static void clear() {
+		layoutCache.clear();
+		rasterCache.clear();
+	}
+
+	/**
+	 * Renders a <code>TextImageReference</code> into the caches, so that
+	 * later requests for the same visual specification are served without
+	 * painting or encoding.
+	 * 
+	 * @param imageRef
+	 *            the <code>TextImageReference</code> to render
+	 * @return true if the image was rendered, false if it could not be
+	 *         rendered in this environment
+	 */
+	public static boolean preRender(TextImageReference imageRef) {
+		try {
+			imageRef.getEncodedBytes();
+			return true;
+		} catch (IOException e) {
+			return false;
+		} catch (HeadlessException e) {
+			return false;
+		} catch (AWTError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Renders an array of <code>TextImageReference</code>s into the caches.
+	 * 
+	 * @param imageRefs
+	 *            the <code>TextImageReference</code>s to render
+	 * @return the number of images that were rendered
+	 * @see #preRender(TextImageReference)
+	 */
+	public static int preRender(TextImageReference[] imageRefs) {
+		int count = 0;
+		for (int i = 0; i < imageRefs.length; i++) {
+			if (preRender(imageRefs[i])) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
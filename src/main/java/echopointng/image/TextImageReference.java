@@ -41,16 +41,22 @@ import java.awt.font.TextLayout;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.net.URL;
 import java.text.AttributedCharacterIterator;
 import java.text.AttributedString;
 import java.text.CharacterIterator;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import nextapp.echo2.app.Alignment;
 import nextapp.echo2.app.Color;
@@ -514,6 +520,137 @@ public class TextImageReference extends EncodedImageReference implements Seriali
 		Image paintedImage = drawer.paintImage();
 		return paintedImage;
 	}
+	
+	/**
+	 * Renders the encoded image, sharing the encoded bytes with any other
+	 * <code>TextImageReference</code> that has the same visual
+	 * specification.
+	 * 
+	 * @see TextImageCache
+	 * @see nextapp.echo2.app.StreamImageReference#render(java.io.OutputStream)
+	 */
+	public void render(OutputStream out) throws IOException {
+		if (! isCacheable()) {
+			super.render(out);
+			return;
+		}
+		out.write(getEncodedBytes());
+	}
+
+	/**
+	 * Returns the encoded bytes of the image, taking them from the
+	 * <code>TextImageCache</code> if possible and adding them to it
+	 * otherwise.
+	 */
+	byte[] getEncodedBytes() throws IOException {
+		TextImageCache.Key key = null;
+		if (isCacheable()) {
+			key = getRasterKey();
+			byte[] bytes = TextImageCache.getEncodedBytes(key);
+			if (bytes != null)
+				return bytes;
+		}
+		ByteArrayOutputStream ba = new ByteArrayOutputStream();
+		getEncoder().encode(getImage(), ba);
+		byte[] bytes = ba.toByteArray();
+		if (key != null)
+			TextImageCache.putEncodedBytes(key, bytes);
+		return bytes;
+	}
+	
+	/**
+	 * Returns true if the layout and encoded bytes of this image may be
+	 * shared with other references via the <code>TextImageCache</code>.
+	 * <p>
+	 * Subclasses that override <code>paintText()</code> or 
+	 * <code>getTextLayouts()</code> may paint from state that the cache 
+	 * does not know about, so by default only instances of 
+	 * <code>TextImageReference</code> itself are cacheable.
+	 * 
+	 * @return true if this image may use the <code>TextImageCache</code>
+	 */
+	protected boolean isCacheable() {
+		return getClass() == TextImageReference.class;
+	}
+	
+	/**
+	 * Returns the parts of the visual specification that describe the text:
+	 * the characters, their attributes (other than the image replacements
+	 * added during painting) and the replacement images.
+	 */
+	private List<Object> getTextSpecification() {
+		List<Object> spec = new ArrayList<Object>();
+		if (attributedString != null) {
+			AttributedCharacterIterator cit = attributedString.getIterator();
+			StringBuffer buf = new StringBuffer();
+			for (char c = cit.first(); c != CharacterIterator.DONE; c = cit.next()) {
+				buf.append(c);
+			}
+			spec.add(buf.toString());
+
+			Set<AttributedCharacterIterator.Attribute> attributeKeys = new HashSet<AttributedCharacterIterator.Attribute>(cit.getAllAttributeKeys());
+			attributeKeys.remove(TextAttribute.CHAR_REPLACEMENT);
+			cit.first();
+			while (cit.getIndex() < cit.getEndIndex()) {
+				int runLimit = cit.getRunLimit(attributeKeys);
+				Map<AttributedCharacterIterator.Attribute, Object> attributes = new HashMap<AttributedCharacterIterator.Attribute, Object>(cit.getAttributes());
+				attributes.remove(TextAttribute.CHAR_REPLACEMENT);
+				spec.add(Integer.valueOf(runLimit));
+				spec.add(attributes);
+				cit.setIndex(runLimit);
+			}
+		}
+		if (replacementImages != null) {
+			for (int i = 0; i < replacementImages.length; i++) {
+				spec.add(TextImageCache.identity(replacementImages[i]));
+			}
+			spec.add(Integer.valueOf(replacementImageAlignment));
+		}
+		return spec;
+	}
+	
+	/**
+	 * Returns the cache key for the layout computed by 
+	 * <code>reconstructBackgroundImage()</code>.
+	 */
+	private TextImageCache.Key getLayoutKey(int inX, int inY) {
+		List<Integer> insetValues = new ArrayList<Integer>();
+		if (insets != null) {
+			insetValues.add(Integer.valueOf(insets.getTop().getValue()));
+			insetValues.add(Integer.valueOf(insets.getRight().getValue()));
+			insetValues.add(Integer.valueOf(insets.getBottom().getValue()));
+			insetValues.add(Integer.valueOf(insets.getLeft().getValue()));
+		}
+		return new TextImageCache.Key(new Object[] {
+				TextImageCache.identity(backgroundImage), 
+				getTextSpecification(),
+				Integer.valueOf(inX),
+				Integer.valueOf(inY),
+				Boolean.valueOf(autoCenterAtConstruction),
+				Integer.valueOf(scaleOption),
+				insetValues,
+				Integer.valueOf(horizontalAlignment),
+				Integer.valueOf(verticalAlignment),
+				Integer.valueOf(textAngle)
+		});
+	}
+
+	/**
+	 * Returns the cache key for the encoded bytes of the image.
+	 */
+	private TextImageCache.Key getRasterKey() {
+		return new TextImageCache.Key(new Object[] {
+				TextImageCache.identity(backgroundImage), 
+				getTextSpecification(),
+				Integer.valueOf(x),
+				Integer.valueOf(y),
+				Integer.valueOf(horizontalAlignment),
+				Integer.valueOf(verticalAlignment),
+				Integer.valueOf(textAngle),
+				Boolean.valueOf(bestQuality),
+				getEncoder().getClass()
+		});
+	}
 	/**
 	 * Returns the backgroundImage in use
 	 * 
@@ -1124,6 +1261,17 @@ public class TextImageReference extends EncodedImageReference implements Seriali
 		}
 		/** Called to contruct the actual background image and do any stretching as necessary */
 		private void reconstructBackgroundImage(int inX, int inY) {		
+			TextImageCache.Key key = null;
+			if (isCacheable()) {
+				key = getLayoutKey(inX, inY);
+				TextImageCache.Layout layout = TextImageCache.getLayout(key);
+				if (layout != null) {
+					backgroundImage = layout.backgroundImage;
+					x = layout.x;
+					y = layout.y;
+					return;
+				}
+			}
 			if (!ImageKit.waitForImage(backgroundImage))
 				throw new IllegalStateException("The backgroundImage could not be scaled");
 				
@@ -1184,6 +1332,8 @@ public class TextImageReference extends EncodedImageReference implements Seriali
 			}
 			x = (autoCenterAtConstruction || inX == Integer.MAX_VALUE) ? imageW / 2 : inX;
 			y = (autoCenterAtConstruction || inY == Integer.MAX_VALUE) ? imageH / 2 : inY;
+			if (key != null)
+				TextImageCache.putLayout(key, new TextImageCache.Layout(backgroundImage, x, y));
 		}
 		/** Called when the image may need to be painted */
 		private Image paintImage() {
@@ -0,0 +1,323 @@
+/* 
+ * This file is part of the Echo Point Project.  This project is a collection
+ * of Components that have extended the Echo Web Application Framework.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+package echopointng.richtext;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import nextapp.echo2.app.ApplicationInstance;
+import nextapp.echo2.app.TaskCallback;
+import nextapp.echo2.app.TaskQueueHandle;
+import echopointng.RichTextArea;
+import echopointng.ui.util.HtmlNodeLexer;
+import echopointng.util.collections.BoundedCache;
+
+/**
+ * <code>CachingRichTextSpellChecker</code> is a <code>RichTextSpellChecker</code>
+ * that wraps another spell checker and caches its results.
+ * <p>
+ * The result of <code>checkWord()</code> is cached per word, and the
+ * misspellings found in a block of text (a paragraph of the
+ * <code>RichTextArea</code> HTML) are cached per block, so that only text
+ * that has changed since the last spell checking pass is parsed and checked
+ * again. Both caches are bounded.
+ * <p>
+ * The caches are as widely shared as the instance itself. Use one instance
+ * per user session for session level caching, or share one instance between
+ * all <code>RichTextArea</code>s of an application for application level
+ * caching. Calls to the wrapped spell checker are synchronized on it, so it
+ * need not be thread safe itself.
+ * <p>
+ * Large documents can be checked in the background via
+ * <code>checkInBackground()</code>, which submits the work to the
+ * application's background executor and turns on spell checking for the
+ * <code>RichTextArea</code> through its <code>TaskQueue</code> mechanism
+ * once the results are cached.
+ */
+public class CachingRichTextSpellChecker implements RichTextSpellChecker, Serializable {
+
+	/**
+	 * <code>Misspelling</code> describes a badly spelt word within a block
+	 * of text.
+	 */
+	public static class Misspelling implements Serializable {
+		private int startIndex;
+		private int endIndex;
+		private String[] alternatives;
+
+		private Misspelling(int startIndex, int endIndex, String[] alternatives) {
+			this.startIndex = startIndex;
+			this.endIndex = endIndex;
+			this.alternatives = alternatives;
+		}
+
+		/**
+		 * @return the starting index of the word within the text, inclusive
+		 */
+		public int getStartIndex() {
+			return startIndex;
+		}
+
+		/**
+		 * @return the ending index of the word within the text, exclusive
+		 */
+		public int getEndIndex() {
+			return endIndex;
+		}
+
+		/**
+		 * @return the alternatives for the word, which may be a zero length
+		 *         array if no alternatives are known
+		 */
+		public String[] getAlternatives() {
+			return alternatives;
+		}
+	}
+
+	/** The default maximum number of words to cache */
+	public static final int DEFAULT_MAXIMUM_WORDS = 4096;
+
+	/** The default maximum number of blocks of text to cache */
+	public static final int DEFAULT_MAXIMUM_PARAGRAPHS = 512;
+
+	/** Cached in place of a <code>null</code> result for correctly spelt words */
+	private static final String[] CORRECT = new String[0];
+
+	private static final Misspelling[] NO_MISSPELLINGS = new Misspelling[0];
+
+	/**
+	 * Finds the misspellings in a block of text using the given spell
+	 * checker. If the spell checker is a
+	 * <code>CachingRichTextSpellChecker</code> then its cached results are
+	 * used.
+	 * 
+	 * @param spellChecker -
+	 *            the spell checker to use
+	 * @param text -
+	 *            the block of text to check
+	 * @return a non null array of misspellings, in text order
+	 */
+	public static Misspelling[] findMisspellings(RichTextSpellChecker spellChecker, String text) {
+		if (spellChecker instanceof CachingRichTextSpellChecker) {
+			return ((CachingRichTextSpellChecker) spellChecker).checkParagraph(text);
+		}
+		return computeMisspellings(spellChecker, text);
+	}
+
+	private static Misspelling[] computeMisspellings(RichTextSpellChecker spellChecker, String text) {
+		SpellCheckerWord[] words = spellChecker.parseWords(text);
+		List misspellings = null;
+		for (int i = 0; i < words.length; i++) {
+			int startIndex = words[i].getStartIndex();
+			int endIndex = words[i].getEndIndex();
+			if (endIndex <= startIndex) {
+				continue;
+			}
+			String[] alternatives = spellChecker.checkWord(text.substring(startIndex, endIndex));
+			if (alternatives != null) {
+				if (misspellings == null) {
+					misspellings = new ArrayList();
+				}
+				misspellings.add(new Misspelling(startIndex, endIndex, alternatives));
+			}
+		}
+		if (misspellings == null) {
+			return NO_MISSPELLINGS;
+		}
+		return (Misspelling[]) misspellings.toArray(new Misspelling[misspellings.size()]);
+	}
+
+	private RichTextSpellChecker spellChecker;
+	private int maximumWords;
+	private int maximumParagraphs;
+	private transient BoundedCache wordCache;
+	private transient BoundedCache paragraphCache;
+
+	/**
+	 * Constructs a <code>CachingRichTextSpellChecker</code> with the default
+	 * cache bounds.
+	 * 
+	 * @param spellChecker -
+	 *            the spell checker whose results are cached
+	 */
+	public CachingRichTextSpellChecker(RichTextSpellChecker spellChecker) {
+		this(spellChecker, DEFAULT_MAXIMUM_WORDS, DEFAULT_MAXIMUM_PARAGRAPHS);
+	}
+
+	/**
+	 * Constructs a <code>CachingRichTextSpellChecker</code>
+	 * 
+	 * @param spellChecker -
+	 *            the spell checker whose results are cached
+	 * @param maximumWords -
+	 *            the maximum number of words to cache
+	 * @param maximumParagraphs -
+	 *            the maximum number of blocks of text to cache
+	 */
+	public CachingRichTextSpellChecker(RichTextSpellChecker spellChecker, int maximumWords, int maximumParagraphs) {
+		if (spellChecker == null) {
+			throw new IllegalArgumentException("spellChecker must not be null");
+		}
+		this.spellChecker = spellChecker;
+		this.maximumWords = maximumWords;
+		this.maximumParagraphs = maximumParagraphs;
+	}
+
+	/**
+	 * Checks a <code>RichTextArea</code> in the background, using
+	 * <code>ApplicationInstance.submitTask()</code>, and then turns spell
+	 * checking on for it via a <code>TaskQueue</code>. The
+	 * results are cached, so rendering the spell checked HTML does not check
+	 * the text again unless it has changed in the meantime.
+	 * <p>
+	 * This must be called from the user interface thread of the
+	 * <code>ApplicationInstance</code>, and the <code>RichTextArea</code>
+	 * should use this spell checker.
+	 * 
+	 * @param rta -
+	 *            the <code>RichTextArea</code> to check
+	 */
+	public void checkInBackground(final RichTextArea rta) {
+		final ApplicationInstance app = ApplicationInstance.getActive();
+		if (app == null) {
+			throw new IllegalStateException("checkInBackground() must be called from the user interface thread");
+		}
+		final String htmlText = rta.getText();
+		final TaskQueueHandle taskQueue = app.createTaskQueue();
+		Callable task = new Callable() {
+			public Object call() {
+				if (htmlText != null) {
+					HtmlNodeLexer.lex(htmlText, new HtmlNodeLexer.HtmlLexerCallBack() {
+						public StringBuffer onCommentNode(StringBuffer comment) {
+							return comment;
+						}
+						public StringBuffer onElementNode(StringBuffer element) {
+							return element;
+						}
+						public StringBuffer onTextNode(StringBuffer textNode) {
+							checkParagraph(textNode.toString());
+							return textNode;
+						}
+					});
+				}
+				return null;
+			}
+		};
+		app.submitTask(taskQueue, task, new TaskCallback() {
+			public void taskCompleted(Object result) {
+				app.removeTaskQueue(taskQueue);
+				rta.setSpellCheckInProgress(true);
+			}
+			public void taskFailed(Throwable ex) {
+				// spell check whatever is not yet cached while rendering
+				taskCompleted(null);
+			}
+		});
+	}
+
+	/**
+	 * Finds the misspellings in a block of text, using the cached result if
+	 * the same text has been checked before.
+	 * 
+	 * @param text -
+	 *            the block of text to check
+	 * @return a non null array of misspellings, in text order
+	 */
+	public Misspelling[] checkParagraph(String text) {
+		BoundedCache cache = getParagraphCache();
+		Misspelling[] misspellings = (Misspelling[]) cache.get(text);
+		if (misspellings == null) {
+			misspellings = computeMisspellings(this, text);
+			cache.put(text, misspellings);
+		}
+		return misspellings;
+	}
+
+	/**
+	 * @see echopointng.richtext.RichTextSpellChecker#checkWord(java.lang.String)
+	 */
+	public String[] checkWord(String word) {
+		BoundedCache cache = getWordCache();
+		String[] alternatives = (String[]) cache.get(word);
+		if (alternatives == null) {
+			synchronized (spellChecker) {
+				alternatives = spellChecker.checkWord(word);
+			}
+			cache.put(word, alternatives == null ? CORRECT : alternatives);
+		}
+		return alternatives == CORRECT ? null : alternatives;
+	}
+
+	/**
+	 * Removes all cached results, for example after the dictionary of the
+	 * wrapped spell checker has changed.
+	 */
+	public void clear() {
+		getWordCache().clear();
+		getParagraphCache().clear();
+	}
+
+	/**
+	 * @return the cache of blocks of text to their misspellings
+	 */
+	public synchronized BoundedCache getParagraphCache() {
+		if (paragraphCache == null) {
+			paragraphCache = new BoundedCache(maximumParagraphs);
+		}
+		return paragraphCache;
+	}
+
+	/**
+	 * @return the spell checker whose results are cached
+	 */
+	public RichTextSpellChecker getSpellChecker() {
+		return spellChecker;
+	}
+
+	/**
+	 * @return the cache of words to their spell checking results
+	 */
+	public synchronized BoundedCache getWordCache() {
+		if (wordCache == null) {
+			wordCache = new BoundedCache(maximumWords);
+		}
+		return wordCache;
+	}
+
+	/**
+	 * @see echopointng.richtext.RichTextSpellChecker#parseWords(java.lang.String)
+	 */
+	public SpellCheckerWord[] parseWords(String textBuffer) {
+		synchronized (spellChecker) {
+			return spellChecker.parseWords(textBuffer);
+		}
+	}
+}
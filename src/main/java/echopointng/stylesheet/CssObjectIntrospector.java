@@ -33,6 +33,7 @@ import java.beans.IndexedPropertyDescriptor;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.HashMap;
@@ -50,6 +51,11 @@ import nextapp.echo2.app.componentxml.ComponentIntrospector;
 
 public class CssObjectIntrospector {
 
+	/**
+	 * A map of weakly referenced <code>ClassLoader</code>s to caches of weakly
+	 * referenced introspectors, as for the cache of
+	 * <code>ComponentIntrospector</code>.
+	 */
 	private static final Map classLoaderCache = new WeakHashMap();
 
 	/**
@@ -74,10 +80,11 @@ public class CssObjectIntrospector {
 		}
 		CssObjectIntrospector ci;
 		synchronized (ciStore) {
-			ci = (CssObjectIntrospector) ciStore.get(typeName);
+			WeakReference ciReference = (WeakReference) ciStore.get(typeName);
+			ci = ciReference == null ? null : (CssObjectIntrospector) ciReference.get();
 			if (ci == null) {
 				ci = new CssObjectIntrospector(typeName, classLoader);
-				ciStore.put(typeName, ci);
+				ciStore.put(typeName, new WeakReference(ci));
 			}
 		}
 		return ci;
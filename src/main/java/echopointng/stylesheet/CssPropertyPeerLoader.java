@@ -29,6 +29,7 @@ package echopointng.stylesheet;
  * the terms of any one of the MPL, the GPL or the LGPL.
  */
 
+import java.lang.ref.WeakReference;
 import java.util.Map;
 import java.util.WeakHashMap;
 
@@ -46,6 +47,11 @@ public class CssPropertyPeerLoader {
 
 	private static final String PROPERTY_PEERS_PATH = "META-INF/echopointng/stylesheet/CssPropertyPeers.properties";
 
+	/**
+	 * A map of weakly referenced <code>ClassLoader</code>s to weakly
+	 * referenced <code>CssPropertyPeerLoader</code>s, as for the cache of
+	 * <code>ComponentIntrospector</code>.
+	 */
 	private static final Map classLoaderToPropertyLoaderMap = new WeakHashMap();
 
 	/**
@@ -58,10 +64,12 @@ public class CssPropertyPeerLoader {
 	 */
 	public static CssPropertyPeerLoader forClassLoader(ClassLoader classLoader) {
 		synchronized (classLoaderToPropertyLoaderMap) {
-			CssPropertyPeerLoader propertyLoader = (CssPropertyPeerLoader) classLoaderToPropertyLoaderMap.get(classLoader);
+			WeakReference propertyLoaderReference = (WeakReference) classLoaderToPropertyLoaderMap.get(classLoader);
+			CssPropertyPeerLoader propertyLoader = propertyLoaderReference == null 
+					? null : (CssPropertyPeerLoader) propertyLoaderReference.get();
 			if (propertyLoader == null) {
 				propertyLoader = new CssPropertyPeerLoader(classLoader);
-				classLoaderToPropertyLoaderMap.put(classLoader, propertyLoader);
+				classLoaderToPropertyLoaderMap.put(classLoader, new WeakReference(propertyLoader));
 			}
 			return propertyLoader;
 		}
@@ -41,6 +41,7 @@ import nextapp.echo2.app.MutableStyle;
 import nextapp.echo2.app.MutableStyleSheet;
 import nextapp.echo2.app.Style;
 import nextapp.echo2.app.StyleSheet;
+import nextapp.echo2.app.util.CompiledStyleSheet;
 import echopointng.util.reflect.ReflectionKit;
 
 /**
@@ -117,6 +118,9 @@ public class CssStyleSheetLoader {
 	/**
 	 * Parses a CSS style sheet and returns a <code>StyleSheet</code>
 	 * instance.
+	 * <p>
+	 * The compiled form of the style sheet is loaded in place of the CSS
+	 * data if it is available and was created from the current CSS data.
 	 * 
 	 * @param resourceName
 	 *            the name of the resource on the classpath containing the CSS
@@ -127,9 +131,19 @@ public class CssStyleSheetLoader {
 	 * @return the created <code>StyleSheet</code>
 	 * @throws CssStyleSheetException
 	 *             if parsing/instantiation errors occur
+	 * @see CompiledStyleSheet
 	 */
 	public static StyleSheet load(String resourceName, ClassLoader classLoader)
 			throws CssStyleSheetException {
+		try {
+			StyleSheet styleSheet = CompiledStyleSheet.load(resourceName, classLoader);
+			if (styleSheet != null) {
+				return styleSheet;
+			}
+		} catch (IOException ex) {
+			// the compiled StyleSheet cannot be read (for example it is out of
+			// date with the classes it references) so load the CSS data
+		}
 		InputStream in = null;
 		try {
 			in = classLoader.getResourceAsStream(resourceName);
@@ -35,6 +35,8 @@ import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.net.URL;
 import java.text.AttributedString;
+import java.util.Arrays;
+import java.util.List;
 
 import nextapp.echo2.app.Alignment;
 import nextapp.echo2.app.Border;
@@ -47,6 +49,8 @@ import echopointng.image.ImageKit;
 import echopointng.image.TextImageReference;
 import echopointng.ui.resource.Resources;
 import echopointng.util.ColorKit;
+import echopointng.util.collections.BoundedCache;
+import echopointng.util.collections.TimerExpiryCache;
 import echopointng.util.reflect.ReflectionKit;
 
 /**
@@ -59,6 +63,9 @@ public class DefaultTabImageRenderer implements TabImageRenderer, Serializable {
 	/** The default insets used by the DefaultTabImageRenderer */ 
 	public static final Insets DEFAULT_INSETS = new Insets(5);
 	
+	/** The maximum number of tab images kept by a DefaultTabImageRenderer */
+	public static final int IMAGE_CACHE_SIZE = 128;
+	
 	private ImageReference leadInImage;
 	private ImageReference leadOutImage;
 	private transient Image activeTabImage;
@@ -69,6 +76,8 @@ public class DefaultTabImageRenderer implements TabImageRenderer, Serializable {
 	private Color activeColor = ColorKit.makeColor(0xC0,0xC0,0xC0);
 	private Color inactiveColor = ColorKit.makeColor(0xE0,0xE0,0xE0);
 	private int tabPlacement = Alignment.TOP;
+	private long imageCacheTimeout = -1;
+	private transient BoundedCache imageCache;
 	
 	/**
 	 * 
@@ -125,6 +134,16 @@ public class DefaultTabImageRenderer implements TabImageRenderer, Serializable {
 			tabText = "Tab " + tabIndex;
 		}
 		
+		//
+		// hand out the same image for the same tab look so that its URI,
+		// and hence the browsers copy of it, stays the same between renders
+		List key = Arrays.asList(new Object[] { tabText, tabComponent.getForeground(), tp.getFont(), Boolean.valueOf(isSelected) });
+		BoundedCache cache = getImageCache();
+		TextImageReference imageRef = (TextImageReference) cache.get(key);
+		if (imageRef != null) {
+			return imageRef;
+		}
+		
 		if (isSelected) {
 			as = TextImageReference.getAttributedString(tabText, tabComponent.getForeground(), tp.getFont());
 			imagetoUse = activeTabImage;			
@@ -132,12 +151,61 @@ public class DefaultTabImageRenderer implements TabImageRenderer, Serializable {
 			as = TextImageReference.getAttributedString(tabText, tabComponent.getForeground(), tp.getFont());
 			imagetoUse = inactiveTabImage;			
 		}
-		TextImageReference imageRef = new TextImageReference(as,imagetoUse, TextImageReference.SCALE_SPLICE_H_THEN_V);			
+		imageRef = new TextImageReference(as,imagetoUse, TextImageReference.SCALE_SPLICE_H_THEN_V);			
 		if (this.insets != null)
 			imageRef.setInsets(this.insets);
+		cache.put(key, imageRef);
 		return imageRef;
 	}
 
+	/**
+	 * Returns the cache of tab images that have been handed out, creating
+	 * it if need be.
+	 */
+	private synchronized BoundedCache getImageCache() {
+		if (imageCache == null) {
+			imageCache = new BoundedCache(IMAGE_CACHE_SIZE, -1, imageCacheTimeout, false);
+			if (imageCacheTimeout > 0) {
+				imageCache.setReaperInterval(TimerExpiryCache.DEFAULT_REAPER_INTERVAL);
+			}
+		}
+		return imageCache;
+	}
+
+	/**
+	 * Discards any tab images that have been handed out, so that the next
+	 * ones reflect the current settings.
+	 */
+	private synchronized void clearImageCache() {
+		imageCache = null;
+	}
+
+	/**
+	 * Returns how long, in milliseconds, a tab image is kept after it was
+	 * last asked for. A value of -1 means tab images are only discarded
+	 * when more than IMAGE_CACHE_SIZE are held.
+	 * 
+	 * @return the tab image timeout in milliseconds
+	 */
+	public long getImageCacheTimeout() {
+		return imageCacheTimeout;
+	}
+
+	/**
+	 * Sets how long, in milliseconds, a tab image is kept after it was last
+	 * asked for. Images of tabs that have not been rendered for this long are
+	 * released, which keeps the memory used by large or long lived tab sets
+	 * bounded. A value of -1 (the default) means tab images are only
+	 * discarded when more than IMAGE_CACHE_SIZE are held.
+	 * 
+	 * @param milliSecs -
+	 *            the tab image timeout in milliseconds
+	 */
+	public void setImageCacheTimeout(long milliSecs) {
+		imageCacheTimeout = milliSecs;
+		clearImageCache();
+	}
+
 	/**
 	 * @see echopointng.tabbedpane.TabImageRenderer#getImageBorderWidth()
 	 */
@@ -196,6 +264,7 @@ public class DefaultTabImageRenderer implements TabImageRenderer, Serializable {
 		if (image == null)
 			throw new IllegalArgumentException("The active tab image must be non null!");
 		activeTabImage = image;
+		clearImageCache();
 	}
 
 	/** 
@@ -209,6 +278,7 @@ public class DefaultTabImageRenderer implements TabImageRenderer, Serializable {
 		if (image == null)
 			throw new IllegalArgumentException("The inactive tab image must be non null!");
 		inactiveTabImage = image;
+		clearImageCache();
 	}
 
 	/** 
@@ -243,6 +313,7 @@ public class DefaultTabImageRenderer implements TabImageRenderer, Serializable {
 	 */
 	public void setInsets(Insets insets) {
 		this.insets = insets;
+		clearImageCache();
 	}
 	/** 
 	 * Sets the border color that may be around any of the tab images
@@ -37,6 +37,8 @@ import java.util.List;
 import nextapp.echo2.app.event.ChangeEvent;
 import nextapp.echo2.app.event.ChangeListener;
 import nextapp.echo2.app.event.EventListenerList;
+import nextapp.echo2.app.event.ListSelectionEvent;
+import nextapp.echo2.app.list.BulkListSelectionModel;
 import nextapp.echo2.app.table.TableModel;
 import echopointng.list.ListSelectionModelEx;
 
@@ -61,7 +63,7 @@ import echopointng.list.ListSelectionModelEx;
  * 
  * @author David Nedde
  */
-public class AbleTableSelectionModel implements ListSelectionModelEx, Serializable {
+public class AbleTableSelectionModel implements ListSelectionModelEx, BulkListSelectionModel, Serializable {
 
 	private EventListenerList listenerList = new EventListenerList();
 
@@ -73,7 +75,13 @@ public class AbleTableSelectionModel implements ListSelectionModelEx, Serializab
 
 	private TableModel tableModel;
 
-	private boolean suppressChangeNotifications = false;
+	private boolean valueIsAdjusting = false;
+
+	private boolean adjustedChangePending = false;
+
+	private int adjustedFirstIndex;
+
+	private int adjustedLastIndex;
 
 	public AbleTableSelectionModel(TableModel tableModel) {
 		this.tableModel = tableModel;
@@ -87,23 +95,95 @@ public class AbleTableSelectionModel implements ListSelectionModelEx, Serializab
 		listenerList.addListener(ChangeListener.class, l);
 	}
 
+	/**
+	 * Selects the given view indices in addition to those already selected.
+	 * 
+	 * @see nextapp.echo2.app.list.BulkListSelectionModel#addSelectedIndices(int[])
+	 */
+	public void addSelectedIndices(int[] indices) {
+		boolean adjusting = valueIsAdjusting;
+		setValueIsAdjusting(true);
+		try {
+			for (int i = 0; i < indices.length; ++i) {
+				setSelectedIndex(indices[i], true);
+			}
+		} finally {
+			setValueIsAdjusting(adjusting);
+		}
+	}
+
+	/**
+	 * Selects the given interval of view indices in addition to those already
+	 * selected.
+	 * 
+	 * @see nextapp.echo2.app.list.BulkListSelectionModel#addSelectionInterval(int, int)
+	 */
+	public void addSelectionInterval(int index0, int index1) {
+		if (selectionMode == SINGLE_SELECTION) {
+			setSelectedIndex(index1, true);
+			return;
+		}
+		boolean adjusting = valueIsAdjusting;
+		setValueIsAdjusting(true);
+		try {
+			for (int i = Math.min(index0, index1), max = Math.max(index0, index1); i <= max; ++i) {
+				setSelectedIndex(i, true);
+			}
+		} finally {
+			setValueIsAdjusting(adjusting);
+		}
+	}
+
 	/**
 	 * @see nextapp.echo2.app.list.ListSelectionModel#clearSelection()
 	 */
 	public void clearSelection() {
+		if (selection.length() == 0) {
+			return;
+		}
 		selection = new BitSet();
 		minSelectedUnsortedIndex = -1;
 		fireValueChanged();
 	}
 
 	/**
-	 * Notifies <code>ChangeListener</code>s that the selection has changed.
+	 * Notifies <code>ChangeListener</code>s that the selection has changed,
+	 * without describing the changed interval.
 	 */
 	protected void fireValueChanged() {
-		if (suppressChangeNotifications) {
+		fireValueChanged(-1, -1);
+	}
+
+	/**
+	 * Notifies <code>ChangeListener</code>s that the selection has changed
+	 * within the specified interval of view indices. If the value is
+	 * adjusting, notification is deferred until adjustment is complete.
+	 * 
+	 * @param firstIndex -
+	 *            the first view index whose selection state may have changed,
+	 *            or -1 if the changed interval is not known
+	 * @param lastIndex -
+	 *            the last view index whose selection state may have changed,
+	 *            or -1 if the changed interval is not known
+	 */
+	protected void fireValueChanged(int firstIndex, int lastIndex) {
+		if (valueIsAdjusting) {
+			if (!adjustedChangePending) {
+				adjustedChangePending = true;
+				adjustedFirstIndex = firstIndex;
+				adjustedLastIndex = lastIndex;
+			} else if (adjustedFirstIndex != -1) {
+				if (firstIndex == -1) {
+					adjustedFirstIndex = -1;
+					adjustedLastIndex = -1;
+				} else {
+					adjustedFirstIndex = Math.min(adjustedFirstIndex, firstIndex);
+					adjustedLastIndex = Math.max(adjustedLastIndex, lastIndex);
+				}
+			}
 			return;
 		}
-		ChangeEvent e = new ChangeEvent(this);
+		ChangeEvent e = new ListSelectionEvent(this, firstIndex, lastIndex);
 		EventListener[] listeners = listenerList.getListeners(ChangeListener.class);
 		for (int index = 0; index < listeners.length; ++index) {
 			((ChangeListener) listeners[index]).stateChanged(e);
@@ -182,6 +262,13 @@ public class AbleTableSelectionModel implements ListSelectionModelEx, Serializab
 		return selectionMode;
 	}
 
+	/**
+	 * @see nextapp.echo2.app.list.BulkListSelectionModel#getValueIsAdjusting()
+	 */
+	public boolean getValueIsAdjusting() {
+		return valueIsAdjusting;
+	}
+
 	/**
 	 * Returns the selection state of the given row. Note that the row index is
 	 * given in terms of the View.
@@ -238,6 +325,40 @@ public class AbleTableSelectionModel implements ListSelectionModelEx, Serializab
 		listenerList.removeListener(ChangeListener.class, l);
 	}
 
+	/**
+	 * Deselects the given view indices.
+	 * 
+	 * @see nextapp.echo2.app.list.BulkListSelectionModel#removeSelectedIndices(int[])
+	 */
+	public void removeSelectedIndices(int[] indices) {
+		boolean adjusting = valueIsAdjusting;
+		setValueIsAdjusting(true);
+		try {
+			for (int i = 0; i < indices.length; ++i) {
+				setSelectedIndex(indices[i], false);
+			}
+		} finally {
+			setValueIsAdjusting(adjusting);
+		}
+	}
+
+	/**
+	 * Deselects the given interval of view indices.
+	 * 
+	 * @see nextapp.echo2.app.list.BulkListSelectionModel#removeSelectionInterval(int, int)
+	 */
+	public void removeSelectionInterval(int index0, int index1) {
+		boolean adjusting = valueIsAdjusting;
+		setValueIsAdjusting(true);
+		try {
+			for (int i = Math.min(index0, index1), max = Math.max(index0, index1); i <= max; ++i) {
+				setSelectedIndex(i, false);
+			}
+		} finally {
+			setValueIsAdjusting(adjusting);
+		}
+	}
+
 	/**
 	 * This sets the selection state of the given row to newValue. Note that the
 	 * row index is given in terms of the sorted View.
@@ -254,7 +375,14 @@ public class AbleTableSelectionModel implements ListSelectionModelEx, Serializab
 		try {
 			int rowIndex = toUnpagedModelRowIndex(viewRowIndex);
 			rowIndex = toUnsortedModelRowIndex(rowIndex);
-			setSelectedUnsortedIndex(rowIndex, newValue);
+			if (setSelectedUnsortedIndex(rowIndex, newValue)) {
+				if (selectionMode == SINGLE_SELECTION) {
+					// a previously selected row may also have been deselected
+					fireValueChanged();
+				} else {
+					fireValueChanged(viewRowIndex, viewRowIndex);
+				}
+			}
 		} catch (ArrayIndexOutOfBoundsException e) {
 			// table size changed - ignore
 		}
@@ -273,29 +401,53 @@ public class AbleTableSelectionModel implements ListSelectionModelEx, Serializab
 	 * @see echopointng.list.ListSelectionModelEx#setSelectedIndices(int[])
 	 */
 	public void setSelectedIndices(int[] selectedIndices) {
-		suppressChangeNotifications = true;
-		/*
+		boolean adjusting = valueIsAdjusting;
+		setValueIsAdjusting(true);
+		try {
+			/*
 		 * Now if we implement PageableTableModel then we don want to clear any
 		 * previous selections because while they are not in view they still
 		 * matter but Table doesnt know that so we reckon we know whats best for
 		 * it.
 		 */
-		if (!(tableModel instanceof PageableTableModel)) {
-			this.clearSelection();
+			if (!(tableModel instanceof PageableTableModel)) {
+				this.clearSelection();
+			}
+			for (int i = 0; i < selectedIndices.length; ++i) {
+				this.setSelectedIndex(selectedIndices[i], true);
+			}
+		} finally {
+			setValueIsAdjusting(adjusting);
 		}
-		for (int i = 0; i < selectedIndices.length; ++i) {
-			this.setSelectedIndex(selectedIndices[i], true);
+	}
+
+	/**
+	 * Selects the given interval of view indices. As with
+	 * <code>setSelectedIndices()</code>, previous selections are retained if
+	 * the associated TableModel implements {@link PageableTableModel}.
+	 * 
+	 * @see nextapp.echo2.app.list.BulkListSelectionModel#setSelectionInterval(int, int)
+	 */
+	public void setSelectionInterval(int index0, int index1) {
+		boolean adjusting = valueIsAdjusting;
+		setValueIsAdjusting(true);
+		try {
+			if (!(tableModel instanceof PageableTableModel)) {
+				this.clearSelection();
+			}
+			addSelectionInterval(index0, index1);
+		} finally {
+			setValueIsAdjusting(adjusting);
 		}
-		// End temporary suppression.
-		suppressChangeNotifications = false;
-		fireValueChanged();
 	}
 
 	/**
-	 * @see nextapp.echo2.app.list.ListSelectionModel#setSelectedIndex(int,
-	 *      boolean)
+	 * Sets the selection state of a row given in terms of the underlying
+	 * model, deselecting the currently selected row in single selection mode.
+	 * 
+	 * @return true if the selection changed
 	 */
-	private void setSelectedUnsortedIndex(int unsortedIndex, boolean newValue) {
+	private boolean setSelectedUnsortedIndex(int unsortedIndex, boolean newValue) {
 		boolean oldValue = selection.get(unsortedIndex);
 
 		if (newValue ^ oldValue) {
@@ -312,18 +464,12 @@ public class AbleTableSelectionModel implements ListSelectionModelEx, Serializab
 				if (unsortedIndex == minSelectedUnsortedIndex) {
 					// Minimum selected index has been deselected, find new
 					// minimum selected index.
-					int max = selection.length() - 1;
-					minSelectedUnsortedIndex = -1;
-					for (int i = 0; i <= max; ++i) {
-						if (selection.get(i)) {
-							minSelectedUnsortedIndex = i;
-							break;
-						}
-					}
+					minSelectedUnsortedIndex = selection.nextSetBit(unsortedIndex + 1);
 				}
 			}
-			fireValueChanged();
+			return true;
 		}
+		return false;
 	}
 
 	/**
@@ -341,6 +487,20 @@ public class AbleTableSelectionModel implements ListSelectionModelEx, Serializab
 		fireValueChanged();
 	}
 
+	/**
+	 * @see nextapp.echo2.app.list.BulkListSelectionModel#setValueIsAdjusting(boolean)
+	 */
+	public void setValueIsAdjusting(boolean newValue) {
+		if (newValue == valueIsAdjusting) {
+			return;
+		}
+		valueIsAdjusting = newValue;
+		if (!valueIsAdjusting && adjustedChangePending) {
+			adjustedChangePending = false;
+			fireValueChanged(adjustedFirstIndex, adjustedLastIndex);
+		}
+	}
+
 	/**
 	 * @see java.lang.Object#toString()
 	 */
@@ -406,4 +566,4 @@ public class AbleTableSelectionModel implements ListSelectionModelEx, Serializab
 		}
 		return ints;
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -30,8 +30,6 @@ package echopointng.table;
 
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -39,7 +37,10 @@ import org.w3c.dom.Element;
 import echopointng.EPNG;
 import echopointng.LiveTable;
 import jakarta.servlet.http.HttpServletRequest;
+import nextapp.echo2.app.ApplicationInstance;
 import nextapp.echo2.app.Style;
+import nextapp.echo2.webcontainer.ContainerContext;
+import nextapp.echo2.webcontainer.ContainerInstance;
 import nextapp.echo2.webrender.Connection;
 import nextapp.echo2.webrender.ContentType;
 import nextapp.echo2.webrender.Service;
@@ -78,17 +79,19 @@ public class LiveTableService implements Service {
         return DO_NOT_CACHE;
     }
     
-	private Map interestedParties = new HashMap();
-	
-
 	/**
-	 * Registers the <code>LiveTable</code> with the service
+	 * Registers the <code>LiveTable</code> with the service.  The 
+	 * registration is held by the user's session and hence only
+	 * requests from that session can reach the <code>LiveTable</code>.
 	 * 
 	 * @param liveTable -  a <code>LiveTable</code> to be notified
 	 * of external events.
 	 */
-	public synchronized void register(LiveTable liveTable) {
-		interestedParties.put("c_" + liveTable.getRenderId(),liveTable);
+	public void register(LiveTable liveTable) {
+		ContainerContext containerContext = getContainerContext(liveTable.getApplicationInstance());
+		if (containerContext != null) {
+			containerContext.registerServiceHandler(this, "c_" + liveTable.getRenderId(), liveTable);
+		}
 	}
 
 	/**
@@ -97,8 +100,15 @@ public class LiveTableService implements Service {
 	 * @param liveTable -  an <code>LiveTable</code> to be removed from
 	 * being notified of external events.
 	 */
-	public synchronized void deregister(LiveTable liveTable) {
-		interestedParties.remove(liveTable);
+	public void deregister(LiveTable liveTable) {
+		ContainerContext containerContext = getContainerContext(liveTable.getApplicationInstance());
+		if (containerContext != null) {
+			containerContext.unregisterServiceHandler(this, "c_" + liveTable.getRenderId());
+		}
+	}
+	
+	private static ContainerContext getContainerContext(ApplicationInstance app) {
+		return app == null ? null : (ContainerContext) app.getContextProperty(ContainerContext.CONTEXT_PROPERTY_NAME);
 	}
     
 
@@ -109,7 +119,8 @@ public class LiveTableService implements Service {
     	HttpServletRequest request = conn.getRequest();
         
         String elementId = request.getParameter("elementId");
-        LiveTable liveTable = (LiveTable) interestedParties.get(elementId);
+        ContainerInstance ci = (ContainerInstance) conn.getUserInstance();
+        LiveTable liveTable = (LiveTable) ci.getServiceHandler(this, elementId);
         if (liveTable == null) {
         	throw new IllegalStateException("The LiveTable " + elementId + " could not be found.");
         }
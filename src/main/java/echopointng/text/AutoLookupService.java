@@ -30,8 +30,6 @@ package echopointng.text;
 
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -42,8 +40,11 @@ import echopointng.text.AutoLookupModel.Entry;
 import echopointng.util.HtmlKit;
 import echopointng.xhtml.XhtmlFragment;
 import jakarta.servlet.http.HttpServletRequest;
+import nextapp.echo2.app.ApplicationInstance;
 import nextapp.echo2.app.Component;
 import nextapp.echo2.app.Style;
+import nextapp.echo2.webcontainer.ContainerContext;
+import nextapp.echo2.webcontainer.ContainerInstance;
 import nextapp.echo2.webrender.Connection;
 import nextapp.echo2.webrender.ContentType;
 import nextapp.echo2.webrender.Service;
@@ -83,17 +84,20 @@ public class AutoLookupService implements Service {
 		return DO_NOT_CACHE;
 	}
 
-	private Map interestedParties = new HashMap();
-
 	/**
-	 * Registers the <code>AutoLookupTextFieldEx</code> with the service
+	 * Registers the <code>AutoLookupTextFieldEx</code> with the service. The
+	 * registration is held by the user's session and hence only requests from
+	 * that session can reach the <code>AutoLookupTextFieldEx</code>.
 	 * 
 	 * @param textFieldEx -
 	 *            a <code>AutoLookupTextFieldEx</code> to be notified of
 	 *            external events.
 	 */
-	public synchronized void register(AutoLookupTextFieldEx textFieldEx) {
-		interestedParties.put("c_" + textFieldEx.getRenderId(), textFieldEx);
+	public void register(AutoLookupTextFieldEx textFieldEx) {
+		ContainerContext containerContext = getContainerContext(textFieldEx.getApplicationInstance());
+		if (containerContext != null) {
+			containerContext.registerServiceHandler(this, "c_" + textFieldEx.getRenderId(), textFieldEx);
+		}
 	}
 
 	/**
@@ -103,8 +107,15 @@ public class AutoLookupService implements Service {
 	 *            an <code>AutoLookupTextFieldEx</code> to be removed from
 	 *            being notified of external events.
 	 */
-	public synchronized void deregister(AutoLookupTextFieldEx textFieldEx) {
-		interestedParties.remove(textFieldEx);
+	public void deregister(AutoLookupTextFieldEx textFieldEx) {
+		ContainerContext containerContext = getContainerContext(textFieldEx.getApplicationInstance());
+		if (containerContext != null) {
+			containerContext.unregisterServiceHandler(this, "c_" + textFieldEx.getRenderId());
+		}
+	}
+	
+	private static ContainerContext getContainerContext(ApplicationInstance app) {
+		return app == null ? null : (ContainerContext) app.getContextProperty(ContainerContext.CONTEXT_PROPERTY_NAME);
 	}
 
 	/**
@@ -115,7 +126,8 @@ public class AutoLookupService implements Service {
 
 		String elementId = request.getParameter("elementId");
 		String searchValue = request.getParameter("searchValue");
-		AutoLookupTextFieldEx textFieldEx = (AutoLookupTextFieldEx) interestedParties.get(elementId);
+		ContainerInstance ci = (ContainerInstance) conn.getUserInstance();
+		AutoLookupTextFieldEx textFieldEx = (AutoLookupTextFieldEx) ci.getServiceHandler(this, elementId);
 		if (textFieldEx == null) {
 			throw new IllegalStateException("The TextFieldEx " + elementId + " could not be found.");
 		}
@@ -43,7 +43,7 @@ import javax.swing.event.ListSelectionListener;
 import nextapp.echo2.app.event.ChangeEvent;
 import nextapp.echo2.app.event.ChangeListener;
 import nextapp.echo2.app.event.EventListenerList;
-import nextapp.echo2.app.list.ListSelectionModel;
+import nextapp.echo2.app.list.BulkListSelectionModel;
 ;
 
 /**
@@ -51,7 +51,7 @@ import nextapp.echo2.app.list.ListSelectionModel;
  * <p>
  */
 
-public class TreeListSelectionModel implements ListSelectionModel, java.io.Serializable {
+public class TreeListSelectionModel implements BulkListSelectionModel, java.io.Serializable {
 
 	public static final int SINGLE_SELECTION 			= 1;
 	public static final int SINGLE_INTERVAL_SELECTION 	= 2;
@@ -83,6 +83,21 @@ public class TreeListSelectionModel implements ListSelectionModel, java.io.Seria
         listenerList.addListener(ChangeListener.class, l);
 	}
 	
+    /**
+     * @see nextapp.echo2.app.list.BulkListSelectionModel#addSelectedIndices(int[])
+     */
+    public void addSelectedIndices(int[] indices) {
+        boolean adjusting = getValueIsAdjusting();
+        setValueIsAdjusting(true);
+        try {
+            for (int i = 0; i < indices.length; i++) {
+                addSelectionInterval(indices[i], indices[i]);
+            }
+        } finally {
+            setValueIsAdjusting(adjusting);
+        }
+    }
+    
      public void addSelectionInterval(int index0, int index1) {
         if (index0 == -1 || index1 == -1) {
             return;
@@ -352,6 +367,20 @@ public class TreeListSelectionModel implements ListSelectionModel, java.io.Seria
 	public void removeChangeListener(ChangeListener l) {
         listenerList.removeListener(ChangeListener.class, l);
 	}
+    /**
+     * @see nextapp.echo2.app.list.BulkListSelectionModel#removeSelectedIndices(int[])
+     */
+    public void removeSelectedIndices(int[] indices) {
+        boolean adjusting = getValueIsAdjusting();
+        setValueIsAdjusting(true);
+        try {
+            for (int i = 0; i < indices.length; i++) {
+                removeSelectionInterval(indices[i], indices[i]);
+            }
+        } finally {
+            setValueIsAdjusting(adjusting);
+        }
+    }
     public void removeSelectionInterval(int index0, int index1) {
         if (index0 == -1 || index1 == -1) {
             return;
@@ -458,6 +487,19 @@ public class TreeListSelectionModel implements ListSelectionModel, java.io.Seria
 public void setSelectedIndex(int index, boolean selected) {
 	setSelectionInterval(index,index);
 }
+    /**
+     * @see nextapp.echo2.app.list.BulkListSelectionModel#setSelectedIndices(int[])
+     */
+    public void setSelectedIndices(int[] indices) {
+        boolean adjusting = getValueIsAdjusting();
+        setValueIsAdjusting(true);
+        try {
+            clearSelection();
+            addSelectedIndices(indices);
+        } finally {
+            setValueIsAdjusting(adjusting);
+        }
+    }
     public void setSelectionInterval(int index0, int index1) {
         if (index0 == -1 || index1 == -1) {
             return;
@@ -307,16 +307,14 @@ public abstract class AbstractTreeTableModel implements TreeTableModel {
 		// Guaranteed to return a non-null array
 		Object[] listeners = listenerList.getListeners(TreeModelListener.class);
 		TreeModelEvent e = null;
-		// Process the listeners last to first, notifying
-		// those that are interested in this event
-		for (int i = listeners.length - 1; i >= 0; i--) {
-			if (listeners[i] == TreeModelListener.class) {
-				// Lazily create the event:
-				if (e == null) {
-					e = new TreeModelEvent(source, path, childIndices, children);
-				}
-				((TreeModelListener) listeners[i + 1]).treeNodesChanged(e);
+		// Process the listeners first to last, so that listeners registered
+		// earlier (such as a Tree) have updated their state before later ones
+		for (int i = 0; i < listeners.length; i++) {
+			// Lazily create the event:
+			if (e == null) {
+				e = new TreeModelEvent(source, path, childIndices, children);
 			}
+			((TreeModelListener) listeners[i]).treeNodesChanged(e);
 		}
 	}
 
@@ -331,16 +329,14 @@ public abstract class AbstractTreeTableModel implements TreeTableModel {
 		// Guaranteed to return a non-null array
 		Object[] listeners = listenerList.getListeners(TreeModelListener.class);
 		TreeModelEvent e = null;
-		// Process the listeners last to first, notifying
-		// those that are interested in this event
-		for (int i = listeners.length - 1; i >= 0; i--) {
-			if (listeners[i] == TreeModelListener.class) {
-				// Lazily create the event:
-				if (e == null) {
-					e = new TreeModelEvent(source, path, childIndices, children);
-				}
-				((TreeModelListener) listeners[i + 1]).treeNodesInserted(e);
+		// Process the listeners first to last, so that listeners registered
+		// earlier (such as a Tree) have updated their state before later ones
+		for (int i = 0; i < listeners.length; i++) {
+			// Lazily create the event:
+			if (e == null) {
+				e = new TreeModelEvent(source, path, childIndices, children);
 			}
+			((TreeModelListener) listeners[i]).treeNodesInserted(e);
 		}
 	}
 
@@ -355,16 +351,14 @@ public abstract class AbstractTreeTableModel implements TreeTableModel {
 		// Guaranteed to return a non-null array
 		Object[] listeners = listenerList.getListeners(TreeModelListener.class);
 		TreeModelEvent e = null;
-		// Process the listeners last to first, notifying
-		// those that are interested in this event
-		for (int i = listeners.length - 1; i >= 0; i--) {
-			if (listeners[i] == TreeModelListener.class) {
-				// Lazily create the event:
-				if (e == null) {
-					e = new TreeModelEvent(source, path, childIndices, children);
-				}
-				((TreeModelListener) listeners[i + 1]).treeNodesRemoved(e);
+		// Process the listeners first to last, so that listeners registered
+		// earlier (such as a Tree) have updated their state before later ones
+		for (int i = 0; i < listeners.length; i++) {
+			// Lazily create the event:
+			if (e == null) {
+				e = new TreeModelEvent(source, path, childIndices, children);
 			}
+			((TreeModelListener) listeners[i]).treeNodesRemoved(e);
 		}
 	}
 
@@ -379,16 +373,14 @@ public abstract class AbstractTreeTableModel implements TreeTableModel {
 		// Guaranteed to return a non-null array
 		Object[] listeners = listenerList.getListeners(TreeModelListener.class);
 		TreeModelEvent e = null;
-		// Process the listeners last to first, notifying
-		// those that are interested in this event
-		for (int i = listeners.length - 1; i >= 0; i--) {
-			if (listeners[i] == TreeModelListener.class) {
-				// Lazily create the event:
-				if (e == null) {
-					e = new TreeModelEvent(source, path, childIndices, children);
-				}
-				((TreeModelListener) listeners[i + 1]).treeStructureChanged(e);
+		// Process the listeners first to last, so that listeners registered
+		// earlier (such as a Tree) have updated their state before later ones
+		for (int i = 0; i < listeners.length; i++) {
+			// Lazily create the event:
+			if (e == null) {
+				e = new TreeModelEvent(source, path, childIndices, children);
 			}
+			((TreeModelListener) listeners[i]).treeStructureChanged(e);
 		}
 	}
 
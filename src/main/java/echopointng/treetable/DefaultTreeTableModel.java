@@ -93,16 +93,14 @@ public class DefaultTreeTableModel extends AbstractTreeTableModel {
         // Guaranteed to return a non-null array
         Object[] listeners = listenerList.getListeners(TreeModelListener.class);
         TreeModelEvent e = null;
-        // Process the listeners last to first, notifying
-        // those that are interested in this event
-        for (int i = listeners.length - 2; i >= 0; i -= 2) {
-            if (listeners[i] == TreeModelListener.class) {
-                // Lazily create the event:
-                if (e == null) {
-                    e = new TreeModelEvent(source, path);
-                }
-                ((TreeModelListener) listeners[i + 1]).treeStructureChanged(e);
+        // Process the listeners first to last, so that listeners registered
+        // earlier (such as a Tree) have updated their state before later ones
+        for (int i = 0; i < listeners.length; i++) {
+            // Lazily create the event:
+            if (e == null) {
+                e = new TreeModelEvent(source, path);
             }
+            ((TreeModelListener) listeners[i]).treeStructureChanged(e);
         }
     }
 
@@ -202,4 +200,4 @@ public class DefaultTreeTableModel extends AbstractTreeTableModel {
             fireTreeStructureChanged(this, getPathToRoot(node), null, null);
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
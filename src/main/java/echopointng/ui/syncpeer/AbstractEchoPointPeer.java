@@ -36,9 +36,12 @@ import nextapp.echo2.webcontainer.DomUpdateSupport;
 import nextapp.echo2.webcontainer.PartialUpdateManager;
 import nextapp.echo2.webcontainer.PartialUpdateParticipant;
 import nextapp.echo2.webcontainer.RenderContext;
+import nextapp.echo2.webcontainer.RenderFingerprint;
 import nextapp.echo2.webcontainer.RenderState;
+import nextapp.echo2.webcontainer.SharedStyleTable;
 import nextapp.echo2.webcontainer.SynchronizePeerFactory;
 import nextapp.echo2.webcontainer.partialupdate.ColorUpdate;
+import nextapp.echo2.webrender.ServerMessage;
 import nextapp.echo2.webrender.servermessage.DomUpdate;
 
 import org.w3c.dom.DocumentFragment;
@@ -176,7 +179,9 @@ public abstract class AbstractEchoPointPeer implements DomUpdateSupport, Compone
 	 *      nextapp.echo2.app.update.ServerComponentUpdate, java.lang.String)
 	 */
 	protected boolean renderUpdateBaseImpl(RenderContext rc, ServerComponentUpdate update, String targetId, boolean fullReplace) {
-		if (fullReplace) {
+		if (fullReplace && rc.getContainerInstance().isRenderFingerprintEnabled()) {
+			renderUpdateFingerprintImpl(rc, update, targetId);
+		} else if (fullReplace) {
 			// Perform full update.
 			String removeTagetId = ContainerInstance.getElementId(update.getParent());
 			DomUpdate.renderElementRemove(rc.getServerMessage(), removeTagetId);
@@ -188,6 +193,53 @@ public abstract class AbstractEchoPointPeer implements DomUpdateSupport, Compone
 		return fullReplace;
 	}
 
+	/**
+	 * Re-renders the component and compares the resulting HTML with the
+	 * <code>RenderFingerprint</code> of its previous rendering. If the
+	 * structure is unchanged only the differing attributes, styles and text
+	 * are sent to the client, otherwise the component is removed and the new
+	 * HTML added in its place.
+	 * <p>
+	 * The rendering is only reduced when it consists of HTML alone. If
+	 * <code>renderHtml()</code> added anything else to the
+	 * <code>ServerMessage</code>, such as script libraries or initialisation
+	 * directives, the client expects a fresh element and the component is
+	 * fully replaced.
+	 * 
+	 * @param rc
+	 *            the relevant <code>RenderContext</code>
+	 * @param update
+	 *            the update
+	 * @param targetId
+	 *            the id of the element the component is rendered into
+	 */
+	protected void renderUpdateFingerprintImpl(RenderContext rc, ServerComponentUpdate update, String targetId) {
+		Component component = update.getParent();
+		ContainerInstance ci = rc.getContainerInstance();
+		ServerMessage serverMessage = rc.getServerMessage();
+		RenderFingerprint previous = RenderFingerprint.getFingerprint(ci, component);
+
+		int messageElementCount = getElementCount(serverMessage);
+		DocumentFragment htmlFragment = serverMessage.getDocument().createDocumentFragment();
+		renderHtml(rc, update, htmlFragment, component);
+		boolean htmlOnly = messageElementCount == getElementCount(serverMessage);
+
+		RenderFingerprint current = RenderFingerprint.getFingerprint(ci, component);
+		if (!htmlOnly || current == null || current == previous || !current.renderDelta(serverMessage, previous)) {
+			DomUpdate.renderElementRemove(serverMessage, ContainerInstance.getElementId(component));
+			Element domAddElementDirective = DomUpdate.renderElementAdd(serverMessage);
+			DomUpdate.renderElementAddContent(serverMessage, domAddElementDirective, targetId, htmlFragment);
+		}
+	}
+
+	/**
+	 * Returns the number of elements in the document of a
+	 * <code>ServerMessage</code>.
+	 */
+	private static int getElementCount(ServerMessage serverMessage) {
+		return serverMessage.getDocument().getElementsByTagName("*").getLength();
+	}
+
 	/**
 	 * Renders child components which were added to a
 	 * <code>AbstractEchoPointPeer</code>, as described in the provided
@@ -295,7 +347,35 @@ public abstract class AbstractEchoPointPeer implements DomUpdateSupport, Compone
 			return;
 		}
 		RenderingContext renderingContext = new RenderingContext(rc, update, component);
-		renderHtml(renderingContext, parentNode, component);
+		SharedStyleTable sharedStyleTable = rc.getContainerInstance().getSharedStyleTable();
+		if (sharedStyleTable == null) {
+			renderHtmlImpl(renderingContext, parentNode, component);
+			return;
+		}
+		// release the shared styles of the previous rendering once the
+		// styles of this rendering have been interned
+		sharedStyleTable.renderStarted(rc.getServerMessage(), component);
+		try {
+			renderHtmlImpl(renderingContext, parentNode, component);
+		} finally {
+			sharedStyleTable.renderCompleted(rc.getServerMessage(), component);
+		}
+	}
+
+	/**
+	 * Calls the abstract renderHtml method, storing a
+	 * <code>RenderFingerprint</code> of the rendered HTML if render
+	 * fingerprinting is enabled.
+	 */
+	private void renderHtmlImpl(RenderingContext rc, Node parentNode, Component component) {
+		if (rc.getContainerInstance().isRenderFingerprintEnabled()) {
+			DocumentFragment htmlFragment = parentNode.getOwnerDocument().createDocumentFragment();
+			renderHtml(rc, htmlFragment, component);
+			RenderFingerprint.storeFingerprint(rc.getContainerInstance(), component, RenderFingerprint.create(htmlFragment));
+			parentNode.appendChild(htmlFragment);
+		} else {
+			renderHtml(rc, parentNode, component);
+		}
 	}
 
 	/**
@@ -63,6 +63,7 @@ import echopointng.ui.util.ImageManager;
 import echopointng.ui.util.LayoutStrut;
 import echopointng.ui.util.RenderingContext;
 import echopointng.util.FontKit;
+import echopointng.util.collections.BoundedCache;
 
 /**
  * <code>DateChooserPeer</code>
@@ -77,54 +78,207 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 		WebRenderServlet.getServiceRegistry().add(DATECHOOSER_SERVICE);
 	}
 
-	public DateChooserPeer() {
-		// displayed date handler
-		partialUpdateManager.add("displayedDate", new PartialUpdateParticipant() {
+	/**
+	 * The maximum number of rendered style sets that are cached.
+	 */
+	public static final int STYLE_CACHE_SIZE = 256;
+
+	/**
+	 * The maximum number of month grid layouts that are cached.
+	 */
+	public static final int LAYOUT_CACHE_SIZE = 512;
 
-			public void renderProperty(RenderContext rc, ServerComponentUpdate update) {
-				Element itemizedUpdateElement = rc.getServerMessage().getItemizedDirective(ServerMessage.GROUP_ID_POSTUPDATE,
-						"EPDateChooser.MessageProcessor", "datesChanged", new String[0], new String[0]);
+	/**
+	 * The properties from which the cached style strings are rendered.
+	 */
+	private static final String[] STYLE_PROPERTIES = { DateChooser.PROPERTY_CALENDAR_BACKGROUND, DateChooser.PROPERTY_CALENDAR_FOREGROUND,
+			DateChooser.PROPERTY_CALENDAR_FONT, DateChooser.PROPERTY_CALENDAR_BORDER, DateChooser.PROPERTY_CALENDAR_NON_MONTH_FOREGROUND,
+			DateChooser.PROPERTY_CALENDAR_ROLLOVER_BACKGROUND, DateChooser.PROPERTY_CALENDAR_ROLLOVER_FOREGROUND,
+			DateChooser.PROPERTY_CALENDAR_ROLLOVER_BORDER, DateChooser.PROPERTY_CALENDAR_SELECTED_BACKGROUND,
+			DateChooser.PROPERTY_CALENDAR_SELECTED_FOREGROUND, DateChooser.PROPERTY_CALENDAR_SELECTED_FONT,
+			DateChooser.PROPERTY_CALENDAR_SELECTED_BORDER, DateChooser.PROPERTY_SELECTED_BACKGROUND, DateChooser.PROPERTY_SELECTED_FOREGROUND,
+			DateChooser.PROPERTY_SELECTED_FONT, DateChooser.PROPERTY_SELECTED_ROLLOVER_BACKGROUND,
+			DateChooser.PROPERTY_SELECTED_ROLLOVER_FOREGROUND, DateChooser.PROPERTY_WEEK_NUMBER_FOREGROUND,
+			DateChooser.PROPERTY_NAVIGATION_BACKGROUND, DateChooser.PROPERTY_NAVIGATION_FOREGROUND, DateChooser.PROPERTY_NAVIGATION_FONT };
+
+	private static final int STYLE_IN_MONTH = 0;
+	private static final int STYLE_IN_MONTH_ROLLOVER = 1;
+	private static final int STYLE_OUT_OF_MONTH = 2;
+	private static final int STYLE_OUT_OF_MONTH_ROLLOVER = 3;
+	private static final int STYLE_NOT_SELECTABLE = 4;
+	private static final int STYLE_NOT_SELECTABLE_ROLLOVER = 5;
+	private static final int STYLE_SELECTED_DATE = 6;
+	private static final int STYLE_SELECTED_DATE_ROLLOVER = 7;
+	private static final int STYLE_SELECTION = 8;
+	private static final int STYLE_SELECTION_ROLLOVER = 9;
+	private static final int STYLE_CALENDAR = 10;
+	private static final int STYLE_DAY_HEADERS = 11;
+	private static final int STYLE_WEEK_NUMBER_HEADERS = 12;
+	private static final int STYLE_WEEK_NUMBER = 13;
+	private static final int STYLE_NAVIGATION = 14;
+	private static final int STYLE_NAVIGATION_NOWRAP = 15;
+	private static final int STYLE_COUNT = 16;
 
-				Element itemElement = rc.getServerMessage().getDocument().createElement("item");
-				itemizedUpdateElement.appendChild(itemElement);
+	/**
+	 * Rendered style strings, keyed by the style property values they were
+	 * rendered from. DateChoosers (and the DateFields that contain them) that
+	 * share a look share the one set of strings.
+	 */
+	private static final BoundedCache styleCache = new BoundedCache(STYLE_CACHE_SIZE);
 
-				DateChooser dc = (DateChooser) update.getParent();
-				Calendar cal = dc.getDisplayedDate();
-				itemElement.setAttribute("eid", ContainerInstance.getElementId(dc));
-				if (cal != null) {
-					itemElement.setAttribute("displayedDate", toYearMonthDayStr(cal));
-				}
+	/**
+	 * Month and day of week names, keyed by locale and name lengths.
+	 */
+	private static final BoundedCache nameCache = new BoundedCache(STYLE_CACHE_SIZE);
+
+	/**
+	 * Month grid layouts, keyed by year, month, first day of week and locale.
+	 */
+	private static final BoundedCache layoutCache = new BoundedCache(LAYOUT_CACHE_SIZE);
 
+	/**
+	 * A cache key made up of a list of property values. <code>Font</code>,
+	 * <code>Border</code> and <code>Extent</code> do not override
+	 * <code>hashCode()</code> so only the class of those values contributes
+	 * to the hash, while equality is still decided by <code>equals()</code>.
+	 */
+	private static class StyleKey {
+		private final Object[] values;
+
+		private final int hashCode;
+
+		private StyleKey(Object[] values) {
+			this.values = values;
+			int hash = 0;
+			for (int i = 0; i < values.length; i++) {
+				Object value = values[i];
+				int h = 0;
+				if (value instanceof Color || value instanceof String) {
+					h = value.hashCode();
+				} else if (value != null) {
+					h = value.getClass().getName().hashCode();
+				}
+				hash = hash * 31 + h;
 			}
+			this.hashCode = hash;
+		}
 
-			public boolean canRenderProperty(RenderContext rc, ServerComponentUpdate update) {
+		public boolean equals(Object o) {
+			if (this == o) {
 				return true;
 			}
-		});
-		// selected date handler
-		partialUpdateManager.add("selectedDate", new PartialUpdateParticipant() {
-
-			public void renderProperty(RenderContext rc, ServerComponentUpdate update) {
-				Element itemizedUpdateElement = rc.getServerMessage().getItemizedDirective(ServerMessage.GROUP_ID_POSTUPDATE,
-						"EPDateChooser.MessageProcessor", "datesChanged", new String[0], new String[0]);
-
-				Element itemElement = rc.getServerMessage().getDocument().createElement("item");
-				itemizedUpdateElement.appendChild(itemElement);
-
-				DateChooser dc = (DateChooser) update.getParent();
-				Calendar cal = dc.getSelectedDate();
-				itemElement.setAttribute("eid", ContainerInstance.getElementId(dc));
-				if (cal != null) {
-					itemElement.setAttribute("selectedDate", toYearMonthDayStr(cal));
+			if (!(o instanceof StyleKey)) {
+				return false;
+			}
+			StyleKey that = (StyleKey) o;
+			if (this.hashCode != that.hashCode || this.values.length != that.values.length) {
+				return false;
+			}
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] == null ? that.values[i] != null : !values[i].equals(that.values[i])) {
+					return false;
 				}
+			}
+			return true;
+		}
+
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+	/**
+	 * The locale dependant month and day of week names.
+	 */
+	private static class CalendarNames {
+		/** the shortened month names, indexed by Calendar.MONTH */
+		private String[] monthNames;
+
+		/** the month names joined by '|' as sent to the client */
+		private String monthNamesStr;
+
+		/** the shortened day names, indexed by Calendar.DAY_OF_WEEK - 1 */
+		private String[] dowNames;
+	}
+
+	/**
+	 * The layout of the 6 x 7 day grid for one month.
+	 */
+	private static class MonthLayout {
+		/** the number of days shown before the first of the month */
+		private int leadingDays;
+
+		/** the day of week of the first cell */
+		private int firstCellDayOfWeek;
+
+		/** the day of month text of each cell */
+		private String[] dayText = new String[42];
+
+		/** whether each cell is within the month */
+		private boolean[] inMonth = new boolean[42];
+
+		/** the week of year text of each row */
+		private String[] weekText = new String[6];
+	}
+
+	/**
+	 * Renders the current dates of a <code>DateChooser</code> into a
+	 * "datesChanged" item. The client redraws the day grid, navigation and
+	 * selection bar from these, so a change of month or selection does not
+	 * need the <code>DateChooser</code> to be re-rendered.
+	 */
+	private class DatesChangedUpdate implements PartialUpdateParticipant {
+
+		public void renderProperty(RenderContext rc, ServerComponentUpdate update) {
+			Element itemizedUpdateElement = rc.getServerMessage().getItemizedDirective(ServerMessage.GROUP_ID_POSTUPDATE,
+					"EPDateChooser.MessageProcessor", "datesChanged", new String[0], new String[0]);
 
+			DateChooser dc = (DateChooser) update.getParent();
+			String elementId = ContainerInstance.getElementId(dc);
+
+			// the item carries all of the dates so only one is needed no
+			// matter how many of the date properties have changed
+			for (Node node = itemizedUpdateElement.getFirstChild(); node != null; node = node.getNextSibling()) {
+				if (node instanceof Element && elementId.equals(((Element) node).getAttribute("eid"))) {
+					return;
+				}
 			}
 
-			public boolean canRenderProperty(RenderContext rc, ServerComponentUpdate update) {
-				return true;
+			Element itemElement = rc.getServerMessage().getDocument().createElement("item");
+			itemizedUpdateElement.appendChild(itemElement);
+			itemElement.setAttribute("eid", elementId);
+
+			Calendar cal = dc.getDisplayedDate();
+			if (cal != null) {
+				itemElement.setAttribute("displayedDate", toYearMonthDayStr(cal));
+			}
+			cal = dc.getSelectedDate();
+			if (cal != null) {
+				itemElement.setAttribute("selectedDate", toYearMonthDayStr(cal));
+				itemElement.setAttribute("selectionText", formatSelectedDate(dc, cal));
+			}
+			cal = dc.getMaximumDate();
+			if (cal != null) {
+				itemElement.setAttribute("maximumDate", toYearMonthDayStr(cal));
 			}
-		});
+			cal = dc.getMinimumDate();
+			if (cal != null) {
+				itemElement.setAttribute("minimumDate", toYearMonthDayStr(cal));
+			}
+		}
+
+		public boolean canRenderProperty(RenderContext rc, ServerComponentUpdate update) {
+			return true;
+		}
+	}
 
+	public DateChooserPeer() {
+		PartialUpdateParticipant datesChangedUpdate = new DatesChangedUpdate();
+		partialUpdateManager.add("displayedDate", datesChangedUpdate);
+		partialUpdateManager.add("selectedDate", datesChangedUpdate);
+		partialUpdateManager.add(DateChooser.PROPERTY_MAXIMUM_DATE, datesChangedUpdate);
+		partialUpdateManager.add(DateChooser.PROPERTY_MINIMUM_DATE, datesChangedUpdate);
+		partialUpdateManager.add(DateChooser.PROPERTY_MODEL, datesChangedUpdate);
 	}
 
 	/**
@@ -288,19 +442,48 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 			itemElement.setAttribute("minimumDate", toYearMonthDayStr(cal));
 		}
 
-		StringBuffer monthNames = new StringBuffer();
-		String monthNamesArr[] = createMonthNames(rc, component);
-		for (int i = 0; i < monthNamesArr.length; i++) {
-			monthNames.append(monthNamesArr[i]);
-			if (i != monthNamesArr.length - 1) {
-				monthNames.append("|");
-			}
+		itemElement.setAttribute("monthNames", getCalendarNames(rc, component).monthNamesStr);
+
+		String[] styles = getStyles(rc, fallbackStyle);
+		itemElement.setAttribute("styleInMonth", styles[STYLE_IN_MONTH]);
+		itemElement.setAttribute("styleInMonthRollover", styles[STYLE_IN_MONTH_ROLLOVER]);
+		itemElement.setAttribute("styleOutOfMonth", styles[STYLE_OUT_OF_MONTH]);
+		itemElement.setAttribute("styleOutOfMonthRollover", styles[STYLE_OUT_OF_MONTH_ROLLOVER]);
+		itemElement.setAttribute("styleNotSelectable", styles[STYLE_NOT_SELECTABLE]);
+		itemElement.setAttribute("styleNotSelectableRollover", styles[STYLE_NOT_SELECTABLE_ROLLOVER]);
+		itemElement.setAttribute("styleSelectedDate", styles[STYLE_SELECTED_DATE]);
+		itemElement.setAttribute("styleSelectedDateRollover", styles[STYLE_SELECTED_DATE_ROLLOVER]);
+		itemElement.setAttribute("styleSelection", styles[STYLE_SELECTION]);
+		itemElement.setAttribute("styleSelectionRollover", styles[STYLE_SELECTION_ROLLOVER]);
+
+		return itemElement;
+	}
+
+	/**
+	 * Returns the rendered style strings for the given rendering context,
+	 * from the style cache if another DateChooser with the same style
+	 * property values has been rendered before.
+	 */
+	private String[] getStyles(RenderingContext rc, Style fallbackStyle) {
+		Object[] values = new Object[STYLE_PROPERTIES.length];
+		for (int i = 0; i < STYLE_PROPERTIES.length; i++) {
+			values[i] = rc.getRP(STYLE_PROPERTIES[i], fallbackStyle);
+		}
+		StyleKey key = new StyleKey(values);
+		String[] styles = (String[]) styleCache.get(key);
+		if (styles == null) {
+			styles = createStyles(rc, fallbackStyle);
+			styleCache.put(key, styles);
 		}
-		itemElement.setAttribute("monthNames", String.valueOf(monthNames));
+		return styles;
+	}
 
-		// -----------------------------
-		// Styles needed
-		// -----------------------------
+	/**
+	 * Renders all of the style strings used by the DateChooser.
+	 */
+	private String[] createStyles(RenderingContext rc, Style fallbackStyle) {
+		String[] styles = new String[STYLE_COUNT];
+		String alignment = "center";
 
 		// style for in month text
 		CssRolloverStyleEx styleInMonth = new CssRolloverStyleEx();
@@ -314,8 +497,8 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 		styleInMonth.setRolloverForeground((Color) rc.getRP(DateChooser.PROPERTY_CALENDAR_ROLLOVER_FOREGROUND, fallbackStyle));
 		styleInMonth.setRolloverBorder((Border) rc.getRP(DateChooser.PROPERTY_CALENDAR_ROLLOVER_BORDER, fallbackStyle));
 
-		itemElement.setAttribute("styleInMonth", styleInMonth.renderInline());
-		itemElement.setAttribute("styleInMonthRollover", styleInMonth.renderRolloverSupportInline());
+		styles[STYLE_IN_MONTH] = styleInMonth.renderInline();
+		styles[STYLE_IN_MONTH_ROLLOVER] = styleInMonth.renderRolloverSupportInline();
 
 		// style for out of month text
 		CssRolloverStyleEx styleOutOfMonth = new CssRolloverStyleEx();
@@ -329,8 +512,8 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 		styleOutOfMonth.setRolloverForeground((Color) rc.getRP(DateChooser.PROPERTY_CALENDAR_ROLLOVER_FOREGROUND, fallbackStyle));
 		styleOutOfMonth.setRolloverBorder((Border) rc.getRP(DateChooser.PROPERTY_CALENDAR_ROLLOVER_BORDER, fallbackStyle));
 
-		itemElement.setAttribute("styleOutOfMonth", styleOutOfMonth.renderInline());
-		itemElement.setAttribute("styleOutOfMonthRollover", styleOutOfMonth.renderRolloverSupportInline());
+		styles[STYLE_OUT_OF_MONTH] = styleOutOfMonth.renderInline();
+		styles[STYLE_OUT_OF_MONTH_ROLLOVER] = styleOutOfMonth.renderRolloverSupportInline();
 
 		// style for non selectable dates
 		CssRolloverStyleEx styleNotSelectable = new CssRolloverStyleEx();
@@ -341,8 +524,8 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 		styleNotSelectable.setFont((Font) rc.getRP(DateChooser.PROPERTY_CALENDAR_FONT, fallbackStyle));
 		styleNotSelectable.setBorder((Border) rc.getRP(DateChooser.PROPERTY_CALENDAR_BORDER, fallbackStyle));
 
-		itemElement.setAttribute("styleNotSelectable", styleNotSelectable.renderInline());
-		itemElement.setAttribute("styleNotSelectableRollover", styleNotSelectable.renderRolloverSupportInline());
+		styles[STYLE_NOT_SELECTABLE] = styleNotSelectable.renderInline();
+		styles[STYLE_NOT_SELECTABLE_ROLLOVER] = styleNotSelectable.renderRolloverSupportInline();
 
 		// style for selected day
 		CssRolloverStyleEx styleSelectedDate = new CssRolloverStyleEx();
@@ -356,8 +539,8 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 		styleSelectedDate.setRolloverForeground((Color) rc.getRP(DateChooser.PROPERTY_CALENDAR_ROLLOVER_FOREGROUND, fallbackStyle));
 		styleSelectedDate.setBorder((Border) rc.getRP(DateChooser.PROPERTY_CALENDAR_ROLLOVER_BORDER, fallbackStyle));
 
-		itemElement.setAttribute("styleSelectedDate", styleSelectedDate.renderInline());
-		itemElement.setAttribute("styleSelectedDateRollover", styleSelectedDate.renderRolloverSupportInline());
+		styles[STYLE_SELECTED_DATE] = styleSelectedDate.renderInline();
+		styles[STYLE_SELECTED_DATE_ROLLOVER] = styleSelectedDate.renderRolloverSupportInline();
 
 		CssRolloverStyleEx styleSelection = new CssRolloverStyleEx();
 		styleSelection.setAttribute("text-align", "center");
@@ -368,37 +551,17 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 		styleSelection.setRolloverBackground((Color) rc.getRP(DateChooser.PROPERTY_SELECTED_ROLLOVER_BACKGROUND, fallbackStyle));
 		styleSelection.setRolloverForeground((Color) rc.getRP(DateChooser.PROPERTY_SELECTED_ROLLOVER_FOREGROUND, fallbackStyle));
 
-		itemElement.setAttribute("styleSelection", styleSelection.renderInline());
-		itemElement.setAttribute("styleSelectionRollover", styleSelection.renderRolloverSupportInline());
-
-		return itemElement;
-	}
-
-	private String toYearMonthDayStr(Calendar cal) {
-		if (cal != null) {
-			String s = new SimpleDateFormat("yyyyMMdd").format(cal.getTime());
-			return s;
-		} else {
-			return null;
-		}
-	}
-
-	/**
-	 * Renders the calendar portion into a TD and returns it.
-	 */
-	private Element renderCalendarBar(Component component, RenderingContext rc, Style fallbackStyle, Element directiveXML) {
-
-		String alignment = "center";
-
-		Element calOutsideTD = rc.createE("td");
+		styles[STYLE_SELECTION] = styleSelection.renderInline();
+		styles[STYLE_SELECTION_ROLLOVER] = styleSelection.renderRolloverSupportInline();
 
+		// style for the calendar as a whole
 		CssStyleEx style = new CssStyleEx();
 		style.setBackground((Color) rc.getRP(DateChooser.PROPERTY_CALENDAR_BACKGROUND, fallbackStyle));
 		style.setForeground((Color) rc.getRP(DateChooser.PROPERTY_CALENDAR_FOREGROUND, fallbackStyle));
 		style.setFont((Font) rc.getRP(DateChooser.PROPERTY_CALENDAR_FONT, fallbackStyle));
 		style.setAttribute("text-align", alignment);
 		style.setAttribute("width", "100%");
-		calOutsideTD.setAttribute("style", style.renderInline());
+		styles[STYLE_CALENDAR] = style.renderInline();
 
 		// style for day headers text
 		style = new CssStyleEx();
@@ -407,7 +570,7 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 		style.setFont(FontKit.addBold((Font) rc.getRP(DateChooser.PROPERTY_CALENDAR_FONT, fallbackStyle)));
 		style.setAttribute("text-align", alignment);
 		style.setAttribute("cursor", "auto");
-		String calStyleDayHeadersName = style.renderInline();
+		styles[STYLE_DAY_HEADERS] = style.renderInline();
 
 		// style for weekOfYear headers text
 		style = new CssStyleEx();
@@ -416,7 +579,7 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 		style.setFont(FontKit.addBold((Font) rc.getRP(DateChooser.PROPERTY_CALENDAR_FONT, fallbackStyle)));
 		style.setAttribute("text-align", alignment);
 		style.setAttribute("cursor", "auto");
-		String calStyleWeekNumberHeadersName = style.renderInline();
+		styles[STYLE_WEEK_NUMBER_HEADERS] = style.renderInline();
 
 		// style for weekOfYear text
 		style = new CssStyleEx();
@@ -425,8 +588,43 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 		style.setFont(FontKit.addBold((Font) rc.getRP(DateChooser.PROPERTY_CALENDAR_FONT, fallbackStyle)));
 		style.setAttribute("text-align", alignment);
 		style.setAttribute("cursor", "auto");
-		String calStyleWeekNumberName = style.renderInline();
+		styles[STYLE_WEEK_NUMBER] = style.renderInline();
+
+		// style for the month and year
+		style = new CssStyleEx();
+		style.setBackground((Color) rc.getRP(DateChooser.PROPERTY_NAVIGATION_BACKGROUND, fallbackStyle));
+		style.setForeground((Color) rc.getRP(DateChooser.PROPERTY_NAVIGATION_FOREGROUND, fallbackStyle));
+		style.setFont((Font) rc.getRP(DateChooser.PROPERTY_NAVIGATION_FONT, fallbackStyle));
+		styles[STYLE_NAVIGATION] = style.renderInline();
+
+		// style for the nav bar
+		style.setNoWrap();
+		styles[STYLE_NAVIGATION_NOWRAP] = style.renderInline();
+
+		return styles;
+	}
+
+	private String toYearMonthDayStr(Calendar cal) {
+		if (cal != null) {
+			String s = new SimpleDateFormat("yyyyMMdd").format(cal.getTime());
+			return s;
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Renders the calendar portion into a TD and returns it.
+	 */
+	private Element renderCalendarBar(Component component, RenderingContext rc, Style fallbackStyle, Element directiveXML) {
 
+		String[] styles = getStyles(rc, fallbackStyle);
+		String calStyleDayHeadersName = styles[STYLE_DAY_HEADERS];
+		String calStyleWeekNumberHeadersName = styles[STYLE_WEEK_NUMBER_HEADERS];
+		String calStyleWeekNumberName = styles[STYLE_WEEK_NUMBER];
+
+		Element calOutsideTD = rc.createE("td");
+		calOutsideTD.setAttribute("style", styles[STYLE_CALENDAR]);
 
 		DateChooser dateChooser = (DateChooser) component;
 
@@ -445,7 +643,10 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 		// what day do we start out week on
 		int firstDayOfWeek = displayedDate.getFirstDayOfWeek();
 		firstDayOfWeek = rc.getRP(DateChooser.PROPERTY_FIRST_DAY_OF_WEEK, fallbackStyle, firstDayOfWeek);
-		int prevMonthDays = 0;
+
+		Locale locale = component.getLocale() == null ? Locale.getDefault() : component.getLocale();
+		MonthLayout layout = getMonthLayout(displayedDate, firstDayOfWeek, locale);
+		CalendarNames names = getCalendarNames(rc, component);
 
 		// build our calendar table
 		Element calTABLE = rc.createE("table");
@@ -465,54 +666,23 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 		// roll to the start of the month and the first day of the week before
 		// that
 		rollingDisplayedDate.set(Calendar.DATE, 1);
-		int changingDOW = rollingDisplayedDate.get(Calendar.DAY_OF_WEEK);
-		while (changingDOW != firstDayOfWeek) {
-			rollingDisplayedDate.add(Calendar.DATE, -1);
-			changingDOW = rollingDisplayedDate.get(Calendar.DAY_OF_WEEK);
-			prevMonthDays++;
-		}
+		rollingDisplayedDate.add(Calendar.DATE, -layout.leadingDays);
 
-		Locale locale = component.getLocale() == null ? Locale.getDefault() : component.getLocale();
-		SimpleDateFormat df = new SimpleDateFormat("EEE", locale);
-
-		String dowName = null;
 		String weekNumberAbbreviation = (String) rc.getRP(DateChooser.PROPERTY_WEEK_NUMBER_ABBREVIATION, fallbackStyle);
 		boolean hasWeekNumber = (weekNumberAbbreviation != null);
 		if (hasWeekNumber) {
 			createTextTD(weekNumberAbbreviation, calTR, calStyleWeekNumberHeadersName);
 		}
 
-		int dowThatStartsCal = rollingDisplayedDate.get(Calendar.DAY_OF_WEEK);
-		Calendar dayNamesCal = Calendar.getInstance(locale);
-		dayNamesCal.set(Calendar.DAY_OF_WEEK, dowThatStartsCal);
-
-		dowName = createDowName(rc, component, df.format(dayNamesCal.getTime()));
-		createTextTD(dowName, calTR, calStyleDayHeadersName);
-		dayNamesCal.add(Calendar.DAY_OF_WEEK, 1);
-
-		dowName = createDowName(rc, component, df.format(dayNamesCal.getTime()));
-		createTextTD(dowName, calTR, calStyleDayHeadersName);
-		dayNamesCal.add(Calendar.DAY_OF_WEEK, 1);
-
-		dowName = createDowName(rc, component, df.format(dayNamesCal.getTime()));
-		createTextTD(dowName, calTR, calStyleDayHeadersName);
-		dayNamesCal.add(Calendar.DAY_OF_WEEK, 1);
-
-		dowName = createDowName(rc, component, df.format(dayNamesCal.getTime()));
-		createTextTD(dowName, calTR, calStyleDayHeadersName);
-		dayNamesCal.add(Calendar.DAY_OF_WEEK, 1);
-
-		dowName = createDowName(rc, component, df.format(dayNamesCal.getTime()));
-		createTextTD(dowName, calTR, calStyleDayHeadersName);
-		dayNamesCal.add(Calendar.DAY_OF_WEEK, 1);
-
-		dowName = createDowName(rc, component, df.format(dayNamesCal.getTime()));
-		createTextTD(dowName, calTR, calStyleDayHeadersName);
-		dayNamesCal.add(Calendar.DAY_OF_WEEK, 1);
+		for (int i = 0; i < 7; i++) {
+			String dowName = names.dowNames[(layout.firstCellDayOfWeek - 1 + i) % 7];
+			createTextTD(dowName, calTR, calStyleDayHeadersName);
+		}
 
-		dowName = createDowName(rc, component, df.format(dayNamesCal.getTime()));
-		createTextTD(dowName, calTR, calStyleDayHeadersName);
-		dayNamesCal.add(Calendar.DAY_OF_WEEK, 1);
+		String styleInMonth = directiveXML.getAttribute("styleInMonth");
+		String styleOutOfMonth = directiveXML.getAttribute("styleOutOfMonth");
+		String styleSelectedDate = directiveXML.getAttribute("styleSelectedDate");
+		String styleNotSelectable = directiveXML.getAttribute("styleNotSelectable");
 
 		Element td;
 		for (int row = 0; row < 6; row++) {
@@ -520,37 +690,32 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 			tbody.appendChild(calTR);
 
 			if (hasWeekNumber) {
-				Calendar woyDate = DateChooser.calendarCopy(rollingDisplayedDate, locale);
-				if (row == 0) {
-					// woyDate.set(Calendar.DAY_OF_MONTH,1);
-				}
-				td = createTextTD(String.valueOf(woyDate.get(Calendar.WEEK_OF_YEAR)), calTR, calStyleWeekNumberName);
+				td = createTextTD(layout.weekText[row], calTR, calStyleWeekNumberName);
 				td.setAttribute("id", rc.getElementId() + "|" + row + "|woy");
 			}
 
 			for (int col = 0; col < 7; col++) {
+				int cell = row * 7 + col;
 
 				boolean isSelectable = true;
 				if (!isDateInRange(rollingDisplayedDate, minCal, maxCal)) {
 					isSelectable = false;
 				}
 
-				boolean inSameMonth = rollingDisplayedDate.get(Calendar.MONTH) == displayedDate.get(Calendar.MONTH);
 				// which font should we use
-				String styleToUse = directiveXML.getAttribute("styleInMonth");
-				if (!inSameMonth) {
-					styleToUse = directiveXML.getAttribute("styleOutOfMonth");
+				String styleToUse = styleInMonth;
+				if (!layout.inMonth[cell]) {
+					styleToUse = styleOutOfMonth;
 				}
 				// bold it if its our selected date
 				if (selectedDate != null && rollingDisplayedDate.getTime().equals(selectedDate.getTime())) {
-					styleToUse = directiveXML.getAttribute("styleSelectedDate");
+					styleToUse = styleSelectedDate;
 				}
 				if (!isSelectable) {
-					styleToUse = directiveXML.getAttribute("styleNotSelectable");
+					styleToUse = styleNotSelectable;
 				}
 
-				String dofm = String.valueOf(rollingDisplayedDate.get(Calendar.DAY_OF_MONTH));
-				td = createTextTD(dofm, calTR, styleToUse);
+				td = createTextTD(layout.dayText[cell], calTR, styleToUse);
 				td.setAttribute("id", rc.getElementId() + "|" + row + "|" + col);
 
 				// and bump to the next day
@@ -560,6 +725,80 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 		return calOutsideTD;
 	}
 
+	/**
+	 * Returns the layout of the day grid for the month of
+	 * <code>displayedDate</code>, from the layout cache if possible.
+	 */
+	private MonthLayout getMonthLayout(Calendar displayedDate, int firstDayOfWeek, Locale locale) {
+		String key = displayedDate.get(Calendar.YEAR) + "|" + displayedDate.get(Calendar.MONTH) + "|" + firstDayOfWeek + "|"
+				+ displayedDate.getFirstDayOfWeek() + "|" + locale;
+		MonthLayout layout = (MonthLayout) layoutCache.get(key);
+		if (layout != null) {
+			return layout;
+		}
+		layout = new MonthLayout();
+
+		Calendar rollingDate = DateChooser.calendarCopy(displayedDate);
+		rollingDate.setTime(displayedDate.getTime());
+		rollingDate.setTimeZone(displayedDate.getTimeZone());
+		rollingDate.set(Calendar.DATE, 1);
+		int changingDOW = rollingDate.get(Calendar.DAY_OF_WEEK);
+		while (changingDOW != firstDayOfWeek) {
+			rollingDate.add(Calendar.DATE, -1);
+			changingDOW = rollingDate.get(Calendar.DAY_OF_WEEK);
+			layout.leadingDays++;
+		}
+		layout.firstCellDayOfWeek = changingDOW;
+
+		int month = displayedDate.get(Calendar.MONTH);
+		for (int row = 0; row < 6; row++) {
+			Calendar woyDate = DateChooser.calendarCopy(rollingDate, locale);
+			layout.weekText[row] = String.valueOf(woyDate.get(Calendar.WEEK_OF_YEAR));
+			for (int col = 0; col < 7; col++) {
+				int cell = row * 7 + col;
+				layout.dayText[cell] = String.valueOf(rollingDate.get(Calendar.DAY_OF_MONTH));
+				layout.inMonth[cell] = rollingDate.get(Calendar.MONTH) == month;
+				rollingDate.add(Calendar.DATE, 1);
+			}
+		}
+		layoutCache.put(key, layout);
+		return layout;
+	}
+
+	/**
+	 * Returns the month and day of week names for the locale of
+	 * <code>component</code>, from the name cache if possible.
+	 */
+	private CalendarNames getCalendarNames(RenderingContext rc, Component component) {
+		Locale locale = component.getLocale() == null ? Locale.getDefault() : component.getLocale();
+		String key = locale + "|" + rc.getRP(DateChooser.PROPERTY_MONTH_NAME_LENGTH, 3) + "|" + rc.getRP(DateChooser.PROPERTY_DOW_NAME_LENGTH, 3);
+		CalendarNames names = (CalendarNames) nameCache.get(key);
+		if (names != null) {
+			return names;
+		}
+		names = new CalendarNames();
+		names.monthNames = createMonthNames(rc, component);
+
+		StringBuffer monthNames = new StringBuffer();
+		for (int i = 0; i < names.monthNames.length; i++) {
+			monthNames.append(names.monthNames[i]);
+			if (i != names.monthNames.length - 1) {
+				monthNames.append("|");
+			}
+		}
+		names.monthNamesStr = monthNames.toString();
+
+		names.dowNames = new String[7];
+		SimpleDateFormat df = new SimpleDateFormat("EEE", locale);
+		Calendar dayNamesCal = Calendar.getInstance(locale);
+		for (int dow = Calendar.SUNDAY; dow <= Calendar.SATURDAY; dow++) {
+			dayNamesCal.set(Calendar.DAY_OF_WEEK, dow);
+			names.dowNames[dow - Calendar.SUNDAY] = createDowName(rc, component, df.format(dayNamesCal.getTime()));
+		}
+		nameCache.put(key, names);
+		return names;
+	}
+
 	private boolean isDateInRange(Calendar cal, Calendar minCal, Calendar maxCal) {
 		boolean ok = true;
 		if (maxCal != null) {
@@ -579,20 +818,15 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 	 * Renders the selectable month combo box
 	 */
 	private void renderMonth(RenderingContext rc, Component component, Element parent, Style fallbackStyle, Calendar displayedDate) {
-		Locale locale = component.getLocale() == null ? Locale.getDefault() : component.getLocale();
 		boolean isMonthSelectable = rc.getRP(DateChooser.PROPERTY_MONTH_SELECTABLE, fallbackStyle, true);
 
-		CssStyleEx style = new CssStyleEx();
-		style.setBackground((Color) rc.getRP(DateChooser.PROPERTY_NAVIGATION_BACKGROUND, fallbackStyle));
-		style.setForeground((Color) rc.getRP(DateChooser.PROPERTY_NAVIGATION_FOREGROUND, fallbackStyle));
-		style.setFont((Font) rc.getRP(DateChooser.PROPERTY_NAVIGATION_FONT, fallbackStyle));
-		String styleName = style.renderInline();
+		String styleName = getStyles(rc, fallbackStyle)[STYLE_NAVIGATION];
 
 		Element select = rc.createE("select");
 		if (!isMonthSelectable) {
 			select = rc.createE("span");
-			String monthName = new SimpleDateFormat("MMMM", locale).format(displayedDate.getTime());
-			select.appendChild(rc.createText(createMonthName(rc, monthName)));
+			String monthName = getCalendarNames(rc, component).monthNames[displayedDate.get(Calendar.MONTH)];
+			select.appendChild(rc.createText(monthName));
 		}
 		parent.appendChild(select);
 		select.setAttribute("style", styleName);
@@ -611,11 +845,7 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 		Locale locale = component.getLocale() == null ? Locale.getDefault() : component.getLocale();
 		boolean isYearSelectable = rc.getRP(DateChooser.PROPERTY_YEAR_SELECTABLE, fallbackStyle, false);
 
-		CssStyleEx style = new CssStyleEx();
-		style.setBackground((Color) rc.getRP(DateChooser.PROPERTY_NAVIGATION_BACKGROUND, fallbackStyle));
-		style.setForeground((Color) rc.getRP(DateChooser.PROPERTY_NAVIGATION_FOREGROUND, fallbackStyle));
-		style.setFont((Font) rc.getRP(DateChooser.PROPERTY_NAVIGATION_FONT, fallbackStyle));
-		String styleName = style.renderInline();
+		String styleName = getStyles(rc, fallbackStyle)[STYLE_NAVIGATION];
 
 		Element select = rc.createE("select");
 		if (!isYearSelectable) {
@@ -643,8 +873,6 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 
 		Calendar displayedDate = getDisplayedDate(dateChooser);
 
-		CssStyleEx style;
-
 		ImageReference icon;
 
 		CssRolloverStyleEx styleNavArrows = new CssRolloverStyleEx();
@@ -669,12 +897,7 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 		fwdImgE.setAttribute("id", rc.getElementId() + "|fwd");
 
 		// outside TD style
-		style = new CssStyleEx();
-		style.setBackground((Color) rc.getRP(DateChooser.PROPERTY_NAVIGATION_BACKGROUND, fallbackStyle));
-		style.setForeground((Color) rc.getRP(DateChooser.PROPERTY_NAVIGATION_FOREGROUND, fallbackStyle));
-		style.setFont((Font) rc.getRP(DateChooser.PROPERTY_NAVIGATION_FONT, fallbackStyle));
-		style.setNoWrap();
-		String styleName = style.renderInline();
+		String styleName = getStyles(rc, fallbackStyle)[STYLE_NAVIGATION_NOWRAP];
 
 		// outside TD
 		Element navOutsideTD = rc.createE("td");
@@ -759,19 +982,25 @@ public class DateChooserPeer extends AbstractEchoPointPeer implements ActionProc
 		DateChooser dateChooser = (DateChooser) component;
 		Calendar selectedDate = dateChooser.getSelectedDate();
 		if (selectedDate != null) {
-			Locale locale = component.getLocale();
-			if (locale == null) {
-				locale = Locale.getDefault();
-			}
-			DateFormat df = DateFormat.getDateInstance(DateFormat.MEDIUM, locale);
-			String dtStr = df.format(selectedDate.getTime());
-			selTD.appendChild(rc.createText(dtStr));
+			selTD.appendChild(rc.createText(formatSelectedDate(dateChooser, selectedDate)));
 		}
 
 		// outside element
 		return selOutsideTD;
 	}
 
+	/**
+	 * Formats the selected date as it is shown in the selection bar
+	 */
+	private String formatSelectedDate(DateChooser dateChooser, Calendar selectedDate) {
+		Locale locale = dateChooser.getLocale();
+		if (locale == null) {
+			locale = Locale.getDefault();
+		}
+		DateFormat df = DateFormat.getDateInstance(DateFormat.MEDIUM, locale);
+		return df.format(selectedDate.getTime());
+	}
+
 	/**
 	 * Shortens a day of the week name down to the specified length
 	 * 
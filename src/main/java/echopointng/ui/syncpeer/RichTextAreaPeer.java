@@ -41,6 +41,7 @@ import nextapp.echo2.webcontainer.ContainerInstance;
 import nextapp.echo2.webcontainer.PartialUpdateParticipant;
 import nextapp.echo2.webcontainer.PropertyUpdateProcessor;
 import nextapp.echo2.webcontainer.RenderContext;
+import nextapp.echo2.webcontainer.TextSyncState;
 import nextapp.echo2.webrender.ClientProperties;
 import nextapp.echo2.webrender.ServerMessage;
 import nextapp.echo2.webrender.Service;
@@ -55,6 +56,7 @@ import org.w3c.dom.Node;
 import echopointng.ButtonEx;
 import echopointng.EPNG;
 import echopointng.RichTextArea;
+import echopointng.richtext.CachingRichTextSpellChecker;
 import echopointng.richtext.RichTextRenderer;
 import echopointng.richtext.RichTextSpellChecker;
 import echopointng.ui.resource.Resources;
@@ -79,6 +81,12 @@ public class RichTextAreaPeer extends AbstractEchoPointPeer implements PropertyU
 
 	private static final ImageReference IMAGE_WIGGLY_RED_LINE = new ResourceImageReference("/echopointng/resource/images/richtext/ep_rt_wiggly_redline.gif");
 	
+	/**
+	 * Name of the (non-component) update property which requests the complete
+	 * HTML from the client after failing to apply a text delta.
+	 */
+	private static final String REQUEST_HTML_PROPERTY = "epRequestHtml";
+	
      /**
      * Constructs a <code>RichTextAreaPeer</code>
      */
@@ -101,6 +109,24 @@ public class RichTextAreaPeer extends AbstractEchoPointPeer implements PropertyU
 				htmlChanged(rc,update);
 			}
 		});
+
+		partialUpdateManager.add(REQUEST_HTML_PROPERTY, new PartialUpdateParticipant() {
+			public boolean canRenderProperty(RenderContext rc, ServerComponentUpdate update) {
+				return true;
+			}
+			public void renderProperty(RenderContext rc, ServerComponentUpdate update) {
+				if (update.getUpdatedProperty(RichTextArea.TEXT_CHANGED_PROPERTY) != null
+						|| update.getUpdatedProperty(RichTextArea.PROPERTY_SPELL_CHECK_IN_PROGRESS) != null) {
+					// the complete HTML is being sent to the client anyway
+					return;
+				}
+				Element itemizedUpdateElement = rc.getServerMessage().getItemizedDirective(ServerMessage.GROUP_ID_POSTUPDATE,
+						"EPRTA.MessageProcessor", "requestHtml", new String[0], new String[0]);
+				Element itemElement = rc.getServerMessage().getDocument().createElement("item");
+				itemElement.setAttribute("eid", ContainerInstance.getElementId(update.getParent()));
+				itemizedUpdateElement.appendChild(itemElement);
+			}
+		});
     	
     }
     
@@ -122,6 +148,12 @@ public class RichTextAreaPeer extends AbstractEchoPointPeer implements PropertyU
 		text = spellCheckText(rc,itemElement,rta,text,spellCheckInProgress);
 		itemElement.setAttribute("html", text);
 		itemElement.setAttribute("spellCheckInProgress", String.valueOf(spellCheckInProgress));
+
+		// the client re-serialises the HTML it is given, so its text is no longer known
+		TextSyncState textSyncState = TextSyncState.getState(rc.getContainerInstance(), rta);
+		if (textSyncState != null) {
+			textSyncState.setText(null);
+		}
     }
 
 	/**
@@ -139,6 +171,24 @@ public class RichTextAreaPeer extends AbstractEchoPointPeer implements PropertyU
 		String propertyName = propertyElement.getAttribute(PropertyUpdateProcessor.PROPERTY_NAME);
 		if (TextComponent.TEXT_CHANGED_PROPERTY.equals(propertyName)) {
 			String propertyValue = DomUtil.getElementText(propertyElement);
+			String delta = propertyElement.getAttribute(TextSyncState.ATTRIBUTE_DELTA);
+			TextSyncState textSyncState = TextSyncState.getState(ci, component);
+			if (textSyncState == null && "true".equals(delta)) {
+				textSyncState = new TextSyncState();
+				ci.setRenderState(component, textSyncState);
+			}
+			if (textSyncState != null) {
+				// the delta is against the raw client HTML, including any spell check markup
+				propertyValue = textSyncState.applyUpdate(propertyValue, delta,
+						propertyElement.getAttribute(TextSyncState.ATTRIBUTE_OFFSET),
+						propertyElement.getAttribute(TextSyncState.ATTRIBUTE_REMOVE),
+						propertyElement.getAttribute(TextSyncState.ATTRIBUTE_CHECKSUM));
+				if (propertyValue == null && "true".equals(delta)) {
+					ci.getUpdateManager().getServerUpdateManager().processComponentPropertyUpdate(component, 
+							REQUEST_HTML_PROPERTY, null, Boolean.TRUE);
+					return;
+				}
+			}
 			propertyValue = removeSpellCheckText(propertyValue);
 			ci.getUpdateManager().getClientUpdateManager().setComponentProperty(component, TextComponent.TEXT_CHANGED_PROPERTY, propertyValue);
 		}
@@ -159,6 +209,10 @@ public class RichTextAreaPeer extends AbstractEchoPointPeer implements PropertyU
 	 * RTA HTML text.
 	 */
 	private String removeSpellCheckText(String htmlText) {
+		if (htmlText == null || htmlText.indexOf("epspell") == -1) {
+			// no spell check markup to remove
+			return htmlText;
+		}
 		htmlText = HtmlNodeLexer.lex(htmlText,new HtmlNodeLexer.HtmlLexerCallBack() {
 			boolean deleting = false;
 			String currentTag = null;
@@ -270,57 +324,49 @@ public class RichTextAreaPeer extends AbstractEchoPointPeer implements PropertyU
 				 * @see echopointng.ui.util.HtmlNodeLexer.HtmlLexerCallBack#onTextNode(java.lang.StringBuffer)
 				 */
 				public StringBuffer onTextNode(StringBuffer textNode) {
+					// unchanged text is not parsed and checked again if the spell checker caches its results
+					CachingRichTextSpellChecker.Misspelling[] misspellings = CachingRichTextSpellChecker.findMisspellings(spellChecker, textNode.toString());
+					if (misspellings.length == 0) {
+						return textNode;
+					}
 					StringBuffer newTextNode = new StringBuffer();
-					RichTextSpellChecker.SpellCheckerWord[] words = spellChecker.parseWords(textNode.toString());
 					int lastStartIndex = 0;
-					for (int i = 0; i < words.length; i++) {
-						int startIndex = words[i].getStartIndex();
-						int endIndex = words[i].getEndIndex();
+					for (int i = 0; i < misspellings.length; i++) {
+						int startIndex = misspellings[i].getStartIndex();
+						int endIndex = misspellings[i].getEndIndex();
 						// copy the previous text into the new text node
-						String prevText = textNode.substring(lastStartIndex,startIndex);
-						newTextNode.append(prevText);
+						newTextNode.append(textNode, lastStartIndex, startIndex);
 						lastStartIndex  = endIndex;
 						
 						String word = textNode.substring(startIndex, endIndex);
-						if (word.length() > 0) {
-							String[] alternatives = spellChecker.checkWord(word);
-							// is it badly spelt
-							if (alternatives != null) {
-
-								StringBuffer specialSpanText = new StringBuffer();
-								String spellId = elementId + '|' + spellCount;
-								spellCount++;
-								specialSpanText.append("<span class=\"epspell\" id=\"");
-								specialSpanText.append(spellId);
-								specialSpanText.append("\">");
-								specialSpanText.append(word);
-								specialSpanText.append("</span>");
-								
-								newTextNode.append(specialSpanText);
-							
-								//
-								// create spelling entry
-								StringBuffer spellings = new StringBuffer();
-								if (alternatives.length == 0) {
-									spellings.append(words);
-								} else {
-									for (int j = 0; j < alternatives.length; j++) {
-										if (j > 0) {
-											spellings.append("##");
-										}
-										spellings.append(alternatives[j]);
-									}
+						String[] alternatives = misspellings[i].getAlternatives();
+
+						String spellId = elementId + '|' + spellCount;
+						spellCount++;
+						newTextNode.append("<span class=\"epspell\" id=\"");
+						newTextNode.append(spellId);
+						newTextNode.append("\">");
+						newTextNode.append(word);
+						newTextNode.append("</span>");
+					
+						//
+						// create spelling entry
+						StringBuffer spellings = new StringBuffer();
+						if (alternatives.length == 0) {
+							spellings.append(word);
+						} else {
+							for (int j = 0; j < alternatives.length; j++) {
+								if (j > 0) {
+									spellings.append("##");
 								}
-
-								Element spellingItem = rc.getServerMessage().getDocument().createElement("spelling");
-								directiveItem.appendChild(spellingItem);
-								spellingItem.setAttribute("spellId",spellId);
-								spellingItem.setAttribute("spellings",spellings.toString());
-							} else {
-								// just append the word
-								newTextNode.append(word);
+								spellings.append(alternatives[j]);
 							}
 						}
+
+						Element spellingItem = rc.getServerMessage().getDocument().createElement("spelling");
+						directiveItem.appendChild(spellingItem);
+						spellingItem.setAttribute("spellId",spellId);
+						spellingItem.setAttribute("spellings",spellings.toString());
 					}
 					// do we have any residual text
 					if (lastStartIndex < textNode.length()) {
@@ -768,6 +814,15 @@ public class RichTextAreaPeer extends AbstractEchoPointPeer implements PropertyU
 		itemElement.setAttribute("eid", rc.getElementId());
 		itemizedUpdateElement.appendChild(itemElement);
 
+		ContainerInstance ci = rc.getContainerInstance();
+		if (ci.isTextDeltaSyncEnabled()) {
+			// the client sends its complete HTML first, and deltas thereafter 
+			ci.setRenderState(rta, new TextSyncState());
+			itemElement.setAttribute("delta-sync", "true");
+		} else if (ci.getRenderState(rta) instanceof TextSyncState) {
+			ci.removeRenderState(rta);
+		}
+
 
 		style = new CssStyleEx();
 		Render.asColors(style, rta, RichTextArea.PROPERTY_EDITOR_BACKGROUND, RichTextArea.PROPERTY_EDITOR_FOREGROUND);
@@ -29,6 +29,9 @@ package echopointng.ui.syncpeer;
  * the terms of any one of the MPL, the GPL or the LGPL.
  */
 
+import java.util.Arrays;
+import java.util.List;
+
 import nextapp.echo2.app.Alignment;
 import nextapp.echo2.app.Border;
 import nextapp.echo2.app.Color;
@@ -44,11 +47,14 @@ import nextapp.echo2.webcontainer.ComponentSynchronizePeer;
 import nextapp.echo2.webcontainer.ContainerInstance;
 import nextapp.echo2.webcontainer.DomUpdateSupport;
 import nextapp.echo2.webcontainer.RenderContext;
+import nextapp.echo2.webcontainer.RenderState;
 import nextapp.echo2.webcontainer.SynchronizePeerFactory;
 import nextapp.echo2.webcontainer.propertyrender.ExtentRender;
 import nextapp.echo2.webcontainer.propertyrender.InsetsRender;
 import nextapp.echo2.webrender.ServerMessage;
+import nextapp.echo2.webrender.servermessage.DomUpdate;
 
+import org.w3c.dom.DocumentFragment;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
@@ -64,6 +70,7 @@ import echopointng.ui.util.LayoutStrut;
 import echopointng.ui.util.Render;
 import echopointng.ui.util.RenderingContext;
 import echopointng.util.ColorKit;
+import echopointng.util.collections.BoundedCache;
 
 /**
  * <code>TabbedPanePeer</code> is the peer for <code>TabbedPane</code>
@@ -76,6 +83,101 @@ public class TabbedPanePeer extends AbstractEchoPointContainerPeer implements Ac
 
 	private final static String LEADOUT_IMAGE_PREFIX = "leadOut";
 
+	/**
+	 * The maximum number of tab strip style sets that are cached.
+	 */
+	public static final int STYLE_CACHE_SIZE = 128;
+
+	private static final int STYLE_ACTIVE_LINE = 0;
+
+	private static final int STYLE_ACTIVE_TD = 1;
+
+	private static final int STYLE_INACTIVE_LINE = 2;
+
+	private static final int STYLE_INACTIVE_TD = 3;
+
+	/**
+	 * Tab strip style strings, keyed by the placement, border and colour
+	 * values they are rendered from.
+	 */
+	private static final BoundedCache styleCache = new BoundedCache(STYLE_CACHE_SIZE);
+
+	/**
+	 * <code>TabbedPaneRenderState</code> remembers what was last rendered
+	 * for a <code>TabbedPane</code> so that a change of selection can be
+	 * rendered without redrawing the whole tab strip.
+	 */
+	private static class TabbedPaneRenderState implements RenderState {
+		private ImageManager imageManager = new ImageManager();
+
+		private int tabCount;
+
+		private int selectedIndex;
+
+		private Component content;
+
+		private boolean tabLinesRendered;
+	}
+
+	/**
+	 * The border values that the tab strip is drawn with.
+	 */
+	private static class TabBorder {
+		private Color color;
+
+		private int width;
+
+		private int style;
+	}
+
+	/**
+	 * Returns the border values for the tab strip, which come from the
+	 * TabImageRenderer if there is one.
+	 */
+	private TabBorder getTabBorder(RenderingContext rc, TabbedPane tp, Style fallbackStyle) {
+		TabImageRenderer renderer = tp.getModel().getTabImageRenderer();
+		Border border = (Border) rc.getRP(TabbedPane.PROPERTY_BORDER, fallbackStyle);
+		TabBorder tabBorder = new TabBorder();
+		tabBorder.color = (border == null) ? null : border.getColor();
+		tabBorder.width = (border == null) ? 0 : (border.getSize() == null ? 0 : border.getSize().getValue());
+		tabBorder.style = (border == null) ? 0 : border.getStyle();
+		if (renderer != null) {
+			tabBorder.color = renderer.getImageBorderColor();
+			tabBorder.width = renderer.getImageBorderWidth();
+		}
+		return tabBorder;
+	}
+
+	/**
+	 * Returns the active and inactive tab line and tab TD styles, from the
+	 * style cache if a TabbedPane with the same look has been rendered
+	 * before.
+	 */
+	private String[] getTabStyles(RenderingContext rc, TabbedPane tp, TabBorder tabBorder, int tabPlacement, int tabBorderStyle,
+			Color tabBackground) {
+		TabImageRenderer renderer = tp.getModel().getTabImageRenderer();
+		Color activeBackground = tabBackground;
+		if (renderer == null) {
+			Component tabComponent = tp.getModel().getTabAt(tp, tp.getSelectedIndex(), true);
+			activeBackground = (tabComponent == null) ? null : (Color) tabComponent.getRenderProperty(TabbedPane.PROPERTY_BACKGROUND);
+		}
+		List key = Arrays.asList(new Object[] { new Integer(tabPlacement), new Integer(tabBorderStyle), tabBorder.color,
+				new Integer(tabBorder.width), new Integer(tabBorder.style), Boolean.valueOf(renderer != null), activeBackground });
+		String[] styles = (String[]) styleCache.get(key);
+		if (styles == null) {
+			styles = new String[4];
+			styles[STYLE_ACTIVE_LINE] = createTabActiveLineStyle(rc, tp, tabBorder.color, tabBorder.width, tabBorder.style, tabBorderStyle,
+					tabBackground);
+			styles[STYLE_ACTIVE_TD] = createTabActiveTDStyle(rc, tp, tabPlacement, tabBorder.color, tabBorder.width, tabBorder.style,
+					tabBorderStyle);
+			styles[STYLE_INACTIVE_LINE] = createTabInActiveLineStyle(rc, tp, tabBorder.color, tabBorder.width, tabBorder.style, tabBorderStyle);
+			styles[STYLE_INACTIVE_TD] = createTabInactiveTDStyle(rc, tp, tabPlacement, tabBorder.color, tabBorder.width, tabBorder.style,
+					tabBorderStyle);
+			styleCache.put(key, styles);
+		}
+		return styles;
+	}
+
 	/**
 	 * Returns a style name for an active Tab Line TD.
 	 */
@@ -397,22 +499,20 @@ public class TabbedPanePeer extends AbstractEchoPointContainerPeer implements Ac
 	/**
 	 * Renders a complex tab interface.
 	 */
-	private void renderComplexTabs(RenderingContext rc, TabbedPane tp, Node parentNode, ImageManager imageManager) {
+	private void renderComplexTabs(RenderingContext rc, TabbedPane tp, Node parentNode, TabbedPaneRenderState renderState) {
 		Style fallbackStyle = EPNG.getFallBackStyle(tp);
 		TabImageRenderer renderer = tp.getModel().getTabImageRenderer();
 		boolean tabImageOnly = (renderer != null);
 
+		ImageManager imageManager = renderState.imageManager;
+
 		int tabCount = tp.size();
 		int selectedIndex = tp.getSelectedIndex();
 
-		Border border = (Border) rc.getRP(TabbedPane.PROPERTY_BORDER, fallbackStyle);
-		Color borderColor = (border == null) ? null : border.getColor();
-		int borderWidth = (border == null) ? 0 : (border.getSize() == null ? 0 : border.getSize().getValue());
-		int borderStyle = (border == null) ? 0 : border.getStyle();
-		if (renderer != null) {
-			borderColor = renderer.getImageBorderColor();
-			borderWidth = renderer.getImageBorderWidth();
-		}
+		TabBorder tabBorder = getTabBorder(rc, tp, fallbackStyle);
+		Color borderColor = tabBorder.color;
+		int borderWidth = tabBorder.width;
+		int borderStyle = tabBorder.style;
 
 		int tabSpacing = rc.getRP(TabbedPane.PROPERTY_TAB_SPACING, fallbackStyle, 5);
 		int tabPlacement = rc.getRP(TabbedPane.PROPERTY_TAB_PLACEMENT, fallbackStyle, Alignment.TOP);
@@ -420,10 +520,9 @@ public class TabbedPanePeer extends AbstractEchoPointContainerPeer implements Ac
 		Extent tabLeadInWidth = (Extent) rc.getRP(TabbedPane.PROPERTY_TAB_LEAD_IN_WIDTH, fallbackStyle);
 		Color tabBackground = (Color) rc.getRP(TabbedPane.PROPERTY_BACKGROUND, fallbackStyle);
 
-		String tabActiveLineStyle = createTabActiveLineStyle(rc, tp, borderColor, borderWidth, borderStyle, tabBorderStyle, tabBackground);
-		String tabActiveTabTDBorderStyle = createTabActiveTDStyle(rc, tp, tabPlacement, borderColor, borderWidth, borderStyle, tabBorderStyle);
-		String tabInactiveLineStyle = createTabInActiveLineStyle(rc, tp, borderColor, borderWidth, borderStyle, tabBorderStyle);
-		String tabInActiveTabTDBorderStyle = createTabInactiveTDStyle(rc, tp, tabPlacement, borderColor, borderWidth, borderStyle, tabBorderStyle);
+		String[] tabStyles = getTabStyles(rc, tp, tabBorder, tabPlacement, tabBorderStyle, tabBackground);
+		String tabActiveTabTDBorderStyle = tabStyles[STYLE_ACTIVE_TD];
+		String tabInActiveTabTDBorderStyle = tabStyles[STYLE_INACTIVE_TD];
 
 		Element td;
 		Element imgE;
@@ -433,6 +532,7 @@ public class TabbedPanePeer extends AbstractEchoPointContainerPeer implements Ac
 		// Tab Contents Creation
 		// -------------------------------------
 		Element trContents = rc.createE("tr");
+		trContents.setAttribute("id", rc.getElementId() + "|contents");
 		td = rc.createE("td");
 		trContents.appendChild(td);
 		renderComplexTabContents(rc, tp, td, borderColor, borderWidth, borderStyle);
@@ -496,8 +596,10 @@ public class TabbedPanePeer extends AbstractEchoPointContainerPeer implements Ac
 				icon = imageManager.getImage(imagePrefix);
 
 				imgE = ImageManager.createImgE(rc, null, icon);
+				imgE.setAttribute("id", rc.getElementId() + "|tabImage|" + index);
 
 				Element anchorE = rc.createE("a");
+				anchorE.setAttribute("id", rc.getElementId() + "|tab|" + index);
 				if (tp.isRenderEnabled()) {
 					anchorE.setAttribute("href", "javascript:EP.Event.hrefActionHandler('" + rc.getElementId() + "','click','"
 							+ String.valueOf(index) + "')");
@@ -565,47 +667,11 @@ public class TabbedPanePeer extends AbstractEchoPointContainerPeer implements Ac
 		// -------------------------------------
 		// Tab Line Row Creation
 		// -------------------------------------
-		if (borderWidth > 0 && borderColor != null) {
+		renderState.tabLinesRendered = (borderWidth > 0 && borderColor != null);
+		if (renderState.tabLinesRendered) {
 			Element trLines = rc.createE("tr");
-			
-
-			int colspanPrev = selectedIndex * 2;
-			int colspanPost = ((tabCount - selectedIndex) * 2);
-			if (leadInIcon != null) {
-				colspanPrev += 1;
-			}
-			if (leadOutIcon != null)
-				colspanPost += 1;
-			
-			// a lead in width may be specified
-			if (tabLeadInWidth != null && tabLeadInWidth.getValue() > 0) {
-				td = rc.createE("td");
-				td.setAttribute("style", tabInactiveLineStyle);
-				trLines.appendChild(td);
-				td.appendChild(LayoutStrut.createStrut(rc, tabLeadInWidth, new Extent(0)));
-			}
-			
-			if (selectedIndex > 0 || leadInIcon != null) {
-				// inactive tab pre part
-				td = rc.createE("td");
-				trLines.appendChild(td);
-				td.setAttribute("style", tabInactiveLineStyle);
-				td.setAttribute("colspan", "" + colspanPrev);
-				// td.appendChild(LayoutStrut.createStrut(rc, 1, borderWidth));
-			}
-			// active tab part
-			td = rc.createE("td");
-			trLines.appendChild(td);
-			td.setAttribute("style", tabActiveLineStyle);
-			td.setAttribute("colspan", "1");
-			// td.appendChild(LayoutStrut.createStrut(rc, 1, borderWidth));
-
-			// inactive tab post part
-			td = rc.createE("td");
-			trLines.appendChild(td);
-			td.setAttribute("style", tabInactiveLineStyle);
-			td.setAttribute("colspan", "" + colspanPost);
-			// td.appendChild(LayoutStrut.createStrut(rc, 1, borderWidth));
+			trLines.setAttribute("id", rc.getElementId() + "|lines");
+			renderTabLines(rc, tp, trLines, tabStyles, leadInIcon != null, leadOutIcon != null, tabLeadInWidth);
 
 			if (tabPlacement == Alignment.TOP) {
 				tbodyTabs.appendChild(trItems);
@@ -653,6 +719,61 @@ public class TabbedPanePeer extends AbstractEchoPointContainerPeer implements Ac
 		rc.addStandardWebSupport(div);
 		div.appendChild(table);
 		parentNode.appendChild(div);
+
+		renderState.tabCount = tabCount;
+		renderState.selectedIndex = selectedIndex;
+		renderState.content = tp.getModel().getTabContentAt(selectedIndex);
+	}
+
+	/**
+	 * Renders the cells of the line between the tabs and the content, which
+	 * is broken underneath the selected tab.
+	 */
+	private void renderTabLines(RenderingContext rc, TabbedPane tp, Node trLines, String[] tabStyles, boolean hasLeadIn, boolean hasLeadOut,
+			Extent tabLeadInWidth) {
+		String tabActiveLineStyle = tabStyles[STYLE_ACTIVE_LINE];
+		String tabInactiveLineStyle = tabStyles[STYLE_INACTIVE_LINE];
+		int tabCount = tp.size();
+		int selectedIndex = tp.getSelectedIndex();
+		Element td;
+
+		int colspanPrev = selectedIndex * 2;
+		int colspanPost = ((tabCount - selectedIndex) * 2);
+		if (hasLeadIn) {
+			colspanPrev += 1;
+		}
+		if (hasLeadOut)
+			colspanPost += 1;
+		
+		// a lead in width may be specified
+		if (tabLeadInWidth != null && tabLeadInWidth.getValue() > 0) {
+			td = rc.createE("td");
+			td.setAttribute("style", tabInactiveLineStyle);
+			trLines.appendChild(td);
+			td.appendChild(LayoutStrut.createStrut(rc, tabLeadInWidth, new Extent(0)));
+		}
+		
+		if (selectedIndex > 0 || hasLeadIn) {
+			// inactive tab pre part
+			td = rc.createE("td");
+			trLines.appendChild(td);
+			td.setAttribute("style", tabInactiveLineStyle);
+			td.setAttribute("colspan", "" + colspanPrev);
+			// td.appendChild(LayoutStrut.createStrut(rc, 1, borderWidth));
+		}
+		// active tab part
+		td = rc.createE("td");
+		trLines.appendChild(td);
+		td.setAttribute("style", tabActiveLineStyle);
+		td.setAttribute("colspan", "1");
+		// td.appendChild(LayoutStrut.createStrut(rc, 1, borderWidth));
+
+		// inactive tab post part
+		td = rc.createE("td");
+		trLines.appendChild(td);
+		td.setAttribute("style", tabInactiveLineStyle);
+		td.setAttribute("colspan", "" + colspanPost);
+		// td.appendChild(LayoutStrut.createStrut(rc, 1, borderWidth));
 	}
 
 	/**
@@ -665,13 +786,13 @@ public class TabbedPanePeer extends AbstractEchoPointContainerPeer implements Ac
 		rc.addLibrary(Resources.EP_SCRIPT_SERVICE);
 		rc.addLibrary(Resources.EP_STRETCH_SERVICE);
 
-		ImageManager imageManager = (ImageManager) retreiveRenderState(rc,component);
-		if (imageManager == null) {
-			imageManager = new ImageManager();
-			storeRenderState(rc, component, imageManager);
+		TabbedPaneRenderState renderState = (TabbedPaneRenderState) retreiveRenderState(rc,component);
+		if (renderState == null) {
+			renderState = new TabbedPaneRenderState();
+			storeRenderState(rc, component, renderState);
 		}
-		registerAllImages(tp, imageManager);
-		renderComplexTabs(rc, tp, parent, imageManager);
+		registerAllImages(tp, renderState.imageManager);
+		renderComplexTabs(rc, tp, parent, renderState);
 	}
 
 	/**
@@ -681,8 +802,113 @@ public class TabbedPanePeer extends AbstractEchoPointContainerPeer implements Ac
 	public boolean renderUpdate(RenderContext rcOrig, ServerComponentUpdate update, String targetId) {
 		RenderingContext rc = new RenderingContext(rcOrig,update,update.getParent());
 		renderDisposeDirective(rc, update.getParent());
+		if (isSelectionUpdate(rc, update)) {
+			renderSelectionUpdate(rc, (TabbedPane) update.getParent());
+			return false;
+		}
 		return renderUpdateBaseImpl(rc, update, targetId, true);
 	}
+
+	/**
+	 * Returns true if the only change is a new tab selection, with the
+	 * previous content swapped for the content of the selected tab.
+	 */
+	private boolean isSelectionUpdate(RenderingContext rc, ServerComponentUpdate update) {
+		TabbedPane tp = (TabbedPane) update.getParent();
+		TabbedPaneRenderState renderState = (TabbedPaneRenderState) retreiveRenderState(rc, tp);
+		if (renderState == null || renderState.tabCount != tp.size()) {
+			return false;
+		}
+		String[] propertyNames = update.getUpdatedPropertyNames();
+		if (propertyNames.length != 1 || !TabbedPane.SELECTION_CHANGED_PROPERTY.equals(propertyNames[0])) {
+			return false;
+		}
+		if (update.hasUpdatedLayoutDataChildren()) {
+			return false;
+		}
+		int selectedIndex = tp.getSelectedIndex();
+		if (selectedIndex < 0 || selectedIndex >= renderState.tabCount || renderState.selectedIndex < 0
+				|| renderState.selectedIndex >= renderState.tabCount) {
+			return false;
+		}
+		Component content = tp.getModel().getTabContentAt(selectedIndex);
+		Component[] addedChildren = update.getAddedChildren();
+		for (int i = 0; i < addedChildren.length; i++) {
+			if (addedChildren[i] != content) {
+				return false;
+			}
+		}
+		Component[] removedChildren = update.getRemovedChildren();
+		for (int i = 0; i < removedChildren.length; i++) {
+			if (removedChildren[i] != renderState.content) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Renders a change of tab selection. Only the content area, the line
+	 * underneath the tabs and the images of the previous and new selected
+	 * tabs are replaced. Tab components restyled by the TabModel render
+	 * their own updates.
+	 */
+	private void renderSelectionUpdate(RenderingContext rc, TabbedPane tp) {
+		ServerMessage serverMessage = rc.getServerMessage();
+		TabbedPaneRenderState renderState = (TabbedPaneRenderState) retreiveRenderState(rc, tp);
+		Style fallbackStyle = EPNG.getFallBackStyle(tp);
+		String elementId = rc.getElementId();
+		int previousIndex = renderState.selectedIndex;
+		int selectedIndex = tp.getSelectedIndex();
+
+		TabBorder tabBorder = getTabBorder(rc, tp, fallbackStyle);
+
+		//
+		// the content area
+		DocumentFragment htmlFragment = serverMessage.getDocument().createDocumentFragment();
+		Element td = rc.createE("td");
+		htmlFragment.appendChild(td);
+		renderComplexTabContents(rc, tp, td, tabBorder.color, tabBorder.width, tabBorder.style);
+		DomUpdate.renderElementRemoveChildren(serverMessage, elementId + "|contents");
+		DomUpdate.renderElementAdd(serverMessage, elementId + "|contents", htmlFragment);
+
+		//
+		// the images of the previous and new selected tabs
+		if (tp.getModel().getTabImageRenderer() != null) {
+			int[] changedIndexes = new int[] { previousIndex, selectedIndex };
+			for (int i = 0; i < changedIndexes.length; i++) {
+				int index = changedIndexes[i];
+				registerSingleImage(tp, index, renderState.imageManager);
+				ImageReference icon = renderState.imageManager.getImage(IMAGE_PREFIX + index);
+
+				htmlFragment = serverMessage.getDocument().createDocumentFragment();
+				Element imgE = ImageManager.createImgE(rc, null, icon);
+				imgE.setAttribute("id", elementId + "|tabImage|" + index);
+				htmlFragment.appendChild(imgE);
+				DomUpdate.renderElementRemove(serverMessage, elementId + "|tabImage|" + index);
+				DomUpdate.renderElementAdd(serverMessage, elementId + "|tab|" + index, htmlFragment);
+			}
+		}
+
+		//
+		// the line underneath the tabs
+		if (renderState.tabLinesRendered) {
+			int tabPlacement = rc.getRP(TabbedPane.PROPERTY_TAB_PLACEMENT, fallbackStyle, Alignment.TOP);
+			int tabBorderStyle = rc.getRP(TabbedPane.PROPERTY_TAB_BORDER_STYLE, fallbackStyle, TabbedPane.TAB_STRIP_AND_CONTENT);
+			Extent tabLeadInWidth = (Extent) rc.getRP(TabbedPane.PROPERTY_TAB_LEAD_IN_WIDTH, fallbackStyle);
+			Color tabBackground = (Color) rc.getRP(TabbedPane.PROPERTY_BACKGROUND, fallbackStyle);
+			String[] tabStyles = getTabStyles(rc, tp, tabBorder, tabPlacement, tabBorderStyle, tabBackground);
+
+			htmlFragment = serverMessage.getDocument().createDocumentFragment();
+			renderTabLines(rc, tp, htmlFragment, tabStyles, renderState.imageManager.getImage(LEADIN_IMAGE_PREFIX) != null,
+					renderState.imageManager.getImage(LEADOUT_IMAGE_PREFIX) != null, tabLeadInWidth);
+			DomUpdate.renderElementRemoveChildren(serverMessage, elementId + "|lines");
+			DomUpdate.renderElementAdd(serverMessage, elementId + "|lines", htmlFragment);
+		}
+
+		renderState.selectedIndex = selectedIndex;
+		renderState.content = tp.getModel().getTabContentAt(selectedIndex);
+	}
 	
 	/**
 	 * @see echopointng.ui.syncpeer.AbstractEchoPointPeer#renderDispose(nextapp.echo2.webcontainer.RenderContext, nextapp.echo2.app.update.ServerComponentUpdate, nextapp.echo2.app.Component)
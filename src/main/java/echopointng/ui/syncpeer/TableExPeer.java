@@ -98,6 +98,7 @@ import nextapp.echo2.webcontainer.DomUpdateSupport;
 import nextapp.echo2.webcontainer.PartialUpdateManager;
 import nextapp.echo2.webcontainer.PropertyUpdateProcessor;
 import nextapp.echo2.webcontainer.RenderContext;
+import nextapp.echo2.webcontainer.SharedStyleTable;
 import nextapp.echo2.webcontainer.ComponentSynchronizePeer;
 import nextapp.echo2.webcontainer.SynchronizePeerFactory;
 import nextapp.echo2.webcontainer.image.ImageRenderSupport;
@@ -333,6 +334,27 @@ public class TableExPeer implements ActionProcessor, ComponentSynchronizePeer, D
 	 *      nextapp.echo2.app.Component)
 	 */
 	public void renderHtml(RenderContext rcOrig, ServerComponentUpdate update, Node parentNode, Component component) {
+		SharedStyleTable sharedStyleTable = rcOrig.getContainerInstance().getSharedStyleTable();
+		if (sharedStyleTable == null) {
+			renderHtmlImpl(rcOrig, update, parentNode, component);
+			return;
+		}
+		// the table is always rendered in full, so release the shared styles
+		// of the previous rendering once those of this one have been interned
+		sharedStyleTable.renderStarted(rcOrig.getServerMessage(), component);
+		try {
+			renderHtmlImpl(rcOrig, update, parentNode, component);
+		} finally {
+			sharedStyleTable.renderCompleted(rcOrig.getServerMessage(), component);
+		}
+	}
+
+	/**
+	 * Renders the HTML of the table.
+	 * 
+	 * @see #renderHtml(RenderContext, ServerComponentUpdate, Node, Component)
+	 */
+	private void renderHtmlImpl(RenderContext rcOrig, ServerComponentUpdate update, Node parentNode, Component component) {
 		RenderingContext rc = new RenderingContext(rcOrig, update, component);
 		Style fallbackStyle = EPNG.getFallBackStyle(component);
 
@@ -723,7 +745,7 @@ public class TableExPeer implements ActionProcessor, ComponentSynchronizePeer, D
 				style.setAttribute("overflow", "hidden");
 				style.setAttribute("white-space", "nowrap");
 			}
-			cellContentE.setAttribute("style", style.renderInline());
+			rc.renderStyle(cellContentE, style);
 			cellContentE.setAttribute("id", cellId);
 
 			//
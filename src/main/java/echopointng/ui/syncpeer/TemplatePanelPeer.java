@@ -74,6 +74,7 @@ import echopointng.ui.util.RenderingContext;
 import echopointng.ui.util.io.StringInputStream;
 import echopointng.util.HtmlKit;
 import echopointng.util.collections.ExpiryCache;
+import echopointng.util.collections.TimerExpiryCache;
 import echopointng.util.reflect.ReflectionKit;
 
 /**
@@ -104,6 +105,12 @@ public class TemplatePanelPeer extends AbstractEchoPointContainerPeer {
 	 * using
 	 * <code>TemplatePanelPeer.COMPILED_TEMPLATE_CACHE.setSoftReferences(xxx)</code>
 	 * <p>
+	 * The cache holds at most <code>COMPILED_TEMPLATE_CACHE_SIZE</code> templates,
+	 * which can be changed via
+	 * <code>TemplatePanelPeer.COMPILED_TEMPLATE_CACHE.setMaximumSize(xxx)</code>.
+	 * Expired templates are reaped in the background every
+	 * <code>TimerExpiryCache.DEFAULT_REAPER_INTERVAL</code> milliseconds.
+	 * <p>
 	 * You should however consider using <code>TemplateCachingHints</code> to provide these
 	 * caching values on a case by case basis.
 	 * 
@@ -111,8 +118,14 @@ public class TemplatePanelPeer extends AbstractEchoPointContainerPeer {
 	 * @see java.lang.ref.SoftReference
 	 */
 	public static final ExpiryCache COMPILED_TEMPLATE_CACHE;
+	
+	/** The default maximum number of compiled templates that are cached */
+	public static final int COMPILED_TEMPLATE_CACHE_SIZE = 256;
 	static {
+		// declared as an ExpiryCache for compatibility, bounded via BoundedCache
 		COMPILED_TEMPLATE_CACHE = new ExpiryCache(ExpiryCache.DEFAULT_TIME_TO_LIVE, ExpiryCache.DEFAULT_ACCESS_TIMEOUT, false);
+		COMPILED_TEMPLATE_CACHE.setMaximumSize(COMPILED_TEMPLATE_CACHE_SIZE);
+		COMPILED_TEMPLATE_CACHE.setReaperInterval(TimerExpiryCache.DEFAULT_REAPER_INTERVAL);
 	}
 
 	/**
@@ -443,7 +443,7 @@ public class TreeRenderer  {
 			cellTD.appendChild(imgE);
 		}
 		CssStyle cssStyle = createStyleFromTree(tree);
-		cellTD.setAttribute("style",cssStyle.renderInline());
+		rc.renderStyle(cellTD, cssStyle);
 		cellTD.setAttribute("nowrap","nowrap");
 	}
 
@@ -484,7 +484,7 @@ public class TreeRenderer  {
 			cellTD.appendChild(imgE);
 		}
 		if (cssStyle.hasAttributes()) {
-			cellTD.setAttribute("style",cssStyle.renderInline());
+			rc.renderStyle(cellTD, cssStyle);
 		}
 		// need some content so it has body
 		cellTD.setAttribute("nowrap","nowrap");
@@ -547,7 +547,7 @@ public class TreeRenderer  {
 			String eventElementId = eventSupportCallBack.onExpandoCell(rc,cellStyle,cellTD,tree,treeNode,treeNodePath);
 			cellTD.setAttribute("id",eventElementId);
 		}
-		cellTD.setAttribute("style",cellStyle.renderInline());
+		rc.renderStyle(cellTD, cellStyle);
 		cellTD.setAttribute("nowrap","nowrap");
 	}
 	
@@ -584,7 +584,7 @@ public class TreeRenderer  {
 				
 				String eventElementId = eventSupportCallBack.onNodeIconCell(rc,cssStyleIcon,cellTD,tree,treeNode,treeNodePath);
 				cellTD.setAttribute("id",eventElementId);
-				cellTD.setAttribute("style",cssStyleIcon.renderInline());
+				rc.renderStyle(cellTD, cssStyleIcon);
 			}
 			//
 			// render the text
@@ -602,7 +602,7 @@ public class TreeRenderer  {
 			
 			String eventElementId = eventSupportCallBack.onNodeTextCell(rc,cssStyleText,cellTD,tree,treeNode,treeNodePath);
 			cellTD.setAttribute("id",eventElementId);
-			cellTD.setAttribute("style",cssStyleText.renderInline());
+			rc.renderStyle(cellTD, cssStyleText);
 		} else {
 			//
 			// node may have a Component associated with it
@@ -620,7 +620,7 @@ public class TreeRenderer  {
 	
 				String eventElementId = eventSupportCallBack.onNodeIconCell(rc,cssStyleComponent,cellTD,tree,treeNode,treeNodePath);
 				cellTD.setAttribute("id",eventElementId);
-				cellTD.setAttribute("style",cssStyleComponent.renderInline());
+				rc.renderStyle(cellTD, cssStyleComponent);
 				
 		        ComponentSynchronizePeer syncPeer = SynchronizePeerFactory.getPeerForComponent(cellComponent.getClass());
 		        if (syncPeer instanceof DomUpdateSupport) {
@@ -646,7 +646,7 @@ public class TreeRenderer  {
 	
 				String eventElementId = eventSupportCallBack.onNodeIconCell(rc,cssStyleFragment,cellTD,tree,treeNode,treeNodePath);
 				cellTD.setAttribute("id",eventElementId);
-				cellTD.setAttribute("style",cssStyleFragment.renderInline());
+				rc.renderStyle(cellTD, cssStyleFragment);
 
 				// parse and insert the XhtmlFragment if its complex
 				if (fragment.isJustText()) {
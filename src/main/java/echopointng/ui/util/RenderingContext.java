@@ -35,9 +35,11 @@ import nextapp.echo2.app.update.ServerComponentUpdate;
 import nextapp.echo2.webcontainer.ContainerInstance;
 import nextapp.echo2.webcontainer.RenderContext;
 import nextapp.echo2.webcontainer.RenderState;
+import nextapp.echo2.webcontainer.SharedStyleTable;
 import nextapp.echo2.webrender.Connection;
 import nextapp.echo2.webrender.ServerMessage;
 import nextapp.echo2.webrender.Service;
+import nextapp.echo2.webrender.output.CssStyle;
 import nextapp.echo2.webrender.servermessage.DomPropertyStore;
 import nextapp.echo2.webrender.servermessage.EventProcessor;
 
@@ -584,4 +586,21 @@ public class RenderingContext implements RenderContext {
 		DomPropertyStore.renderSetProperty(getServerMessage(), elementId, propertyName, propertyValue);
 	}
 
+	/**
+	 * Applies a <code>CssStyle</code> to an Element. If style interning has
+	 * been enabled on the <code>ContainerInstance</code>, styles are rendered
+	 * as shared style sheet classes rather than inline style attributes, which
+	 * greatly reduces output when the same style is repeated many times.
+	 * 
+	 * @param element -
+	 *            the Element to apply the style to
+	 * @param cssStyle -
+	 *            the style to apply
+	 * 
+	 * @see SharedStyleTable
+	 */
+	public void renderStyle(Element element, CssStyle cssStyle) {
+		SharedStyleTable.renderStyle(rc, component, element, cssStyle.renderInline());
+	}
+
 }
@@ -27,9 +27,7 @@ package echopointng.util;
  * the provisions above, a recipient may use your version of this file under
  * the terms of any one of the MPL, the GPL or the LGPL.
  */
-import echopointng.util.collections.ConcurrentReaderHashMap;
-
-import java.util.Map;
+import echopointng.util.collections.BoundedCache;
 
 import nextapp.echo2.app.Color;
 import nextapp.echo2.app.Component;
@@ -79,7 +77,13 @@ public class ColorKit {
 	 */
 	public static final double COLOR_FACTOR = 0.7;
 
-	private static Map colorMap = new ConcurrentReaderHashMap();
+	/**
+	 * The maximum number of parsed color strings that are cached.  The keys
+	 * can come from user supplied strings, so the cache must be bounded.
+	 */
+	public static final int COLOR_CACHE_SIZE = 1024;
+
+	private static BoundedCache colorMap = new BoundedCache(COLOR_CACHE_SIZE);
 
 	/** not instantiable */
 	private ColorKit() {
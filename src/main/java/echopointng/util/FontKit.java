@@ -36,7 +36,7 @@ import nextapp.echo2.app.Component;
 import nextapp.echo2.app.Extent;
 import nextapp.echo2.app.Font;
 
-import echopointng.util.collections.ConcurrentReaderHashMap;
+import echopointng.util.collections.BoundedCache;
 
 /**
  * A utility to class to help with Font manipulation
@@ -45,8 +45,14 @@ import echopointng.util.collections.ConcurrentReaderHashMap;
  */
 public class FontKit {
 
+	/**
+	 * The maximum number of parsed font strings that are cached.  The keys
+	 * can come from user supplied strings, so the cache must be bounded.
+	 */
+	public static final int FONT_CACHE_SIZE = 512;
+
 	/* our static cache of Font objects by Font String representation */ 
-	private static Map fontMap = new ConcurrentReaderHashMap();
+	private static BoundedCache fontMap = new BoundedCache(FONT_CACHE_SIZE);
 	
    private static final Map FONTSTYLE_TEXT_TO_CONSTANT;
     static {
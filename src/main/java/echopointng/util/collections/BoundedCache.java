@@ -0,0 +1,989 @@
+package echopointng.util.collections;
+
+/*
+ * This file is part of the Echo Point Project.  This project is a collection
+ * of Components that have extended the Echo Web Application Framework.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <code>BoundedCache</code> implements a thread safe <code>Map</code> cache
+ * that is bounded in size and/or total weight and whose entries may "expire".
+ * <p>
+ * When the maximum size or maximum weight is exceeded, a batch of entries is
+ * evicted. Eviction is frequency aware: entries that have been accessed the
+ * least are removed first, with the least recently accessed entry losing a
+ * tie. Access frequencies are halved once the number of accesses since the
+ * last halving exceeds ten times the size of the cache, so that entries that
+ * were popular a long time ago do not stay in the cache forever.
+ * <p>
+ * The time-to-live and access-timeout semantics are the same as those of
+ * <code>ExpiryCache</code>. Time-to-live is measured from the moment the
+ * object was put into the cache, access-timeout from the moment it was last
+ * retrieved. A value of -1 means never expire.
+ * <p>
+ * Values can optionally be held via <code>SoftReference</code>s so that they
+ * can be reclaimed in low memory conditions.
+ * <p>
+ * Expired entries are always detected lazily when they are retrieved. If a
+ * reaper interval is set, then expired and reclaimed entries are also removed
+ * by a background task that runs on a single <b>shared</b>
+ * <code>ScheduledExecutorService</code>. The cache is only weakly referenced
+ * by that task, so an unused cache can still be garbage collected.
+ * <p>
+ * The cache keeps hit, miss, eviction and expiry counters which can be read
+ * at any time to judge how well the cache is sized.
+ */
+public class BoundedCache implements Map {
+
+	/** A size or weight bound of this value means "unbounded" */
+	public static final int UNBOUNDED = -1;
+
+	/** The fraction of the bounds that an eviction pass trims the cache back to */
+	private static final float EVICTION_TARGET = 0.9f;
+
+	/** Frequency counters saturate at this value */
+	private static final int MAX_FREQUENCY = 0xFFFF;
+
+	/** Frequencies are aged after this many accesses per cache entry */
+	private static final int AGING_FACTOR = 10;
+
+	/**
+	 * <code>Weigher</code> is used to calculate the weight of a cache entry,
+	 * for example the approximate number of bytes it retains.
+	 */
+	public static interface Weigher {
+
+		/**
+		 * Returns the weight of a cache entry, which must not be negative.
+		 *
+		 * @param key -
+		 *            the key of the cached object
+		 * @param value -
+		 *            the cached object
+		 * @return the weight of the entry
+		 */
+		public int weigh(Object key, Object value);
+	}
+
+	/** The shared executor that reaps all caches with a reaper interval */
+	private static ScheduledThreadPoolExecutor reaperExecutor;
+
+	private static synchronized ScheduledThreadPoolExecutor getReaperExecutor() {
+		if (reaperExecutor == null) {
+			reaperExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "EchoPoint BoundedCache Reaper");
+					thread.setDaemon(true);
+					thread.setPriority(Thread.MIN_PRIORITY);
+					return thread;
+				}
+			});
+			reaperExecutor.setRemoveOnCancelPolicy(true);
+		}
+		return reaperExecutor;
+	}
+
+	/**
+	 * <code>ReaperTask</code> only weakly refers to its cache and cancels
+	 * itself once the cache has been garbage collected.
+	 */
+	private static class ReaperTask implements Runnable {
+
+		private WeakReference cacheRef;
+
+		private ScheduledFuture future;
+
+		private ReaperTask(BoundedCache cache) {
+			cacheRef = new WeakReference(cache);
+		}
+
+		public void run() {
+			BoundedCache cache = (BoundedCache) cacheRef.get();
+			if (cache == null) {
+				if (future != null) {
+					future.cancel(false);
+				}
+				return;
+			}
+			cache.reap();
+		}
+	}
+
+	/**
+	 * <code>CacheEntry</code> is used to wrap cached objects and tracks their
+	 * time-to-live, last access time, access count and frequency.
+	 */
+	private class CacheEntry {
+
+		private Object cachedData;
+
+		private long timeCached;
+
+		private volatile long timeAccessedLast;
+
+		private volatile int numberOfAccesses;
+
+		/**
+		 * Updated without synchronisation, so it is an approximation under
+		 * concurrent access which is all that eviction needs.
+		 */
+		private volatile int frequency;
+
+		private long objTTL;
+
+		private long objATO;
+
+		private long objVersion;
+
+		private int weight;
+
+		private CacheEntry(Object value, long ttl, long ato, long objVersion, int weight) {
+			long now = System.currentTimeMillis();
+			this.cachedData = softReferences && value != null ? new SoftReference(value) : value;
+			this.objVersion = objVersion;
+			this.weight = weight;
+			objTTL = ttl;
+			objATO = ato;
+			timeCached = now;
+			timeAccessedLast = now;
+			numberOfAccesses = 1;
+			frequency = 1;
+		}
+
+		private Object getValue() {
+			if (cachedData instanceof SoftReference) {
+				return ((SoftReference) cachedData).get();
+			}
+			return cachedData;
+		}
+
+		private boolean isReclaimed() {
+			return cachedData instanceof SoftReference && ((SoftReference) cachedData).get() == null;
+		}
+
+		private void recordAccess() {
+			timeAccessedLast = System.currentTimeMillis();
+			++numberOfAccesses;
+			if (frequency < MAX_FREQUENCY) {
+				++frequency;
+			}
+			++accessesSinceAging;
+		}
+
+		private boolean hasExpired(long now) {
+			if (objTTL != -1 && now > timeCached + objTTL) {
+				return true;
+			}
+			if (objATO != -1 && now > timeAccessedLast + objATO) {
+				return true;
+			}
+			return false;
+		}
+
+		public String toString() {
+			long now = System.currentTimeMillis();
+			StringBuffer buf = new StringBuffer();
+			buf.append(String.valueOf(getValue()));
+			buf.append(" [put version ");
+			buf.append(objVersion);
+			buf.append("] [time to live ");
+			buf.append((timeCached + objTTL) - now);
+			buf.append("ms] [access timeout in ");
+			buf.append((timeAccessedLast + objATO) - now);
+			buf.append("ms] [frequency ");
+			buf.append(frequency);
+			buf.append("]");
+			return buf.toString();
+		}
+	}
+
+	/**
+	 * <code>EvictionCandidate</code> is a stable snapshot of an entry, taken
+	 * so that concurrent accesses cannot change the sort order mid sort.
+	 */
+	private static class EvictionCandidate {
+
+		private Object key;
+
+		private CacheEntry entry;
+
+		private int frequency;
+
+		private long timeAccessedLast;
+	}
+
+	/** Orders candidates so that the best ones to evict come first */
+	private static final Comparator EVICTION_ORDER = new Comparator() {
+		public int compare(Object o1, Object o2) {
+			EvictionCandidate c1 = (EvictionCandidate) o1;
+			EvictionCandidate c2 = (EvictionCandidate) o2;
+			if (c1.frequency != c2.frequency) {
+				return c1.frequency < c2.frequency ? -1 : 1;
+			}
+			if (c1.timeAccessedLast != c2.timeAccessedLast) {
+				return c1.timeAccessedLast < c2.timeAccessedLast ? -1 : 1;
+			}
+			return 0;
+		}
+	};
+
+	private final ConcurrentHashMap cacheMap = new ConcurrentHashMap();
+
+	private final Object evictionLock = new Object();
+
+	private final AtomicLong totalWeight = new AtomicLong();
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	private final AtomicLong expiredCount = new AtomicLong();
+
+	/** Updated without synchronisation, it only needs to be roughly right */
+	private volatile int accessesSinceAging;
+
+	private volatile int maximumSize;
+
+	private volatile long maximumWeight = UNBOUNDED;
+
+	private Weigher weigher;
+
+	private volatile long ttl;
+
+	private volatile long ato;
+
+	private volatile boolean softReferences;
+
+	private long reaperInterval = -1;
+
+	private ReaperTask reaperTask;
+
+	/**
+	 * Constructs a <code>BoundedCache</code> with the specified maximum size
+	 * whose entries never expire and which are strongly referenced.
+	 *
+	 * @param maximumSize -
+	 *            the maximum number of entries or <code>UNBOUNDED</code>
+	 */
+	public BoundedCache(int maximumSize) {
+		this(maximumSize, -1, -1, false);
+	}
+
+	/**
+	 * Constructs a <code>BoundedCache</code> with all the parameters
+	 *
+	 * @param maximumSize -
+	 *            the maximum number of entries or <code>UNBOUNDED</code>
+	 * @param timeToLive -
+	 *            the default time-to-live for a cache entry or -1
+	 * @param accessTimeout -
+	 *            the default access timeout for a cache entry or -1
+	 * @param softReferences -
+	 *            whether <code>SoftReference</code>s are used to cached data
+	 */
+	public BoundedCache(int maximumSize, long timeToLive, long accessTimeout, boolean softReferences) {
+		this.maximumSize = maximumSize;
+		this.ttl = timeToLive;
+		this.ato = accessTimeout;
+		this.softReferences = softReferences;
+	}
+
+	/**
+	 * Returns the maximum number of entries in the cache.
+	 *
+	 * @return the maximum number of entries or <code>UNBOUNDED</code>
+	 */
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	/**
+	 * Sets the maximum number of entries in the cache. If the cache is
+	 * currently larger it will be trimmed.
+	 *
+	 * @param maximumSize -
+	 *            the maximum number of entries or <code>UNBOUNDED</code>
+	 */
+	public void setMaximumSize(int maximumSize) {
+		this.maximumSize = maximumSize;
+		evictIfNecessary();
+	}
+
+	/**
+	 * Returns the maximum total weight of the entries in the cache.
+	 *
+	 * @return the maximum weight or <code>UNBOUNDED</code>
+	 */
+	public long getMaximumWeight() {
+		return maximumWeight;
+	}
+
+	/**
+	 * Sets the maximum total weight of the entries in the cache, as
+	 * calculated by the cache's <code>Weigher</code>. If no
+	 * <code>Weigher</code> is set, every entry weighs 1.
+	 *
+	 * @param maximumWeight -
+	 *            the maximum weight or <code>UNBOUNDED</code>
+	 */
+	public void setMaximumWeight(long maximumWeight) {
+		this.maximumWeight = maximumWeight;
+		evictIfNecessary();
+	}
+
+	/**
+	 * Returns the <code>Weigher</code> used to weigh new entries.
+	 *
+	 * @return the <code>Weigher</code> or null
+	 */
+	public Weigher getWeigher() {
+		return weigher;
+	}
+
+	/**
+	 * Sets the <code>Weigher</code> used to weigh new entries. Entries that
+	 * are already in the cache keep their weight.
+	 *
+	 * @param weigher -
+	 *            the new <code>Weigher</code> or null
+	 */
+	public void setWeigher(Weigher weigher) {
+		this.weigher = weigher;
+	}
+
+	/**
+	 * Returns the current total weight of the entries in the cache.
+	 *
+	 * @return the current total weight
+	 */
+	public long getWeight() {
+		return totalWeight.get();
+	}
+
+	/**
+	 * Returns the default 'time-to-live' for a cache entry
+	 *
+	 * @return the default 'time-to-live' for a cache entry
+	 */
+	public long getTimeToLive() {
+		return ttl;
+	}
+
+	/**
+	 * Sets the default 'time-to-live' for a cache entry
+	 *
+	 * @param milliSecs -
+	 *            'time-to-live' for a cache entry
+	 */
+	public void setTimeToLive(long milliSecs) {
+		ttl = milliSecs;
+	}
+
+	/**
+	 * Returns the default access timeout for a cache entry
+	 *
+	 * @return the default access timeout for a cache entry
+	 */
+	public long getAccessTimeout() {
+		return ato;
+	}
+
+	/**
+	 * Sets the default access timeout for a cache entry
+	 *
+	 * @param milliSecs -
+	 *            access timeout for a cache entry
+	 */
+	public void setAccessTimeout(long milliSecs) {
+		ato = milliSecs;
+	}
+
+	/**
+	 * Returns true if <code>SoftReference</code>s are used to cached data
+	 *
+	 * @return true if <code>SoftReference</code>s are used to cached data
+	 */
+	public boolean isSoftReferences() {
+		return softReferences;
+	}
+
+	/**
+	 * Sets whether <code>SoftReference</code>s are used to hold new cache
+	 * entries.
+	 *
+	 * @param newValue -
+	 *            the new value of the flag
+	 */
+	public void setSoftReferences(boolean newValue) {
+		this.softReferences = newValue;
+	}
+
+	/**
+	 * Returns the interval at which the shared reaper removes expired entries
+	 * from this cache.
+	 *
+	 * @return the reaper interval in milliseconds or -1 if the cache is not
+	 *         reaped in the background
+	 */
+	public synchronized long getReaperInterval() {
+		return reaperInterval;
+	}
+
+	/**
+	 * Sets the interval at which the shared reaper removes expired entries
+	 * from this cache. A value of -1 stops background reaping, in which case
+	 * expired entries are only removed when they are retrieved or when the
+	 * cache needs to evict.
+	 *
+	 * @param milliSecs -
+	 *            the reaper interval in milliseconds or -1
+	 */
+	public synchronized void setReaperInterval(long milliSecs) {
+		if (reaperTask != null) {
+			reaperTask.future.cancel(false);
+			reaperTask = null;
+		}
+		reaperInterval = milliSecs;
+		if (milliSecs > 0) {
+			reaperTask = new ReaperTask(this);
+			reaperTask.future = getReaperExecutor().scheduleWithFixedDelay(reaperTask, milliSecs, milliSecs, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Returns the number of successful lookups.
+	 *
+	 * @return the number of successful lookups
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns the number of lookups that did not find a live object,
+	 * including those for expired, versioned out or reclaimed objects.
+	 *
+	 * @return the number of unsuccessful lookups
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Returns the number of entries removed because the cache exceeded its
+	 * size or weight bounds.
+	 *
+	 * @return the number of evicted entries
+	 */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	/**
+	 * Returns the number of entries removed because they had expired or
+	 * their soft reference had been reclaimed.
+	 *
+	 * @return the number of expired entries
+	 */
+	public long getExpiredCount() {
+		return expiredCount.get();
+	}
+
+	/**
+	 * Returns the ratio of hits to lookups.
+	 *
+	 * @return the hit ratio between 0 and 1, or 1 if no lookups have been done
+	 */
+	public double getHitRatio() {
+		long hits = hitCount.get();
+		long lookups = hits + missCount.get();
+		return lookups == 0 ? 1.0 : (double) hits / lookups;
+	}
+
+	/**
+	 * Resets the hit, miss, eviction and expiry counters to zero.
+	 */
+	public void resetStatistics() {
+		hitCount.set(0);
+		missCount.set(0);
+		evictionCount.set(0);
+		expiredCount.set(0);
+	}
+
+	/**
+	 * Returns the time when the object was cached under a given key
+	 *
+	 * @param key -
+	 *            the key to the cached object
+	 * @return the time when the object was cached under a given key
+	 */
+	public long whenCached(Object key) {
+		CacheEntry ce = (CacheEntry) cacheMap.get(key);
+		return ce == null ? 0 : ce.timeCached;
+	}
+
+	/**
+	 * Returns the time when the object was last accessed under a given key
+	 *
+	 * @param key -
+	 *            the key to the cached object
+	 * @return the time when the object was last accessed under a given key
+	 */
+	public long whenLastAccessed(Object key) {
+		CacheEntry ce = (CacheEntry) cacheMap.get(key);
+		return ce == null ? 0 : ce.timeAccessedLast;
+	}
+
+	/**
+	 * Returns the version number that was provided when the object was placed
+	 * in the cache.
+	 *
+	 * @param key -
+	 *            the key to the cached object
+	 * @return the version number that was provided when the object was placed
+	 *         in the cache or -1 if it was not provided at cache put.
+	 */
+	public long whenVersion(Object key) {
+		CacheEntry ce = (CacheEntry) cacheMap.get(key);
+		return ce == null ? -1 : ce.objVersion;
+	}
+
+	/**
+	 * Returns the number of times the object was accessed under a given key
+	 *
+	 * @param key -
+	 *            the key to the cached object
+	 * @return the number of times the object was accessed under a given key
+	 */
+	public int howManyTimesAccessed(Object key) {
+		CacheEntry ce = (CacheEntry) cacheMap.get(key);
+		return ce == null ? 0 : ce.numberOfAccesses;
+	}
+
+	/**
+	 * Called to see if a cache entry has expired or not at a given point in
+	 * time.
+	 *
+	 * @param key -
+	 *            the key to the cached object
+	 * @param when -
+	 *            the time to do the comparision against
+	 * @return true if the object has expired in the cache or cant be found in
+	 *         the cache.
+	 */
+	public boolean hasExpired(Object key, long when) {
+		CacheEntry ce = (CacheEntry) cacheMap.get(key);
+		return ce == null || ce.hasExpired(when);
+	}
+
+	/**
+	 * @see java.util.Map#clear()
+	 */
+	public void clear() {
+		synchronized (evictionLock) {
+			for (Iterator it = cacheMap.entrySet().iterator(); it.hasNext();) {
+				Map.Entry entry = (Map.Entry) it.next();
+				removeEntry(entry.getKey(), (CacheEntry) entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Note this may return true for an object that has expired but has not
+	 * been reaped yet.
+	 *
+	 * @see java.util.Map#containsKey(java.lang.Object)
+	 */
+	public boolean containsKey(Object key) {
+		return cacheMap.containsKey(key);
+	}
+
+	/**
+	 * @see java.util.Map#remove(java.lang.Object)
+	 */
+	public Object remove(Object key) {
+		CacheEntry ce = (CacheEntry) cacheMap.remove(key);
+		if (ce == null) {
+			return null;
+		}
+		totalWeight.addAndGet(-ce.weight);
+		return ce.getValue();
+	}
+
+	/**
+	 * Note this may return a size larger than the number of non expired
+	 * objects. A traversal of cached objects is NOT done here to work out a
+	 * correct size value.
+	 *
+	 * @see java.util.Map#size()
+	 */
+	public int size() {
+		return cacheMap.size();
+	}
+
+	/**
+	 * Note this may return false when in fact all objects in the cache have
+	 * expired.
+	 *
+	 * @see java.util.Map#isEmpty()
+	 */
+	public boolean isEmpty() {
+		return cacheMap.isEmpty();
+	}
+
+	/**
+	 * @see java.util.Map#putAll(java.util.Map)
+	 */
+	public void putAll(Map t) {
+		for (Iterator iter = t.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry = (Map.Entry) iter.next();
+			put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Returns a Set of all the keys in the cache. It may contain keys to
+	 * objects that have expired so be careful when using this.
+	 *
+	 * @return a Set of all the keys in the cache
+	 */
+	public Set keySet() {
+		return cacheMap.keySet();
+	}
+
+	/**
+	 * This operation is not supported on BoundedCache.
+	 *
+	 * @throws UnsupportedOperationException
+	 */
+	public Set entrySet() {
+		throw new UnsupportedOperationException("public Set entrySet() is an unsupported operation.");
+	}
+
+	/**
+	 * This operation is not supported on BoundedCache.
+	 *
+	 * @throws UnsupportedOperationException
+	 */
+	public Collection values() {
+		throw new UnsupportedOperationException("public Collection values() is an unsupported operation.");
+	}
+
+	/**
+	 * This operation is not supported on BoundedCache.
+	 *
+	 * @throws UnsupportedOperationException
+	 */
+	public boolean containsValue(Object value) {
+		throw new UnsupportedOperationException("public boolean containsValue(Object value) is an unsupported operation.");
+	}
+
+	/**
+	 * Places an object into the cache. The object will have the cache's
+	 * default 'time-to-live' and 'access time out' value.
+	 *
+	 * @param key -
+	 *            the key of the cached object
+	 * @param objToCache -
+	 *            the object to cache
+	 * @return - the old object at this cache key
+	 */
+	public Object put(Object key, Object objToCache) {
+		return put(key, objToCache, ttl, ato, -1);
+	}
+
+	/**
+	 * Places an object into the cache. The object will have the cache's
+	 * default 'time-to-live' and 'access time out' value.
+	 *
+	 * @param key -
+	 *            the key of the cached object
+	 * @param objToCache -
+	 *            the object to cache
+	 * @param objVersion -
+	 *            the version of the object at the time it is put
+	 * @return - the old object at this cache key
+	 */
+	public Object put(Object key, Object objToCache, long objVersion) {
+		return put(key, objToCache, ttl, ato, objVersion);
+	}
+
+	/**
+	 * Places an object into the cache with the specified 'time-to-live' and a
+	 * 'access time out' value.
+	 *
+	 * @param key -
+	 *            the key of the cached object
+	 * @param objToCache -
+	 *            the object to cache
+	 * @param timeToLive -
+	 *            the time-to-live on the object or -1 to live for ever
+	 * @param accessTimeout -
+	 *            the accessTimeout on the object or -1 to never time out
+	 *
+	 * @return - the old object at this cache key
+	 */
+	public Object put(Object key, Object objToCache, long timeToLive, long accessTimeout) {
+		return put(key, objToCache, timeToLive, accessTimeout, -1);
+	}
+
+	/**
+	 * Places an object into the cache with the specified 'time-to-live' and a
+	 * 'access time out' value as well as a version number.
+	 * <p>
+	 * If an entry is replaced, the new entry inherits the access frequency of
+	 * the old one so that a frequently refreshed object is not evicted in
+	 * favour of rarely used ones.
+	 *
+	 * @param key -
+	 *            the key of the cached object
+	 * @param objToCache -
+	 *            the object to cache
+	 * @param timeToLive -
+	 *            the time-to-live on the object or -1 to live for ever
+	 * @param accessTimeout -
+	 *            the accessTimeout on the object or -1 to never time out
+	 * @param objVersion -
+	 *            a version number that can be used later
+	 *
+	 * @return - the old object at this cache key
+	 */
+	public Object put(Object key, Object objToCache, long timeToLive, long accessTimeout, long objVersion) {
+		int weight = weigher == null ? 1 : weigher.weigh(key, objToCache);
+		if (weight < 0) {
+			throw new IllegalArgumentException("Cache entry weight must not be negative : " + weight);
+		}
+		CacheEntry ce = new CacheEntry(objToCache, timeToLive, accessTimeout, objVersion, weight);
+		CacheEntry oldCe = (CacheEntry) cacheMap.put(key, ce);
+		totalWeight.addAndGet(weight);
+		Object oldValue = null;
+		if (oldCe != null) {
+			totalWeight.addAndGet(-oldCe.weight);
+			ce.frequency = oldCe.frequency;
+			oldValue = oldCe.getValue();
+		}
+		evictIfNecessary();
+		return oldValue;
+	}
+
+	/**
+	 * Retrieves an object from the cache. If the object has expired, then it
+	 * will return null
+	 *
+	 * @param key -
+	 *            the key to the cached object
+	 * @return the object for the key or null
+	 */
+	public Object get(Object key) {
+		return getObject(key, -1, false);
+	}
+
+	/**
+	 * Retrieves an object from the cache. If the object has expired or its
+	 * recorded put version is less then the objVersion, then it will return
+	 * null.
+	 *
+	 * @param key -
+	 *            the key to the cached object
+	 * @param objVersion -
+	 *            the object version number to compare against
+	 * @return the object for the key or null
+	 */
+	public Object get(Object key, long objVersion) {
+		return getObject(key, objVersion, true);
+	}
+
+	/**
+	 * Does the actual cache get, removing expired or versioned out entries as
+	 * they are found.
+	 */
+	private Object getObject(Object key, long objVersion, boolean useVersioning) {
+		CacheEntry ce = (CacheEntry) cacheMap.get(key);
+		if (ce == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		if (ce.hasExpired(System.currentTimeMillis()) || (useVersioning && ce.objVersion < objVersion)) {
+			missCount.incrementAndGet();
+			if (removeEntry(key, ce)) {
+				expiredCount.incrementAndGet();
+				onExpiredObject(key);
+			}
+			return null;
+		}
+		Object value = ce.getValue();
+		if (value == null && ce.isReclaimed()) {
+			missCount.incrementAndGet();
+			if (removeEntry(key, ce)) {
+				expiredCount.incrementAndGet();
+			}
+			return null;
+		}
+		ce.recordAccess();
+		hitCount.incrementAndGet();
+		return value;
+	}
+
+	/**
+	 * Called when an object has been detected as expired or versioned out of
+	 * existence and has been removed from the cache.
+	 *
+	 * @param key -
+	 *            the key to the object
+	 */
+	protected void onExpiredObject(Object key) {
+	}
+
+	/**
+	 * Removes all expired and reclaimed entries from the cache. This is
+	 * called periodically by the shared reaper if a reaper interval has been
+	 * set, but can also be called directly.
+	 */
+	public void reap() {
+		long now = System.currentTimeMillis();
+		for (Iterator it = cacheMap.entrySet().iterator(); it.hasNext();) {
+			Map.Entry entry = (Map.Entry) it.next();
+			CacheEntry ce = (CacheEntry) entry.getValue();
+			if (ce.hasExpired(now) || ce.isReclaimed()) {
+				if (removeEntry(entry.getKey(), ce)) {
+					expiredCount.incrementAndGet();
+					onExpiredObject(entry.getKey());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the given entry only if it is still the one mapped to the key.
+	 */
+	private boolean removeEntry(Object key, CacheEntry ce) {
+		if (cacheMap.remove(key, ce)) {
+			totalWeight.addAndGet(-ce.weight);
+			return true;
+		}
+		return false;
+	}
+
+	private boolean isOverBounds(int size, long weight) {
+		int maxSize = maximumSize;
+		long maxWeight = maximumWeight;
+		return (maxSize != UNBOUNDED && size > maxSize) || (maxWeight != UNBOUNDED && weight > maxWeight);
+	}
+
+	/**
+	 * Trims the cache back below its bounds if it has grown past them.
+	 * Expired entries are removed first, then the least frequently used
+	 * entries until the cache is at <code>EVICTION_TARGET</code> of its
+	 * bounds, so that the cost of an eviction pass is spread over many puts.
+	 */
+	private void evictIfNecessary() {
+		if (!isOverBounds(cacheMap.size(), totalWeight.get())) {
+			return;
+		}
+		synchronized (evictionLock) {
+			if (!isOverBounds(cacheMap.size(), totalWeight.get())) {
+				return;
+			}
+			reap();
+			int maxSize = maximumSize;
+			long maxWeight = maximumWeight;
+			int targetSize = maxSize == UNBOUNDED ? Integer.MAX_VALUE : (int) (maxSize * EVICTION_TARGET);
+			long targetWeight = maxWeight == UNBOUNDED ? Long.MAX_VALUE : (long) (maxWeight * EVICTION_TARGET);
+			if (cacheMap.size() <= targetSize && totalWeight.get() <= targetWeight) {
+				return;
+			}
+
+			Object[] entries = cacheMap.entrySet().toArray();
+			EvictionCandidate[] candidates = new EvictionCandidate[entries.length];
+			for (int i = 0; i < entries.length; ++i) {
+				Map.Entry entry = (Map.Entry) entries[i];
+				EvictionCandidate candidate = new EvictionCandidate();
+				candidate.key = entry.getKey();
+				candidate.entry = (CacheEntry) entry.getValue();
+				candidate.frequency = candidate.entry.frequency;
+				candidate.timeAccessedLast = candidate.entry.timeAccessedLast;
+				candidates[i] = candidate;
+			}
+			Arrays.sort(candidates, EVICTION_ORDER);
+			for (int i = 0; i < candidates.length; ++i) {
+				if (cacheMap.size() <= targetSize && totalWeight.get() <= targetWeight) {
+					break;
+				}
+				if (removeEntry(candidates[i].key, candidates[i].entry)) {
+					evictionCount.incrementAndGet();
+				}
+			}
+
+			// age the survivors so that old popularity fades away
+			if (accessesSinceAging > AGING_FACTOR * cacheMap.size()) {
+				accessesSinceAging = 0;
+				for (Iterator it = cacheMap.values().iterator(); it.hasNext();) {
+					CacheEntry ce = (CacheEntry) it.next();
+					ce.frequency = ce.frequency >> 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		StringBuffer buf = new StringBuffer(getClass().getName());
+		buf.append(" [size ");
+		buf.append(cacheMap.size());
+		buf.append("] [weight ");
+		buf.append(totalWeight.get());
+		buf.append("] [hits ");
+		buf.append(hitCount.get());
+		buf.append("] [misses ");
+		buf.append(missCount.get());
+		buf.append("] [evictions ");
+		buf.append(evictionCount.get());
+		buf.append("] [expired ");
+		buf.append(expiredCount.get());
+		buf.append("]");
+		return buf.toString();
+	}
+}
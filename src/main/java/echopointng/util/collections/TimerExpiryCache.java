@@ -28,15 +28,6 @@ package echopointng.util.collections;
  * the terms of any one of the MPL, the GPL or the LGPL.
  */
 
-import java.lang.ref.WeakReference;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
-
-
 /**
  * <code>TimerExpiryCache</code> is an a implementation
  * of <code>ExpiryCache</code> that can contain
@@ -61,6 +52,9 @@ import java.util.TimerTask;
  * <p>
  * If both the time-to-live and access-timeout is -1, then the object
  * will never expire from the cache.
+ * <p>
+ * Reaping is done by the shared reaper of <code>BoundedCache</code>, and the
+ * interval can be changed per cache via <code>setReaperInterval()</code>.
  */
 public class TimerExpiryCache extends ExpiryCache {
 
@@ -70,20 +64,6 @@ public class TimerExpiryCache extends ExpiryCache {
 	 */
 	public static final long DEFAULT_REAPER_INTERVAL = 2 * 60 * 1000;
 
-	/** This is an array of all ExpiryCaches that are to be reaped */
-	private static List allExpiryCaches;
-	
-	/** 
-	 * The TimerExpiryCache reaper runs as a TimerTask under this static Timer.  
-	 * All TimerExpiryCache instances share this common reaper.
-	 */
-	private static Timer reaperTimer;
-	static {
-		allExpiryCaches = new ArrayList();
-		reaperTimer = new Timer(true);
-		reaperTimer.schedule(new ReaperTimerTask(), DEFAULT_REAPER_INTERVAL, DEFAULT_REAPER_INTERVAL);
-	}
-
 	/**
 	 * Constructs a default <code>TimerExpiryCache</code>
 	 */
@@ -110,54 +90,6 @@ public class TimerExpiryCache extends ExpiryCache {
 	 */
 	public TimerExpiryCache(long timeToLive, long accessTimeout, boolean softReferences) {
 		super(timeToLive,accessTimeout,softReferences);
-		// add ourselves to the queue of TimerExpiryCaches for the reaper
-		synchronized (allExpiryCaches) {
-			allExpiryCaches.add(new WeakReference(this));
-		}
+		setReaperInterval(DEFAULT_REAPER_INTERVAL);
 	}
-
-	/** A shared TimrTask that reapers all of the various ExpiryCaches */
-	private static class ReaperTimerTask extends TimerTask {
-		
-		public void run() {
-			//System.err.println("Cleanup");
-			Thread currentThread = Thread.currentThread();
-			if (currentThread.getPriority() != Thread.MIN_PRIORITY)
-				currentThread.setPriority(Thread.MIN_PRIORITY);
-			
-			synchronized (allExpiryCaches) {
-				for (Iterator iter = allExpiryCaches.iterator(); iter.hasNext();) {
-					WeakReference weakRef = (WeakReference) iter.next();
-					TimerExpiryCache expiryCache = (TimerExpiryCache) (weakRef == null ? null : weakRef.get());
-					//
-					// our global list is weakly referenced to the ExpiryCaches.  If
-					// its gone, then no one else was interested in the cache
-					// and neither are we
-					//
-					if (expiryCache == null) {
-						iter.remove();
-						continue;
-					}
-	
-					List list = new ArrayList();
-					synchronized (expiryCache) { 
-						long now = System.currentTimeMillis();
-						Set keys = expiryCache.keySet();
-						Iterator itr = keys.iterator(); // Must be in synchronized block
-						while (itr.hasNext()) {
-							Object key = itr.next();
-							if (expiryCache.hasExpired(key,now)) {
-								list.add(key);
-							}
-						}
-						for (Iterator iter2 = list.iterator(); iter2.hasNext();) {
-							//System.err.println("Removing :" + key);
-							Object key = iter2.next();
-							expiryCache.put(key,null);
-						}
-					}
-				}	
-			}				
-		}
-	};
 }
@@ -34,11 +34,23 @@ import java.beans.PropertyChangeSupport;
 import java.io.Serializable;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import nextapp.echo2.app.update.ServerUpdateManager;
 import nextapp.echo2.app.update.UpdateManager;
@@ -64,6 +76,152 @@ implements Serializable {
      */ 
     private static final ThreadLocal activeInstance = new ThreadLocal();
     
+    /**
+     * The <code>ExecutorService</code> shared by all instances to perform
+     * background work.
+     * @see #submitTask(TaskQueueHandle, Callable, TaskCallback)
+     */
+    private static ExecutorService backgroundExecutor;
+    
+    /**
+     * The default <code>ExecutorService</code>, if it has been created.
+     */
+    private static ExecutorService defaultBackgroundExecutor;
+    
+    /**
+     * Returns the <code>ExecutorService</code> used to perform background
+     * work, creating the default executor if none has been set.
+     * 
+     * @return the <code>ExecutorService</code>
+     */
+    private static synchronized ExecutorService getBackgroundExecutor() {
+        if (backgroundExecutor == null) {
+            defaultBackgroundExecutor = BackgroundExecutor.create();
+            backgroundExecutor = defaultBackgroundExecutor;
+        }
+        return backgroundExecutor;
+    }
+    
+    /**
+     * Sets the <code>ExecutorService</code> shared by all 
+     * <code>ApplicationInstance</code>s to perform background work submitted
+     * with <code>submitTask()</code>, e.g., an executor managed by the 
+     * application server.  By default, a bounded executor is used, running 
+     * tasks in virtual threads where available.
+     * 
+     * @param executor the new <code>ExecutorService</code>
+     */
+    public static synchronized void setBackgroundExecutor(ExecutorService executor) {
+        backgroundExecutor = executor;
+    }
+    
+    /**
+     * Shuts down the default background <code>ExecutorService</code>, if it
+     * has been created, such that its threads do not outlive the web 
+     * application, e.g., when it is redeployed.  Running background work is
+     * interrupted and pending work is discarded.  An executor provided with
+     * <code>setBackgroundExecutor()</code> is not affected, its lifecycle 
+     * being managed by its provider.  Should background work subsequently 
+     * be submitted, a new default executor is created.
+     * <p>
+     * This method is invoked when the last initialized 
+     * <code>WebContainerServlet</code> is destroyed.
+     */
+    public static synchronized void shutdownBackgroundExecutor() {
+        if (defaultBackgroundExecutor == null) {
+            return;
+        }
+        defaultBackgroundExecutor.shutdownNow();
+        if (backgroundExecutor == defaultBackgroundExecutor) {
+            backgroundExecutor = null;
+        }
+        defaultBackgroundExecutor = null;
+    }
+    
+    /**
+     * <code>Comparator</code> ordering <code>Component</code>s such that
+     * ancestors precede their descendants.
+     */
+    private static final Comparator DEPTH_COMPARATOR = new Comparator() {
+    
+        /**
+         * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+         */
+        public int compare(Object o1, Object o2) {
+            return getDepth((Component) o1) - getDepth((Component) o2);
+        }
+    };
+    
+    /**
+     * Returns the number of ancestors of a <code>Component</code>.
+     * 
+     * @param component the <code>Component</code>
+     * @return the depth of the <code>Component</code> in its hierarchy
+     */
+    private static int getDepth(Component component) {
+        int depth = 0;
+        Component parent = component.getParent();
+        while (parent != null) {
+            ++depth;
+            parent = parent.getParent();
+        }
+        return depth;
+    }
+    
+    /**
+     * The number of synchronizations which must complete after a generated
+     * render id is released before it may be issued to another component.
+     * The first completes the removal of the component's rendered state from
+     * the client, the second discards any client input which was composed
+     * prior to that removal.
+     */
+    private static final int RENDER_ID_RECYCLE_EPOCHS = 2;
+    
+    /**
+     * Radix of the characters following the first character of a generated
+     * identifier.
+     */
+    private static final int ID_RADIX = Character.MAX_RADIX;
+    
+    /**
+     * Encodes a sequence number as a compact identifier.
+     * Each value maps to a distinct string.  The first character is always
+     * a decimal digit, such that generated identifiers may never collide with
+     * user-assigned render ids (which must begin with a letter).  Subsequent
+     * characters are base-36 digits: the first 10 values are encoded with one
+     * character, the next 360 with two, the next 12960 with three, and so on.
+     * 
+     * @param value the non-negative sequence number
+     * @return the encoded identifier
+     */
+    private static String encodeId(long value) {
+        int length = 1;
+        long blockSize = 10;
+        while (value >= blockSize) {
+            value -= blockSize;
+            blockSize *= ID_RADIX;
+            ++length;
+        }
+        char[] chars = new char[length];
+        for (int i = length - 1; i > 0; --i) {
+            chars[i] = Character.forDigit((int) (value % ID_RADIX), ID_RADIX);
+            value /= ID_RADIX;
+        }
+        chars[0] = Character.forDigit((int) value, 10);
+        return new String(chars);
+    }
+    
+    /**
+     * Determines whether a render id was generated by 
+     * <code>generateId()</code>, i.e., whether it begins with a decimal digit.
+     * 
+     * @param renderId the render id
+     * @return true if the id was generated
+     */
+    private static boolean isGeneratedId(String renderId) {
+        return renderId.length() > 0 && Character.isDigit(renderId.charAt(0));
+    }
+    
     /**
      * Generates a system-level identifier (an identifier which is unique to all
      * <code>ApplicationInstance</code>s).
@@ -131,11 +289,29 @@ implements Serializable {
     private Map renderIdToComponentMap;
     
     /**
-     * Mapping between <code>TaskQueueHandle</code>s and <code>List</code>s
-     * of <code>Runnable</code> tasks.  Values may be null if a particular 
-     * <code>TaskQueue</code> does not contain any tasks. 
+     * Mapping between <code>TaskQueueHandle</code>s and 
+     * <code>ConcurrentLinkedQueue</code>s of <code>Runnable</code> tasks.
+     */
+    private Map taskQueueMap;
+    
+    /**
+     * The maximum time, in milliseconds, spent running queued tasks in a 
+     * single invocation of <code>processQueuedTasks()</code>.
      */
-    private HashMap taskQueueMap;
+    private long taskProcessingTimeLimit = 250;
+    
+    /**
+     * The index of the task queue from which the next invocation of 
+     * <code>processQueuedTasks()</code> starts running tasks.
+     */
+    private transient int nextTaskQueueIndex;
+    
+    /**
+     * Mapping from <code>Future</code>s of running background work to the
+     * <code>TaskQueueHandle</code>s through which their callbacks are 
+     * delivered.
+     */
+    private transient Map backgroundTaskMap;
     
     /**
      * Fires property change events for the instance object.
@@ -172,6 +348,34 @@ implements Serializable {
      */
     private long nextId;
     
+    /**
+     * The number of completed synchronizations, used to determine when 
+     * released render ids may safely be reissued.
+     * @see #advanceRenderIdEpoch()
+     */
+    private long renderIdEpoch;
+    
+    /**
+     * Mapping from generated render ids of unregistered components to the
+     * <code>Long</code> epoch in which they were released, in order of 
+     * release.
+     */
+    private LinkedHashMap releasedIdToEpochMap;
+    
+    /**
+     * Flag indicating whether every component in the hierarchy should be
+     * validated on each <code>doValidation()</code> invocation, rather than
+     * only those which have requested validation.
+     * @see #setFullValidationEnabled(boolean)
+     */
+    private boolean fullValidationEnabled;
+    
+    /**
+     * The set of registered <code>Component</code>s which require validation.
+     * Not maintained while full validation is enabled.
+     */
+    private Set validationRequiredComponents;
+    
     /** 
      * Creates an <code>ApplicationInstance</code>. 
      */
@@ -184,7 +388,18 @@ implements Serializable {
         propertyChangeSupport = new PropertyChangeSupport(this);
         updateManager = new UpdateManager(this);
         renderIdToComponentMap = new HashMap();
-        taskQueueMap = new HashMap();
+        taskQueueMap = new ConcurrentHashMap();
+    }
+    
+    /**
+     * Notifies the <code>ApplicationInstance</code> that a synchronization 
+     * with the client has completed, such that render ids released by 
+     * unregistered components may eventually be reissued.
+     * This method is invoked by the <code>UpdateManager</code> when updates 
+     * are purged, and should not be invoked by application code.
+     */
+    public void advanceRenderIdEpoch() {
+        ++renderIdEpoch;
     }
     
     /**
@@ -218,17 +433,42 @@ implements Serializable {
      */
     public TaskQueueHandle createTaskQueue() {
         TaskQueueHandle taskQueue = new TaskQueueHandle() { };
-        synchronized (taskQueueMap) {
-            taskQueueMap.put(taskQueue, null);
-        }
+        taskQueueMap.put(taskQueue, new ConcurrentLinkedQueue());
         return taskQueue;
     }
     
     /**
      * Invoked when the application is disposed and will not be used again.
      * Implementations must invoke <code>super.dispose()</code>.
+     * Cancels any running background work and discards queued tasks.
      */
     public void dispose() {
+        cancelBackgroundTasks(null);
+        taskQueueMap.clear();
+    }
+    
+    /**
+     * Cancels running background work.
+     * 
+     * @param taskQueue the <code>TaskQueueHandle</code> whose work should be
+     *        cancelled, or null to cancel all work
+     */
+    private void cancelBackgroundTasks(TaskQueueHandle taskQueue) {
+        Map backgroundTaskMap;
+        synchronized (this) {
+            backgroundTaskMap = this.backgroundTaskMap;
+        }
+        if (backgroundTaskMap == null) {
+            return;
+        }
+        Iterator it = backgroundTaskMap.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry entry = (Map.Entry) it.next();
+            if (taskQueue == null || taskQueue == entry.getValue()) {
+                ((Future) entry.getKey()).cancel(true);
+                it.remove();
+            }
+        }
     }
     
     /**
@@ -251,10 +491,54 @@ implements Serializable {
     }
     
     /**
-     * Validates all components registered with the application.
+     * Validates components registered with the application.
+     * <p>
+     * By default, only components which have requested validation are 
+     * validated, i.e., those which were registered, reported a property change
+     * or invoked <code>Component.requestValidation()</code> since they were
+     * last validated.  Such components are validated in ancestor-first order.
+     * Components which request validation while it is in progress are
+     * validated in the same invocation, unless they have already been 
+     * validated in which case they are validated on the next invocation.
+     * If full validation is enabled, all components in the hierarchy are 
+     * validated.
+     * 
+     * @see #setFullValidationEnabled(boolean)
      */
     public final void doValidation() {
-        doValidation(defaultWindow);
+        if (fullValidationEnabled) {
+            doValidation(defaultWindow);
+            return;
+        }
+        if (validationRequiredComponents == null) {
+            return;
+        }
+        Set validatedComponents = new HashSet();
+        Set deferredComponents = null;
+        while (validationRequiredComponents.size() > 0) {
+            Component[] components = (Component[]) validationRequiredComponents.toArray(
+                    new Component[validationRequiredComponents.size()]);
+            validationRequiredComponents.clear();
+            Arrays.sort(components, DEPTH_COMPARATOR);
+            for (int i = 0; i < components.length; ++i) {
+                if (components[i].getApplicationInstance() != this) {
+                    // Unregistered during validation of an ancestor.
+                    continue;
+                }
+                if (!validatedComponents.add(components[i])) {
+                    // Already validated in this invocation: defer to the next.
+                    if (deferredComponents == null) {
+                        deferredComponents = new HashSet();
+                    }
+                    deferredComponents.add(components[i]);
+                    continue;
+                }
+                components[i].validate();
+            }
+        }
+        if (deferredComponents != null) {
+            validationRequiredComponents.addAll(deferredComponents);
+        }
     }
     
     /**
@@ -295,14 +579,27 @@ implements Serializable {
      * @param task the task to run on client/server synchronization
      */
     public void enqueueTask(TaskQueueHandle taskQueue, Runnable task) {
-        synchronized (taskQueueMap) {
-            List taskList = (List) taskQueueMap.get(taskQueue);
-            if (taskList == null) {
-                taskList = new ArrayList();
-                taskQueueMap.put(taskQueue, taskList);
+        ConcurrentLinkedQueue tasks = (ConcurrentLinkedQueue) taskQueueMap.get(taskQueue);
+        if (tasks == null) {
+            tasks = new ConcurrentLinkedQueue();
+            ConcurrentLinkedQueue existingTasks 
+                    = (ConcurrentLinkedQueue) ((ConcurrentHashMap) taskQueueMap).putIfAbsent(taskQueue, tasks);
+            if (existingTasks != null) {
+                tasks = existingTasks;
             }
-            taskList.add(task);
         }
+        tasks.add(task);
+    }
+    
+    /**
+     * Returns the maximum time spent running queued tasks in a single 
+     * client/server synchronization.
+     * 
+     * @return the time limit, in milliseconds
+     * @see #setTaskProcessingTimeLimit(long)
+     */
+    public long getTaskProcessingTimeLimit() {
+        return taskProcessingTimeLimit;
     }
     
     /**
@@ -320,12 +617,29 @@ implements Serializable {
      * Generates an identifier which is unique within this 
      * <code>ApplicationInstance</code>.  This identifier should not be
      * used outside of the context of this  <code>ApplicationInstance</code>.
+     * <p>
+     * Identifiers are issued from a sequence and encoded compactly, 
+     * beginning with a decimal digit such that they never collide with
+     * user-assigned render ids.  Render ids released by unregistered 
+     * components are reissued once the client can no longer reference them.
      * 
      * @return the unique identifier
      * @see #generateSystemId()
      */
-    public String generateId() {
-        return Long.toString(nextId++);
+    public synchronized String generateId() {
+        if (releasedIdToEpochMap != null && !releasedIdToEpochMap.isEmpty()) {
+            Iterator it = releasedIdToEpochMap.entrySet().iterator();
+            Map.Entry entry = (Map.Entry) it.next();
+            if (((Long) entry.getValue()).longValue() + RENDER_ID_RECYCLE_EPOCHS <= renderIdEpoch) {
+                it.remove();
+                return (String) entry.getKey();
+            }
+        }
+        String id;
+        do {
+            id = encodeId(nextId++);
+        } while (renderIdToComponentMap.containsKey(id));
+        return id;
     }
     
     /**
@@ -354,6 +668,16 @@ implements Serializable {
     public Component getComponentByRenderId(String renderId) {
         return (Component) renderIdToComponentMap.get(renderId);
     }
+    
+    /**
+     * Returns the number of components currently registered with the
+     * application.
+     * 
+     * @return the number of registered components
+     */
+    public int getComponentCount() {
+        return renderIdToComponentMap.size();
+    }
 
     /**
      * Returns the default window of the application.
@@ -455,6 +779,17 @@ implements Serializable {
         return updateManager;
     }
     
+    /**
+     * Determines whether every component in the hierarchy is validated on
+     * each <code>doValidation()</code> invocation.
+     * 
+     * @return true if full validation is enabled
+     * @see #setFullValidationEnabled(boolean)
+     */
+    public boolean isFullValidationEnabled() {
+        return fullValidationEnabled;
+    }
+    
     /**
      * Determines if this <code>ApplicationInstance</code> currently has any 
      * active tasks queues, which might be monitoring external events.
@@ -465,6 +800,29 @@ implements Serializable {
         return taskQueueMap.size() > 0;
     }
     
+    /**
+     * Returns the number of tasks queued in the task queues of this
+     * <code>ApplicationInstance</code>, including background work submitted
+     * with <code>submitTask()</code> which has not completed.
+     * 
+     * @return the number of queued tasks
+     */
+    public int getQueuedTaskCount() {
+        int count = 0;
+        Iterator it = taskQueueMap.values().iterator();
+        while (it.hasNext()) {
+            count += ((ConcurrentLinkedQueue) it.next()).size();
+        }
+        Map backgroundTaskMap;
+        synchronized (this) {
+            backgroundTaskMap = this.backgroundTaskMap;
+        }
+        if (backgroundTaskMap != null) {
+            count += backgroundTaskMap.size();
+        }
+        return count;
+    }
+    
     /**
      * Determines if there are any queued tasks in any of the task
      * queues associated with this <code>ApplicationInstance</code>.
@@ -485,8 +843,7 @@ implements Serializable {
         }
         Iterator it = taskQueueMap.values().iterator();
         while (it.hasNext()) {
-            List taskList = (List) it.next();
-            if (taskList != null && taskList.size() > 0) {
+            if (!((ConcurrentLinkedQueue) it.next()).isEmpty()) {
                 return true;
             }
         }
@@ -537,6 +894,8 @@ implements Serializable {
             throw new IllegalStateException(
                     "Attempt to update state of application user interface outside of user interface thread.");
         }
+        
+        requestValidation(parent);
 
         ServerUpdateManager serverUpdateManager = updateManager.getServerUpdateManager();
         if (Component.CHILDREN_CHANGED_PROPERTY.equals(propertyName)) {
@@ -584,30 +943,56 @@ implements Serializable {
     }
 
     /**
-     * Processes all queued tasks. This method may only be invoked from within a
+     * Processes queued tasks. This method may only be invoked from within a
      * UI thread by the <code>UpdateManager</code>. Tasks are removed from queues
      * once they have been processed.
+     * <p>
+     * Only tasks which were queued when processing began are run, tasks 
+     * enqueued by those tasks are run by the next invocation.  Queues are 
+     * served in turn, one task at a time, starting with a different queue
+     * on each invocation, such that a queue with a large backlog does not
+     * delay the tasks of other queues.  Processing stops once the task 
+     * processing time limit has elapsed, remaining tasks are run by the
+     * next invocation.
+     * 
+     * @see #setTaskProcessingTimeLimit(long)
      */
     public void processQueuedTasks() {
         if (taskQueueMap.size() == 0) {
             return;
         }
         
-        List currentTasks = new ArrayList();
-        synchronized (taskQueueMap) {
-            Iterator taskListsIt = taskQueueMap.values().iterator();
-            while (taskListsIt.hasNext()) {
-                List tasks = (List) taskListsIt.next();
-                if (tasks != null) {
-                    currentTasks.addAll(tasks);
-                    tasks.clear();
+        ConcurrentLinkedQueue[] queues = (ConcurrentLinkedQueue[]) 
+                taskQueueMap.values().toArray(new ConcurrentLinkedQueue[taskQueueMap.size()]);
+        int[] queuedCounts = new int[queues.length];
+        for (int i = 0; i < queues.length; ++i) {
+            queuedCounts[i] = queues[i].size();
+        }
+        
+        long deadline = System.currentTimeMillis() + taskProcessingTimeLimit;
+        int startIndex = nextTaskQueueIndex % queues.length;
+        nextTaskQueueIndex = startIndex + 1;
+        boolean tasksRemaining = true;
+        while (tasksRemaining) {
+            tasksRemaining = false;
+            for (int i = 0; i < queues.length; ++i) {
+                int queueIndex = (startIndex + i) % queues.length;
+                if (queuedCounts[queueIndex] == 0) {
+                    continue;
+                }
+                Runnable task = (Runnable) queues[queueIndex].poll();
+                if (task == null) {
+                    queuedCounts[queueIndex] = 0;
+                    continue;
+                }
+                --queuedCounts[queueIndex];
+                tasksRemaining |= queuedCounts[queueIndex] > 0;
+                task.run();
+                if (taskProcessingTimeLimit > 0 && System.currentTimeMillis() >= deadline) {
+                    return;
                 }
             }
         }
-        Iterator it = currentTasks.iterator();
-        while (it.hasNext()) {
-            ((Runnable) it.next()).run();
-        }
     }
     
     /**
@@ -626,11 +1011,48 @@ implements Serializable {
             // Note that the render id is reassigned if it currently exists renderIdToComponentMap.  This could be the case
             // in the event a Component was being used in a pool.
             component.assignRenderId(generateId());
+        } else if (releasedIdToEpochMap != null) {
+            // A previously unregistered component is being re-registered: its id may no longer be reissued.
+            synchronized (this) {
+                releasedIdToEpochMap.remove(renderId);
+            }
         }
         renderIdToComponentMap.put(component.getRenderId(), component);
         if (component instanceof ModalSupport && ((ModalSupport) component).isModal()) {
             setModal(component, true);
         }
+        requestValidation(component);
+    }
+    
+    /**
+     * Records that a <code>Component</code> and all of its descendants 
+     * require validation.
+     * 
+     * @param component the root <code>Component</code>
+     */
+    private void requestHierarchyValidation(Component component) {
+        requestValidation(component);
+        int size = component.getComponentCount();
+        for (int index = 0; index < size; ++index) {
+            requestHierarchyValidation(component.getComponent(index));
+        }
+    }
+    
+    /**
+     * Records that a registered <code>Component</code> requires validation
+     * on the next <code>doValidation()</code> invocation.
+     * 
+     * @param component the <code>Component</code>
+     * @see Component#requestValidation()
+     */
+    void requestValidation(Component component) {
+        if (fullValidationEnabled) {
+            return;
+        }
+        if (validationRequiredComponents == null) {
+            validationRequiredComponents = new HashSet();
+        }
+        validationRequiredComponents.add(component);
     }
     
     /**
@@ -652,9 +1074,94 @@ implements Serializable {
      * @see #createTaskQueue()
      */
     public void removeTaskQueue(TaskQueueHandle taskQueueHandle) {
-        synchronized(taskQueueMap) {
-            taskQueueMap.remove(taskQueueHandle);
+        taskQueueMap.remove(taskQueueHandle);
+        cancelBackgroundTasks(taskQueueHandle);
+    }
+    
+    /**
+     * Sets the maximum time spent running queued tasks in a single 
+     * client/server synchronization, such that a burst of queued tasks does
+     * not delay the synchronization excessively.  Tasks which are not run 
+     * within the limit remain queued and are run during the next 
+     * synchronization.  At least one queued task is run in each 
+     * synchronization.
+     * 
+     * @param newValue the new time limit, in milliseconds, or zero to run
+     *        all queued tasks in each synchronization
+     */
+    public void setTaskProcessingTimeLimit(long newValue) {
+        taskProcessingTimeLimit = newValue;
+    }
+    
+    /**
+     * Submits work to be performed in the background, outside of the user
+     * interface thread.  The work is performed by an executor shared by all
+     * <code>ApplicationInstance</code>s, and thus must not access the 
+     * component hierarchy.  When the work completes, the callback (if 
+     * provided) is enqueued in the specified task queue, such that it is run 
+     * in the user interface thread during the next client/server 
+     * synchronization.
+     * <p>
+     * Work is cancelled (its thread being interrupted) if the task queue is
+     * removed or the application is disposed, in which case the callback is
+     * not invoked.
+     * 
+     * @param taskQueue the <code>TaskQueueHandle</code> representing the
+     *        queue through which the callback is delivered
+     * @param task the work to perform
+     * @param callback the <code>TaskCallback</code> to notify of the outcome
+     *        of the work, or null
+     * @return a <code>Future</code> representing the work, which may be
+     *         used to cancel it
+     * @throws java.util.concurrent.RejectedExecutionException if the 
+     *         executor cannot accept further work
+     * @see #setBackgroundExecutor(ExecutorService)
+     */
+    public Future submitTask(final TaskQueueHandle taskQueue, Callable task, final TaskCallback callback) {
+        final Map backgroundTaskMap;
+        synchronized (this) {
+            if (this.backgroundTaskMap == null) {
+                this.backgroundTaskMap = new ConcurrentHashMap();
+            }
+            backgroundTaskMap = this.backgroundTaskMap;
+        }
+        FutureTask future = new FutureTask(task) {
+            protected void done() {
+                backgroundTaskMap.remove(this);
+                if (callback == null || isCancelled() || !taskQueueMap.containsKey(taskQueue)) {
+                    return;
+                }
+                Object result = null;
+                Throwable failure = null;
+                try {
+                    result = get();
+                } catch (ExecutionException ex) {
+                    failure = ex.getCause();
+                } catch (InterruptedException ex) {
+                    // Cannot occur: the task is done.
+                    failure = ex;
+                }
+                final Object finalResult = result;
+                final Throwable finalFailure = failure;
+                enqueueTask(taskQueue, new Runnable() {
+                    public void run() {
+                        if (finalFailure == null) {
+                            callback.taskCompleted(finalResult);
+                        } else {
+                            callback.taskFailed(finalFailure);
+                        }
+                    }
+                });
+            }
+        };
+        backgroundTaskMap.put(future, taskQueue);
+        try {
+            getBackgroundExecutor().execute(future);
+        } catch (RuntimeException ex) {
+            backgroundTaskMap.remove(future);
+            throw ex;
         }
+        return future;
     }
     
     /**
@@ -692,6 +1199,28 @@ implements Serializable {
         window.doInit();
     }
     
+    /**
+     * Sets whether every component in the hierarchy should be validated on 
+     * each <code>doValidation()</code> invocation.  Full validation is 
+     * disabled by default, such that only components which have requested 
+     * validation are validated.  It may be enabled for compatibility with
+     * components whose <code>validate()</code> implementations depend on
+     * state changes which are not reported through property changes or
+     * <code>Component.requestValidation()</code>.
+     * 
+     * @param newValue true to validate every component on each 
+     *        <code>doValidation()</code> invocation
+     */
+    public void setFullValidationEnabled(boolean newValue) {
+        fullValidationEnabled = newValue;
+        if (newValue) {
+            validationRequiredComponents = null;
+        } else if (defaultWindow != null) {
+            // Requests were not recorded while full validation was enabled.
+            requestHierarchyValidation(defaultWindow);
+        }
+    }
+    
     /**
      * Sets the presently focused component.
      * 
@@ -783,7 +1312,19 @@ implements Serializable {
      * @see Component#register(ApplicationInstance)
      */
     void unregisterComponent(Component component) {
-        renderIdToComponentMap.remove(component.getRenderId());
+        String renderId = component.getRenderId();
+        renderIdToComponentMap.remove(renderId);
+        if (isGeneratedId(renderId)) {
+            synchronized (this) {
+                if (releasedIdToEpochMap == null) {
+                    releasedIdToEpochMap = new LinkedHashMap();
+                }
+                releasedIdToEpochMap.put(renderId, new Long(renderIdEpoch));
+            }
+        }
+        if (validationRequiredComponents != null) {
+            validationRequiredComponents.remove(component);
+        }
         if (component instanceof ModalSupport && ((ModalSupport) component).isModal()) {
             setModal(component, false);
         }
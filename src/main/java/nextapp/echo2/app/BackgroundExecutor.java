@@ -0,0 +1,122 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2004 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.app;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the default <code>ExecutorService</code> shared by all 
+ * <code>ApplicationInstance</code>s to perform background work.
+ * <p>
+ * The executor runs a bounded number of concurrent tasks and queues a 
+ * bounded number of pending tasks, further submissions are rejected.
+ * Virtual threads are used when provided by the Java runtime, otherwise
+ * daemon threads are used.
+ */
+final class BackgroundExecutor {
+    
+    /**
+     * The maximum number of concurrently running tasks.
+     */
+    private static final int MAXIMUM_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    
+    /**
+     * The maximum number of pending tasks.
+     */
+    private static final int MAXIMUM_PENDING_TASKS = 1024;
+    
+    /**
+     * The time, in seconds, an idle thread is retained.
+     */
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    
+    /**
+     * <code>ThreadFactory</code> creating daemon threads, used when virtual
+     * threads are unavailable.
+     */
+    private static class DaemonThreadFactory 
+    implements ThreadFactory {
+        
+        private int threadCount;
+        
+        /**
+         * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+         */
+        public synchronized Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Echo2-Background-" + (++threadCount));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+    
+    /**
+     * Creates the default <code>ExecutorService</code>.
+     * 
+     * @return the created <code>ExecutorService</code>
+     */
+    static ExecutorService create() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAXIMUM_THREADS, MAXIMUM_THREADS, 
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue(MAXIMUM_PENDING_TASKS), 
+                createThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+    
+    /**
+     * Creates a <code>ThreadFactory</code> producing virtual threads if
+     * the runtime supports them (Java 21 or later), or daemon threads 
+     * otherwise.
+     * 
+     * @return the <code>ThreadFactory</code>
+     */
+    private static ThreadFactory createThreadFactory() {
+        try {
+            Method ofVirtualMethod = Thread.class.getMethod("ofVirtual", new Class[0]);
+            Object builder = ofVirtualMethod.invoke(null, new Object[0]);
+            Method nameMethod = ofVirtualMethod.getReturnType().getMethod("name", new Class[]{String.class, Long.TYPE});
+            builder = nameMethod.invoke(builder, new Object[]{"Echo2-Background-", new Long(1)});
+            Method factoryMethod = ofVirtualMethod.getReturnType().getMethod("factory", new Class[0]);
+            return (ThreadFactory) factoryMethod.invoke(builder, new Object[0]);
+        } catch (NoSuchMethodException ex) {
+            // Virtual threads unavailable.
+        } catch (Exception ex) {
+            // Virtual threads unavailable (e.g., preview feature not enabled).
+        }
+        return new DaemonThreadFactory();
+    }
+    
+    /** Non-instantiable class. */
+    private BackgroundExecutor() { }
+}
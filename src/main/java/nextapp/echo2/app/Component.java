@@ -196,6 +196,19 @@ implements RenderIdSupport, Serializable {
      */
     private List children;
     
+    /**
+     * A lazily built snapshot of the visible children, in order.
+     * Set to null whenever a child is added or removed or a child's 
+     * visibility changes.
+     */
+    private transient Component[] visibleChildren;
+    
+    /**
+     * The index of this component amongst the visible children of its parent,
+     * valid only while the parent's <code>visibleChildren</code> snapshot is.
+     */
+    private transient int visibleIndex;
+    
     /**
      * Boolean flags for this component, including enabled state, visibility, 
      * focus traversal participation, and focus traversal index.
@@ -319,6 +332,7 @@ implements RenderIdSupport, Serializable {
         } else {
             children.add(n, c);
         }
+        visibleChildren = null;
         
         // Flag child as registered.
         if (applicationInstance != null) {
@@ -930,28 +944,22 @@ implements RenderIdSupport, Serializable {
     /**
      * Returns the <code>n</code>th immediate <strong>visible</strong> 
      * child <code>Component</code>.
+     * <p>
+     * The visible children are cached, so iterating them by index from 0 to
+     * <code>getVisibleComponentCount() - 1</code> neither allocates nor
+     * scans the child list, and should be preferred by rendering code over
+     * <code>getVisibleComponents()</code>.
      *
      * @param n the index of the <code>Component</code> to retrieve
      * @return the <code>Component</code> at index <code>n</code>
      * @throws IndexOutOfBoundsException when the index is invalid
      */
     public final Component getVisibleComponent(int n) {
-        if (children == null) {
+        Component[] visibleChildren = getVisibleChildren();
+        if (n < 0 || n >= visibleChildren.length) {
             throw new IndexOutOfBoundsException(Integer.toString(n));
         }
-        int visibleComponentCount = 0;
-        Component component = null;
-        Iterator it = children.iterator();
-        while (visibleComponentCount <= n) {
-            if (!it.hasNext()) {
-              throw new IndexOutOfBoundsException(Integer.toString(n));
-            }
-            component = (Component) it.next();
-            if (component.isVisible()) {
-                ++visibleComponentCount;
-            }
-        }
-        return component;
+        return visibleChildren[n];
     }
 
     /**
@@ -962,42 +970,61 @@ implements RenderIdSupport, Serializable {
      *         <code>Component</code>s
      */
     public final int getVisibleComponentCount() {
-        if (children == null) {
-            return 0;
-        } else {
-            int visibleComponentCount = 0;
-            Iterator it = children.iterator();
-            while (it.hasNext()) {
-                Component component = (Component) it.next();
-                if (component.isVisible()) {
-                    ++visibleComponentCount;
-                }
-            }
-            return visibleComponentCount;
-        }
+        return getVisibleChildren().length;
     }
     
     /**
      * Returns an array of all <strong>visible</strong> immediate child 
      * <code>Component</code>s.
+     * <p>
+     * A new array is returned on each invocation, use 
+     * <code>getVisibleComponentCount()</code> and 
+     * <code>getVisibleComponent(int)</code> to iterate without allocation.
      *
      * @return an array of all <strong>visible</strong> immediate child 
      *         <code>Component</code>s
      */
     public final Component[] getVisibleComponents() {
-        if (children == null) {
+        Component[] visibleChildren = getVisibleChildren();
+        if (visibleChildren.length == 0) {
             return EMPTY_COMPONENT_ARRAY;
-        } else {
-            Iterator it = children.iterator();
-            List visibleChildList = new ArrayList();
-            while (it.hasNext()) {
-                Component component = (Component) it.next();
-                if (component.isVisible()) {
-                    visibleChildList.add(component);
+        }
+        Component[] copy = new Component[visibleChildren.length];
+        System.arraycopy(visibleChildren, 0, copy, 0, visibleChildren.length);
+        return copy;
+    }
+    
+    /**
+     * Returns the cached snapshot of visible children, building it if it has
+     * been invalidated.  The returned array must not be modified.
+     * 
+     * @return the visible children
+     */
+    private Component[] getVisibleChildren() {
+        if (visibleChildren == null) {
+            if (children == null) {
+                visibleChildren = EMPTY_COMPONENT_ARRAY;
+            } else {
+                int childCount = children.size();
+                int visibleCount = 0;
+                for (int i = 0; i < childCount; ++i) {
+                    if (((Component) children.get(i)).isVisible()) {
+                        ++visibleCount;
+                    }
+                }
+                Component[] snapshot = new Component[visibleCount];
+                int visibleIndex = 0;
+                for (int i = 0; i < childCount; ++i) {
+                    Component component = (Component) children.get(i);
+                    if (component.isVisible()) {
+                        component.visibleIndex = visibleIndex;
+                        snapshot[visibleIndex++] = component;
+                    }
                 }
+                visibleChildren = snapshot;
             }
-            return (Component[]) visibleChildList.toArray(new Component[visibleChildList.size()]);
         }
+        return visibleChildren;
     }
     
     /**
@@ -1271,6 +1298,7 @@ implements RenderIdSupport, Serializable {
         // Dissolve references between parent and child.
         children.remove(c);
         c.parent = null;
+        visibleChildren = null;
 
         // Notify PropertyChangeListeners of change.
         firePropertyChange(CHILDREN_CHANGED_PROPERTY, c, null);
@@ -1299,6 +1327,7 @@ implements RenderIdSupport, Serializable {
                 remove(c);
             }
             children = null;
+            visibleChildren = null;
         }
     }
     
@@ -1325,6 +1354,24 @@ implements RenderIdSupport, Serializable {
         }
     }
     
+    /**
+     * Notifies the <code>ApplicationInstance</code> that this component 
+     * requires validation, such that <code>validate()</code> will be invoked
+     * before the next render.  Components whose <code>validate()</code>
+     * implementations depend on state which is not reported through a 
+     * property change (e.g., a model that has been modified) should invoke
+     * this method when that state changes.  This method has no effect if the
+     * component is not registered, as registration itself results in 
+     * validation.
+     * 
+     * @see #validate()
+     */
+    protected void requestValidation() {
+        if (applicationInstance != null) {
+            applicationInstance.requestValidation(this);
+        }
+    }
+    
     /**
      * Sets the default background color of the <code>Component</code>.
      * 
@@ -1538,6 +1585,9 @@ implements RenderIdSupport, Serializable {
         boolean oldValue = (flags & FLAG_VISIBLE) != 0;
         if (oldValue != newValue) {
             flags ^= FLAG_VISIBLE; // Toggle FLAG_VISIBLE bit.
+            if (parent != null) {
+                parent.visibleChildren = null;
+            }
             firePropertyChange(VISIBLE_CHANGED_PROPERTY, new Boolean(oldValue), new Boolean(newValue));
         }
     }
@@ -1547,6 +1597,14 @@ implements RenderIdSupport, Serializable {
      * is in a valid state. Default implementation is empty. Overriding
      * implementations should ensure to invoke <code>super.validate()</code>
      * out of convention.
+     * <p>
+     * Unless full validation is enabled on the <code>ApplicationInstance</code>,
+     * this method is only invoked on components which have been registered, 
+     * have reported a property change, or have invoked 
+     * <code>requestValidation()</code> since they were last validated.
+     * 
+     * @see #requestValidation()
+     * @see ApplicationInstance#setFullValidationEnabled(boolean)
      */
     public void validate() { }
     
@@ -1587,24 +1645,10 @@ implements RenderIdSupport, Serializable {
      *         <strong>visible</strong> children of this <code>Component</code>
      */
     public final int visibleIndexOf(Component c) {
-        if (!c.isVisible()) {
-            return -1;
-        }
-        if (children == null) {
+        if (c == null || c.parent != this || !c.isVisible()) {
             return -1;
         }
-        int visibleIndex = 0;
-        Iterator it = children.iterator();
-        while (it.hasNext()) {
-            Component component = (Component) it.next();
-            if (!component.isVisible()) {
-                continue;
-            }
-            if (component.equals(c)) {
-                return visibleIndex;
-            }
-            ++visibleIndex;
-        }
-        return -1;
+        getVisibleChildren();
+        return c.visibleIndex;
     }
 }
@@ -30,6 +30,7 @@
 package nextapp.echo2.app;
 
 import nextapp.echo2.app.list.AbstractListComponent;
+import nextapp.echo2.app.list.BulkListSelectionModel;
 import nextapp.echo2.app.list.DefaultListModel;
 import nextapp.echo2.app.list.ListModel;
 import nextapp.echo2.app.list.ListSelectionModel;
@@ -235,8 +236,12 @@ public class ListBox extends AbstractListComponent {
      */
     public void setSelectedIndex(int index) {
         ListSelectionModel selectionModel = getSelectionModel();
-        selectionModel.clearSelection();
-        selectionModel.setSelectedIndex(index, true);    
+        if (selectionModel instanceof BulkListSelectionModel) {
+            ((BulkListSelectionModel) selectionModel).setSelectionInterval(index, index);
+        } else {
+            selectionModel.clearSelection();
+            selectionModel.setSelectedIndex(index, true);
+        }
     }
     
     /**
@@ -256,9 +261,13 @@ public class ListBox extends AbstractListComponent {
      */
     public void setSelectedIndices(int[] indices) {
         ListSelectionModel selectionModel = getSelectionModel();
-        selectionModel.clearSelection();
-        for (int i = 0; i < indices.length; ++i) {
-            selectionModel.setSelectedIndex(indices[i], true);
+        if (selectionModel instanceof BulkListSelectionModel) {
+            ((BulkListSelectionModel) selectionModel).setSelectedIndices(indices);
+        } else {
+            selectionModel.clearSelection();
+            for (int i = 0; i < indices.length; ++i) {
+                selectionModel.setSelectedIndex(indices[i], true);
+            }
         }
     }
     
@@ -29,17 +29,42 @@
 
 package nextapp.echo2.app;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A mutable implementation of a <code>StyleSheet</code>. 
+ * <p>
+ * The style resolved for each component class, which may be declared for 
+ * one of its superclasses, is cached such that the class hierarchy is 
+ * searched only once per class and style name.  The cache is discarded 
+ * whenever the <code>StyleSheet</code> is modified.
  */
 public class MutableStyleSheet 
 implements StyleSheet {
 
+    /**
+     * Value stored in resolved style maps for classes which have no style.
+     */
+    private static final Object NO_STYLE = new Object();
+    
     private Map namedStyleMap = new HashMap();
     private Map defaultStyleMap = new HashMap();
+    
+    /**
+     * Map from component classes to resolved default styles.
+     */
+    private transient Map resolvedDefaultStyleMap = new ConcurrentHashMap();
+    
+    /**
+     * Map from style names to maps from component classes to resolved 
+     * named styles.
+     */
+    private transient Map resolvedNamedStyleMap = new ConcurrentHashMap();
 
     /**
      * Adds a <code>Style</code> to the <code>StyleSheet</code>.
@@ -60,6 +85,7 @@ implements StyleSheet {
             }
             styleMap.put(componentClass, style);
         }
+        clearResolvedStyles();
     }
     
     /**
@@ -70,38 +96,82 @@ implements StyleSheet {
      * @param styleSheet the <code>StyleSheet</code> to add
      */
     public void addStyleSheet(MutableStyleSheet styleSheet) {
-        namedStyleMap.putAll(styleSheet.namedStyleMap);
+        // Copy the per-name maps, such that neither style sheet is modified 
+        // through the other.
+        Iterator it = styleSheet.namedStyleMap.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry entry = (Map.Entry) it.next();
+            namedStyleMap.put(entry.getKey(), new HashMap((Map) entry.getValue()));
+        }
         defaultStyleMap.putAll(styleSheet.defaultStyleMap);
+        clearResolvedStyles();
+    }
+    
+    /**
+     * Discards all resolved styles.
+     */
+    private void clearResolvedStyles() {
+        resolvedDefaultStyleMap.clear();
+        resolvedNamedStyleMap.clear();
     }
     
     /**
      * @see nextapp.echo2.app.StyleSheet#getStyle(java.lang.Class, java.lang.String)
      */
     public Style getStyle(Class componentClass, String styleName) {
+        Map styleMap;
+        Map resolvedStyleMap;
         if (styleName == null) {
             // Retrieve generic style.
-            while (componentClass != Object.class) {
-                Style style = (Style) defaultStyleMap.get(componentClass);
-                if (style != null) {
-                    return style;
-                }
-                componentClass = componentClass.getSuperclass();
-            }
-            return null;
+            styleMap = defaultStyleMap;
+            resolvedStyleMap = resolvedDefaultStyleMap;
         } else {
             // Retrieve named style.   
-            Map styleMap = (Map) namedStyleMap.get(styleName);
+            styleMap = (Map) namedStyleMap.get(styleName);
             if (styleMap == null) {
                  return null;
             }
-            while (componentClass != Object.class) {
-                Style style = (Style) styleMap.get(componentClass);
-                if (style != null) {
-                    return style;
-                }
-                componentClass = componentClass.getSuperclass();
+            resolvedStyleMap = (Map) resolvedNamedStyleMap.get(styleName);
+            if (resolvedStyleMap == null) {
+                resolvedStyleMap = new ConcurrentHashMap();
+                resolvedNamedStyleMap.put(styleName, resolvedStyleMap);
+            }
+        }
+        
+        Object style = resolvedStyleMap.get(componentClass);
+        if (style == null) {
+            style = resolveStyle(styleMap, componentClass);
+            resolvedStyleMap.put(componentClass, style == null ? NO_STYLE : style);
+        }
+        return style == NO_STYLE ? null : (Style) style;
+    }
+    
+    /**
+     * @see java.io.Serializable
+     */
+    private void readObject(ObjectInputStream in)
+    throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        resolvedDefaultStyleMap = new ConcurrentHashMap();
+        resolvedNamedStyleMap = new ConcurrentHashMap();
+    }
+    
+    /**
+     * Searches the class hierarchy of a component class for the nearest
+     * class having a style.
+     * 
+     * @param styleMap a map from component classes to styles
+     * @param componentClass the component class
+     * @return the style, or null if none exists
+     */
+    private Style resolveStyle(Map styleMap, Class componentClass) {
+        while (componentClass != Object.class) {
+            Style style = (Style) styleMap.get(componentClass);
+            if (style != null) {
+                return style;
             }
-            return null;
+            componentClass = componentClass.getSuperclass();
         }
+        return null;
     }
 }
@@ -41,6 +41,7 @@ import nextapp.echo2.app.event.TableColumnModelEvent;
 import nextapp.echo2.app.event.TableColumnModelListener;
 import nextapp.echo2.app.event.TableModelEvent;
 import nextapp.echo2.app.event.TableModelListener;
+import nextapp.echo2.app.list.BulkListSelectionModel;
 import nextapp.echo2.app.list.DefaultListSelectionModel;
 import nextapp.echo2.app.list.ListSelectionModel;
 import nextapp.echo2.app.table.DefaultTableCellRenderer;
@@ -528,6 +529,7 @@ public class Table extends Component {
      */
     protected void invalidate() {
         valid = false;
+        requestValidation();
     }
     
     /**
@@ -805,13 +807,20 @@ public class Table extends Component {
     private void setSelectedIndices(int[] selectedIndices) {
         // Temporarily suppress the Tables selection event notifier.
         suppressChangeNotifications = true;
-        ListSelectionModel selectionModel = getSelectionModel();
-        selectionModel.clearSelection();
-        for (int i = 0; i < selectedIndices.length; ++i) {
-            selectionModel.setSelectedIndex(selectedIndices[i], true);
+        try {
+            ListSelectionModel selectionModel = getSelectionModel();
+            if (selectionModel instanceof BulkListSelectionModel) {
+                ((BulkListSelectionModel) selectionModel).setSelectedIndices(selectedIndices);
+            } else {
+                selectionModel.clearSelection();
+                for (int i = 0; i < selectedIndices.length; ++i) {
+                    selectionModel.setSelectedIndex(selectedIndices[i], true);
+                }
+            }
+        } finally {
+            // End temporary suppression.
+            suppressChangeNotifications = false;
         }
-        // End temporary suppression.
-        suppressChangeNotifications = false;
         firePropertyChange(SELECTION_CHANGED_PROPERTY, null, selectedIndices);
     }
 
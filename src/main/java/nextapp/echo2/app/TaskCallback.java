@@ -0,0 +1,56 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2004 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.app;
+
+/**
+ * A callback notified of the outcome of background work submitted with
+ * <code>ApplicationInstance.submitTask()</code>.
+ * Callbacks are run <b>synchronously</b> in the user interface update thread,
+ * through the <code>TaskQueueHandle</code> provided when the work was 
+ * submitted, such that they may safely update the component hierarchy.
+ * 
+ * @see ApplicationInstance#submitTask(TaskQueueHandle, java.util.concurrent.Callable, TaskCallback)
+ */
+public interface TaskCallback {
+    
+    /**
+     * Invoked when background work completes successfully.
+     * 
+     * @param result the value returned by the work
+     */
+    public void taskCompleted(Object result);
+    
+    /**
+     * Invoked when background work fails by throwing an exception.
+     * 
+     * @param ex the exception thrown by the work
+     */
+    public void taskFailed(Throwable ex);
+}
@@ -34,12 +34,14 @@ import java.beans.IndexedPropertyDescriptor;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * Provides introspection into Echo components.
@@ -59,8 +61,15 @@ public class ComponentIntrospector {
     /**
      * A map containing references from <code>ClassLoader</code> to 
      * <code>ComponentIntrospector</code> caches.
+     * <code>ClassLoader</code>s and the cached 
+     * <code>ComponentIntrospector</code>s are both weakly referenced, as an
+     * introspector references its introspected class and thereby the
+     * <code>ClassLoader</code>.  A strong (or soft) reference to the 
+     * introspector would retain the <code>ClassLoader</code> of a redeployed
+     * web application.  Other caches keyed by <code>ClassLoader</code> follow
+     * the same scheme.
      */
-    private static final Map classLoaderCache = new HashMap();
+    private static final Map classLoaderCache = new WeakHashMap();
     
     /**
      * Creates a new <code>ComponentIntrospector</code> for a type of
@@ -85,10 +94,11 @@ public class ComponentIntrospector {
         // Find or Create Component Introspector from Component Introspector Store.
         ComponentIntrospector ci;
         synchronized (ciStore) {
-            ci =  (ComponentIntrospector) ciStore.get(typeName);
+            WeakReference ciReference = (WeakReference) ciStore.get(typeName);
+            ci = ciReference == null ? null : (ComponentIntrospector) ciReference.get();
             if (ci == null) {
                 ci = new ComponentIntrospector(typeName, classLoader);
-                ciStore.put(typeName, ci);
+                ciStore.put(typeName, new WeakReference(ci));
             }
         }
         return ci;
@@ -29,8 +29,9 @@
 
 package nextapp.echo2.app.componentxml;
 
-import java.util.HashMap;
+import java.lang.ref.WeakReference;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import nextapp.echo2.app.MutableStyle;
 import nextapp.echo2.app.Style;
@@ -48,9 +49,11 @@ public class PropertyLoader {
     private static final String PROPERTY_XML_PEERS_PATH = "META-INF/nextapp/echo2/PropertyXmlPeers.properties";
     
     /**
-     * Map of <code>ClassLoader</code>s to <code>PropertyLoader</code>s.
+     * Map of weakly referenced <code>ClassLoader</code>s to weakly referenced
+     * <code>PropertyLoader</code>s, as for the cache of 
+     * <code>ComponentIntrospector</code>.
      */
-    private static final Map classLoaderToPropertyLoaderMap = new HashMap();
+    private static final Map classLoaderToPropertyLoaderMap = new WeakHashMap();
     
     /**
      * Creates or retrieves a <code>PropertyLoader</code>.
@@ -61,10 +64,12 @@ public class PropertyLoader {
      */
     public static PropertyLoader forClassLoader(ClassLoader classLoader) {
         synchronized(classLoaderToPropertyLoaderMap) {
-            PropertyLoader propertyLoader = (PropertyLoader) classLoaderToPropertyLoaderMap.get(classLoader);
+            WeakReference propertyLoaderReference = (WeakReference) classLoaderToPropertyLoaderMap.get(classLoader);
+            PropertyLoader propertyLoader = propertyLoaderReference == null 
+                    ? null : (PropertyLoader) propertyLoaderReference.get();
             if (propertyLoader == null) {
                 propertyLoader = new PropertyLoader(classLoader);
-                classLoaderToPropertyLoaderMap.put(classLoader, propertyLoader);
+                classLoaderToPropertyLoaderMap.put(classLoader, new WeakReference(propertyLoader));
             }
             return propertyLoader;
         }
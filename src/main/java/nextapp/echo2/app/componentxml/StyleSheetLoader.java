@@ -42,6 +42,7 @@ import nextapp.echo2.app.DerivedMutableStyle;
 import nextapp.echo2.app.MutableStyleSheet;
 import nextapp.echo2.app.Style;
 import nextapp.echo2.app.StyleSheet;
+import nextapp.echo2.app.util.CompiledStyleSheet;
 import nextapp.echo2.app.util.DomUtil;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -60,6 +61,9 @@ public class StyleSheetLoader {
      * <p>
      * Styles for components that cannot be loaded by the specified 
      * <code>ClassLoader</code> will be ignored.
+     * <p>
+     * The compiled form of the style sheet is loaded in place of the XML 
+     * data if it is available and was created from the current XML data.
      * 
      * @param resourceName the name of the resource on the 
      *        <code>CLASSPATH</code> containing the XML data
@@ -68,9 +72,20 @@ public class StyleSheetLoader {
      * @return the created <code>StyleSheet</code> or null if the resource 
      *         does not exist
      * @throws ComponentXmlException if parsing/instantiation errors occur
+     * @see CompiledStyleSheet
      */
     public static StyleSheet load(String resourceName, ClassLoader classLoader)
     throws ComponentXmlException {
+        try {
+            StyleSheet styleSheet = CompiledStyleSheet.load(resourceName, classLoader);
+            if (styleSheet != null) {
+                return styleSheet;
+            }
+        } catch (IOException ex) {
+            // Compiled StyleSheet cannot be read (e.g., it is out of date with respect to the classes it references):
+            // load XML data.
+        }
+        
         InputStream in = null;
         try {
             in = classLoader.getResourceAsStream(resourceName);
@@ -85,7 +85,9 @@ public abstract class AbstractListComponent extends Component {
          * @see nextapp.echo2.app.event.ChangeListener#stateChanged(nextapp.echo2.app.event.ChangeEvent)
          */
         public void stateChanged(ChangeEvent e) {
-            firePropertyChange(SELECTION_CHANGED_PROPERTY, null, null);
+            if (!suppressChangeNotifications) {
+                firePropertyChange(SELECTION_CHANGED_PROPERTY, null, null);
+            }
         }
     };
 
@@ -119,6 +121,7 @@ public abstract class AbstractListComponent extends Component {
     private ListCellRenderer listCellRenderer = DEFAULT_LIST_CELL_RENDERER;
     private ListModel model;
     private ListSelectionModel selectionModel;
+    private boolean suppressChangeNotifications;
     
     /**
      * Creates a new <code>AbstractListComponent</code> with default models.
@@ -368,11 +371,23 @@ public abstract class AbstractListComponent extends Component {
         
         if (SELECTION_CHANGED_PROPERTY.equals(inputName)) {
             int[] selectedIndices = (int[]) inputValue;
-            ListSelectionModel selectionModel = getSelectionModel();
-            selectionModel.clearSelection();
-            for (int i = 0; i < selectedIndices.length; ++i) {
-                selectionModel.setSelectedIndex(selectedIndices[i], true);
+            // Temporarily suppress the selection event notifier, such that the
+            // update is recognized as originating from the client.
+            suppressChangeNotifications = true;
+            try {
+                ListSelectionModel selectionModel = getSelectionModel();
+                if (selectionModel instanceof BulkListSelectionModel) {
+                    ((BulkListSelectionModel) selectionModel).setSelectedIndices(selectedIndices);
+                } else {
+                    selectionModel.clearSelection();
+                    for (int i = 0; i < selectedIndices.length; ++i) {
+                        selectionModel.setSelectedIndex(selectedIndices[i], true);
+                    }
+                }
+            } finally {
+                suppressChangeNotifications = false;
             }
+            firePropertyChange(SELECTION_CHANGED_PROPERTY, null, selectedIndices);
         } else if (INPUT_ACTION.equals(inputName)) {
             fireActionEvent();
         }
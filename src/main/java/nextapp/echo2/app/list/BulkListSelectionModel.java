@@ -0,0 +1,122 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.app.list;
+
+/**
+ * A <code>ListSelectionModel</code> supporting bulk operations, i.e., those
+ * which select or deselect intervals or arrays of indices.  Such operations 
+ * notify <code>ChangeListener</code>s once per operation.  Implementations 
+ * should provide a <code>ListSelectionEvent</code> describing the changed 
+ * interval where possible.  Notifications may be further coalesced by 
+ * bracketing a series of changes with <code>setValueIsAdjusting(true)</code>
+ * and <code>setValueIsAdjusting(false)</code>.
+ * <p>
+ * Components fall back to the per-index operations of 
+ * <code>ListSelectionModel</code> for selection models which do not 
+ * implement this interface.
+ * 
+ * @see nextapp.echo2.app.event.ListSelectionEvent
+ */
+public interface BulkListSelectionModel 
+extends ListSelectionModel {
+
+    /**
+     * Selects the given indices, in addition to any indices which are 
+     * currently selected.  In <code>SINGLE_SELECTION</code> mode, only the
+     * last given index will be selected.
+     * 
+     * @param indices the indices to select
+     */
+    public void addSelectedIndices(int[] indices);
+    
+    /**
+     * Selects the indices in the specified interval, in addition to any 
+     * indices which are currently selected.  In <code>SINGLE_SELECTION</code>
+     * mode, only <code>index1</code> will be selected.
+     * 
+     * @param index0 one end of the interval (inclusive)
+     * @param index1 the other end of the interval (inclusive)
+     */
+    public void addSelectionInterval(int index0, int index1);
+    
+    /**
+     * Determines whether a series of changes is currently being made, 
+     * during which notification of <code>ChangeListener</code>s is deferred.
+     * 
+     * @return true if the selection is being adjusted
+     * @see #setValueIsAdjusting(boolean)
+     */
+    public boolean getValueIsAdjusting();
+
+    /**
+     * Deselects the given indices.
+     * 
+     * @param indices the indices to deselect
+     */
+    public void removeSelectedIndices(int[] indices);
+    
+    /**
+     * Deselects the indices in the specified interval.
+     * 
+     * @param index0 one end of the interval (inclusive)
+     * @param index1 the other end of the interval (inclusive)
+     */
+    public void removeSelectionInterval(int index0, int index1);
+    
+    /**
+     * Selects the given indices, deselecting any other indices.  In 
+     * <code>SINGLE_SELECTION</code> mode, only the last given index will be
+     * selected.
+     * 
+     * @param indices the indices to select
+     */
+    public void setSelectedIndices(int[] indices);
+    
+    /**
+     * Selects the indices in the specified interval, deselecting any other
+     * indices.  In <code>SINGLE_SELECTION</code> mode, only 
+     * <code>index1</code> will be selected.
+     * 
+     * @param index0 one end of the interval (inclusive)
+     * @param index1 the other end of the interval (inclusive)
+     */
+    public void setSelectionInterval(int index0, int index1);
+    
+    /**
+     * Sets whether a series of changes is being made.  While true, 
+     * <code>ChangeListener</code>s are not notified of changes; a single
+     * notification describing all changes made is provided when the value is
+     * returned to false.
+     * 
+     * @param newValue true if a series of changes is about to be made, false
+     *        once it is complete
+     */
+    public void setValueIsAdjusting(boolean newValue);
+}
@@ -34,20 +34,26 @@ import java.util.BitSet;
 import java.util.EventListener;
 
 import nextapp.echo2.app.event.EventListenerList;
-import nextapp.echo2.app.event.ChangeEvent;
 import nextapp.echo2.app.event.ChangeListener;
+import nextapp.echo2.app.event.ListSelectionEvent;
 
 /**
- * Default <code>ListSelectionModel</code> implementation.
+ * Default <code>ListSelectionModel</code> implementation, supporting bulk
+ * operations.
  */
 public class DefaultListSelectionModel 
-implements ListSelectionModel, Serializable {
+implements BulkListSelectionModel, Serializable {
 
     private EventListenerList listenerList = new EventListenerList();
     private int selectionMode = SINGLE_SELECTION;
     private BitSet selection = new BitSet();
     private int minSelectedIndex = -1;
     
+    private boolean valueIsAdjusting;
+    private boolean adjustedChangePending;
+    private int adjustedFirstIndex;
+    private int adjustedLastIndex;
+    
     /**
      * @see nextapp.echo2.app.list.ListSelectionModel#addChangeListener(
      *      nextapp.echo2.app.event.ChangeListener)
@@ -56,21 +62,77 @@ implements ListSelectionModel, Serializable {
         listenerList.addListener(ChangeListener.class, l);
     }
     
+    /**
+     * @see nextapp.echo2.app.list.BulkListSelectionModel#addSelectedIndices(int[])
+     */
+    public void addSelectedIndices(int[] indices) {
+        if (selectionMode == SINGLE_SELECTION) {
+            setSelectedIndices(indices);
+            return;
+        }
+        BitSet newSelection = (BitSet) selection.clone();
+        for (int i = 0; i < indices.length; ++i) {
+            newSelection.set(indices[i]);
+        }
+        updateSelection(newSelection);
+    }
+    
+    /**
+     * @see nextapp.echo2.app.list.BulkListSelectionModel#addSelectionInterval(int, int)
+     */
+    public void addSelectionInterval(int index0, int index1) {
+        if (selectionMode == SINGLE_SELECTION) {
+            setSelectionInterval(index0, index1);
+            return;
+        }
+        BitSet newSelection = (BitSet) selection.clone();
+        newSelection.set(Math.min(index0, index1), Math.max(index0, index1) + 1);
+        updateSelection(newSelection);
+    }
+    
     /**
      * @see nextapp.echo2.app.list.ListSelectionModel#clearSelection()
      */
     public void clearSelection() {
-        selection = new BitSet();
-        minSelectedIndex = -1;
-        fireValueChanged();
+        updateSelection(new BitSet());
     }
     
     /**
      * Notifies <code>ChangeListener</code>s that the selection has 
-     * changed.
+     * changed, without describing the changed interval.
      */
     protected void fireValueChanged() {
-        ChangeEvent e = new ChangeEvent(this);
+        fireValueChanged(-1, -1);
+    }
+    
+    /**
+     * Notifies <code>ChangeListener</code>s that the selection has 
+     * changed within the specified interval.  If the value is adjusting,
+     * notification is deferred until adjustment is complete.
+     * 
+     * @param firstIndex the first index whose selection state may have 
+     *        changed, or -1 if the changed interval is not known
+     * @param lastIndex the last index whose selection state may have 
+     *        changed, or -1 if the changed interval is not known
+     */
+    protected void fireValueChanged(int firstIndex, int lastIndex) {
+        if (valueIsAdjusting) {
+            if (!adjustedChangePending) {
+                adjustedChangePending = true;
+                adjustedFirstIndex = firstIndex;
+                adjustedLastIndex = lastIndex;
+            } else if (adjustedFirstIndex != -1) {
+                if (firstIndex == -1) {
+                    adjustedFirstIndex = -1;
+                    adjustedLastIndex = -1;
+                } else {
+                    adjustedFirstIndex = Math.min(adjustedFirstIndex, firstIndex);
+                    adjustedLastIndex = Math.max(adjustedLastIndex, lastIndex);
+                }
+            }
+            return;
+        }
+        ListSelectionEvent e = new ListSelectionEvent(this, firstIndex, lastIndex);
         EventListener[] listeners = listenerList.getListeners(ChangeListener.class);
         for (int index = 0; index < listeners.length; ++index) {
             ((ChangeListener) listeners[index]).stateChanged(e);
@@ -98,6 +160,13 @@ implements ListSelectionModel, Serializable {
         return selectionMode;
     }
     
+    /**
+     * @see nextapp.echo2.app.list.BulkListSelectionModel#getValueIsAdjusting()
+     */
+    public boolean getValueIsAdjusting() {
+        return valueIsAdjusting;
+    }
+    
     /**
      * @see nextapp.echo2.app.list.ListSelectionModel#isSelectedIndex(int)
      */
@@ -118,6 +187,26 @@ implements ListSelectionModel, Serializable {
     public void removeChangeListener(ChangeListener l) {
         listenerList.removeListener(ChangeListener.class, l);
     }
+    
+    /**
+     * @see nextapp.echo2.app.list.BulkListSelectionModel#removeSelectedIndices(int[])
+     */
+    public void removeSelectedIndices(int[] indices) {
+        BitSet newSelection = (BitSet) selection.clone();
+        for (int i = 0; i < indices.length; ++i) {
+            newSelection.clear(indices[i]);
+        }
+        updateSelection(newSelection);
+    }
+    
+    /**
+     * @see nextapp.echo2.app.list.BulkListSelectionModel#removeSelectionInterval(int, int)
+     */
+    public void removeSelectionInterval(int index0, int index1) {
+        BitSet newSelection = (BitSet) selection.clone();
+        newSelection.clear(Math.min(index0, index1), Math.max(index0, index1) + 1);
+        updateSelection(newSelection);
+    }
 
     /**
      * @see nextapp.echo2.app.list.ListSelectionModel#setSelectedIndex(int, boolean)
@@ -126,9 +215,14 @@ implements ListSelectionModel, Serializable {
         boolean oldValue = isSelectedIndex(index);
     
         if (newValue ^ oldValue) {
+            int firstIndex = index;
+            int lastIndex = index;
             if (newValue) {
-                if (selectionMode == SINGLE_SELECTION && getMinSelectedIndex() != -1) {
-                    setSelectedIndex(getMinSelectedIndex(), false);
+                if (selectionMode == SINGLE_SELECTION && minSelectedIndex != -1) {
+                    firstIndex = Math.min(index, minSelectedIndex);
+                    lastIndex = Math.max(index, minSelectedIndex);
+                    selection.clear(minSelectedIndex);
+                    minSelectedIndex = -1;
                 }
                 selection.set(index);
                 if (index < minSelectedIndex || minSelectedIndex == -1) {
@@ -138,32 +232,85 @@ implements ListSelectionModel, Serializable {
                 selection.clear(index);
                 if (index == minSelectedIndex) {
                     // Minimum selected index has been deselected, find new minimum selected index.
-                    int max = getMaxSelectedIndex();
-                    minSelectedIndex = -1;
-                    for (int i = 0; i <= max; ++i) {
-                        if (selection.get(i)) {
-                            minSelectedIndex = i;
-                            break;
-                        }
-                    }
+                    minSelectedIndex = selection.nextSetBit(index + 1);
                 }
             }
-            fireValueChanged();
+            fireValueChanged(firstIndex, lastIndex);
+        }
+    }
+    
+    /**
+     * @see nextapp.echo2.app.list.BulkListSelectionModel#setSelectedIndices(int[])
+     */
+    public void setSelectedIndices(int[] indices) {
+        BitSet newSelection = new BitSet();
+        if (selectionMode == SINGLE_SELECTION) {
+            if (indices.length > 0) {
+                newSelection.set(indices[indices.length - 1]);
+            }
+        } else {
+            for (int i = 0; i < indices.length; ++i) {
+                newSelection.set(indices[i]);
+            }
+        }
+        updateSelection(newSelection);
+    }
+    
+    /**
+     * @see nextapp.echo2.app.list.BulkListSelectionModel#setSelectionInterval(int, int)
+     */
+    public void setSelectionInterval(int index0, int index1) {
+        BitSet newSelection = new BitSet();
+        if (selectionMode == SINGLE_SELECTION) {
+            newSelection.set(index1);
+        } else {
+            newSelection.set(Math.min(index0, index1), Math.max(index0, index1) + 1);
         }
+        updateSelection(newSelection);
     }
 
     /**
      * @see nextapp.echo2.app.list.ListSelectionModel#setSelectionMode(int)
      */
     public void setSelectionMode(int selectionMode) {
-        if (selectionMode != MULTIPLE_SELECTION && this.selectionMode == MULTIPLE_SELECTION) {
+        if (selectionMode != MULTIPLE_SELECTION && this.selectionMode == MULTIPLE_SELECTION && minSelectedIndex != -1) {
             // deselect all but first selected element.
-            int maxSelectedIndex = getMaxSelectedIndex();
-            for (int i = minSelectedIndex + 1; i <= maxSelectedIndex; ++i) {
-                setSelectedIndex(i, false);
-            }
+            BitSet newSelection = new BitSet();
+            newSelection.set(minSelectedIndex);
+            updateSelection(newSelection);
         }
         this.selectionMode = selectionMode;
         fireValueChanged();
     }
+    
+    /**
+     * @see nextapp.echo2.app.list.BulkListSelectionModel#setValueIsAdjusting(boolean)
+     */
+    public void setValueIsAdjusting(boolean newValue) {
+        if (newValue == valueIsAdjusting) {
+            return;
+        }
+        valueIsAdjusting = newValue;
+        if (!valueIsAdjusting && adjustedChangePending) {
+            adjustedChangePending = false;
+            fireValueChanged(adjustedFirstIndex, adjustedLastIndex);
+        }
+    }
+    
+    /**
+     * Replaces the selection, notifying <code>ChangeListener</code>s once
+     * of the interval containing all changed indices, if any.
+     * 
+     * @param newSelection the new selection
+     */
+    private void updateSelection(BitSet newSelection) {
+        BitSet changed = (BitSet) selection.clone();
+        changed.xor(newSelection);
+        if (changed.length() == 0) {
+            return;
+        }
+        selection = newSelection;
+        minSelectedIndex = selection.nextSetBit(0);
+        fireValueChanged(changed.nextSetBit(0), changed.length() - 1);
+    }
 }
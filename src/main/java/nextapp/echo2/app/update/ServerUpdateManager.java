@@ -182,6 +182,15 @@ implements Serializable {
         }
     }
     
+    /**
+     * Returns the number of stored <code>ServerComponentUpdate</code>s.
+     * 
+     * @return the number of updates
+     */
+    public int getComponentUpdateCount() {
+        return isFullRefreshRequired() ? 1 : componentUpdateMap.size();
+    }
+    
     /**
      * Initialization life-cycle method.  Must be invoked before using 
      * the <code>ServerUpdateManager</code>.
@@ -97,9 +97,11 @@ implements Serializable {
     
     /**
      * Purges all client and server updates.
+     * Invoked once the updates have been synchronized with the client.
      */
     public void purge() {
         clientUpdateManager.purge();
         serverUpdateManager.purge();
+        applicationInstance.advanceRenderIdEpoch();
     }
 }
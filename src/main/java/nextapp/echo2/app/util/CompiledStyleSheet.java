@@ -0,0 +1,216 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.app.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+
+import nextapp.echo2.app.StyleSheet;
+
+/**
+ * Utility class for reading and writing compiled <code>StyleSheet</code>s.
+ * <p>
+ * A compiled <code>StyleSheet</code> is the serialized form of a loaded 
+ * <code>StyleSheet</code>, such that it may be created at build time and 
+ * later loaded with a single read, without parsing the style sheet source
+ * or introspecting component and property classes.  The style sheet 
+ * loaders load the compiled form of a style sheet resource in place of its
+ * source if a resource exists with the same name followed by 
+ * <code>RESOURCE_SUFFIX</code>, e.g., "Default.stylesheet.ser" for 
+ * "Default.stylesheet".
+ * <p>
+ * A compiled <code>StyleSheet</code> records a checksum of the source from
+ * which it was created, and is ignored in favor of the source should the
+ * source present alongside it have changed since.  It is valid only for the
+ * versions of the classes it references with which it was created.
+ */
+public class CompiledStyleSheet {
+    
+    /**
+     * The suffix appended to the name of a style sheet resource to obtain 
+     * the name of its compiled resource.
+     */
+    public static final String RESOURCE_SUFFIX = ".ser";
+    
+    /**
+     * <code>ObjectInputStream</code> which resolves classes using a 
+     * specific <code>ClassLoader</code>.
+     */
+    private static class ClassLoaderObjectInputStream extends ObjectInputStream {
+        
+        private ClassLoader classLoader;
+        
+        /**
+         * Creates a new <code>ClassLoaderObjectInputStream</code>.
+         * 
+         * @param in the <code>InputStream</code> to read from
+         * @param classLoader the <code>ClassLoader</code> with which to 
+         *        resolve classes
+         */
+        private ClassLoaderObjectInputStream(InputStream in, ClassLoader classLoader) 
+        throws IOException {
+            super(in);
+            this.classLoader = classLoader;
+        }
+        
+        /**
+         * @see java.io.ObjectInputStream#resolveClass(java.io.ObjectStreamClass)
+         */
+        protected Class resolveClass(ObjectStreamClass desc) 
+        throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(desc.getName(), false, classLoader);
+            } catch (ClassNotFoundException ex) {
+                // Primitive types are not resolved by Class.forName().
+                return super.resolveClass(desc);
+            }
+        }
+    }
+    
+    /**
+     * Calculates the checksum of a style sheet source, as recorded in its
+     * compiled form.
+     * 
+     * @param in the <code>InputStream</code> from which to read the source
+     * @return the checksum
+     * @throws IOException if the source cannot be read
+     */
+    public static long checksum(InputStream in) 
+    throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[4096];
+        int length;
+        while ((length = in.read(buffer)) != -1) {
+            crc.update(buffer, 0, length);
+        }
+        return crc.getValue();
+    }
+    
+    /**
+     * Loads the compiled form of a style sheet resource.  The compiled form
+     * is not used if the style sheet source resource exists and does not
+     * match the checksum recorded in the compiled form.
+     * 
+     * @param resourceName the name of the style sheet resource (excluding
+     *        <code>RESOURCE_SUFFIX</code>)
+     * @param classLoader the <code>ClassLoader</code> from which to load 
+     *        the resource and with which to resolve classes
+     * @return the <code>StyleSheet</code>, or null if no compiled resource
+     *         exists or it was created from a different source
+     * @throws IOException if the compiled resource cannot be read
+     */
+    public static StyleSheet load(String resourceName, ClassLoader classLoader) 
+    throws IOException {
+        InputStream in = classLoader.getResourceAsStream(resourceName + RESOURCE_SUFFIX);
+        if (in == null) {
+            return null;
+        }
+        try {
+            ObjectInputStream objectIn = new ClassLoaderObjectInputStream(in, classLoader);
+            long sourceChecksum = objectIn.readLong();
+            InputStream sourceIn = classLoader.getResourceAsStream(resourceName);
+            if (sourceIn != null) {
+                try {
+                    if (checksum(sourceIn) != sourceChecksum) {
+                        return null;
+                    }
+                } finally {
+                    sourceIn.close();
+                }
+            }
+            return readStyleSheet(objectIn);
+        } finally {
+            in.close();
+        }
+    }
+    
+    /**
+     * Reads a compiled <code>StyleSheet</code>, without verifying that it
+     * matches its source.
+     * 
+     * @param in the <code>InputStream</code> from which to read
+     * @param classLoader the <code>ClassLoader</code> with which to resolve
+     *        classes
+     * @return the <code>StyleSheet</code>
+     * @throws IOException if the <code>StyleSheet</code> cannot be read
+     */
+    public static StyleSheet read(InputStream in, ClassLoader classLoader) 
+    throws IOException {
+        ObjectInputStream objectIn = new ClassLoaderObjectInputStream(in, classLoader);
+        objectIn.readLong();
+        return readStyleSheet(objectIn);
+    }
+    
+    /**
+     * Reads the <code>StyleSheet</code> of a compiled style sheet, 
+     * following its source checksum.
+     * 
+     * @param objectIn the <code>ObjectInputStream</code> from which to read
+     * @return the <code>StyleSheet</code>
+     * @throws IOException if the <code>StyleSheet</code> cannot be read
+     */
+    private static StyleSheet readStyleSheet(ObjectInputStream objectIn) 
+    throws IOException {
+        try {
+            return (StyleSheet) objectIn.readObject();
+        } catch (ClassNotFoundException ex) {
+            throw new IOException("Compiled StyleSheet references unavailable class: " + ex.getMessage());
+        } catch (ClassCastException ex) {
+            throw new IOException("Compiled resource does not contain a StyleSheet.");
+        }
+    }
+    
+    /**
+     * Writes a compiled <code>StyleSheet</code>.
+     * 
+     * @param styleSheet the <code>StyleSheet</code>, all of whose styles and
+     *        property values must be serializable
+     * @param sourceChecksum the checksum of the source from which the 
+     *        <code>StyleSheet</code> was loaded
+     * @param out the <code>OutputStream</code> to which to write
+     * @throws IOException if the <code>StyleSheet</code> cannot be written
+     * @see #checksum(InputStream)
+     */
+    public static void write(StyleSheet styleSheet, long sourceChecksum, OutputStream out) 
+    throws IOException {
+        ObjectOutputStream objectOut = new ObjectOutputStream(out);
+        objectOut.writeLong(sourceChecksum);
+        objectOut.writeObject(styleSheet);
+        objectOut.flush();
+    }
+    
+    /** Non-instantiable class. */
+    private CompiledStyleSheet() { }
+}
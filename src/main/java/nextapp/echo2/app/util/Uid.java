@@ -34,10 +34,17 @@ package nextapp.echo2.app.util;
  */
 public class Uid {
 
-    private static final String machineIdString = Integer.toHexString(new Object().hashCode());
-    private static int globalCount = 0;
+    private static final String machineIdString = Integer.toString(new Object().hashCode() & 0x7fffffff, Character.MAX_RADIX);
+    private static long globalCount = 0;
     
-    private final int count = ++globalCount;
+    /**
+     * Returns the next value of the VM-wide counter.
+     */
+    private static synchronized long nextCount() {
+        return ++globalCount;
+    }
+    
+    private final long count = nextCount();
     private final long time = System.currentTimeMillis();
     
     /**
@@ -59,8 +66,8 @@ public class Uid {
      * @see java.lang.Object#toString()
      */
     public String toString() {
-        String timeString = Long.toHexString(time);
-        String countString = Integer.toHexString(count);
+        String timeString = Long.toString(time, Character.MAX_RADIX);
+        String countString = Long.toString(count, Character.MAX_RADIX);
         
         return machineIdString + "_" + timeString + "_" + countString;
     }
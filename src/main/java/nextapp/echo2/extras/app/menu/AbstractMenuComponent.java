@@ -1,6 +1,13 @@
 package nextapp.echo2.extras.app.menu;
 
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.EventListener;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
 
 import nextapp.echo2.app.Component;
 import nextapp.echo2.app.event.ActionEvent;
@@ -11,10 +18,107 @@ public abstract class AbstractMenuComponent extends Component {
     public static final String INPUT_SELECT = "select";
     public static final String MODEL_CHANGED_PROPERTY = "model";
     public static final String STATE_MODEL_CHANGED_PROPERTY = "stateModel";
+    public static final String MODEL_ITEMS_CHANGED_PROPERTY = "modelItems";
+    
+    /**
+     * The maximum number of pending model changes which will be retained
+     * before the whole model is flagged for re-rendering.
+     */
+    private static final int MAX_MODEL_CHANGES = 64;
+    
+    /**
+     * A change made to the <code>MenuModel</code> hierarchy of a menu
+     * component since it was last rendered.
+     */
+    public static final class ModelChange 
+    implements Serializable {
+        
+        private MenuModelEvent event;
+        private String path;
+        
+        /**
+         * Creates a new <code>ModelChange</code>.
+         * 
+         * @param event the originating event
+         * @param path the index path of the affected item at the time of the
+         *        change
+         */
+        private ModelChange(MenuModelEvent event, String path) {
+            this.event = event;
+            this.path = path;
+        }
+        
+        /**
+         * Returns the originating event.
+         * 
+         * @return the event
+         */
+        public MenuModelEvent getEvent() {
+            return event;
+        }
+        
+        /**
+         * Returns the dotted index path of the affected item, as it was at
+         * the time of the change.  For <code>ITEM_ADDED</code> and 
+         * <code>ITEM_REMOVED</code> events this is the path of the added or
+         * removed item, for <code>MENU_CHANGED</code> events the path of the
+         * changed menu.  Paths are adjusted should an addition preceding
+         * the change be cancelled.
+         * 
+         * @return the path
+         */
+        public String getPath() {
+            return path;
+        }
+    }
 
     private MenuModel model;
     private MenuStateModel stateModel;
     
+    /**
+     * Mapping from each <code>ItemModel</code> in the model hierarchy to its
+     * containing <code>MenuModel</code>.  Identity based, as item models may
+     * override <code>equals()</code>.
+     */
+    private Map parentMap = new IdentityHashMap();
+    
+    /**
+     * Lazily created mapping from item ids to <code>ItemModel</code>s.
+     */
+    private transient Map idMap;
+    
+    /**
+     * Mapping from <code>ItemModel</code>s to keys which identify them for as
+     * long as they are contained in the model, regardless of changes to 
+     * their position.  Identity based.
+     */
+    private Map itemToKeyMap = new IdentityHashMap();
+    
+    /**
+     * Mapping from item keys to <code>ItemModel</code>s.
+     */
+    private Map keyToItemMap = new HashMap();
+    
+    /**
+     * The next item key to be assigned.  Keys are never reused.
+     */
+    private int nextItemKey;
+    
+    private List modelChanges;
+    private Map addedItems;
+    private boolean modelRefreshRequired;
+    
+    private MenuModelListener modelListener = new MenuModelListener() {
+
+        /**
+         * @see nextapp.echo2.extras.app.menu.MenuModelListener#menuModelChanged(
+         *      nextapp.echo2.extras.app.menu.MenuModelEvent)
+         */
+        public void menuModelChanged(MenuModelEvent e) {
+            processModelChange(e);
+        }
+    };
+    
     /**
      * Creates a new <code>AbstractMenuComponent</code> displaying the specified 
      * <code>MenuModel</code> and using the specified 
@@ -38,7 +142,71 @@ public abstract class AbstractMenuComponent extends Component {
     public void addActionListener(ActionListener l) {
         getEventListenerList().addListener(ActionListener.class, l);
     }
+    
+    /**
+     * Discards the pending model changes, e.g., once the menu has been 
+     * rendered.
+     */
+    public void clearModelChanges() {
+        modelChanges = null;
+        addedItems = null;
+        modelRefreshRequired = false;
+    }
    
+    /**
+     * Cancels the pending addition of an item which has been removed again
+     * before being rendered, such that neither change is rendered.  The 
+     * paths of the changes recorded in the meantime are adjusted as though
+     * the item had never been added.
+     * 
+     * @param itemModel the removed <code>ItemModel</code>
+     */
+    private void cancelAddedItem(ItemModel itemModel) {
+        int addIndex = modelChanges.size() - 1;
+        while (true) {
+            MenuModelEvent e = ((ModelChange) modelChanges.get(addIndex)).event;
+            if (e.getType() == MenuModelEvent.ITEM_ADDED && e.getItem() == itemModel) {
+                break;
+            }
+            --addIndex;
+        }
+        ModelChange addChange = (ModelChange) modelChanges.remove(addIndex);
+        addedItems.remove(itemModel);
+        
+        // Track the path of the cancelled item as subsequent changes are 
+        // applied, shifting the paths of changes to its later siblings and
+        // their descendants.
+        int[] itemPath = parsePath(addChange.path);
+        int level = itemPath.length - 1;
+        int count = modelChanges.size();
+        for (int i = addIndex; i < count; ++i) {
+            ModelChange change = (ModelChange) modelChanges.get(i);
+            int[] path = parsePath(change.path);
+            int parentLength = path.length - 1;
+            if (change.event.getType() != MenuModelEvent.MENU_CHANGED && parentLength <= level 
+                    && isPathPrefix(itemPath, path, parentLength)) {
+                // Sibling of the cancelled item or of one of its ancestors added or removed.
+                int index = path[parentLength];
+                if (change.event.getType() == MenuModelEvent.ITEM_ADDED && index <= itemPath[parentLength]) {
+                    ++itemPath[parentLength];
+                    continue;
+                } else if (change.event.getType() == MenuModelEvent.ITEM_REMOVED && index < itemPath[parentLength]) {
+                    --itemPath[parentLength];
+                    continue;
+                }
+            }
+            if (path.length > level && isPathPrefix(itemPath, path, level) && path[level] > itemPath[level]) {
+                // Later sibling of the cancelled item, or a descendant thereof.
+                --path[level];
+                change.path = formatPath(path);
+            }
+        }
+        
+        if (modelChanges.isEmpty()) {
+            modelChanges = null;
+        }
+    }
+    
     /**
      * Deselects <code>RadioOptionModel</code> items in a group when a selection
      * is made within that group.  Operates by recursively searching 
@@ -105,6 +273,79 @@ public abstract class AbstractMenuComponent extends Component {
         }
     }
     
+    /**
+     * Returns the <code>ItemModel</code> with the specified id.
+     * If multiple items share the id, the first one encountered in a 
+     * depth-first traversal of the model is returned.
+     * 
+     * @param id the id
+     * @return the <code>ItemModel</code>, or null if none exists
+     */
+    public ItemModel getItemModelById(String id) {
+        if (idMap == null) {
+            idMap = new HashMap();
+            indexIds(model);
+        }
+        return (ItemModel) idMap.get(id);
+    }
+    
+    /**
+     * Returns a key identifying an item for as long as it is contained in
+     * the model.  Unlike the item's path, the key is unaffected by items
+     * being added to or removed from the model, and is never reused for 
+     * another item.
+     * 
+     * @param itemModel the <code>ItemModel</code>
+     * @return the key, or null if the item is the root model or is not 
+     *         contained within the model
+     */
+    public String getItemKey(ItemModel itemModel) {
+        if (!parentMap.containsKey(itemModel)) {
+            return null;
+        }
+        String key = (String) itemToKeyMap.get(itemModel);
+        if (key == null) {
+            key = Integer.toString(nextItemKey++);
+            itemToKeyMap.put(itemModel, key);
+            keyToItemMap.put(key, itemModel);
+        }
+        return key;
+    }
+    
+    /**
+     * Returns the <code>ItemModel</code> identified by a key.
+     * 
+     * @param key the key, as returned by <code>getItemKey()</code>
+     * @return the <code>ItemModel</code>, or null if the key does not 
+     *         identify an item currently contained in the model
+     */
+    public ItemModel getItemModelByKey(String key) {
+        return (ItemModel) keyToItemMap.get(key);
+    }
+    
+    /**
+     * Returns the dotted index path (e.g., "2.0.5") of an item within the
+     * model hierarchy.
+     * 
+     * @param itemModel the <code>ItemModel</code>
+     * @return the path, or null if the item is the root model or is not 
+     *         contained within the model
+     */
+    public String getItemPath(ItemModel itemModel) {
+        MenuModel parent = (MenuModel) parentMap.get(itemModel);
+        if (parent == null) {
+            return null;
+        }
+        StringBuffer out = new StringBuffer();
+        while (parent != null) {
+            int index = indexOf(parent, itemModel);
+            out.insert(0, out.length() == 0 ? Integer.toString(index) : index + ".");
+            itemModel = parent;
+            parent = (MenuModel) parentMap.get(parent);
+        }
+        return out.toString();
+    }
+    
     /**
      * Returns the model
      * 
@@ -114,6 +355,19 @@ public abstract class AbstractMenuComponent extends Component {
         return model;
     }
 
+    /**
+     * Returns the changes made to the model since it was last rendered, in 
+     * the order in which they occurred.
+     * 
+     * @return the changes
+     */
+    public ModelChange[] getModelChanges() {
+        if (modelChanges == null) {
+            return new ModelChange[0];
+        }
+        return (ModelChange[]) modelChanges.toArray(new ModelChange[modelChanges.size()]);
+    }
+
     /**
      * Returns the selection model
      * 
@@ -122,6 +376,199 @@ public abstract class AbstractMenuComponent extends Component {
     public MenuStateModel getStateModel() {
         return stateModel;
     }
+    
+    /**
+     * Formats an index path as a dotted string.
+     * 
+     * @param path the indices
+     * @return the path string
+     */
+    private static String formatPath(int[] path) {
+        StringBuffer out = new StringBuffer();
+        for (int i = 0; i < path.length; ++i) {
+            if (i > 0) {
+                out.append('.');
+            }
+            out.append(path[i]);
+        }
+        return out.toString();
+    }
+    
+    /**
+     * Returns the index of an item within a menu.
+     * 
+     * @param menuModel the menu
+     * @param itemModel the item
+     * @return the index, or -1 if the item is not contained in the menu
+     */
+    private static int indexOf(MenuModel menuModel, ItemModel itemModel) {
+        int count = menuModel.getItemCount();
+        for (int i = 0; i < count; ++i) {
+            if (menuModel.getItem(i) == itemModel) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Recursively adds the ids of a <code>MenuModel</code> and its 
+     * descendants to the id index, retaining existing entries.
+     * 
+     * @param menuModel the <code>MenuModel</code>
+     */
+    private void indexIds(MenuModel menuModel) {
+        int count = menuModel.getItemCount();
+        for (int i = 0; i < count; ++i) {
+            ItemModel itemModel = menuModel.getItem(i);
+            if (itemModel.getId() != null && !idMap.containsKey(itemModel.getId())) {
+                idMap.put(itemModel.getId(), itemModel);
+            }
+            if (itemModel instanceof MenuModel) {
+                indexIds((MenuModel) itemModel);
+            }
+        }
+    }
+    
+    /**
+     * Adds an item and its descendants to the parent index, and registers 
+     * the model listener with any <code>DefaultMenuModel</code>s found.
+     * 
+     * @param itemModel the <code>ItemModel</code> to index
+     * @param parent the containing <code>MenuModel</code>, or null if the item
+     *        is the root model
+     */
+    private void indexItem(ItemModel itemModel, MenuModel parent) {
+        if (parent != null) {
+            parentMap.put(itemModel, parent);
+        }
+        if (itemModel instanceof DefaultMenuModel) {
+            ((DefaultMenuModel) itemModel).addMenuModelListener(modelListener);
+        }
+        if (itemModel instanceof MenuModel) {
+            MenuModel menuModel = (MenuModel) itemModel;
+            int count = menuModel.getItemCount();
+            for (int i = 0; i < count; ++i) {
+                indexItem(menuModel.getItem(i), menuModel);
+            }
+        }
+    }
+    
+    /**
+     * Determines if an item, or one of its ancestors, has been added to the 
+     * model since it was last rendered.
+     * 
+     * @param itemModel the <code>ItemModel</code>
+     * @return true if the item is contained in an added subtree
+     */
+    private boolean isInAddedItem(ItemModel itemModel) {
+        if (addedItems == null) {
+            return false;
+        }
+        while (itemModel != null) {
+            if (addedItems.containsKey(itemModel)) {
+                return true;
+            }
+            itemModel = (ItemModel) parentMap.get(itemModel);
+        }
+        return false;
+    }
+    
+    /**
+     * Determines if two index paths share the same leading indices.
+     * 
+     * @param path1 the first path
+     * @param path2 the second path
+     * @param length the number of leading indices to compare
+     * @return true if the first <code>length</code> indices are equal
+     */
+    private static boolean isPathPrefix(int[] path1, int[] path2, int length) {
+        for (int i = 0; i < length; ++i) {
+            if (path1[i] != path2[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Determines if the pending model changes could not be recorded 
+     * individually, such that the entire model must be rendered again.
+     * 
+     * @return true if the entire model must be rendered
+     */
+    public boolean isModelRefreshRequired() {
+        return modelRefreshRequired;
+    }
+    
+    /**
+     * Parses a dotted index path.
+     * 
+     * @param path the path string
+     * @return the indices
+     */
+    private static int[] parsePath(String path) {
+        StringTokenizer st = new StringTokenizer(path, ".");
+        int[] indices = new int[st.countTokens()];
+        for (int i = 0; i < indices.length; ++i) {
+            indices[i] = Integer.parseInt(st.nextToken());
+        }
+        return indices;
+    }
+    
+    /**
+     * Processes a <code>MenuModelEvent</code> from a menu within the model
+     * hierarchy, updating the item indices and recording the change such that
+     * it may be rendered incrementally.
+     * 
+     * @param e the event
+     */
+    private void processModelChange(MenuModelEvent e) {
+        MenuModel source = (MenuModel) e.getSource();
+        switch (e.getType()) {
+        case MenuModelEvent.ITEM_ADDED:
+            indexItem(e.getItem(), source);
+            idMap = null;
+            break;
+        case MenuModelEvent.ITEM_REMOVED:
+            unindexItem(e.getItem());
+            idMap = null;
+            break;
+        }
+        
+        if (!modelRefreshRequired && e.getType() == MenuModelEvent.ITEM_REMOVED 
+                && addedItems != null && addedItems.containsKey(e.getItem())) {
+            cancelAddedItem(e.getItem());
+        } else if (!modelRefreshRequired && !isInAddedItem(source)) {
+            String path = getItemPath(source);
+            if (e.getType() == MenuModelEvent.MENU_CHANGED) {
+                if (path == null) {
+                    // The title of the root model is not displayed.
+                    return;
+                }
+            } else {
+                path = path == null ? Integer.toString(e.getIndex()) : path + "." + e.getIndex();
+            }
+            if (modelChanges == null) {
+                modelChanges = new ArrayList();
+            }
+            if (modelChanges.size() >= MAX_MODEL_CHANGES) {
+                modelChanges = null;
+                addedItems = null;
+                modelRefreshRequired = true;
+            } else {
+                modelChanges.add(new ModelChange(e, path));
+                if (e.getType() == MenuModelEvent.ITEM_ADDED) {
+                    if (addedItems == null) {
+                        addedItems = new IdentityHashMap();
+                    }
+                    addedItems.put(e.getItem(), Boolean.TRUE);
+                }
+            }
+        }
+        
+        firePropertyChange(MODEL_ITEMS_CHANGED_PROPERTY, null, null);
+    }
 
     /**
      * @see nextapp.echo2.app.Component#processInput(java.lang.String, java.lang.Object)
@@ -153,7 +600,16 @@ public abstract class AbstractMenuComponent extends Component {
             throw new IllegalArgumentException("Model may not be null.");
         }
         MenuModel oldValue = model;
+        if (oldValue != null) {
+            unindexItem(oldValue);
+        }
         model = newValue;
+        parentMap.clear();
+        itemToKeyMap.clear();
+        keyToItemMap.clear();
+        idMap = null;
+        indexItem(newValue, null);
+        clearModelChanges();
         firePropertyChange(MODEL_CHANGED_PROPERTY, oldValue, newValue);
     }
     
@@ -170,4 +626,29 @@ public abstract class AbstractMenuComponent extends Component {
         stateModel = newValue;
         firePropertyChange(MODEL_CHANGED_PROPERTY, oldValue, newValue);
     }
+    
+    /**
+     * Removes an item and its descendants from the parent index, and 
+     * unregisters the model listener from any <code>DefaultMenuModel</code>s
+     * found.
+     * 
+     * @param itemModel the <code>ItemModel</code> to remove from the index
+     */
+    private void unindexItem(ItemModel itemModel) {
+        parentMap.remove(itemModel);
+        String key = (String) itemToKeyMap.remove(itemModel);
+        if (key != null) {
+            keyToItemMap.remove(key);
+        }
+        if (itemModel instanceof DefaultMenuModel) {
+            ((DefaultMenuModel) itemModel).removeMenuModelListener(modelListener);
+        }
+        if (itemModel instanceof MenuModel) {
+            MenuModel menuModel = (MenuModel) itemModel;
+            int count = menuModel.getItemCount();
+            for (int i = 0; i < count; ++i) {
+                unindexItem(menuModel.getItem(i));
+            }
+        }
+    }
 }
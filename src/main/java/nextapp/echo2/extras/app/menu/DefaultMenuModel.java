@@ -30,13 +30,16 @@
 package nextapp.echo2.extras.app.menu;
 
 import java.util.ArrayList;
+import java.util.EventListener;
 import java.util.List;
 
 import nextapp.echo2.app.ImageReference;
+import nextapp.echo2.app.event.EventListenerList;
 
 /**
  * Default <code>MenuModel</code> implementation.
  * Provides capabilities to add and remove menu items.
+ * Changes are reported to registered <code>MenuModelListener</code>s.
  */
 public class DefaultMenuModel 
 implements MenuModel {
@@ -45,6 +48,7 @@ implements MenuModel {
     private String text;
     private ImageReference icon;
     private String id;
+    private EventListenerList listenerList = new EventListenerList();
     
     /**
      * Creates a new <code>DefaultMenuModel</code>.
@@ -99,9 +103,31 @@ implements MenuModel {
             items = new ArrayList();
         }
         if (index == -1) {
-            items.add(item);
-        } else {
-            items.add(index, item);
+            index = items.size();
+        }
+        items.add(index, item);
+        fireMenuModelChanged(new MenuModelEvent(this, MenuModelEvent.ITEM_ADDED, item, index));
+    }
+    
+    /**
+     * Adds a <code>MenuModelListener</code> to be notified of changes to 
+     * the menu.
+     * 
+     * @param l the listener to add
+     */
+    public void addMenuModelListener(MenuModelListener l) {
+        listenerList.addListener(MenuModelListener.class, l);
+    }
+    
+    /**
+     * Notifies <code>MenuModelListener</code>s of a change to the menu.
+     * 
+     * @param e the <code>MenuModelEvent</code> to fire
+     */
+    protected void fireMenuModelChanged(MenuModelEvent e) {
+        EventListener[] listeners = listenerList.getListeners(MenuModelListener.class);
+        for (int i = 0; i < listeners.length; ++i) {
+            ((MenuModelListener) listeners[i]).menuModelChanged(e);
         }
     }
     
@@ -141,7 +167,7 @@ implements MenuModel {
     }
     
     /**
-     * REmoves an <code>ItemModel</code> from the menu
+     * Removes an <code>ItemModel</code> from the menu
      * 
      * @param item the <code>ItemModel</code> to remove
      */
@@ -149,7 +175,22 @@ implements MenuModel {
         if (items == null) {
             return;
         }
-        items.remove(item);
+        int index = items.indexOf(item);
+        if (index == -1) {
+            return;
+        }
+        items.remove(index);
+        fireMenuModelChanged(new MenuModelEvent(this, MenuModelEvent.ITEM_REMOVED, item, index));
+    }
+    
+    /**
+     * Removes a <code>MenuModelListener</code> from being notified of 
+     * changes to the menu.
+     * 
+     * @param l the listener to remove
+     */
+    public void removeMenuModelListener(MenuModelListener l) {
+        listenerList.removeListener(MenuModelListener.class, l);
     }
     
     /**
@@ -159,6 +200,7 @@ implements MenuModel {
      */
     public void setIcon(ImageReference newValue) {
         icon = newValue;
+        fireMenuModelChanged(new MenuModelEvent(this, MenuModelEvent.MENU_CHANGED, null, -1));
     }
     
     /**
@@ -168,5 +210,6 @@ implements MenuModel {
      */
     public void setText(String newValue) {
         text = newValue;
+        fireMenuModelChanged(new MenuModelEvent(this, MenuModelEvent.MENU_CHANGED, null, -1));
     }
 }
@@ -0,0 +1,110 @@
+/* 
+ * This file is part of the Echo2 Extras Project.
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.extras.app.menu;
+
+import java.util.EventObject;
+
+/**
+ * An event describing a change to the items or title of a 
+ * <code>MenuModel</code>.
+ */
+public class MenuModelEvent extends EventObject {
+
+    /**
+     * Event type indicating an item was added to the menu.
+     */
+    public static final int ITEM_ADDED = 1;
+
+    /**
+     * Event type indicating an item was removed from the menu.
+     */
+    public static final int ITEM_REMOVED = 2;
+
+    /**
+     * Event type indicating the title text or icon of the menu itself was
+     * changed.
+     */
+    public static final int MENU_CHANGED = 3;
+    
+    private int type;
+    private ItemModel item;
+    private int index;
+    
+    /**
+     * Creates a new <code>MenuModelEvent</code>.
+     * 
+     * @param source the <code>MenuModel</code> which changed
+     * @param type the event type, one of the following values:
+     *        <ul>
+     *         <li><code>ITEM_ADDED</code></li>
+     *         <li><code>ITEM_REMOVED</code></li>
+     *         <li><code>MENU_CHANGED</code></li>
+     *        </ul>
+     * @param item the added or removed <code>ItemModel</code> (null for 
+     *        <code>MENU_CHANGED</code> events)
+     * @param index the index at which the item was added or from which it 
+     *        was removed (-1 for <code>MENU_CHANGED</code> events)
+     */
+    public MenuModelEvent(MenuModel source, int type, ItemModel item, int index) {
+        super(source);
+        this.type = type;
+        this.item = item;
+        this.index = index;
+    }
+    
+    /**
+     * Returns the index at which the item was added or from which it was 
+     * removed.
+     * 
+     * @return the index, or -1 for <code>MENU_CHANGED</code> events
+     */
+    public int getIndex() {
+        return index;
+    }
+    
+    /**
+     * Returns the added or removed item.
+     * 
+     * @return the item, or null for <code>MENU_CHANGED</code> events
+     */
+    public ItemModel getItem() {
+        return item;
+    }
+    
+    /**
+     * Returns the event type.
+     * 
+     * @return the event type
+     * @see #MenuModelEvent(MenuModel, int, ItemModel, int)
+     */
+    public int getType() {
+        return type;
+    }
+}
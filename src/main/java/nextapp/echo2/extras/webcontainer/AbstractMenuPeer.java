@@ -9,6 +9,7 @@ import nextapp.echo2.app.update.ServerComponentUpdate;
 import nextapp.echo2.extras.app.menu.AbstractMenuComponent;
 import nextapp.echo2.extras.app.menu.ItemModel;
 import nextapp.echo2.extras.app.menu.MenuModel;
+import nextapp.echo2.extras.app.menu.MenuModelEvent;
 import nextapp.echo2.extras.app.menu.MenuStateModel;
 import nextapp.echo2.extras.app.menu.OptionModel;
 import nextapp.echo2.extras.app.menu.RadioOptionModel;
@@ -18,6 +19,7 @@ import nextapp.echo2.webcontainer.ActionProcessor;
 import nextapp.echo2.webcontainer.ComponentSynchronizePeer;
 import nextapp.echo2.webcontainer.ContainerInstance;
 import nextapp.echo2.webcontainer.PartialUpdateManager;
+import nextapp.echo2.webcontainer.PartialUpdateParticipant;
 import nextapp.echo2.webcontainer.RenderContext;
 import nextapp.echo2.webcontainer.image.ImageRenderSupport;
 import nextapp.echo2.webcontainer.image.ImageTools;
@@ -65,6 +67,29 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport {
         WebRenderServlet.getServiceRegistry().add(MENU_SERVICE);
     }
     
+    /**
+     * <code>PartialUpdateParticipant</code> to render incremental changes to
+     * the items of the menu model.
+     */
+    private PartialUpdateParticipant modelItemsUpdateParticipant = new PartialUpdateParticipant() {
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#renderProperty(nextapp.echo2.webcontainer.RenderContext,
+         *       nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public void renderProperty(RenderContext rc, ServerComponentUpdate update) {
+            renderModelUpdateDirective(rc, (AbstractMenuComponent) update.getParent());
+        }
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#canRenderProperty(nextapp.echo2.webcontainer.RenderContext, 
+         *      nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public boolean canRenderProperty(RenderContext rc, ServerComponentUpdate update) {
+            return !((AbstractMenuComponent) update.getParent()).isModelRefreshRequired();
+        }
+    };
+    
     /**
      * The <code>PartialUpdateManager</code> for this synchronization peer.
      */
@@ -75,6 +100,7 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport {
      */
     public AbstractMenuPeer() {
         partialUpdateManager = new PartialUpdateManager();
+        partialUpdateManager.add(AbstractMenuComponent.MODEL_ITEMS_CHANGED_PROPERTY, modelItemsUpdateParticipant);
     }
     
     /**
@@ -101,8 +127,8 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport {
         } else if (IMAGE_ID_RADIO_ON.equals(imageId)) {
             return DEFAULT_ICON_RADIO_ON;
         } else if (imageId.startsWith(IMAGE_ID_MENU_ITEM_PREFIX)) {
-            String itemPath = imageId.substring(IMAGE_ID_MENU_ITEM_PREFIX.length());
-            ItemModel itemModel = getItemModel((AbstractMenuComponent) component, itemPath);
+            String itemKey = imageId.substring(IMAGE_ID_MENU_ITEM_PREFIX.length());
+            ItemModel itemModel = ((AbstractMenuComponent) component).getItemModelByKey(itemKey);
             if (itemModel instanceof MenuModel) {
                 return ((MenuModel) itemModel).getIcon();
             } else if (itemModel instanceof OptionModel) {
@@ -115,27 +141,6 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport {
         }
     }
     
-    ItemModel getItemModelById(AbstractMenuComponent menu, String id) {
-        return getItemModelById(menu.getModel(), id);
-    }
-    
-    private ItemModel getItemModelById(MenuModel menuModel, String id) {
-        int size = menuModel.getItemCount();
-        for (int i = 0; i < size; ++i) {
-            ItemModel itemModel = menuModel.getItem(i);
-            if (id.equals(itemModel.getId())) {
-                return itemModel;
-            }
-            if (itemModel instanceof MenuModel) {
-                itemModel = getItemModelById((MenuModel) itemModel, id);
-                if (itemModel != null) {
-                    return itemModel;
-                }
-            }
-        }
-        return null;
-    }
-    
     ItemModel getItemModel(AbstractMenuComponent menu, String itemPath) {
         ItemModel itemModel = menu.getModel();
         StringTokenizer st = new StringTokenizer(itemPath, ".");
@@ -146,30 +151,6 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport {
         return itemModel;
     }
 
-    String getItemPath(MenuModel menuModel, ItemModel targetItemModel) {
-        StringBuffer out = new StringBuffer();
-        getItemPath(menuModel, targetItemModel, out);
-        return out.length() == 0 ? null : out.toString();
-    }
-    
-    void getItemPath(MenuModel menuModel, ItemModel targetItemModel, StringBuffer out) {
-        int itemCount = menuModel.getItemCount();
-        for (int i = 0; i < itemCount; ++i) {
-            ItemModel currentItemModel = menuModel.getItem(i);
-            if (targetItemModel.equals(currentItemModel)) {
-                out.append(i);
-                return;
-            }
-            if (currentItemModel instanceof MenuModel) {
-                getItemPath((MenuModel) currentItemModel, targetItemModel, out); 
-            }
-            if (out.length() != 0) {
-                out.insert(0, i + ".");
-                return;
-            }
-        }
-    }
-    
     /**
      * @see nextapp.echo2.webcontainer.ActionProcessor#processAction(nextapp.echo2.webcontainer.ContainerInstance, 
      *      nextapp.echo2.app.Component, org.w3c.dom.Element)
@@ -198,6 +179,7 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport {
         serverMessage.addLibrary(MENU_SERVICE.getId());
         AbstractMenuComponent menu = (AbstractMenuComponent) component;
         renderInitDirective(rc, menu, targetId);
+        menu.clearModelChanges();
     }
     
     /**
@@ -211,77 +193,154 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport {
         renderDisposeDirective(rc, (AbstractMenuComponent) component);
     }
 
+    /**
+     * Returns the name of the client-side message processor of the menu.
+     * 
+     * @return the message processor name
+     */
+    abstract String getMessageProcessorName();
+
     abstract void renderInitDirective(RenderContext rc, Component component, String targetId);
     
     abstract void renderDisposeDirective(RenderContext rc, Component component);
     
     /**
-     * Renders an XML representation of a <code>MenuModel</code> to the 
+     * Renders an XML representation of an <code>ItemModel</code> to the 
      * <code>ServerMessage</code>.  This method is invoked recursively to render
      * hierarchies of menus.
      * 
      * @param rc the relevant <code>RenderContext</code>
-     * @param menuModel the <code>MenuModel</code> to render
-     * @param parentElement the parent <code>Element</code>, either the 'init'
+     * @param menu the rendered menu component
+     * @param itemModel the <code>ItemModel</code> to render
+     * @param parentElement the parent <code>Element</code>, e.g., the 'init'
      *        element or the containing 'menu' element
      */
-    void renderModel(RenderContext rc, AbstractMenuComponent menu, MenuModel menuModel, Element parentElement) {
+    void renderItem(RenderContext rc, AbstractMenuComponent menu, ItemModel itemModel, Element parentElement) {
         Document document = rc.getServerMessage().getDocument();
-        Element menuModelElement = document.createElement("menu");
-
         MenuStateModel stateModel = menu.getStateModel();
-        
+        if (itemModel instanceof MenuModel) {
+            MenuModel menuModel = (MenuModel) itemModel;
+            Element menuModelElement = document.createElement("menu");
+            renderMenuAttributes(rc, menu, menuModel, menuModelElement);
+            int length = menuModel.getItemCount();
+            for (int i = 0; i < length; ++i) {
+                renderItem(rc, menu, menuModel.getItem(i), menuModelElement); 
+            }
+            parentElement.appendChild(menuModelElement);
+        } else if (itemModel instanceof OptionModel) {
+            Element optionModelElement = document.createElement("option");
+            OptionModel optionModel = (OptionModel) itemModel;
+            if (optionModel.getId() != null && !stateModel.isEnabled(optionModel.getId())) {
+                optionModelElement.setAttribute("enabled", "false");
+            }
+            if (optionModel instanceof ToggleOptionModel) {
+                if (optionModel instanceof RadioOptionModel) {
+                    optionModelElement.setAttribute("type", "radio");
+                } else {
+                    optionModelElement.setAttribute("type", "toggle");
+                }
+                if (stateModel != null && stateModel.isSelected(((ToggleOptionModel) optionModel).getId())) {
+                    optionModelElement.setAttribute("selected", "true");
+                }
+            } else {
+                optionModelElement.setAttribute("type", "default");
+            }
+            if (optionModel.getText() != null) {
+                optionModelElement.setAttribute("text", optionModel.getText());
+            }
+            String itemKey = menu.getItemKey(optionModel);
+            if (optionModel.getIcon() != null && itemKey != null) {
+                optionModelElement.setAttribute("icon", ImageTools.getUri(rc, this, menu, 
+                        IMAGE_ID_MENU_ITEM_PREFIX + itemKey));
+            }
+            parentElement.appendChild(optionModelElement);
+        } else if (itemModel instanceof SeparatorModel) {
+            parentElement.appendChild(document.createElement("separator"));
+        }
+    }
+    
+    /**
+     * Renders the title text, icon, and enabled state of a 
+     * <code>MenuModel</code> as attributes of an element.
+     * 
+     * @param rc the relevant <code>RenderContext</code>
+     * @param menu the rendered menu component
+     * @param menuModel the <code>MenuModel</code>
+     * @param element the target element
+     */
+    private void renderMenuAttributes(RenderContext rc, AbstractMenuComponent menu, MenuModel menuModel, Element element) {
         if (menuModel.getText() != null) {
-            menuModelElement.setAttribute("text", menuModel.getText());
+            element.setAttribute("text", menuModel.getText());
         }
-        if (menuModel.getIcon() != null) {
-            String itemPath = getItemPath(menu.getModel(), menuModel);
-            menuModelElement.setAttribute("icon", ImageTools.getUri(rc, this, menu, IMAGE_ID_MENU_ITEM_PREFIX + itemPath));
+        String itemKey = menu.getItemKey(menuModel);
+        if (menuModel.getIcon() != null && itemKey != null) {
+            element.setAttribute("icon", ImageTools.getUri(rc, this, menu, IMAGE_ID_MENU_ITEM_PREFIX + itemKey));
         }
-        if (menuModel.getId() != null && !stateModel.isEnabled(menuModel.getId())) {
-            menuModelElement.setAttribute("enabled", "false");
+        if (menuModel.getId() != null && !menu.getStateModel().isEnabled(menuModel.getId())) {
+            element.setAttribute("enabled", "false");
         }
-
-        int length = menuModel.getItemCount();
-        for (int i = 0; i < length; ++i) {
-            ItemModel itemModel = menuModel.getItem(i);
-            if (itemModel instanceof MenuModel) {
-                renderModel(rc, menu, (MenuModel) itemModel, menuModelElement); 
-            } else if (itemModel instanceof OptionModel) {
-                Element optionModelElement = document.createElement("option");
-                OptionModel optionModel = (OptionModel) itemModel;
-                if (optionModel.getId() != null && !stateModel.isEnabled(optionModel.getId())) {
-                    optionModelElement.setAttribute("enabled", "false");
-                }
-                if (optionModel instanceof ToggleOptionModel) {
-                    if (optionModel instanceof RadioOptionModel) {
-                        optionModelElement.setAttribute("type", "radio");
-                    } else {
-                        optionModelElement.setAttribute("type", "toggle");
-                    }
-                    if (stateModel != null && stateModel.isSelected(((ToggleOptionModel) optionModel).getId())) {
-                        optionModelElement.setAttribute("selected", "true");
-                    }
-                } else {
-                    optionModelElement.setAttribute("type", "default");
-                }
-                if (optionModel.getText() != null) {
-                    optionModelElement.setAttribute("text", optionModel.getText());
-                }
-                if (optionModel.getIcon() != null) {
-                    String itemPath = getItemPath(menu.getModel(), optionModel);
-                    optionModelElement.setAttribute("icon", ImageTools.getUri(rc, this, menu, 
-                            IMAGE_ID_MENU_ITEM_PREFIX + itemPath));
-                }
-                menuModelElement.appendChild(optionModelElement);
-            } else if (itemModel instanceof SeparatorModel) {
-                menuModelElement.appendChild(document.createElement("separator"));
+    }
+    
+    /**
+     * Renders an XML representation of a <code>MenuModel</code> to the 
+     * <code>ServerMessage</code>.
+     * 
+     * @param rc the relevant <code>RenderContext</code>
+     * @param menu the rendered menu component
+     * @param menuModel the <code>MenuModel</code> to render
+     * @param parentElement the parent <code>Element</code>, either the 'init'
+     *        element or the containing 'menu' element
+     */
+    void renderModel(RenderContext rc, AbstractMenuComponent menu, MenuModel menuModel, Element parentElement) {
+        renderItem(rc, menu, menuModel, parentElement);
+    }
+    
+    /**
+     * Renders a directive to apply the pending changes of the menu 
+     * component's model to the client, item by item.
+     * 
+     * @param rc the relevant <code>RenderContext</code>
+     * @param menu the menu component
+     */
+    void renderModelUpdateDirective(RenderContext rc, AbstractMenuComponent menu) {
+        AbstractMenuComponent.ModelChange[] changes = menu.getModelChanges();
+        if (changes.length == 0) {
+            return;
+        }
+        ServerMessage serverMessage = rc.getServerMessage();
+        serverMessage.addLibrary(ExtrasUtil.JS_EXTRAS_UTIL_SERVICE.getId());
+        serverMessage.addLibrary(MENU_SERVICE.getId());
+        Document document = serverMessage.getDocument();
+        Element updateElement = serverMessage.appendPartDirective(ServerMessage.GROUP_ID_UPDATE, 
+                getMessageProcessorName(), "update-model");
+        updateElement.setAttribute("eid", ContainerInstance.getElementId(menu));
+        
+        for (int i = 0; i < changes.length; ++i) {
+            MenuModelEvent e = changes[i].getEvent();
+            switch (e.getType()) {
+            case MenuModelEvent.ITEM_ADDED:
+                Element addElement = document.createElement("add");
+                addElement.setAttribute("path", changes[i].getPath());
+                renderItem(rc, menu, e.getItem(), addElement);
+                updateElement.appendChild(addElement);
+                break;
+            case MenuModelEvent.ITEM_REMOVED:
+                Element removeElement = document.createElement("remove");
+                removeElement.setAttribute("path", changes[i].getPath());
+                updateElement.appendChild(removeElement);
+                break;
+            case MenuModelEvent.MENU_CHANGED:
+                MenuModel menuModel = (MenuModel) e.getSource();
+                Element menuUpdateElement = document.createElement("update");
+                menuUpdateElement.setAttribute("path", changes[i].getPath());
+                renderMenuAttributes(rc, menu, menuModel, menuUpdateElement);
+                updateElement.appendChild(menuUpdateElement);
+                break;
             }
         }
-        parentElement.appendChild(menuModelElement);
+        menu.clearModelChanges();
     }
 
-    
     /**
     * @see nextapp.echo2.webcontainer.ComponentSynchronizePeer#renderUpdate(nextapp.echo2.webcontainer.RenderContext,
     *      nextapp.echo2.app.update.ServerComponentUpdate, java.lang.String)
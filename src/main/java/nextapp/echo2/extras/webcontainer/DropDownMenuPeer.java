@@ -56,6 +56,13 @@ public class DropDownMenuPeer extends AbstractMenuPeer {
         }
     }
 
+    /**
+     * @see nextapp.echo2.extras.webcontainer.AbstractMenuPeer#getMessageProcessorName()
+     */
+    String getMessageProcessorName() {
+        return "ExtrasDropDownMenu.MessageProcessor";
+    }
+
     /**
      * Renders a dispose directive.
      * 
@@ -92,9 +99,9 @@ public class DropDownMenuPeer extends AbstractMenuPeer {
         if (selectionModel != null) {
             initElement.setAttribute("selection", "true");
             String selectedId = selectionModel.getSelectedId();
-            ItemModel selectedModel = selectedId == null ? null :  getItemModelById(menu, selectedId);
+            ItemModel selectedModel = selectedId == null ? null : menu.getItemModelById(selectedId);
             if (selectedModel != null) {
-                initElement.setAttribute("selected-path", getItemPath(menu.getModel(), selectedModel));
+                initElement.setAttribute("selected-path", menu.getItemPath(selectedModel));
             }
         }
         
@@ -73,6 +73,13 @@ public class MenuBarPanePeer extends AbstractMenuPeer {
         return fillImage == null ? null : fillImage.getImage();
     }
 
+    /**
+     * @see nextapp.echo2.extras.webcontainer.AbstractMenuPeer#getMessageProcessorName()
+     */
+    String getMessageProcessorName() {
+        return "ExtrasMenuBarPane.MessageProcessor";
+    }
+
    /**
      * Renders a dispose directive.
      * 
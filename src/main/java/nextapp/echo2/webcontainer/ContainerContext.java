@@ -82,6 +82,15 @@ public interface ContainerContext {
      */
     public Map getInitialRequestParameterMap();
     
+    /**
+     * Returns the most recent sample of the memory used by the session, 
+     * taken on each synchronization.
+     * 
+     * @return the <code>SessionMemoryUsage</code>, or null if no sample has
+     *         been taken
+     */
+    public SessionMemoryUsage getMemoryUsage();
+    
     /**
      * Returns the URI of the specified <code>Service</code>.
      * 
@@ -126,6 +135,48 @@ public interface ContainerContext {
      */
     public void setClientConfiguration(ClientConfiguration clientConfiguration);
     
+    /**
+     * Registers a handler for requests made to a component-bound
+     * <code>Service</code>.  Handlers are local to the user's session, 
+     * components should register them when initialized and unregister them
+     * when disposed.
+     * 
+     * @param service the <code>Service</code>
+     * @param key the handler key, e.g., the element id of a component
+     * @param handler the handler
+     */
+    public void registerServiceHandler(Service service, String key, Object handler);
+    
+    /**
+     * Sets the estimated session size, in bytes, beyond which the session is
+     * terminated at the end of a synchronization, directing the client to 
+     * reload.  Should exceed the soft limit.
+     * 
+     * @param newValue the new hard limit, in bytes, or zero if unlimited
+     * @see SessionMemoryUsage#getEstimatedSize()
+     */
+    public void setMemoryHardLimit(long newValue);
+    
+    /**
+     * Sets the estimated session size, in bytes, beyond which the least 
+     * recently used discardable render state is released at the end of a 
+     * synchronization.
+     * 
+     * @param newValue the new soft limit, in bytes, or zero if unlimited
+     * @see SessionMemoryUsage#getEstimatedSize()
+     */
+    public void setMemorySoftLimit(long newValue);
+    
+    /**
+     * Sets whether components are updated by comparing fingerprints of 
+     * their previous and current HTML, such that a component whose HTML 
+     * structure is unchanged is updated in place rather than being removed
+     * and re-added.  Disabled by default.
+     * 
+     * @param newValue true to enable render fingerprinting
+     */
+    public void setRenderFingerprintEnabled(boolean newValue);
+    
     /**
      * Sets the <code>ServerDelayMessage</code> displayed during 
      * client/server-interactions.
@@ -134,6 +185,15 @@ public interface ContainerContext {
      */
     public void setServerDelayMessage(ServerDelayMessage serverDelayMessage);
     
+    /**
+     * Sets whether repeated inline styles may be rendered to the client as 
+     * shared style sheet rules, reducing the size of server messages which
+     * contain many identically styled elements.  Disabled by default.
+     * 
+     * @param newValue true to enable style interning
+     */
+    public void setStyleInterningEnabled(boolean newValue);
+    
     /**
      * Sets the interval between asynchronous callbacks from the client to check
      * for queued tasks for a given <code>TaskQueue</code>.  If multiple 
@@ -145,4 +205,23 @@ public interface ContainerContext {
      *        callbacks
      */
     public void setTaskQueueCallbackInterval(TaskQueueHandle taskQueue, int ms);
+    
+    /**
+     * Sets whether text components synchronize their text with the client
+     * by exchanging deltas rather than complete text, reducing the size of
+     * client and server messages when large text is edited.  Disabled by
+     * default.
+     * 
+     * @param newValue true to enable text delta synchronization
+     */
+    public void setTextDeltaSyncEnabled(boolean newValue);
+    
+    /**
+     * Unregisters a handler for requests made to a component-bound
+     * <code>Service</code>.
+     * 
+     * @param service the <code>Service</code>
+     * @param key the key with which the handler was registered
+     */
+    public void unregisterServiceHandler(Service service, String key);
 }
@@ -87,6 +87,13 @@ implements ContainerContext, Serializable {
         return containerInstance.getInitialRequestParameterMap();
     }
     
+    /**
+     * @see nextapp.echo2.webcontainer.ContainerContext#getMemoryUsage()
+     */
+    public SessionMemoryUsage getMemoryUsage() {
+        return containerInstance.getMemoryUsage();
+    }
+    
     /**
      * @see nextapp.echo2.webcontainer.ContainerContext#getServiceUri(nextapp.echo2.webrender.Service)
      */
@@ -132,6 +139,14 @@ implements ContainerContext, Serializable {
         }
     }
     
+    /**
+     * @see nextapp.echo2.webcontainer.ContainerContext#registerServiceHandler(nextapp.echo2.webrender.Service, 
+     *      java.lang.String, java.lang.Object)
+     */
+    public void registerServiceHandler(Service service, String key, Object handler) {
+        containerInstance.registerServiceHandler(service, key, handler);
+    }
+    
     /**
      * @see nextapp.echo2.webcontainer.ContainerContext#setClientConfiguration(nextapp.echo2.webrender.ClientConfiguration)
      */
@@ -139,6 +154,27 @@ implements ContainerContext, Serializable {
         containerInstance.setClientConfiguration(clientConfiguration);
     }
     
+    /**
+     * @see nextapp.echo2.webcontainer.ContainerContext#setMemoryHardLimit(long)
+     */
+    public void setMemoryHardLimit(long newValue) {
+        containerInstance.setMemoryHardLimit(newValue);
+    }
+    
+    /**
+     * @see nextapp.echo2.webcontainer.ContainerContext#setMemorySoftLimit(long)
+     */
+    public void setMemorySoftLimit(long newValue) {
+        containerInstance.setMemorySoftLimit(newValue);
+    }
+    
+    /**
+     * @see nextapp.echo2.webcontainer.ContainerContext#setRenderFingerprintEnabled(boolean)
+     */
+    public void setRenderFingerprintEnabled(boolean newValue) {
+        containerInstance.setRenderFingerprintEnabled(newValue);
+    }
+    
     /**
      * @see nextapp.echo2.webcontainer.ContainerContext#setServerDelayMessage(nextapp.echo2.webrender.ServerDelayMessage)
      */
@@ -146,10 +182,32 @@ implements ContainerContext, Serializable {
         containerInstance.setServerDelayMessage(serverDelayMessage);
     }
 
+    /**
+     * @see nextapp.echo2.webcontainer.ContainerContext#setStyleInterningEnabled(boolean)
+     */
+    public void setStyleInterningEnabled(boolean newValue) {
+        containerInstance.setStyleInterningEnabled(newValue);
+    }
+    
     /**
      * @see nextapp.echo2.webcontainer.ContainerContext#setTaskQueueCallbackInterval(nextapp.echo2.app.TaskQueueHandle, int)
      */
     public void setTaskQueueCallbackInterval(TaskQueueHandle taskQueue, int ms) {
         containerInstance.setTaskQueueCallbackInterval(taskQueue, ms);
     }
+    
+    /**
+     * @see nextapp.echo2.webcontainer.ContainerContext#setTextDeltaSyncEnabled(boolean)
+     */
+    public void setTextDeltaSyncEnabled(boolean newValue) {
+        containerInstance.setTextDeltaSyncEnabled(newValue);
+    }
+    
+    /**
+     * @see nextapp.echo2.webcontainer.ContainerContext#unregisterServiceHandler(nextapp.echo2.webrender.Service, 
+     *      java.lang.String)
+     */
+    public void unregisterServiceHandler(Service service, String key) {
+        containerInstance.unregisterServiceHandler(service, key);
+    }
 }
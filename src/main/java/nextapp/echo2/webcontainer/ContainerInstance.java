@@ -31,6 +31,7 @@ package nextapp.echo2.webcontainer;
 
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.WeakHashMap;
 
@@ -42,6 +43,7 @@ import nextapp.echo2.app.TaskQueueHandle;
 import nextapp.echo2.app.update.UpdateManager;
 import nextapp.echo2.webcontainer.util.IdTable;
 import nextapp.echo2.webrender.Connection;
+import nextapp.echo2.webrender.Service;
 import nextapp.echo2.webrender.UserInstance;
 
 /**
@@ -78,11 +80,38 @@ public class ContainerInstance extends UserInstance {
     }
     
     private ApplicationInstance applicationInstance;
-    private Map componentToRenderStateMap = new HashMap();
+    
+    /**
+     * Mapping from <code>Component</code>s to their <code>RenderState</code>s,
+     * in order of last access, such that the least recently used 
+     * <code>DiscardableRenderState</code>s are discarded first.
+     */
+    private Map componentToRenderStateMap = new LinkedHashMap(16, 0.75f, true);
     private transient IdTable idTable;
     private boolean initialized = false;
     private Map initialRequestParameterMap;
+    private long memoryHardLimit = 0;
+    private long memorySoftLimit = 0;
+    private transient SessionMemoryUsage memoryUsage;
+    private boolean renderFingerprintEnabled = false;
+    
+    /**
+     * Mapping from <code>Service</code> ids to tables of component-bound 
+     * service handlers.  Guarded by its own monitor rather than that of this
+     * <code>ContainerInstance</code>, which is held while a synchronization
+     * is processed, such that service requests need not wait for it.
+     */
+    private final Map serviceIdToHandlerTableMap = new HashMap();
+    
+    /**
+     * The <code>SharedStyleTable</code>, retained once created such that
+     * class names generated after style interning is re-enabled do not clash
+     * with rules still present on the client.
+     */
+    private SharedStyleTable sharedStyleTable;
+    private boolean styleInterningEnabled = false;
     private transient Map taskQueueToCallbackIntervalMap;
+    private boolean textDeltaSyncEnabled = false;
     
     /**
      * Creates a new <code>ContainerInstance</code>.
@@ -97,6 +126,26 @@ public class ContainerInstance extends UserInstance {
         initialRequestParameterMap = new HashMap(conn.getRequest().getParameterMap());
     }
     
+    /**
+     * Discards stored <code>DiscardableRenderState</code>s, least recently 
+     * used first, reducing the memory used by the session.  The affected 
+     * components will be fully rendered when next updated.
+     * 
+     * @param maxCount the maximum number of render states to discard
+     * @return the number of discarded render states
+     */
+    public int discardRenderStates(int maxCount) {
+        int count = 0;
+        Iterator it = componentToRenderStateMap.values().iterator();
+        while (count < maxCount && it.hasNext()) {
+            if (it.next() instanceof DiscardableRenderState) {
+                it.remove();
+                ++count;
+            }
+        }
+        return count;
+    }
+    
     /**
      * Returns the corresponding <code>ApplicationInstance</code>
      * for this user instance.
@@ -166,6 +215,41 @@ public class ContainerInstance extends UserInstance {
         return initialRequestParameterMap;
     }
     
+    /**
+     * Returns the estimated session size beyond which the session is 
+     * terminated.
+     * 
+     * @return the hard limit, in bytes, or zero if unlimited
+     * @see #setMemoryHardLimit(long)
+     */
+    public long getMemoryHardLimit() {
+        return memoryHardLimit;
+    }
+    
+    /**
+     * Returns the estimated session size beyond which discardable render 
+     * state is released.
+     * 
+     * @return the soft limit, in bytes, or zero if unlimited
+     * @see #setMemorySoftLimit(long)
+     */
+    public long getMemorySoftLimit() {
+        return memorySoftLimit;
+    }
+    
+    /**
+     * Returns the most recent sample of the memory used by this
+     * <code>ContainerInstance</code> and its <code>ApplicationInstance</code>.
+     * A sample is taken on each synchronization.
+     * 
+     * @return the <code>SessionMemoryUsage</code>, or null if no sample has
+     *         been taken
+     * @see #sampleMemoryUsage()
+     */
+    public SessionMemoryUsage getMemoryUsage() {
+        return memoryUsage;
+    }
+    
     /**
      * Retrieves the <code>RenderState</code> of the specified
      * <code>Component</code>.
@@ -177,6 +261,77 @@ public class ContainerInstance extends UserInstance {
         return (RenderState) componentToRenderStateMap.get(component);
     }
     
+    /**
+     * Returns the number of handlers registered for requests made to 
+     * component-bound <code>Service</code>s.
+     * 
+     * @return the number of registered handlers
+     */
+    private int getServiceHandlerCount() {
+        synchronized (serviceIdToHandlerTableMap) {
+            int count = 0;
+            Iterator it = serviceIdToHandlerTableMap.values().iterator();
+            while (it.hasNext()) {
+                count += ((Map) it.next()).size();
+            }
+            return count;
+        }
+    }
+    
+    /**
+     * Retrieves the handler registered with the specified key for requests
+     * made to a component-bound <code>Service</code>.
+     * 
+     * @param service the <code>Service</code>
+     * @param key the handler key, e.g., the element id of a component
+     * @return the handler, or null if none is registered
+     * @see #registerServiceHandler(Service, String, Object)
+     */
+    public Object getServiceHandler(Service service, String key) {
+        synchronized (serviceIdToHandlerTableMap) {
+            Map handlerTable = (Map) serviceIdToHandlerTableMap.get(service.getId());
+            return handlerTable == null ? null : handlerTable.get(key);
+        }
+    }
+    
+    /**
+     * Returns all handlers registered for requests made to a 
+     * component-bound <code>Service</code>.
+     * 
+     * @param service the <code>Service</code>
+     * @return the handlers (an empty array if none are registered)
+     * @see #registerServiceHandler(Service, String, Object)
+     */
+    public Object[] getServiceHandlers(Service service) {
+        synchronized (serviceIdToHandlerTableMap) {
+            Map handlerTable = (Map) serviceIdToHandlerTableMap.get(service.getId());
+            return handlerTable == null ? new Object[0] : handlerTable.values().toArray();
+        }
+    }
+    
+    /**
+     * Returns the <code>SharedStyleTable</code> used to intern inline styles
+     * as style sheet rules.
+     * 
+     * @return the <code>SharedStyleTable</code>, or null if style interning
+     *         is not enabled
+     * @see #setStyleInterningEnabled(boolean)
+     */
+    public SharedStyleTable getSharedStyleTable() {
+        return styleInterningEnabled ? sharedStyleTable : null;
+    }
+    
+    /**
+     * Discards the rules of the <code>SharedStyleTable</code>, if any, 
+     * regardless of whether style interning is currently enabled.  Invoked 
+     * when the client style sheet has been reinitialized.
+     */
+    void resetSharedStyleTable() {
+        if (sharedStyleTable != null) {
+            sharedStyleTable.reset();
+        }
+    }
+    
     /**
      * Convenience method to retrieve the application's 
      * <code>UpdateManager</code>, which is used to synchronize
@@ -226,6 +381,58 @@ public class ContainerInstance extends UserInstance {
         return initialized;
     }
     
+    /**
+     * Determines whether peers which support it render updates by comparing
+     * <code>RenderFingerprint</code>s of the previous and current HTML.
+     * 
+     * @return true if render fingerprinting is enabled
+     * @see #setRenderFingerprintEnabled(boolean)
+     */
+    public boolean isRenderFingerprintEnabled() {
+        return renderFingerprintEnabled;
+    }
+    
+    /**
+     * Determines whether text components synchronize their text with the
+     * client by exchanging deltas.
+     * 
+     * @return true if text delta synchronization is enabled
+     * @see #setTextDeltaSyncEnabled(boolean)
+     */
+    public boolean isTextDeltaSyncEnabled() {
+        return textDeltaSyncEnabled;
+    }
+    
+    /**
+     * Registers a handler for requests made to a component-bound
+     * <code>Service</code>, i.e., a service which serves requests on behalf
+     * of a specific component or command, identified by a key which is 
+     * typically provided as a request parameter.
+     * <p>
+     * Handler tables are local to this <code>ContainerInstance</code> and are
+     * discarded with it, such that a service resolves handlers only within 
+     * the requesting user's session, synchronizing only on the session's
+     * <code>ContainerInstance</code>.  Components should register handlers
+     * when they are initialized and unregister them, by the same key, when
+     * they are disposed.
+     * Application access to this method should be accessed via the 
+     * <code>ContainerContext</code>.
+     * 
+     * @param service the <code>Service</code>
+     * @param key the handler key, e.g., the element id of a component
+     * @param handler the handler
+     */
+    public void registerServiceHandler(Service service, String key, Object handler) {
+        synchronized (serviceIdToHandlerTableMap) {
+            Map handlerTable = (Map) serviceIdToHandlerTableMap.get(service.getId());
+            if (handlerTable == null) {
+                handlerTable = new HashMap();
+                serviceIdToHandlerTableMap.put(service.getId(), handlerTable);
+            }
+            handlerTable.put(key, handler);
+        }
+    }
+    
     /**
      * Removes the <code>RenderState</code> of the specified
      * <code>Component</code>.
@@ -236,6 +443,72 @@ public class ContainerInstance extends UserInstance {
         componentToRenderStateMap.remove(component);
     }
     
+    /**
+     * Samples the memory used by this <code>ContainerInstance</code> and its
+     * <code>ApplicationInstance</code>.  The sample is retained and may be 
+     * later retrieved with <code>getMemoryUsage()</code>.
+     * 
+     * @return the <code>SessionMemoryUsage</code>
+     */
+    public SessionMemoryUsage sampleMemoryUsage() {
+        memoryUsage = new SessionMemoryUsage(applicationInstance.getComponentCount(), 
+                componentToRenderStateMap.size(),
+                idTable == null ? 0 : idTable.size(),
+                getServiceHandlerCount(),
+                applicationInstance.getQueuedTaskCount(),
+                getUpdateManager().getServerUpdateManager().getComponentUpdateCount());
+        return memoryUsage;
+    }
+    
+    /**
+     * Sets the estimated session size, in bytes, beyond which the session is
+     * terminated at the end of a synchronization.  The client is directed to
+     * reload, starting a new session.  Should exceed the soft limit, such 
+     * that discardable render state is released first.
+     * Application access to this method should be accessed via the 
+     * <code>ContainerContext</code>.
+     * 
+     * @param newValue the new hard limit, in bytes, or zero if unlimited
+     * @see SessionMemoryUsage#getEstimatedSize()
+     */
+    public void setMemoryHardLimit(long newValue) {
+        memoryHardLimit = newValue;
+    }
+    
+    /**
+     * Sets the estimated session size, in bytes, beyond which discardable 
+     * render state (e.g., calculated <code>Grid</code> layouts) is released
+     * at the end of a synchronization.  The least recently used render 
+     * states are released until the estimated size is somewhat below the
+     * limit, such that they are not released again on every subsequent
+     * synchronization.  Affected components are fully rendered when next 
+     * updated.
+     * Application access to this method should be accessed via the 
+     * <code>ContainerContext</code>.
+     * 
+     * @param newValue the new soft limit, in bytes, or zero if unlimited
+     * @see SessionMemoryUsage#getEstimatedSize()
+     */
+    public void setMemorySoftLimit(long newValue) {
+        memorySoftLimit = newValue;
+    }
+    
+    /**
+     * Sets whether peers which support it render updates by comparing 
+     * <code>RenderFingerprint</code>s of the previous and current HTML, 
+     * such that a component whose HTML structure is unchanged is updated 
+     * with attribute, style and text directives rather than being removed
+     * and re-added.  Disabled by default.
+     * Application access to this method should be accessed via the 
+     * <code>ContainerContext</code>.
+     * 
+     * @param newValue true to enable render fingerprinting
+     * @see RenderFingerprint
+     */
+    public void setRenderFingerprintEnabled(boolean newValue) {
+        renderFingerprintEnabled = newValue;
+    }
+    
     /**
      * Sets the <code>RenderState</code> of the specified 
      * <code>Component</code>.
@@ -247,6 +520,38 @@ public class ContainerInstance extends UserInstance {
         componentToRenderStateMap.put(component, renderState);
     }
     
+    /**
+     * Sets whether peers may render repeated inline styles as shared style 
+     * sheet rules.  Disabled by default.
+     * Application access to this method should be accessed via the 
+     * <code>ContainerContext</code>.
+     * 
+     * @param newValue true to enable style interning
+     * @see SharedStyleTable
+     */
+    public void setStyleInterningEnabled(boolean newValue) {
+        if (newValue && sharedStyleTable == null) {
+            sharedStyleTable = new SharedStyleTable();
+        }
+        styleInterningEnabled = newValue;
+    }
+    
+    /**
+     * Sets whether text components synchronize their text with the client
+     * by exchanging deltas (the offset and length of the replaced range, the 
+     * inserted text, and a checksum of the result) rather than complete text.
+     * Disabled by default.  Changes take effect for components as they are
+     * rendered.
+     * Application access to this method should be accessed via the 
+     * <code>ContainerContext</code>.
+     * 
+     * @param newValue true to enable text delta synchronization
+     * @see TextSyncState
+     */
+    public void setTextDeltaSyncEnabled(boolean newValue) {
+        textDeltaSyncEnabled = newValue;
+    }
+    
     /**
      * Sets the interval between asynchronous callbacks from the client to check
      * for queued tasks for a given <code>TaskQueue</code>.  If multiple 
@@ -287,6 +592,29 @@ public class ContainerInstance extends UserInstance {
         super.sessionWillPassivate(e);
     }
 
+    /**
+     * Unregisters a handler for requests made to a component-bound
+     * <code>Service</code>.
+     * Application access to this method should be accessed via the 
+     * <code>ContainerContext</code>.
+     * 
+     * @param service the <code>Service</code>
+     * @param key the key with which the handler was registered
+     * @see #registerServiceHandler(Service, String, Object)
+     */
+    public void unregisterServiceHandler(Service service, String key) {
+        synchronized (serviceIdToHandlerTableMap) {
+            Map handlerTable = (Map) serviceIdToHandlerTableMap.get(service.getId());
+            if (handlerTable == null) {
+                return;
+            }
+            handlerTable.remove(key);
+            if (handlerTable.size() == 0) {
+                serviceIdToHandlerTableMap.remove(service.getId());
+            }
+        }
+    }
+
     /**
      * @see javax.servlet.http.HttpSessionBindingListener#valueUnbound(javax.servlet.http.HttpSessionBindingEvent)
      */
@@ -294,6 +622,9 @@ public class ContainerInstance extends UserInstance {
         if (applicationInstance != null) {
             applicationInstance.dispose();
         }
+        synchronized (serviceIdToHandlerTableMap) {
+            serviceIdToHandlerTableMap.clear();
+        }
         super.valueUnbound(e);
     }
 }
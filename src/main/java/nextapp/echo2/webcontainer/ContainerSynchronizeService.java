@@ -32,6 +32,10 @@ package nextapp.echo2.webcontainer;
 import java.util.HashSet;
 import java.util.Set;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -53,6 +57,7 @@ import nextapp.echo2.webrender.servermessage.WindowUpdate;
 import nextapp.echo2.webrender.service.JavaScriptService;
 import nextapp.echo2.webrender.service.SynchronizeService;
 import nextapp.echo2.webrender.util.DomUtil;
+import nextapp.echo2.webrender.util.XmlStreamUtil;
 
 /**
  * A service which synchronizes the state of the client with that of the
@@ -85,6 +90,12 @@ public class ContainerSynchronizeService extends SynchronizeService {
      */
     public static final ContainerSynchronizeService INSTANCE = new ContainerSynchronizeService();
 
+    /**
+     * Divisor of the soft memory limit determining the margin below it to
+     * which discardable render state is released, i.e., one tenth.
+     */
+    private static final long SOFT_LIMIT_MARGIN_DIVISOR = 10;
+
     /**
      * Determines if any of the <code>Component</code> object in the provided 
      * set of "potential" ancestors is in fact an ancestor of 
@@ -110,7 +121,7 @@ public class ContainerSynchronizeService extends SynchronizeService {
      * <code>ClientMessagePartProcessor</code> to process user-interface 
      * component input message parts.
      */
-    private ClientMessagePartProcessor propertyUpdateProcessor = new ClientMessagePartProcessor() {
+    private ClientMessagePartProcessor propertyUpdateProcessor = new StreamingClientMessagePartProcessor() {
         
         /**
          * @see nextapp.echo2.webrender.service.SynchronizeService.ClientMessagePartProcessor#getName()
@@ -136,20 +147,69 @@ public class ContainerSynchronizeService extends SynchronizeService {
                     // is registered.
                     continue;
                 }
-                ComponentSynchronizePeer syncPeer = SynchronizePeerFactory.getPeerForComponent(component.getClass());
-                if (!(syncPeer instanceof PropertyUpdateProcessor)) {
-                    throw new IllegalStateException("Target peer is not an PropertyUpdateProcessor.");
+                getPropertyUpdateProcessor(component).processPropertyUpdate(ci, component, propertyElements[i]);
+            }
+        }
+
+        /**
+         * @see nextapp.echo2.webrender.service.SynchronizeService.StreamingClientMessagePartProcessor#process(
+         *      nextapp.echo2.webrender.UserInstance, javax.xml.stream.XMLStreamReader)
+         */
+        public void process(UserInstance userInstance, XMLStreamReader reader) 
+        throws XMLStreamException {
+            ContainerInstance ci = (ContainerInstance) userInstance;
+            Document document = null;
+            while (XmlStreamUtil.nextChildElement(reader)) {
+                if (!"property".equals(reader.getLocalName())) {
+                    XmlStreamUtil.skipElement(reader);
+                    continue;
+                }
+                String componentId = XmlStreamUtil.getAttribute(reader, "component-id");
+                Component component = ci.getComponentByElementId(componentId);
+                if (component == null) {
+                    // Component removed, see process(UserInstance, Element).
+                    XmlStreamUtil.skipElement(reader);
+                    continue;
+                }
+                PropertyUpdateProcessor processor = getPropertyUpdateProcessor(component);
+                if (processor instanceof StreamingPropertyUpdateProcessor) {
+                    ((StreamingPropertyUpdateProcessor) processor).processPropertyUpdate(ci, component, reader);
+                    if (reader.getEventType() == XMLStreamConstants.START_ELEMENT) {
+                        XmlStreamUtil.skipElement(reader);
+                    }
+                } else {
+                    if (document == null) {
+                        document = DomUtil.getDocumentBuilder().newDocument();
+                    }
+                    Element propertyElement = XmlStreamUtil.readElement(reader, document);
+                    processor.processPropertyUpdate(ci, component, propertyElement);
                 }
-                ((PropertyUpdateProcessor) syncPeer).processPropertyUpdate(ci, component, propertyElements[i]);
             }
         }
+        
+        /**
+         * Retrieves the <code>PropertyUpdateProcessor</code> peer of a 
+         * <code>Component</code>.
+         * 
+         * @param component the <code>Component</code>
+         * @return the peer
+         * @throws IllegalStateException if the peer is not a 
+         *         <code>PropertyUpdateProcessor</code>
+         */
+        private PropertyUpdateProcessor getPropertyUpdateProcessor(Component component) {
+            ComponentSynchronizePeer syncPeer = SynchronizePeerFactory.getPeerForComponent(component.getClass());
+            if (!(syncPeer instanceof PropertyUpdateProcessor)) {
+                throw new IllegalStateException("Target peer is not an PropertyUpdateProcessor.");
+            }
+            return (PropertyUpdateProcessor) syncPeer;
+        }
     };
 
     /**
      * <code>ClientMessagePartProcessor</code> to process user-interface 
      * component action message parts.
      */
-    private ClientMessagePartProcessor actionProcessor = new ClientMessagePartProcessor() {
+    private ClientMessagePartProcessor actionProcessor = new StreamingClientMessagePartProcessor() {
         
         /**
          * @see nextapp.echo2.webrender.service.SynchronizeService.ClientMessagePartProcessor#getName()
@@ -163,8 +223,37 @@ public class ContainerSynchronizeService extends SynchronizeService {
          *      nextapp.echo2.webrender.UserInstance, org.w3c.dom.Element)
          */
         public void process(UserInstance userInstance, Element messagePartElement) {
-            ContainerInstance ci = (ContainerInstance) userInstance;
             Element actionElement = DomUtil.getChildElementByTagName(messagePartElement, "action");
+            processAction((ContainerInstance) userInstance, actionElement);
+        }
+        
+        /**
+         * @see nextapp.echo2.webrender.service.SynchronizeService.StreamingClientMessagePartProcessor#process(
+         *      nextapp.echo2.webrender.UserInstance, javax.xml.stream.XMLStreamReader)
+         */
+        public void process(UserInstance userInstance, XMLStreamReader reader) 
+        throws XMLStreamException {
+            ContainerInstance ci = (ContainerInstance) userInstance;
+            Element actionElement = null;
+            while (XmlStreamUtil.nextChildElement(reader)) {
+                if (actionElement == null && "action".equals(reader.getLocalName())) {
+                    // Action elements are small, ActionProcessors are handed a DOM representation.
+                    actionElement = XmlStreamUtil.readElement(reader, DomUtil.getDocumentBuilder().newDocument());
+                } else {
+                    XmlStreamUtil.skipElement(reader);
+                }
+            }
+            processAction(ci, actionElement);
+        }
+        
+        /**
+         * Forwards an action to the <code>ActionProcessor</code> peer of the
+         * target component.
+         * 
+         * @param ci the relevant <code>ContainerInstance</code>
+         * @param actionElement the 'action' element
+         */
+        private void processAction(ContainerInstance ci, Element actionElement) {
             String componentId = actionElement.getAttribute("component-id");
             Component component = ci.getComponentByElementId(componentId);
             if (component == null) {
@@ -192,6 +281,44 @@ public class ContainerSynchronizeService extends SynchronizeService {
         registerClientMessagePartProcessor(actionProcessor);
     }
     
+    /**
+     * Enforces the memory limits of the session, based on a sample taken at 
+     * the end of a synchronization.  When the soft limit is exceeded, the 
+     * least recently used discardable render state is released.  When the 
+     * hard limit is exceeded, the session is invalidated and the client is
+     * directed to reload, starting a new session.
+     * 
+     * @param rc the relevant <code>RenderContext</code>
+     * @param memoryUsage the memory usage sample
+     * @return a replacement <code>ServerMessage</code> if the session was
+     *         terminated, or null otherwise
+     */
+    private ServerMessage enforceMemoryLimits(RenderContext rc, SessionMemoryUsage memoryUsage) {
+        ContainerInstance ci = rc.getContainerInstance();
+        long memoryHardLimit = ci.getMemoryHardLimit();
+        long memorySoftLimit = ci.getMemorySoftLimit();
+        if (memoryHardLimit > 0 && memoryUsage.getEstimatedSize() > memoryHardLimit) {
+            ServerMessage serverMessage = new ServerMessage();
+            WindowUpdate.renderReload(serverMessage);
+            try {
+                ci.getSession().invalidate();
+            } catch (IllegalStateException ex) {
+                // Session has already been invalidated.
+            }
+            return serverMessage;
+        }
+        if (memorySoftLimit > 0 && memoryUsage.getEstimatedSize() > memorySoftLimit) {
+            // Release enough render states to fall below the soft limit by a
+            // margin, such that they are not released on every synchronization.
+            long excess = memoryUsage.getEstimatedSize() - (memorySoftLimit - memorySoftLimit / SOFT_LIMIT_MARGIN_DIVISOR);
+            long count = (excess + SessionMemoryUsage.RENDER_STATE_SIZE - 1) / SessionMemoryUsage.RENDER_STATE_SIZE;
+            if (ci.discardRenderStates((int) Math.min(count, Integer.MAX_VALUE)) > 0) {
+                ci.sampleMemoryUsage();
+            }
+        }
+        return null;
+    }
+    
     /**
      * Performs disposal operations on components which have been removed from
      * the hierarchy. Removes any <code>RenderState</code> objects being
@@ -208,11 +335,15 @@ public class ContainerSynchronizeService extends SynchronizeService {
     private void disposeComponents(RenderContext rc, ServerComponentUpdate componentUpdate, 
             Component[] disposedComponents) {
         ContainerInstance ci = rc.getContainerInstance();
+        SharedStyleTable sharedStyleTable = ci.getSharedStyleTable();
         for (int i = 0; i < disposedComponents.length; ++i) {
             ComponentSynchronizePeer disposedSyncPeer = SynchronizePeerFactory.getPeerForComponent(
                     disposedComponents[i].getClass());
             disposedSyncPeer.renderDispose(rc, componentUpdate, disposedComponents[i]);
             ci.removeRenderState(disposedComponents[i]);
+            if (sharedStyleTable != null) {
+                sharedStyleTable.release(rc.getServerMessage(), disposedComponents[i]);
+            }
         }
     }
     
@@ -229,22 +360,23 @@ public class ContainerSynchronizeService extends SynchronizeService {
      * @param parent the <code>Component</code> whose descendants should be disposed
      */
     private void disposeReplacedDescendants(RenderContext rc, ServerComponentUpdate update, Component parent) {
-        Component[] replacedComponents = parent.getVisibleComponents();
+        int replacedCount = parent.getVisibleComponentCount();
         boolean isRoot = parent == update.getParent();
-        for (int i = 0; i < replacedComponents.length; ++i) {
+        for (int i = 0; i < replacedCount; ++i) {
+            Component replacedComponent = parent.getVisibleComponent(i);
             // Verify that component was not added on this synchronization.
-            if (isRoot && update.hasAddedChild(replacedComponents[i])) {
+            if (isRoot && update.hasAddedChild(replacedComponent)) {
                 // Component was added as a child on this synchronization:
                 // There is no reason to dispose of it as it does not yet exist on the client.
                 continue;
             }
             
             // Recursively dispose child components.
-            disposeReplacedDescendants(rc, update, replacedComponents[i]);
+            disposeReplacedDescendants(rc, update, replacedComponent);
             
             // Dispose component.
-            ComponentSynchronizePeer syncPeer = SynchronizePeerFactory.getPeerForComponent(replacedComponents[i].getClass());
-            syncPeer.renderDispose(rc, update, replacedComponents[i]);
+            ComponentSynchronizePeer syncPeer = SynchronizePeerFactory.getPeerForComponent(replacedComponent.getClass());
+            syncPeer.renderDispose(rc, update, replacedComponent);
         }
     }
     
@@ -417,6 +549,9 @@ public class ContainerSynchronizeService extends SynchronizeService {
                 containerInstance.init(conn);
             }
             
+            // The client style sheet is new, discard rules of any previous rendering.
+            containerInstance.resetSharedStyleTable();
+            
             ApplicationInstance applicationInstance = rc.getContainerInstance().getApplicationInstance();
             ApplicationInstance.setActive(applicationInstance);
 
@@ -433,6 +568,7 @@ public class ContainerSynchronizeService extends SynchronizeService {
 
             processQueuedCommands(rc);
             
+            containerInstance.sampleMemoryUsage();
             applicationInstance.getUpdateManager().purge();
             
             return serverMessage;
@@ -479,8 +615,14 @@ public class ContainerSynchronizeService extends SynchronizeService {
             
             processQueuedCommands(rc);
 
+            SessionMemoryUsage memoryUsage = ci.sampleMemoryUsage();
             updateManager.purge();
             
+            ServerMessage terminationMessage = enforceMemoryLimits(rc, memoryUsage);
+            if (terminationMessage != null) {
+                return terminationMessage;
+            }
+            
             return serverMessage;
         } finally {
             // Mark instance as inactive.
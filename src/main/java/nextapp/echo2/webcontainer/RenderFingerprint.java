@@ -0,0 +1,521 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.webcontainer;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import nextapp.echo2.app.Component;
+import nextapp.echo2.webrender.ServerMessage;
+import nextapp.echo2.webrender.servermessage.DomUpdate;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * A compact description of the HTML last rendered for a component, used to
+ * turn a full DOM replacement into a set of attribute, style and text
+ * updates when the structure of the rendered HTML has not changed.
+ * <p>
+ * A fingerprint records the element/text structure of a rendered fragment 
+ * along with the attributes, inline styles and text of each element.  
+ * Comparing the fingerprint of a freshly rendered fragment with the 
+ * fingerprint of the previous rendering yields either a (possibly empty) 
+ * list of <code>DomUpdate</code> directives or the determination that a
+ * full replacement is required.  Only elements having an <code>id</code> 
+ * attribute may be updated in place; any change to an element without an 
+ * id, to the element structure, or to an attribute which cannot be updated 
+ * through the client's DOM update directives requires a full replacement.
+ * <p>
+ * Fingerprinting is opt-in, and should only be used by peers whose 
+ * <code>renderHtml()</code> implementation renders nothing but HTML, i.e.,
+ * does not add script or initialization directives to the 
+ * <code>ServerMessage</code>, as those directives will be rendered even when
+ * the DOM is not replaced.
+ */
+public class RenderFingerprint 
+implements Serializable {
+    
+    /**
+     * Mapping between HTML attribute names which may be updated in place
+     * and the names of the DOM properties used to update them.
+     */
+    private static final Map UPDATABLE_ATTRIBUTES = new HashMap();
+    static {
+        UPDATABLE_ATTRIBUTES.put("alt", "alt");
+        UPDATABLE_ATTRIBUTES.put("class", "className");
+        UPDATABLE_ATTRIBUTES.put("href", "href");
+        UPDATABLE_ATTRIBUTES.put("src", "src");
+        UPDATABLE_ATTRIBUTES.put("title", "title");
+        UPDATABLE_ATTRIBUTES.put("value", "value");
+    }
+    
+    /**
+     * Creates a <code>RenderFingerprint</code> of the child nodes of the 
+     * specified node, typically a <code>DocumentFragment</code> into which
+     * a component has been rendered.
+     * 
+     * @param parentNode the node whose children should be fingerprinted
+     * @return the created fingerprint
+     */
+    public static RenderFingerprint create(Node parentNode) {
+        RenderFingerprint fingerprint = new RenderFingerprint();
+        StringBuffer structure = new StringBuffer();
+        List elementPrints = new ArrayList();
+        capture(parentNode, structure, elementPrints);
+        fingerprint.structure = structure.toString();
+        fingerprint.rootText = captureText(parentNode);
+        fingerprint.elementPrints = (ElementPrint[]) elementPrints.toArray(new ElementPrint[elementPrints.size()]);
+        return fingerprint;
+    }
+    
+    /**
+     * Retrieves the fingerprint stored in a component's 
+     * <code>RenderState</code>.
+     * 
+     * @param ci the relevant <code>ContainerInstance</code>
+     * @param component the component
+     * @return the stored fingerprint, or null if none is available
+     */
+    public static RenderFingerprint getFingerprint(ContainerInstance ci, Component component) {
+        RenderState renderState = ci.getRenderState(component);
+        if (renderState instanceof FingerprintRenderState) {
+            return ((FingerprintRenderState) renderState).getRenderFingerprint();
+        }
+        return null;
+    }
+    
+    /**
+     * Stores a fingerprint in a component's <code>RenderState</code>.
+     * If the component has no <code>RenderState</code>, a new 
+     * <code>FingerprintRenderState</code> is created.  If the component has
+     * a <code>RenderState</code> which is not a 
+     * <code>FingerprintRenderState</code>, the fingerprint is not stored.
+     * 
+     * @param ci the relevant <code>ContainerInstance</code>
+     * @param component the component
+     * @param fingerprint the fingerprint to store
+     */
+    public static void storeFingerprint(ContainerInstance ci, Component component, RenderFingerprint fingerprint) {
+        RenderState renderState = ci.getRenderState(component);
+        if (renderState == null) {
+            renderState = new FingerprintRenderState();
+            ci.setRenderState(component, renderState);
+        }
+        if (renderState instanceof FingerprintRenderState) {
+            ((FingerprintRenderState) renderState).setRenderFingerprint(fingerprint);
+        }
+    }
+    
+    /**
+     * Recursively records the structure and element content of the children
+     * of <code>node</code>.
+     */
+    private static void capture(Node node, StringBuffer structure, List elementPrints) {
+        Node child = node.getFirstChild();
+        while (child != null) {
+            switch (child.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                Element element = (Element) child;
+                ElementPrint elementPrint = new ElementPrint(element);
+                elementPrints.add(elementPrint);
+                structure.append('<');
+                structure.append(element.getTagName());
+                if (elementPrint.id != null) {
+                    structure.append('#');
+                    structure.append(elementPrint.id);
+                }
+                structure.append('>');
+                capture(element, structure, elementPrints);
+                structure.append("</>");
+                break;
+            case Node.TEXT_NODE:
+            case Node.CDATA_SECTION_NODE:
+                structure.append('~');
+                break;
+            }
+            child = child.getNextSibling();
+        }
+    }
+    
+    /**
+     * Returns the content of each of the text nodes directly contained in
+     * <code>node</code>, in document order.
+     * 
+     * @param node the node
+     * @return the text content, or null if the node contains no text nodes
+     */
+    private static String[] captureText(Node node) {
+        List text = null;
+        Node child = node.getFirstChild();
+        while (child != null) {
+            short nodeType = child.getNodeType();
+            if (nodeType == Node.TEXT_NODE || nodeType == Node.CDATA_SECTION_NODE) {
+                if (text == null) {
+                    text = new ArrayList();
+                }
+                text.add(child.getNodeValue());
+            }
+            child = child.getNextSibling();
+        }
+        return text == null ? null : (String[]) text.toArray(new String[text.size()]);
+    }
+    
+    /**
+     * Converts a hyphenated CSS property name to the name of the 
+     * corresponding DOM style property, e.g., "background-color" to 
+     * "backgroundColor".
+     * 
+     * @param cssName the CSS property name
+     * @return the DOM style property name, or null if the property cannot
+     *         be updated in place
+     */
+    private static String toStyleProperty(String cssName) {
+        if ("float".equals(cssName)) {
+            return null;
+        }
+        StringBuffer out = new StringBuffer(cssName.length());
+        boolean upper = false;
+        for (int i = 0; i < cssName.length(); ++i) {
+            char ch = cssName.charAt(i);
+            if (ch == '-') {
+                upper = out.length() > 0;
+            } else if (upper) {
+                out.append(Character.toUpperCase(ch));
+                upper = false;
+            } else {
+                out.append(ch);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Element/text structure of the fingerprinted fragment.
+     */
+    private String structure;
+    
+    /**
+     * Content of the text nodes directly contained in the fingerprinted 
+     * fragment, or null.
+     */
+    private String[] rootText;
+    
+    /**
+     * Per-element content, in document order.
+     */
+    private ElementPrint[] elementPrints;
+    
+    /**
+     * Creates a new <code>RenderFingerprint</code>.
+     * Use <code>create()</code> to obtain instances.
+     */
+    private RenderFingerprint() {
+        super();
+    }
+    
+    /**
+     * Renders the <code>DomUpdate</code> directives necessary to transform
+     * the HTML described by a previous fingerprint into the HTML described
+     * by this fingerprint.  Nothing is rendered if the HTML is identical.
+     * If the HTML cannot be updated in place, no directives are rendered and
+     * false is returned, in which case the caller must perform a full
+     * replacement.
+     * 
+     * @param serverMessage the outgoing <code>ServerMessage</code>
+     * @param previous the fingerprint of the HTML currently present on the
+     *        client (may be null)
+     * @return true if the client DOM was (or need not be) updated in place,
+     *         false if a full replacement is required
+     */
+    public boolean renderDelta(ServerMessage serverMessage, RenderFingerprint previous) {
+        if (previous == null || !structure.equals(previous.structure)) {
+            return false;
+        }
+        if (!Arrays.equals(rootText, previous.rootText)) {
+            // Text outside of any element cannot be updated in place.
+            return false;
+        }
+        
+        // Directives are collected first such that nothing is rendered if
+        // a full replacement turns out to be required.
+        List directives = new ArrayList();
+        for (int i = 0; i < elementPrints.length; ++i) {
+            if (!elementPrints[i].diff(previous.elementPrints[i], directives)) {
+                return false;
+            }
+        }
+        
+        for (int i = 0; i < directives.size(); ++i) {
+            String[] directive = (String[]) directives.get(i);
+            if (directive[0] == ElementPrint.TEXT) {
+                DomUpdate.renderTextUpdate(serverMessage, directive[1], directive[3]);
+            } else if (directive[0] == ElementPrint.STYLE) {
+                DomUpdate.renderStyleUpdate(serverMessage, directive[1], directive[2], directive[3]);
+            } else {
+                DomUpdate.renderAttributeUpdate(serverMessage, directive[1], directive[2], directive[3]);
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Rendered content of a single element, excluding its child elements.
+     */
+    private static class ElementPrint
+    implements Serializable {
+        
+        private static final String ATTRIBUTE = "attribute";
+        private static final String STYLE = "style";
+        private static final String TEXT = "text";
+        
+        /** The element id, or null. */
+        private String id;
+        
+        /** Alternating attribute names and values, sorted by name, excluding id and style. */
+        private String[] attributes;
+        
+        /** The inline style, or null. */
+        private String style;
+        
+        /** The content of each of the element's text nodes, or null. */
+        private String[] text;
+        
+        /** Flag indicating whether the element has child elements. */
+        private boolean hasChildElements;
+        
+        /**
+         * Creates a new <code>ElementPrint</code>.
+         * 
+         * @param element the element to describe
+         */
+        private ElementPrint(Element element) {
+            if (element.hasAttribute("id")) {
+                id = element.getAttribute("id");
+            }
+            if (element.hasAttribute("style")) {
+                style = element.getAttribute("style");
+            }
+            
+            NamedNodeMap attributeMap = element.getAttributes();
+            TreeMap sortedAttributes = new TreeMap();
+            for (int i = 0; i < attributeMap.getLength(); ++i) {
+                Node attribute = attributeMap.item(i);
+                String name = attribute.getNodeName();
+                if (!"id".equals(name) && !"style".equals(name)) {
+                    sortedAttributes.put(name, attribute.getNodeValue());
+                }
+            }
+            attributes = new String[sortedAttributes.size() * 2];
+            Iterator it = sortedAttributes.entrySet().iterator();
+            int index = 0;
+            while (it.hasNext()) {
+                Map.Entry entry = (Map.Entry) it.next();
+                attributes[index++] = (String) entry.getKey();
+                attributes[index++] = (String) entry.getValue();
+            }
+            
+            Node child = element.getFirstChild();
+            while (child != null && !hasChildElements) {
+                hasChildElements = child.getNodeType() == Node.ELEMENT_NODE;
+                child = child.getNextSibling();
+            }
+            text = captureText(element);
+        }
+        
+        /**
+         * Computes the directives required to update the previously 
+         * rendered element to this state.  The structure of both 
+         * elements is known to be identical.
+         * 
+         * @param previous the previously rendered element
+         * @param directives a list to which directives are appended, in 
+         *        the form { type, targetId, name, value }
+         * @return true if the element can be updated in place
+         */
+        private boolean diff(ElementPrint previous, List directives) {
+            if (equals(previous)) {
+                return true;
+            }
+            if (id == null) {
+                return false;
+            }
+            
+            if (!Arrays.equals(text, previous.text)) {
+                if (hasChildElements) {
+                    // Text is interleaved with child elements.
+                    return false;
+                }
+                StringBuffer textBuffer = new StringBuffer();
+                for (int i = 0; text != null && i < text.length; ++i) {
+                    textBuffer.append(text[i]);
+                }
+                directives.add(new String[] { TEXT, id, null, textBuffer.toString() });
+            }
+            
+            Map newAttributes = toMap(attributes);
+            Map oldAttributes = toMap(previous.attributes);
+            if (!newAttributes.equals(oldAttributes)) {
+                if (!diffMaps(oldAttributes, newAttributes, ATTRIBUTE, directives)) {
+                    return false;
+                }
+            }
+            
+            if (!equal(style, previous.style)) {
+                if (!diffMaps(parseStyle(previous.style), parseStyle(style), STYLE, directives)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * Appends directives for each entry that differs between two maps.
+         * 
+         * @return false if an entry cannot be updated in place
+         */
+        private boolean diffMaps(Map oldMap, Map newMap, String type, List directives) {
+            Iterator it = newMap.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry entry = (Map.Entry) it.next();
+                if (!entry.getValue().equals(oldMap.get(entry.getKey()))) {
+                    String property = toProperty((String) entry.getKey(), type);
+                    if (property == null) {
+                        return false;
+                    }
+                    directives.add(new String[] { type, id, property, (String) entry.getValue() });
+                }
+            }
+            it = oldMap.keySet().iterator();
+            while (it.hasNext()) {
+                String name = (String) it.next();
+                if (!newMap.containsKey(name)) {
+                    String property = toProperty(name, type);
+                    if (property == null) {
+                        return false;
+                    }
+                    directives.add(new String[] { type, id, property, "" });
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * Returns the DOM property name used to update an attribute or 
+         * style property, or null if it cannot be updated in place.
+         */
+        private String toProperty(String name, String type) {
+            if (type == STYLE) {
+                return toStyleProperty(name);
+            } else {
+                return (String) UPDATABLE_ATTRIBUTES.get(name);
+            }
+        }
+        
+        /**
+         * Parses an inline style into a map of CSS property names to values.
+         */
+        private Map parseStyle(String style) {
+            Map styleMap = new LinkedHashMap();
+            if (style == null) {
+                return styleMap;
+            }
+            int start = 0;
+            while (start < style.length()) {
+                int end = style.indexOf(';', start);
+                if (end == -1) {
+                    end = style.length();
+                }
+                int colon = style.indexOf(':', start);
+                if (colon != -1 && colon < end) {
+                    String name = style.substring(start, colon).trim().toLowerCase();
+                    if (name.length() > 0) {
+                        styleMap.put(name, style.substring(colon + 1, end).trim());
+                    }
+                }
+                start = end + 1;
+            }
+            return styleMap;
+        }
+        
+        /**
+         * Converts an alternating name/value array to a map.
+         */
+        private Map toMap(String[] pairs) {
+            Map map = new HashMap();
+            for (int i = 0; i < pairs.length; i += 2) {
+                map.put(pairs[i], pairs[i + 1]);
+            }
+            return map;
+        }
+        
+        /**
+         * Null-safe string equality test.
+         */
+        private boolean equal(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+        
+        /**
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        public boolean equals(Object o) {
+            if (!(o instanceof ElementPrint)) {
+                return false;
+            }
+            ElementPrint that = (ElementPrint) o;
+            if (hasChildElements != that.hasChildElements || !equal(id, that.id) || !equal(style, that.style)
+                    || !Arrays.equals(text, that.text) || attributes.length != that.attributes.length) {
+                return false;
+            }
+            for (int i = 0; i < attributes.length; ++i) {
+                if (!attributes[i].equals(that.attributes[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * @see java.lang.Object#hashCode()
+         */
+        public int hashCode() {
+            return id == null ? 0 : id.hashCode();
+        }
+    }
+}
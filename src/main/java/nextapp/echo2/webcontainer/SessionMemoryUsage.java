@@ -0,0 +1,193 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.webcontainer;
+
+import java.io.Serializable;
+
+/**
+ * A sample of the memory used by a <code>ContainerInstance</code> and its
+ * <code>ApplicationInstance</code>.
+ * <p>
+ * The sample consists of counts of the objects retained by the session,
+ * which are cheaply determined.  The estimated retained size is derived 
+ * from these counts using rough per-object estimates: it is intended to 
+ * compare sessions with one another and against configured limits, and 
+ * does not measure the actual heap usage of the session.
+ * 
+ * @see ContainerInstance#getMemoryUsage()
+ */
+public class SessionMemoryUsage 
+implements Serializable {
+    
+    /** Estimated fixed size of a session, in bytes. */
+    private static final long SESSION_SIZE = 8192;
+    
+    /** Estimated size of a registered component, in bytes. */
+    private static final long COMPONENT_SIZE = 768;
+    
+    /** Estimated size of a stored <code>RenderState</code>, in bytes. */
+    static final long RENDER_STATE_SIZE = 256;
+    
+    /** Estimated size of an <code>IdTable</code> entry, in bytes. */
+    private static final long REGISTERED_OBJECT_SIZE = 96;
+    
+    /** Estimated size of a registered service handler, in bytes. */
+    private static final long SERVICE_HANDLER_SIZE = 256;
+    
+    /** Estimated size of a queued task, in bytes. */
+    private static final long QUEUED_TASK_SIZE = 128;
+    
+    /** Estimated size of a pending component update, in bytes. */
+    private static final long PENDING_UPDATE_SIZE = 512;
+    
+    private int componentCount;
+    private int renderStateCount;
+    private int registeredObjectCount;
+    private int serviceHandlerCount;
+    private int queuedTaskCount;
+    private int pendingUpdateCount;
+    private long sampleTime;
+    
+    /**
+     * Creates a new <code>SessionMemoryUsage</code>.
+     * 
+     * @param componentCount the number of registered components
+     * @param renderStateCount the number of stored render states
+     * @param registeredObjectCount the number of <code>IdTable</code> entries
+     * @param serviceHandlerCount the number of registered service handlers
+     * @param queuedTaskCount the number of queued tasks
+     * @param pendingUpdateCount the number of pending component updates
+     */
+    SessionMemoryUsage(int componentCount, int renderStateCount, int registeredObjectCount, 
+            int serviceHandlerCount, int queuedTaskCount, int pendingUpdateCount) {
+        super();
+        this.componentCount = componentCount;
+        this.renderStateCount = renderStateCount;
+        this.registeredObjectCount = registeredObjectCount;
+        this.serviceHandlerCount = serviceHandlerCount;
+        this.queuedTaskCount = queuedTaskCount;
+        this.pendingUpdateCount = pendingUpdateCount;
+        sampleTime = System.currentTimeMillis();
+    }
+    
+    /**
+     * Returns the number of components registered with the 
+     * <code>ApplicationInstance</code>.
+     * 
+     * @return the component count
+     */
+    public int getComponentCount() {
+        return componentCount;
+    }
+    
+    /**
+     * Returns the estimated size retained by the session, in bytes.
+     * 
+     * @return the estimated size
+     */
+    public long getEstimatedSize() {
+        return SESSION_SIZE 
+                + componentCount * COMPONENT_SIZE
+                + renderStateCount * RENDER_STATE_SIZE
+                + registeredObjectCount * REGISTERED_OBJECT_SIZE
+                + serviceHandlerCount * SERVICE_HANDLER_SIZE
+                + queuedTaskCount * QUEUED_TASK_SIZE
+                + pendingUpdateCount * PENDING_UPDATE_SIZE;
+    }
+    
+    /**
+     * Returns the number of component updates pending rendering at the 
+     * time of the sample.
+     * 
+     * @return the pending update count
+     */
+    public int getPendingUpdateCount() {
+        return pendingUpdateCount;
+    }
+    
+    /**
+     * Returns the number of queued tasks, including incomplete background 
+     * work.
+     * 
+     * @return the queued task count
+     */
+    public int getQueuedTaskCount() {
+        return queuedTaskCount;
+    }
+    
+    /**
+     * Returns the number of objects registered with the 
+     * <code>IdTable</code> of the <code>ContainerInstance</code>, e.g., 
+     * upload components serving file transfers.
+     * 
+     * @return the registered object count
+     */
+    public int getRegisteredObjectCount() {
+        return registeredObjectCount;
+    }
+    
+    /**
+     * Returns the number of stored <code>RenderState</code>s.
+     * 
+     * @return the render state count
+     */
+    public int getRenderStateCount() {
+        return renderStateCount;
+    }
+    
+    /**
+     * Returns the time at which the sample was taken.
+     * 
+     * @return the sample time, in milliseconds since the epoch
+     */
+    public long getSampleTime() {
+        return sampleTime;
+    }
+    
+    /**
+     * Returns the number of handlers registered for component-bound
+     * services, e.g., images and downloads.
+     * 
+     * @return the service handler count
+     */
+    public int getServiceHandlerCount() {
+        return serviceHandlerCount;
+    }
+    
+    /**
+     * @see java.lang.Object#toString()
+     */
+    public String toString() {
+        return getClass().getName() + " [estimatedSize=" + getEstimatedSize() + ",components=" + componentCount 
+                + ",renderStates=" + renderStateCount + ",registeredObjects=" + registeredObjectCount 
+                + ",serviceHandlers=" + serviceHandlerCount + ",queuedTasks=" + queuedTaskCount 
+                + ",pendingUpdates=" + pendingUpdateCount + "]";
+    }
+}
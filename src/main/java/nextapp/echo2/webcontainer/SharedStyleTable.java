@@ -0,0 +1,261 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.webcontainer;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import nextapp.echo2.app.Component;
+import nextapp.echo2.webrender.ServerMessage;
+import nextapp.echo2.webrender.servermessage.DomUpdate;
+
+import org.w3c.dom.Element;
+
+/**
+ * Maps identical inline CSS style strings to generated CSS class names,
+ * such that a style repeated on many elements is sent to the client once
+ * as a style sheet rule rather than once per element.
+ * <p>
+ * A table exists for each <code>ContainerInstance</code> which has style
+ * interning enabled, and mirrors the rules present in the client's style
+ * sheet.  Rules are reference counted by the components whose rendered 
+ * HTML uses them, and are removed from the client when the last such 
+ * component is disposed or fully re-rendered without them.
+ * <p>
+ * Note that a style applied through a class has a lower precedence than an
+ * inline style, thus peers should only intern styles which are not 
+ * expected to be overridden by other style sheet rules.
+ */
+public class SharedStyleTable 
+implements Serializable {
+    
+    /**
+     * Prefix of generated CSS class names.
+     */
+    private static final String CLASS_NAME_PREFIX = "e2s";
+    
+    /**
+     * Inline styles shorter than this length are not worth interning, as
+     * the class attribute would be of similar size.
+     */
+    private static final int MINIMUM_STYLE_LENGTH = 20;
+    
+    /**
+     * Renders a CSS style to an element using the <code>SharedStyleTable</code>
+     * of the <code>ContainerInstance</code> if style interning is enabled, or
+     * as an inline <code>style</code> attribute if it is not.
+     * 
+     * @param rc the relevant <code>RenderContext</code>
+     * @param component the component being rendered
+     * @param element the element to which the style should be applied
+     * @param cssText the CSS text of the style
+     */
+    public static void renderStyle(RenderContext rc, Component component, Element element, String cssText) {
+        SharedStyleTable sharedStyleTable = rc.getContainerInstance().getSharedStyleTable();
+        if (sharedStyleTable == null || cssText.length() < MINIMUM_STYLE_LENGTH) {
+            element.setAttribute("style", cssText);
+            return;
+        }
+        String className = sharedStyleTable.intern(rc.getServerMessage(), component, cssText);
+        String existingClassName = element.getAttribute("class");
+        if (existingClassName.length() == 0) {
+            element.setAttribute("class", className);
+        } else {
+            element.setAttribute("class", existingClassName + " " + className);
+        }
+    }
+    
+    /**
+     * Reference counted information about a single style.
+     */
+    private static class Rule 
+    implements Serializable {
+        
+        private String className;
+        private int referenceCount;
+        
+        private Rule(String className) {
+            super();
+            this.className = className;
+        }
+    }
+    
+    /**
+     * Mapping from CSS text to <code>Rule</code>s.
+     */
+    private Map styleToRuleMap = new HashMap();
+    
+    /**
+     * Mapping from <code>Component</code>s to <code>Set</code>s of the CSS 
+     * text of the styles they reference.
+     */
+    private Map componentToStylesMap = new HashMap();
+    
+    /**
+     * Mapping from <code>Component</code>s being fully re-rendered to 
+     * <code>Set</code>s of the CSS text of the styles referenced by their
+     * previous rendering.
+     */
+    private Map componentToPreviousStylesMap = new HashMap();
+    
+    /**
+     * Counter used to generate unique class names.
+     */
+    private int nextClassId = 0;
+    
+    /**
+     * Creates a new <code>SharedStyleTable</code>.
+     */
+    public SharedStyleTable() {
+        super();
+    }
+    
+    /**
+     * Returns the number of style sheet rules currently present on the 
+     * client.
+     * 
+     * @return the number of rules
+     */
+    public int getRuleCount() {
+        return styleToRuleMap.size();
+    }
+    
+    /**
+     * Returns the generated CSS class name for the specified style, 
+     * rendering a <code>stylesheet-add-rule</code> directive if the style
+     * is not yet present on the client.  The style is referenced by the 
+     * specified component until it is released.
+     * 
+     * @param serverMessage the outgoing <code>ServerMessage</code>
+     * @param component the component whose HTML will use the style
+     * @param cssText the CSS text of the style
+     * @return the CSS class name
+     */
+    public String intern(ServerMessage serverMessage, Component component, String cssText) {
+        Rule rule = (Rule) styleToRuleMap.get(cssText);
+        if (rule == null) {
+            rule = new Rule(CLASS_NAME_PREFIX + Integer.toString(nextClassId++, Character.MAX_RADIX));
+            styleToRuleMap.put(cssText, rule);
+            DomUpdate.renderStyleSheetAddRule(serverMessage, "." + rule.className, cssText);
+        }
+        Set styles = (Set) componentToStylesMap.get(component);
+        if (styles == null) {
+            styles = new HashSet();
+            componentToStylesMap.put(component, styles);
+        }
+        if (styles.add(cssText)) {
+            ++rule.referenceCount;
+        }
+        return rule.className;
+    }
+    
+    /**
+     * Releases all styles referenced by a disposed component, rendering
+     * <code>stylesheet-remove-rule</code> directives for styles no longer
+     * referenced by any component.
+     * 
+     * @param serverMessage the outgoing <code>ServerMessage</code>
+     * @param component the disposed component
+     */
+    public void release(ServerMessage serverMessage, Component component) {
+        releaseStyles(serverMessage, (Set) componentToPreviousStylesMap.remove(component));
+        releaseStyles(serverMessage, (Set) componentToStylesMap.remove(component));
+    }
+    
+    /**
+     * Releases one reference to each of a set of styles, rendering
+     * <code>stylesheet-remove-rule</code> directives for styles no longer
+     * referenced by any component.
+     * 
+     * @param serverMessage the outgoing <code>ServerMessage</code>
+     * @param styles the CSS text of the styles, may be null
+     */
+    private void releaseStyles(ServerMessage serverMessage, Set styles) {
+        if (styles == null) {
+            return;
+        }
+        Iterator it = styles.iterator();
+        while (it.hasNext()) {
+            String cssText = (String) it.next();
+            Rule rule = (Rule) styleToRuleMap.get(cssText);
+            if (rule != null && --rule.referenceCount <= 0) {
+                styleToRuleMap.remove(cssText);
+                DomUpdate.renderStyleSheetRemoveRule(serverMessage, "." + rule.className);
+            }
+        }
+    }
+    
+    /**
+     * Notifies the table that a full rendering of a component has been 
+     * completed.  The styles referenced by the component's previous 
+     * rendering, but not interned by the completed rendering, are released.
+     * 
+     * @param serverMessage the outgoing <code>ServerMessage</code>
+     * @param component the rendered component
+     * @see #renderStarted(ServerMessage, Component)
+     */
+    public void renderCompleted(ServerMessage serverMessage, Component component) {
+        releaseStyles(serverMessage, (Set) componentToPreviousStylesMap.remove(component));
+    }
+    
+    /**
+     * Notifies the table that a full rendering of a component, replacing 
+     * all HTML previously rendered for it, is starting.  The styles 
+     * referenced by the previous rendering remain interned until 
+     * <code>renderCompleted()</code> is invoked, such that styles used by
+     * both renderings are not removed from the client.
+     * 
+     * @param serverMessage the outgoing <code>ServerMessage</code>
+     * @param component the component being rendered
+     */
+    public void renderStarted(ServerMessage serverMessage, Component component) {
+        Set styles = (Set) componentToStylesMap.remove(component);
+        if (componentToPreviousStylesMap.containsKey(component)) {
+            // Rendered again before the previous rendering was completed.
+            releaseStyles(serverMessage, styles);
+        } else if (styles != null) {
+            componentToPreviousStylesMap.put(component, styles);
+        }
+    }
+    
+    /**
+     * Discards all rules, used when the client's style sheet has been
+     * reinitialized.
+     */
+    public void reset() {
+        styleToRuleMap.clear();
+        componentToStylesMap.clear();
+        componentToPreviousStylesMap.clear();
+    }
+}
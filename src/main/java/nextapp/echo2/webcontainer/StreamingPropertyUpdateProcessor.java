@@ -0,0 +1,67 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.webcontainer;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import nextapp.echo2.app.Component;
+
+/**
+ * An optional extension of <code>PropertyUpdateProcessor</code> for 
+ * <code>ComponentSynchronizePeer</code>s which can process property updates
+ * directly from a streamed ClientMessage, without the 'property' element 
+ * being materialized as a DOM.  Peers which only implement 
+ * <code>PropertyUpdateProcessor</code> continue to receive a DOM 
+ * <code>Element</code>.
+ * 
+ * @see nextapp.echo2.webrender.service.SynchronizeService.StreamingClientMessagePartProcessor
+ */
+public interface StreamingPropertyUpdateProcessor 
+extends PropertyUpdateProcessor {
+    
+    /**
+     * Notifies the <code>ComponentSynchronizePeer</code> that a client property 
+     * update has occurred.
+     * 
+     * @param ci the relevant <code>ContainerInstance</code>
+     * @param component the target <code>Component</code>
+     * @param reader the <code>XMLStreamReader</code>, positioned at the 
+     *        <code>START_ELEMENT</code> of the XML element describing the 
+     *        property update (the name and value of the changed property may 
+     *        be obtained by querying the <code>PROPERTY_NAME</code> and 
+     *        <code>PROPERTY_VALUE</code> attribute values).  The reader may be 
+     *        left at the <code>START_ELEMENT</code>, in which case the element
+     *        is skipped, or at the matching <code>END_ELEMENT</code>.
+     * @throws XMLStreamException if the input is not well formed
+     */
+    public void processPropertyUpdate(ContainerInstance ci, Component component, XMLStreamReader reader)
+    throws XMLStreamException;
+}
@@ -0,0 +1,171 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.webcontainer;
+
+import nextapp.echo2.app.Component;
+
+/**
+ * A <code>RenderState</code> which stores the text known to be held by the
+ * client for a text-editing component, enabling the exchange of text deltas
+ * rather than complete text.
+ * <p>
+ * A delta replaces the range of the known text starting at an
+ * <code>offset</code> and spanning <code>remove</code> characters with an 
+ * inserted string.  Each delta carries a checksum of the resulting text,
+ * computed in the same manner as <code>String.hashCode()</code>, such that 
+ * a lost or diverged baseline is detected and a complete resynchronization 
+ * may be performed.
+ * 
+ * @see ContainerInstance#setTextDeltaSyncEnabled(boolean)
+ */
+public class TextSyncState 
+implements RenderState {
+    
+    /**
+     * Name of the attribute indicating that a text update is a delta.
+     */
+    public static final String ATTRIBUTE_DELTA = "delta";
+    
+    /**
+     * Name of the attribute containing the offset of the replaced range.
+     */
+    public static final String ATTRIBUTE_OFFSET = "offset";
+    
+    /**
+     * Name of the attribute containing the length of the replaced range.
+     */
+    public static final String ATTRIBUTE_REMOVE = "remove";
+    
+    /**
+     * Name of the attribute containing the checksum of the resulting text.
+     */
+    public static final String ATTRIBUTE_CHECKSUM = "checksum";
+    
+    /**
+     * Returns the <code>TextSyncState</code> of a component.
+     * 
+     * @param ci the relevant <code>ContainerInstance</code>
+     * @param component the component
+     * @return the state, or null if the component was not rendered with
+     *         text delta synchronization enabled
+     */
+    public static TextSyncState getState(ContainerInstance ci, Component component) {
+        RenderState renderState = ci.getRenderState(component);
+        return renderState instanceof TextSyncState ? (TextSyncState) renderState : null;
+    }
+    
+    /**
+     * Computes the checksum of a string.
+     * 
+     * @param text the string
+     * @return the checksum
+     */
+    public static int checksum(String text) {
+        return text == null ? 0 : text.hashCode();
+    }
+    
+    private String text;
+    
+    /**
+     * Applies a delta received from the client to the known text.
+     * If the delta cannot be applied or the checksum of the result does not
+     * match, the known text is discarded.
+     * 
+     * @param offset the offset of the replaced range
+     * @param removeLength the length of the replaced range
+     * @param insertText the inserted text
+     * @param checksum the checksum of the resulting text
+     * @return the resulting text, or null if the delta could not be applied
+     */
+    public String applyDelta(int offset, int removeLength, String insertText, int checksum) {
+        if (text == null || offset < 0 || removeLength < 0 || offset + removeLength > text.length()) {
+            text = null;
+            return null;
+        }
+        StringBuffer out = new StringBuffer(text.length() - removeLength + insertText.length());
+        out.append(text, 0, offset);
+        out.append(insertText);
+        out.append(text, offset + removeLength, text.length());
+        String result = out.toString();
+        if (result.hashCode() != checksum) {
+            text = null;
+            return null;
+        }
+        text = result;
+        return result;
+    }
+    
+    /**
+     * Applies a text update received from the client, which may be either
+     * complete text or a delta.
+     * 
+     * @param value the complete text, or the inserted text of a delta
+     * @param delta the value of the delta attribute
+     * @param offset the value of the offset attribute
+     * @param removeLength the value of the remove attribute
+     * @param checksum the value of the checksum attribute
+     * @return the complete text, or null if the update was a delta which
+     *         could not be applied (or if complete text was null)
+     */
+    public String applyUpdate(String value, String delta, String offset, String removeLength, String checksum) {
+        if (!"true".equals(delta)) {
+            text = value;
+            return value;
+        }
+        if (value == null) {
+            value = "";
+        }
+        try {
+            return applyDelta(Integer.parseInt(offset), Integer.parseInt(removeLength), value, 
+                    Integer.parseInt(checksum));
+        } catch (NumberFormatException ex) {
+            text = null;
+            return null;
+        }
+    }
+    
+    /**
+     * Returns the text known to be held by the client.
+     * 
+     * @return the text, or null if unknown
+     */
+    public String getText() {
+        return text;
+    }
+    
+    /**
+     * Sets the text known to be held by the client.
+     * 
+     * @param text the text, or null if unknown
+     */
+    public void setText(String text) {
+        this.text = text;
+    }
+}
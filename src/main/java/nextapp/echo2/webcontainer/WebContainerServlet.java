@@ -29,6 +29,7 @@
 
 package nextapp.echo2.webcontainer;
 
+import jakarta.servlet.ServletException;
 import nextapp.echo2.app.ApplicationInstance;
 import nextapp.echo2.webrender.ServiceRegistry;
 import nextapp.echo2.webrender.WebRenderServlet;
@@ -42,6 +43,12 @@ import nextapp.echo2.webrender.service.SessionExpiredService;
  */
 public abstract class WebContainerServlet extends WebRenderServlet {
 
+    /**
+     * The number of initialized <code>WebContainerServlet</code>s, which
+     * share the default executor performing background work.
+     */
+    private static int activeServletCount = 0;
+    
     /**
      * Default constructor.
      */
@@ -55,6 +62,37 @@ public abstract class WebContainerServlet extends WebRenderServlet {
         serviceRegistry.add(WindowHtmlService.INSTANCE);
     }
     
+    /**
+     * Shuts down the default executor performing background work of 
+     * <code>ApplicationInstance</code>s once the last initialized
+     * <code>WebContainerServlet</code> is destroyed.
+     * 
+     * @see jakarta.servlet.GenericServlet#destroy()
+     * @see ApplicationInstance#shutdownBackgroundExecutor()
+     */
+    public void destroy() {
+        synchronized (WebContainerServlet.class) {
+            if (activeServletCount > 0 && --activeServletCount == 0) {
+                ApplicationInstance.shutdownBackgroundExecutor();
+            }
+        }
+        super.destroy();
+    }
+    
+    /**
+     * Counts the servlet as a user of the default executor performing
+     * background work of <code>ApplicationInstance</code>s.
+     * 
+     * @see jakarta.servlet.GenericServlet#init()
+     */
+    public void init() 
+    throws ServletException {
+        super.init();
+        synchronized (WebContainerServlet.class) {
+            ++activeServletCount;
+        }
+    }
+    
     /**
      * Creates a new <code>ApplicationInstance</code> for visitor to an 
      * application.
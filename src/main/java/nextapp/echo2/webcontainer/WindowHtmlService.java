@@ -30,6 +30,8 @@
 package nextapp.echo2.webcontainer;
 
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 
 import org.w3c.dom.Element;
 
@@ -37,6 +39,7 @@ import nextapp.echo2.app.ApplicationInstance;
 import nextapp.echo2.webrender.BaseHtmlDocument;
 import nextapp.echo2.webrender.Connection;
 import nextapp.echo2.webrender.ContentType;
+import nextapp.echo2.webrender.ServerMessage;
 import nextapp.echo2.webrender.Service;
 import nextapp.echo2.webrender.WebRenderServlet;
 import nextapp.echo2.webrender.output.CssStyle;
@@ -56,6 +59,51 @@ implements Service {
      */
     public static final String ROOT_ID = "c_root";
     
+    /**
+     * Servlet initialization parameter which, when set to "true", embeds the
+     * initial <code>ServerMessage</code> in the rendered page, such that the
+     * client engine need not make a synchronization request before it can
+     * display the application.
+     */
+    public static final String INIT_PARAMETER_INLINE_INITIAL_MESSAGE = "echo2.inlineInitialMessage";
+    
+    /**
+     * Escapes a string such that it may be used as a single-quoted 
+     * JavaScript string literal.
+     * 
+     * @param s the string to escape
+     * @return the escaped string
+     */
+    private static String escapeScriptString(String s) {
+        StringBuffer out = new StringBuffer(s.length() + 64);
+        for (int i = 0; i < s.length(); ++i) {
+            char ch = s.charAt(i);
+            switch (ch) {
+            case '\\':
+                out.append("\\\\");
+                break;
+            case '\'':
+                out.append("\\'");
+                break;
+            case '\n':
+                out.append("\\n");
+                break;
+            case '\r':
+                out.append("\\r");
+                break;
+            case '\u2028':
+                out.append("\\u2028");
+                break;
+            case '\u2029':
+                out.append("\\u2029");
+                break;
+            default:
+                out.append(ch);
+            }
+        }
+        return out.toString();
+    }
+    
     /**
      * @see nextapp.echo2.webrender.Service#getId()
      */
@@ -84,8 +132,16 @@ implements Service {
         baseDoc.addJavaScriptInclude(ci.getServiceUri(CoreServices.CLIENT_ENGINE));
 
         // Add initialization directive.
-        baseDoc.getBodyElement().setAttribute("onload", "EchoClientEngine.init('" + ci.getServletUri() + "', " 
-                + debug + ");");
+        if ("true".equals(conn.getServlet().getInitParameter(INIT_PARAMETER_INLINE_INITIAL_MESSAGE))) {
+            ServerMessage serverMessage = ContainerSynchronizeService.INSTANCE.renderInitialMessage(conn);
+            StringWriter out = new StringWriter();
+            serverMessage.render(new PrintWriter(out));
+            baseDoc.getBodyElement().setAttribute("onload", "EchoClientEngine.init('" + ci.getServletUri() + "', " 
+                    + debug + ", '" + escapeScriptString(out.toString()) + "');");
+        } else {
+            baseDoc.getBodyElement().setAttribute("onload", "EchoClientEngine.init('" + ci.getServletUri() + "', " 
+                    + debug + ");");
+        }
         
         Element bodyElement = baseDoc.getBodyElement(); 
         
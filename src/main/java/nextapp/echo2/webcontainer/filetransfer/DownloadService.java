@@ -97,12 +97,14 @@ class DownloadService implements Service, Serializable {
             serviceBadRequest(conn, "Download UID not specified.");
             return;
         }
-        Download download = DownloadPeer.getDownload(downloadId);
+        Download download = (Download) containerInstance.getServiceHandler(this, downloadId);
         
         if (download == null) {
             serviceBadRequest(conn, "Download UID is not valid.");
             return;
         }
+        // The download URI is issued for a single request.
+        containerInstance.unregisterServiceHandler(this, downloadId);
         service(conn,download);
     }
     
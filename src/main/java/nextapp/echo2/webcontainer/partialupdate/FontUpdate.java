@@ -0,0 +1,121 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+
+package nextapp.echo2.webcontainer.partialupdate;
+
+import nextapp.echo2.app.Font;
+import nextapp.echo2.app.update.ServerComponentUpdate;
+import nextapp.echo2.webcontainer.ContainerInstance;
+import nextapp.echo2.webcontainer.PartialUpdateParticipant;
+import nextapp.echo2.webcontainer.RenderContext;
+import nextapp.echo2.webcontainer.propertyrender.ExtentRender;
+import nextapp.echo2.webcontainer.propertyrender.FontRender;
+import nextapp.echo2.webrender.ServerMessage;
+import nextapp.echo2.webrender.servermessage.DomUpdate;
+
+/**
+ * A <code>PartialUpdateParticipant</code> to update the CSS font 
+ * properties of an element, i.e., 'font-family', 'font-size', 
+ * 'font-weight', 'font-style' and 'text-decoration'.
+ * Properties which are not specified by the <code>Font</code> are cleared,
+ * matching the output of <code>FontRender.renderToStyle()</code>.
+ */
+public class FontUpdate
+implements PartialUpdateParticipant {
+    
+    /**
+     * Renders directives to update the CSS font properties of an element.
+     * 
+     * @param serverMessage the outgoing <code>ServerMessage</code>
+     * @param elementId the id of the element to update
+     * @param font the <code>Font</code> to render, or null to clear the
+     *        font properties
+     */
+    public static void renderFontUpdate(ServerMessage serverMessage, String elementId, Font font) {
+        String fontFamily = "", fontSize = "", fontWeight = "", fontStyle = "", textDecoration = "";
+        if (font != null) {
+            if (font.getTypeface() != null) {
+                fontFamily = FontRender.renderFontFamilyCssAttributeValue(font.getTypeface());
+            }
+            if (font.getSize() != null) {
+                fontSize = ExtentRender.renderCssAttributeValue(font.getSize());
+            }
+            if (font.isBold()) {
+                fontWeight = "bold";
+            }
+            if (font.isItalic()) {
+                fontStyle = "italic";
+            }
+            if (font.isUnderline() || font.isOverline() || font.isLineThrough()) {
+                textDecoration = FontRender.renderTextDecorationCssAttributeValue(font);
+            }
+        }
+        DomUpdate.renderStyleUpdate(serverMessage, elementId, "fontFamily", fontFamily);
+        DomUpdate.renderStyleUpdate(serverMessage, elementId, "fontSize", fontSize);
+        DomUpdate.renderStyleUpdate(serverMessage, elementId, "fontWeight", fontWeight);
+        DomUpdate.renderStyleUpdate(serverMessage, elementId, "fontStyle", fontStyle);
+        DomUpdate.renderStyleUpdate(serverMessage, elementId, "textDecoration", textDecoration);
+    }
+    
+    private String componentPropertyName;
+    private String idSuffix;
+    
+    /**
+     * Creates a new <code>FontUpdate</code>.
+     * 
+     * @param componentPropertyName the name of the property of the component
+     * @param idSuffix the suffix to append to the root client-side identifier
+     *        of the component (should be null in typical case of no suffix)
+     */
+    public FontUpdate(String componentPropertyName, String idSuffix) {
+        super();
+        this.componentPropertyName = componentPropertyName;
+        this.idSuffix = idSuffix;
+    }
+
+    /**
+     * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#canRenderProperty(nextapp.echo2.webcontainer.RenderContext, 
+     *      nextapp.echo2.app.update.ServerComponentUpdate)
+     */
+    public boolean canRenderProperty(RenderContext rc, ServerComponentUpdate update) {
+        return true;
+    }
+
+    /**
+     * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#renderProperty(
+     *      nextapp.echo2.webcontainer.RenderContext, nextapp.echo2.app.update.ServerComponentUpdate)
+     */
+    public void renderProperty(RenderContext rc, ServerComponentUpdate update) {
+        Font font = (Font) update.getParent().getRenderProperty(componentPropertyName);
+        String elementId = idSuffix == null ? ContainerInstance.getElementId(update.getParent())
+                : ContainerInstance.getElementId(update.getParent()) + idSuffix;
+        renderFontUpdate(rc.getServerMessage(), elementId, font);
+    }
+}
@@ -44,15 +44,19 @@ import nextapp.echo2.app.ResourceImageReference;
 import nextapp.echo2.app.button.AbstractButton;
 import nextapp.echo2.app.button.ButtonGroup;
 import nextapp.echo2.app.button.ToggleButton;
+import nextapp.echo2.app.update.PropertyUpdate;
 import nextapp.echo2.app.update.ServerComponentUpdate;
 import nextapp.echo2.webcontainer.ActionProcessor;
 import nextapp.echo2.webcontainer.ContainerInstance;
 import nextapp.echo2.webcontainer.DomUpdateSupport;
+import nextapp.echo2.webcontainer.PartialUpdateManager;
+import nextapp.echo2.webcontainer.PartialUpdateParticipant;
 import nextapp.echo2.webcontainer.PropertyUpdateProcessor;
 import nextapp.echo2.webcontainer.RenderContext;
 import nextapp.echo2.webcontainer.ComponentSynchronizePeer;
 import nextapp.echo2.webcontainer.image.ImageRenderSupport;
 import nextapp.echo2.webcontainer.image.ImageTools;
+import nextapp.echo2.webcontainer.partialupdate.FontUpdate;
 import nextapp.echo2.webcontainer.propertyrender.AlignmentRender;
 import nextapp.echo2.webcontainer.propertyrender.BorderRender;
 import nextapp.echo2.webcontainer.propertyrender.ColorRender;
@@ -127,6 +131,195 @@ implements ActionProcessor, DomUpdateSupport, ImageRenderSupport, PropertyUpdate
         WebRenderServlet.getServiceRegistry().add(BUTTON_SERVICE);
     }
     
+    /**
+     * Names of properties which are rendered only by the button's 
+     * initialization directive, i.e., to its default, rollover and pressed
+     * styles.
+     */
+    private static final String[] INIT_DIRECTIVE_PROPERTIES = new String[] {
+            AbstractButton.PROPERTY_BACKGROUND, AbstractButton.PROPERTY_BORDER, AbstractButton.PROPERTY_FOREGROUND,
+            AbstractButton.PROPERTY_INSETS, AbstractButton.PROPERTY_DISABLED_BACKGROUND, 
+            AbstractButton.PROPERTY_DISABLED_BORDER, AbstractButton.PROPERTY_DISABLED_FOREGROUND,
+            AbstractButton.PROPERTY_ROLLOVER_BACKGROUND, AbstractButton.PROPERTY_ROLLOVER_BORDER,
+            AbstractButton.PROPERTY_ROLLOVER_FONT, AbstractButton.PROPERTY_ROLLOVER_FOREGROUND,
+            AbstractButton.PROPERTY_PRESSED_BACKGROUND, AbstractButton.PROPERTY_PRESSED_BORDER, 
+            AbstractButton.PROPERTY_PRESSED_FONT, AbstractButton.PROPERTY_PRESSED_FOREGROUND };
+    
+    /**
+     * <code>PartialUpdateParticipant</code> for properties rendered by the
+     * initialization directive.  The directive is re-rendered by 
+     * <code>renderUpdate()</code> when any property other than the text is
+     * updated, thus the participant itself renders nothing.
+     */
+    private static final PartialUpdateParticipant INIT_DIRECTIVE_UPDATE = new PartialUpdateParticipant() {
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#canRenderProperty(nextapp.echo2.webcontainer.RenderContext, 
+         *      nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public boolean canRenderProperty(RenderContext rc, ServerComponentUpdate update) {
+            return true;
+        }
+        
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#renderProperty(
+         *      nextapp.echo2.webcontainer.RenderContext, nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public void renderProperty(RenderContext rc, ServerComponentUpdate update) { }
+    };
+    
+    /**
+     * Determines whether an update to a property replaces a non-null value
+     * with another non-null value, such that the structure of the rendered
+     * HTML is not affected by the update.
+     * 
+     * @param update the update
+     * @param propertyName the name of the property
+     * @return true if the property value was replaced
+     */
+    private static boolean isValueReplaced(ServerComponentUpdate update, String propertyName) {
+        PropertyUpdate propertyUpdate = update.getUpdatedProperty(propertyName);
+        return propertyUpdate != null && propertyUpdate.getOldValue() != null && propertyUpdate.getNewValue() != null;
+    }
+    
+    /**
+     * Returns the number of entities (text, icon and state icon) rendered
+     * as the content of a button.
+     * 
+     * @param button the <code>AbstractButton</code>
+     * @return the number of entities
+     */
+    private static int getEntityCount(AbstractButton button) {
+        return (button.getRenderProperty(AbstractButton.PROPERTY_TEXT) == null ? 0 : 1)
+                + (button.getRenderProperty(AbstractButton.PROPERTY_ICON) == null ? 0 : 1)
+                + (button instanceof ToggleButton ? 1 : 0);
+    }
+    
+    /**
+     * Returns the font with which the text of a button is rendered, taking
+     * its enabled state into account.
+     * 
+     * @param button the <code>AbstractButton</code>
+     * @return the font
+     */
+    private static Font getTextFont(AbstractButton button) {
+        Font font;
+        if (button.isRenderEnabled()) {
+            font = (Font) button.getRenderProperty(AbstractButton.PROPERTY_FONT);
+        } else {
+            font = (Font) button.getRenderProperty(AbstractButton.PROPERTY_DISABLED_FONT);
+            if (font == null) {
+                font = (Font) button.getRenderProperty(AbstractButton.PROPERTY_FONT);
+            }
+        }
+        return font;
+    }
+    
+    /**
+     * <code>PartialUpdateParticipant</code> to update the text of a button.
+     */
+    private class TextUpdate 
+    implements PartialUpdateParticipant {
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#canRenderProperty(nextapp.echo2.webcontainer.RenderContext, 
+         *      nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public boolean canRenderProperty(RenderContext rc, ServerComponentUpdate update) {
+            return isValueReplaced(update, AbstractButton.PROPERTY_TEXT);
+        }
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#renderProperty(
+         *      nextapp.echo2.webcontainer.RenderContext, nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public void renderProperty(RenderContext rc, ServerComponentUpdate update) {
+            AbstractButton button = (AbstractButton) update.getParent();
+            String elementId = ContainerInstance.getElementId(button);
+            if (getEntityCount(button) > 1) {
+                // Text is rendered in cell 0 of a TriCellTable.
+                elementId += "_td_0";
+            }
+            DomUpdate.renderTextUpdate(rc.getServerMessage(), elementId, 
+                    (String) button.getRenderProperty(AbstractButton.PROPERTY_TEXT));
+        }
+    }
+    
+    /**
+     * <code>PartialUpdateParticipant</code> to update the icon of a button.
+     * The icon URI stored by the client for rollover and pressed effects is
+     * updated by the re-rendered initialization directive.
+     */
+    private class IconUpdate 
+    implements PartialUpdateParticipant {
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#canRenderProperty(nextapp.echo2.webcontainer.RenderContext, 
+         *      nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public boolean canRenderProperty(RenderContext rc, ServerComponentUpdate update) {
+            return isValueReplaced(update, AbstractButton.PROPERTY_ICON);
+        }
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#renderProperty(
+         *      nextapp.echo2.webcontainer.RenderContext, nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public void renderProperty(RenderContext rc, ServerComponentUpdate update) {
+            AbstractButton button = (AbstractButton) update.getParent();
+            DomUpdate.renderAttributeUpdate(rc.getServerMessage(), ContainerInstance.getElementId(button) + "_icon", "src", 
+                    ImageTools.getUri(rc, ButtonPeer.this, button, IMAGE_ID_ICON));
+        }
+    }
+    
+    /**
+     * <code>PartialUpdateParticipant</code> to update the font of a button.
+     * A font rendered to the button's default style is updated by the 
+     * re-rendered initialization directive, a font rendered to the text cell
+     * of a <code>TriCellTable</code> is updated directly.
+     */
+    private static class TextFontUpdate 
+    implements PartialUpdateParticipant {
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#canRenderProperty(nextapp.echo2.webcontainer.RenderContext, 
+         *      nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public boolean canRenderProperty(RenderContext rc, ServerComponentUpdate update) {
+            return true;
+        }
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#renderProperty(
+         *      nextapp.echo2.webcontainer.RenderContext, nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public void renderProperty(RenderContext rc, ServerComponentUpdate update) {
+            AbstractButton button = (AbstractButton) update.getParent();
+            if (button.getRenderProperty(AbstractButton.PROPERTY_TEXT) != null && getEntityCount(button) > 1) {
+                FontUpdate.renderFontUpdate(rc.getServerMessage(), ContainerInstance.getElementId(button) + "_td_0", 
+                        getTextFont(button));
+            }
+        }
+    }
+    
+    private PartialUpdateManager partialUpdateManager;
+    
+    /**
+     * Default constructor.
+     */
+    public ButtonPeer() {
+        super();
+        partialUpdateManager = new PartialUpdateManager();
+        partialUpdateManager.add(AbstractButton.PROPERTY_TEXT, new TextUpdate());
+        partialUpdateManager.add(AbstractButton.PROPERTY_ICON, new IconUpdate());
+        PartialUpdateParticipant textFontUpdate = new TextFontUpdate();
+        partialUpdateManager.add(AbstractButton.PROPERTY_FONT, textFontUpdate);
+        partialUpdateManager.add(AbstractButton.PROPERTY_DISABLED_FONT, textFontUpdate);
+        for (int i = 0; i < INIT_DIRECTIVE_PROPERTIES.length; ++i) {
+            partialUpdateManager.add(INIT_DIRECTIVE_PROPERTIES[i], INIT_DIRECTIVE_UPDATE);
+        }
+    }
+    
     /**
      * Determines the CSS text which should be placed in the 'style' attribute
      * of the button's container TABLE element.
@@ -538,17 +731,7 @@ implements ActionProcessor, DomUpdateSupport, ImageRenderSupport, PropertyUpdate
                 (Alignment) button.getRenderProperty(AbstractButton.PROPERTY_ALIGNMENT));
         AlignmentRender.renderToStyle(textTdCssStyle, alignment, button);
 
-        boolean renderEnabled = button.isRenderEnabled();
-        Font font;
-        if (renderEnabled) {
-            font = (Font) button.getRenderProperty(AbstractButton.PROPERTY_FONT);
-        } else {
-            font = (Font) button.getRenderProperty(AbstractButton.PROPERTY_DISABLED_FONT);
-            if (font == null) {
-                font = (Font) button.getRenderProperty(AbstractButton.PROPERTY_FONT);
-            }
-        }
-        FontRender.renderToStyle(textTdCssStyle, font);
+        FontRender.renderToStyle(textTdCssStyle, getTextFont(button));
         
         if (textTdCssStyle.hasAttributes()) {
             textTdElement.setAttribute("style", textTdCssStyle.renderInline());
@@ -821,6 +1004,21 @@ implements ActionProcessor, DomUpdateSupport, ImageRenderSupport, PropertyUpdate
      *      nextapp.echo2.app.update.ServerComponentUpdate, java.lang.String)
      */
     public boolean renderUpdate(RenderContext rc, ServerComponentUpdate update, String targetId) {
+        if (partialUpdateManager.canProcess(rc, update)) {
+            partialUpdateManager.process(rc, update);
+            String[] updatedPropertyNames = update.getUpdatedPropertyNames();
+            for (int i = 0; i < updatedPropertyNames.length; ++i) {
+                if (!AbstractButton.PROPERTY_TEXT.equals(updatedPropertyNames[i])) {
+                    // Re-initialize the button to update the styles and icons stored by the client.
+                    AbstractButton button = (AbstractButton) update.getParent();
+                    rc.getServerMessage().addLibrary(BUTTON_SERVICE.getId());
+                    renderDisposeDirective(rc, button);
+                    renderInitDirective(rc, button);
+                    break;
+                }
+            }
+            return false;
+        }
         String parentId = ContainerInstance.getElementId(update.getParent());
         DomUpdate.renderElementRemove(rc.getServerMessage(), parentId);
         renderAdd(rc, update, targetId, update.getParent());
@@ -55,6 +55,7 @@ import nextapp.echo2.webcontainer.SynchronizePeerFactory;
 import nextapp.echo2.webcontainer.image.ImageRenderSupport;
 import nextapp.echo2.webcontainer.partialupdate.BorderUpdate;
 import nextapp.echo2.webcontainer.partialupdate.ColorUpdate;
+import nextapp.echo2.webcontainer.partialupdate.FontUpdate;
 import nextapp.echo2.webcontainer.partialupdate.InsetsUpdate;
 import nextapp.echo2.webcontainer.propertyrender.BorderRender;
 import nextapp.echo2.webcontainer.propertyrender.CellLayoutDataRender;
@@ -105,6 +106,7 @@ implements ComponentSynchronizePeer, DomUpdateSupport, ImageRenderSupport {
                 ColorUpdate.CSS_BACKGROUND_COLOR));
         partialUpdateManager.add(Column.PROPERTY_INSETS, new InsetsUpdate(Column.PROPERTY_INSETS, null, 
                 InsetsUpdate.CSS_PADDING));
+        partialUpdateManager.add(Column.PROPERTY_FONT, new FontUpdate(Column.PROPERTY_FONT, null));
     }
     
     /**
@@ -183,23 +185,19 @@ implements ComponentSynchronizePeer, DomUpdateSupport, ImageRenderSupport {
         Column column = (Column) update.getParent();
         String elementId = ContainerInstance.getElementId(column);
         
-        Component[] components = update.getParent().getVisibleComponents();
-        Component[] addedChildren = update.getAddedChildren();
+        int componentCount = column.getVisibleComponentCount();
         
-        for (int componentIndex = components.length - 1; componentIndex >= 0; --componentIndex) {
-            boolean childFound = false;
-            for (int addedChildrenIndex = 0; !childFound && addedChildrenIndex < addedChildren.length; ++addedChildrenIndex) {
-                if (addedChildren[addedChildrenIndex] == components[componentIndex]) {
-                    DocumentFragment htmlFragment = rc.getServerMessage().getDocument().createDocumentFragment();
-                    renderChild(rc, update, htmlFragment, column, components[componentIndex]);
-                    if (componentIndex == components.length - 1) {
-                        DomUpdate.renderElementAddContent(rc.getServerMessage(), domAddElement, elementId, htmlFragment);
-                    } else {
-                        DomUpdate.renderElementAddContent(rc.getServerMessage(), domAddElement,elementId, 
-                                elementId + "_cell_" + ContainerInstance.getElementId(components[componentIndex + 1]), 
-                                htmlFragment);
-                    }
-                    childFound = true;
+        for (int componentIndex = componentCount - 1; componentIndex >= 0; --componentIndex) {
+            Component child = column.getVisibleComponent(componentIndex);
+            if (update.hasAddedChild(child)) {
+                DocumentFragment htmlFragment = rc.getServerMessage().getDocument().createDocumentFragment();
+                renderChild(rc, update, htmlFragment, column, child);
+                if (componentIndex == componentCount - 1) {
+                    DomUpdate.renderElementAddContent(rc.getServerMessage(), domAddElement, elementId, htmlFragment);
+                } else {
+                    DomUpdate.renderElementAddContent(rc.getServerMessage(), domAddElement,elementId, 
+                            elementId + "_cell_" + ContainerInstance.getElementId(column.getVisibleComponent(componentIndex + 1)), 
+                            htmlFragment);
                 }
             }
         }
@@ -214,17 +212,11 @@ implements ComponentSynchronizePeer, DomUpdateSupport, ImageRenderSupport {
                 // At this point it is known that the child which was previously last is present, but is no longer last.
 
                 // In the event the child was removed and re-added, the special case is unnecessary.
-                boolean lastChildMoved = false;
-                for (int i = 0; i < addedChildren.length; ++i) {
-                    if (renderState.lastChild == addedChildren[i]) {
-                        lastChildMoved = true;
-                    }
-                }
-                if (!lastChildMoved) {
+                if (!update.hasAddedChild(renderState.lastChild)) {
                     DocumentFragment htmlFragment = rc.getServerMessage().getDocument().createDocumentFragment();
                     renderSpacingCell(htmlFragment, column, renderState.lastChild);
                     DomUpdate.renderElementAddContent(rc.getServerMessage(), domAddElement,elementId,
-                            elementId + "_cell_" + ContainerInstance.getElementId(components[previousLastChildIndex + 1]),
+                            elementId + "_cell_" + ContainerInstance.getElementId(column.getVisibleComponent(previousLastChildIndex + 1)),
                             htmlFragment);
                 }
             }
@@ -298,9 +290,9 @@ implements ComponentSynchronizePeer, DomUpdateSupport, ImageRenderSupport {
         
         parentNode.appendChild(divElement);
         
-        Component[] children = column.getVisibleComponents();
-        for (int i = 0; i < children.length; ++i) {
-            renderChild(rc, update, divElement, component, children[i]);
+        int componentCount = column.getVisibleComponentCount();
+        for (int i = 0; i < componentCount; ++i) {
+            renderChild(rc, update, divElement, component, column.getVisibleComponent(i));
         }
         
         storeRenderState(rc, column);
@@ -29,6 +29,8 @@
 
 package nextapp.echo2.webcontainer.syncpeer;
 
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.DocumentFragment;
 import org.w3c.dom.Element;
@@ -52,6 +54,7 @@ import nextapp.echo2.webcontainer.PartialUpdateParticipant;
 import nextapp.echo2.webcontainer.PropertyUpdateProcessor;
 import nextapp.echo2.webcontainer.RenderContext;
 import nextapp.echo2.webcontainer.ComponentSynchronizePeer;
+import nextapp.echo2.webcontainer.StreamingPropertyUpdateProcessor;
 import nextapp.echo2.webcontainer.SynchronizePeerFactory;
 import nextapp.echo2.webcontainer.image.ImageRenderSupport;
 import nextapp.echo2.webcontainer.propertyrender.ColorRender;
@@ -65,6 +68,7 @@ import nextapp.echo2.webrender.output.CssStyle;
 import nextapp.echo2.webrender.servermessage.DomUpdate;
 import nextapp.echo2.webrender.servermessage.VirtualPosition;
 import nextapp.echo2.webrender.service.JavaScriptService;
+import nextapp.echo2.webrender.util.XmlStreamUtil;
 
 /**
  * Synchronization peer for <code>nextapp.echo2.app.ContentPane</code> components.
@@ -73,7 +77,7 @@ import nextapp.echo2.webrender.service.JavaScriptService;
  * Echo framework.
  */
 public class ContentPanePeer 
-implements ComponentSynchronizePeer, DomUpdateSupport, ImageRenderSupport, PropertyUpdateProcessor {
+implements ComponentSynchronizePeer, DomUpdateSupport, ImageRenderSupport, StreamingPropertyUpdateProcessor {
 
     private static final Extent EXTENT_0 = new Extent(0);
     private static final Insets DEFAULT_INSETS = new Insets(EXTENT_0);
@@ -444,12 +448,36 @@ implements ComponentSynchronizePeer, DomUpdateSupport, ImageRenderSupport, Prope
      *      nextapp.echo2.app.Component, org.w3c.dom.Element)
      */
     public void processPropertyUpdate(ContainerInstance ci, Component component, Element propertyElement) {
-        if ("horizontalScroll".equals(propertyElement.getAttribute(PropertyUpdateProcessor.PROPERTY_NAME))) {
-            Extent newValue = ExtentRender.toExtent(propertyElement.getAttribute(PropertyUpdateProcessor.PROPERTY_VALUE)); 
+        processPropertyUpdate(ci, component, propertyElement.getAttribute(PropertyUpdateProcessor.PROPERTY_NAME),
+                propertyElement.getAttribute(PropertyUpdateProcessor.PROPERTY_VALUE));
+    }
+
+    /**
+     * @see nextapp.echo2.webcontainer.StreamingPropertyUpdateProcessor#processPropertyUpdate(
+     *      nextapp.echo2.webcontainer.ContainerInstance,
+     *      nextapp.echo2.app.Component, javax.xml.stream.XMLStreamReader)
+     */
+    public void processPropertyUpdate(ContainerInstance ci, Component component, XMLStreamReader reader) {
+        processPropertyUpdate(ci, component, XmlStreamUtil.getAttribute(reader, PropertyUpdateProcessor.PROPERTY_NAME),
+                XmlStreamUtil.getAttribute(reader, PropertyUpdateProcessor.PROPERTY_VALUE));
+    }
+    
+    /**
+     * Processes a scroll position update.
+     * 
+     * @param ci the relevant <code>ContainerInstance</code>
+     * @param component the target <code>Component</code>
+     * @param propertyName the name of the updated property
+     * @param propertyValue the value of the updated property
+     */
+    private void processPropertyUpdate(ContainerInstance ci, Component component, String propertyName, 
+            String propertyValue) {
+        if ("horizontalScroll".equals(propertyName)) {
+            Extent newValue = ExtentRender.toExtent(propertyValue); 
             ci.getUpdateManager().getClientUpdateManager().setComponentProperty(component, 
                     ContentPane.PROPERTY_HORIZONTAL_SCROLL, newValue);
-        } else if ("verticalScroll".equals(propertyElement.getAttribute(PropertyUpdateProcessor.PROPERTY_NAME))) {
-            Extent newValue = ExtentRender.toExtent(propertyElement.getAttribute(PropertyUpdateProcessor.PROPERTY_VALUE)); 
+        } else if ("verticalScroll".equals(propertyName)) {
+            Extent newValue = ExtentRender.toExtent(propertyValue); 
             ci.getUpdateManager().getClientUpdateManager().setComponentProperty(component, 
                     ContentPane.PROPERTY_VERTICAL_SCROLL, newValue);
         } 
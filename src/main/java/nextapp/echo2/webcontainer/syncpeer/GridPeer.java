@@ -47,11 +47,16 @@ import nextapp.echo2.app.LayoutData;
 import nextapp.echo2.app.layout.GridLayoutData;
 import nextapp.echo2.app.update.ServerComponentUpdate;
 import nextapp.echo2.webcontainer.ContainerInstance;
+import nextapp.echo2.webcontainer.DiscardableRenderState;
 import nextapp.echo2.webcontainer.DomUpdateSupport;
+import nextapp.echo2.webcontainer.PartialUpdateManager;
+import nextapp.echo2.webcontainer.PartialUpdateParticipant;
 import nextapp.echo2.webcontainer.RenderContext;
 import nextapp.echo2.webcontainer.ComponentSynchronizePeer;
 import nextapp.echo2.webcontainer.SynchronizePeerFactory;
 import nextapp.echo2.webcontainer.image.ImageRenderSupport;
+import nextapp.echo2.webcontainer.partialupdate.ColorUpdate;
+import nextapp.echo2.webcontainer.partialupdate.FontUpdate;
 import nextapp.echo2.webcontainer.propertyrender.BorderRender;
 import nextapp.echo2.webcontainer.propertyrender.CellLayoutDataRender;
 import nextapp.echo2.webcontainer.propertyrender.ColorRender;
@@ -77,6 +82,115 @@ implements ComponentSynchronizePeer, DomUpdateSupport, ImageRenderSupport {
     private static final String SIZING_DOTS = ". . . . . . . . . . . . . . . . . . . . . . . . . . . . . "
             + ". . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . ";
     
+    /**
+     * <code>PartialUpdateParticipant</code> to update the border of a
+     * <code>Grid</code>, which is rendered to the table and to each of its
+     * cells.
+     */
+    private class BorderUpdate 
+    implements PartialUpdateParticipant {
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#canRenderProperty(nextapp.echo2.webcontainer.RenderContext, 
+         *      nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public boolean canRenderProperty(RenderContext rc, ServerComponentUpdate update) {
+            return true;
+        }
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#renderProperty(
+         *      nextapp.echo2.webcontainer.RenderContext, nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public void renderProperty(RenderContext rc, ServerComponentUpdate update) {
+            Grid grid = (Grid) update.getParent();
+            String elementId = ContainerInstance.getElementId(grid);
+            Border border = (Border) grid.getRenderProperty(Grid.PROPERTY_BORDER);
+            String borderValue = border == null ? "" : BorderRender.renderCssAttributeValue(border);
+            
+            String marginValue = "";
+            Extent borderSize = border == null ? null : border.getSize();
+            if (borderSize != null && !rc.getContainerInstance().getClientProperties().getBoolean(
+                    ClientProperties.QUIRK_CSS_BORDER_COLLAPSE_INSIDE)) {
+                marginValue = ExtentRender.renderCssAttributeValueHalf(borderSize);
+            }
+            
+            DomUpdate.renderStyleUpdate(rc.getServerMessage(), elementId, "border", borderValue);
+            DomUpdate.renderStyleUpdate(rc.getServerMessage(), elementId, "margin", marginValue);
+            int componentCount = grid.getVisibleComponentCount();
+            for (int i = 0; i < componentCount; ++i) {
+                DomUpdate.renderStyleUpdate(rc.getServerMessage(), getContainerId(grid.getVisibleComponent(i)), 
+                        "border", borderValue);
+            }
+        }
+    }
+    
+    /**
+     * <code>PartialUpdateParticipant</code> to update the insets of a
+     * <code>Grid</code>, which are rendered as the padding of each cell 
+     * whose layout data does not specify insets.
+     */
+    private class InsetsUpdate 
+    implements PartialUpdateParticipant {
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#canRenderProperty(nextapp.echo2.webcontainer.RenderContext, 
+         *      nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public boolean canRenderProperty(RenderContext rc, ServerComponentUpdate update) {
+            return true;
+        }
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#renderProperty(
+         *      nextapp.echo2.webcontainer.RenderContext, nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public void renderProperty(RenderContext rc, ServerComponentUpdate update) {
+            Grid grid = (Grid) update.getParent();
+            Insets gridInsets = (Insets) grid.getRenderProperty(Grid.PROPERTY_INSETS);
+            String paddingValue = gridInsets == null ? "0px" : InsetsRender.renderCssAttributeValue(gridInsets);
+            int componentCount = grid.getVisibleComponentCount();
+            for (int i = 0; i < componentCount; ++i) {
+                Component cell = grid.getVisibleComponent(i);
+                GridLayoutData layoutData = getLayoutData(cell);
+                if (layoutData == null || layoutData.getInsets() == null) {
+                    DomUpdate.renderStyleUpdate(rc.getServerMessage(), getContainerId(cell), "padding", paddingValue);
+                }
+            }
+        }
+    }
+    
+    /**
+     * <code>RenderState</code> retaining the calculated layout of a 
+     * <code>Grid</code>, such that it need not be recalculated when the
+     * <code>Grid</code> is re-rendered without changes affecting its layout.
+     */
+    private static class GridPeerRenderState
+    implements DiscardableRenderState {
+        
+        /**
+         * The <code>GridProcessor</code> of the last rendering.
+         */
+        private GridProcessor gridProcessor;
+    }
+    
+    private PartialUpdateManager partialUpdateManager;
+    
+    /**
+     * Default constructor.
+     */
+    public GridPeer() {
+        super();
+        partialUpdateManager = new PartialUpdateManager();
+        partialUpdateManager.add(Grid.PROPERTY_FOREGROUND, new ColorUpdate(Grid.PROPERTY_FOREGROUND, null, 
+                ColorUpdate.CSS_COLOR));
+        partialUpdateManager.add(Grid.PROPERTY_BACKGROUND, new ColorUpdate(Grid.PROPERTY_BACKGROUND, null, 
+                ColorUpdate.CSS_BACKGROUND_COLOR));
+        partialUpdateManager.add(Grid.PROPERTY_FONT, new FontUpdate(Grid.PROPERTY_FONT, null));
+        partialUpdateManager.add(Grid.PROPERTY_BORDER, new BorderUpdate());
+        partialUpdateManager.add(Grid.PROPERTY_INSETS, new InsetsUpdate());
+    }
+    
     /**
      * @see nextapp.echo2.webcontainer.ComponentSynchronizePeer#getContainerId(nextapp.echo2.app.Component)
      */
@@ -94,6 +208,30 @@ implements ComponentSynchronizePeer, DomUpdateSupport, ImageRenderSupport {
         return CellLayoutDataRender.getCellLayoutDataBackgroundImage(component, imageId);
     }
 
+    /**
+     * Returns a <code>GridProcessor</code> describing the layout of a
+     * <code>Grid</code>.  The <code>GridProcessor</code> of the previous
+     * rendering is reused if its layout remains valid, otherwise the layout
+     * is recalculated.
+     * 
+     * @param rc the relevant <code>RenderContext</code>
+     * @param grid the <code>Grid</code>
+     * @return the <code>GridProcessor</code>
+     */
+    private GridProcessor getGridProcessor(RenderContext rc, Grid grid) {
+        GridPeerRenderState renderState = (GridPeerRenderState) rc.getContainerInstance().getRenderState(grid);
+        if (renderState == null) {
+            renderState = new GridPeerRenderState();
+            rc.getContainerInstance().setRenderState(grid, renderState);
+        }
+        if (renderState.gridProcessor != null && renderState.gridProcessor.isValid()) {
+            renderState.gridProcessor.calculateExtents();
+        } else {
+            renderState.gridProcessor = new GridProcessor(grid);
+        }
+        return renderState.gridProcessor;
+    }
+    
     /**
      * Returns the <code>GridLayoutData</code> of the given child,
      * or null if it does not provide layout data.
@@ -157,7 +295,7 @@ implements ComponentSynchronizePeer, DomUpdateSupport, ImageRenderSupport {
         Grid grid = (Grid) component;
         Border border = (Border) grid.getRenderProperty(Grid.PROPERTY_BORDER);
         String elementId = ContainerInstance.getElementId(grid);
-        GridProcessor gridProcessor = new GridProcessor(grid);
+        GridProcessor gridProcessor = getGridProcessor(rc, grid);
         int columnCount = gridProcessor.getColumnCount(); 
         int rowCount = gridProcessor.getRowCount();
         
@@ -284,6 +422,12 @@ implements ComponentSynchronizePeer, DomUpdateSupport, ImageRenderSupport {
      *      nextapp.echo2.app.update.ServerComponentUpdate, java.lang.String)
      */
     public boolean renderUpdate(RenderContext rc, ServerComponentUpdate update, String targetId) {
+        if (!update.hasAddedChildren() && !update.hasRemovedChildren() && !update.hasUpdatedLayoutDataChildren()
+                && partialUpdateManager.canProcess(rc, update)) {
+            // Perform incremental update, children are updated individually.
+            partialUpdateManager.process(rc, update);
+            return false;
+        }
         String parentId = ContainerInstance.getElementId(update.getParent());
         DomUpdate.renderElementRemove(rc.getServerMessage(), parentId);
         renderAdd(rc, update, targetId, update.getParent());
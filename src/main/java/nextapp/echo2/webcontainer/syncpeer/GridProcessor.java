@@ -27,6 +27,7 @@
 
 package nextapp.echo2.webcontainer.syncpeer;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
@@ -59,17 +60,26 @@ import nextapp.echo2.app.layout.GridLayoutData;
  * of the <code>Component</code> within its parent <code>Grid</code>'s 
  * children.
  * <p>
+ * A <code>GridProcessor</code> may be retained between renderings, such 
+ * that the layout need not be recalculated if the <code>Grid</code> has 
+ * not changed in a manner affecting it.  <code>isValid()</code> determines
+ * whether the calculated layout remains valid, in which case
+ * <code>calculateExtents()</code> refreshes the column widths and row
+ * heights.
+ * <p>
  * This class should not be extended or used by classes outside of the Echo
  * framework.
  */
-public class GridProcessor {
+public class GridProcessor 
+implements Serializable {
     
     private static final Integer DEFAULT_SIZE = new Integer(Grid.DEFAULT_SIZE);
     
     /**
      * Internal representation of a rendered cell at a specific coordinate.
      */
-    private class Cell {
+    private static class Cell 
+    implements Serializable {
         
         /**
          * Creates a new <code>Cell</code>.
@@ -140,6 +150,36 @@ public class GridProcessor {
      */
     private boolean horizontalOrientation;
     
+    /**
+     * The size of the x-axis specified by the <code>size</code> property of
+     * the <code>Grid</code>.
+     */
+    private int size;
+    
+    /**
+     * The visible children of the <code>Grid</code> at the time the layout 
+     * was calculated.
+     */
+    private Component[] children;
+    
+    /**
+     * The x- and y-spans specified by the layout data of each of 
+     * <code>children</code>, at even and odd indices respectively.
+     */
+    private int[] spans;
+    
+    /** The size of the x-axis prior to reduction. */
+    private int unreducedXSize;
+    
+    /** The size of the y-axis prior to reduction. */
+    private int unreducedYSize;
+    
+    /** Indices of the x-axis removed by reduction. */
+    private BitSet xRemoves;
+
+    /** Indices of the y-axis removed by reduction. */
+    private BitSet yRemoves;
+    
     /**
      * Creates a new <code>GridProcessor</code> for the specified
      * <code>Grid</code>. Creating a new <code>GridProcessor</code> will
@@ -153,40 +193,71 @@ public class GridProcessor {
         super();
         this.grid = grid;
         cellArrays = new ArrayList();
-        
-        Integer orientationValue = (Integer) grid.getRenderProperty(Grid.PROPERTY_ORIENTATION);
-        int orientation = orientationValue == null ? Grid.ORIENTATION_HORIZONTAL : orientationValue.intValue();
-        horizontalOrientation = orientation != Grid.ORIENTATION_VERTICAL;
+        horizontalOrientation = isHorizontalOrientation();
+        size = getSize();
+        xRemoves = new BitSet();
+        yRemoves = new BitSet();
         
         Cell[] cells = createCells();
         if (cells == null) {
             // Special case: empty Grid.
             gridXSize = 0;
             gridYSize = 0;
+            calculateExtents();
             return;
         }
         renderCellMatrix(cells);
-        
-        calculateExtents();
+        unreducedXSize = gridXSize;
+        unreducedYSize = gridYSize;
         
         reduceY();
         reduceX();
         trimX();
+        
+        calculateExtents();
     }
     
-    private void calculateExtents() {
+    /**
+     * Calculates the dimensions of each array of cells on the x- and y-axes,
+     * merging the dimensions of indices removed by reduction into those of
+     * the retained indices over which their cells span.
+     * This method may be invoked to refresh the dimensions of a retained
+     * <code>GridProcessor</code> whose layout remains valid, as the 
+     * column width and row height properties do not affect the layout.
+     */
+    public void calculateExtents() {
         String xProperty = horizontalOrientation ? Grid.PROPERTY_COLUMN_WIDTH : Grid.PROPERTY_ROW_HEIGHT;
         String yProperty = horizontalOrientation ? Grid.PROPERTY_ROW_HEIGHT : Grid.PROPERTY_COLUMN_WIDTH;
-        
-        xExtents = new ArrayList();
-        for (int i = 0; i < gridXSize; ++i) {
-            xExtents.add(grid.getRenderIndexedProperty(xProperty, i));
+        xExtents = calculateExtents(xProperty, unreducedXSize, xRemoves);
+        yExtents = calculateExtents(yProperty, unreducedYSize, yRemoves);
+    }
+    
+    /**
+     * Calculates the dimensions of each array of cells on a single axis.
+     * 
+     * @param propertyName the name of the indexed <code>Grid</code> property
+     *        specifying the dimensions
+     * @param unreducedSize the size of the axis prior to reduction
+     * @param removes the indices of the axis removed by reduction
+     * @return a <code>List</code> of the calculated <code>Extent</code>s
+     */
+    private List calculateExtents(String propertyName, int unreducedSize, BitSet removes) {
+        List extents = new ArrayList();
+        for (int i = 0; i < unreducedSize; ++i) {
+            extents.add(grid.getRenderIndexedProperty(propertyName, i));
         }
-        
-        yExtents = new ArrayList();
-        for (int i = 0; i < gridYSize; ++i) {
-            yExtents.add(grid.getRenderIndexedProperty(yProperty, i));
+        for (int removed = unreducedSize - 1; removed >= 0; --removed) {
+            if (!removes.get(removed)) {
+                continue;
+            }
+            Extent retainedExtent = (Extent) extents.get(removed - 1);
+            Extent removedExtent = (Extent) extents.get(removed);
+            extents.remove(removed);
+            if (removedExtent != null) {
+                extents.set(removed - 1, Extent.add(removedExtent, retainedExtent));
+            }
         }
+        return extents;
     }
     
     /**
@@ -197,25 +268,22 @@ public class GridProcessor {
      * @return the array of <code>Cell</code>s
      */
     private Cell[] createCells() {
-        Component[] children = grid.getVisibleComponents();
+        int childCount = grid.getVisibleComponentCount();
+        children = new Component[childCount];
+        spans = new int[childCount * 2];
         
-        if (children.length == 0) {
+        if (childCount == 0) {
             // Abort if Grid is empty.
             return null;
         }
 
-        Cell[] cells = new Cell[children.length];
+        Cell[] cells = new Cell[childCount];
 
-        for (int i = 0; i < children.length; ++i) {
-            LayoutData layoutData = (LayoutData) children[i].getRenderProperty(Grid.PROPERTY_LAYOUT_DATA);
-            if (layoutData instanceof GridLayoutData) {
-                GridLayoutData gcLayoutData = (GridLayoutData) layoutData;
-                int xSpan = horizontalOrientation ? gcLayoutData.getColumnSpan() : gcLayoutData.getRowSpan();
-                int ySpan = horizontalOrientation ? gcLayoutData.getRowSpan() : gcLayoutData.getColumnSpan();
-                cells[i] = new Cell(children[i], i, xSpan, ySpan);
-            } else {
-                cells[i] = new Cell(children[i], i, 1, 1);
-            }
+        for (int i = 0; i < childCount; ++i) {
+            Component child = grid.getVisibleComponent(i);
+            children[i] = child;
+            storeSpans(child, spans, i);
+            cells[i] = new Cell(child, i, spans[i * 2], spans[i * 2 + 1]);
         }
         return cells;
     }
@@ -284,6 +352,16 @@ public class GridProcessor {
         return horizontalOrientation ? gridXSize : gridYSize;
     }
     
+    /**
+     * Returns the size of the x-axis specified by the <code>size</code> 
+     * property of the <code>Grid</code>.
+     * 
+     * @return the size
+     */
+    private int getSize() {
+        return ((Integer) grid.getRenderProperty(Grid.PROPERTY_SIZE, DEFAULT_SIZE)).intValue();
+    }
+    
     /**
      * Returns the number of rows that should be rendered.
      * 
@@ -349,13 +427,55 @@ public class GridProcessor {
         }
     }
 
+    /**
+     * Determines whether the <code>Grid</code> currently has a horizontal 
+     * orientation.
+     * 
+     * @return true if the orientation is horizontal
+     */
+    private boolean isHorizontalOrientation() {
+        Integer orientationValue = (Integer) grid.getRenderProperty(Grid.PROPERTY_ORIENTATION);
+        int orientation = orientationValue == null ? Grid.ORIENTATION_HORIZONTAL : orientationValue.intValue();
+        return orientation != Grid.ORIENTATION_VERTICAL;
+    }
+    
+    /**
+     * Determines whether the calculated layout remains valid for the current
+     * state of the <code>Grid</code>.  The layout is invalidated by changes
+     * to the visible children of the <code>Grid</code>, to the spans of 
+     * their <code>GridLayoutData</code>, or to the <code>size</code> or 
+     * <code>orientation</code> properties of the <code>Grid</code>.
+     * 
+     * @return true if the layout remains valid
+     */
+    public boolean isValid() {
+        if (horizontalOrientation != isHorizontalOrientation() || size != getSize()) {
+            return false;
+        }
+        int childCount = grid.getVisibleComponentCount();
+        if (childCount != children.length) {
+            return false;
+        }
+        int[] currentSpans = new int[2];
+        for (int i = 0; i < childCount; ++i) {
+            Component child = grid.getVisibleComponent(i);
+            if (child != children[i]) {
+                return false;
+            }
+            storeSpans(child, currentSpans, 0);
+            if (currentSpans[0] != spans[i * 2] || currentSpans[1] != spans[i * 2 + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
     /**
      * Remove duplicates from the x-axis where all cells simply
      * "span over" a given x-axis coordinate. 
      */
     private void reduceX() {
         // Determine duplicate cell sets on x-axis.
-        BitSet xRemoves = new BitSet();
         int x = 1;
         int length = getCellArray(0, false).length;
         while (x  < length) {
@@ -397,14 +517,6 @@ public class GridProcessor {
                 }
             }
             
-            // Calculate Extent-size of merged indices.
-            Extent retainedExtent = (Extent) xExtents.get(removedX - 1);
-            Extent removedExtent = (Extent) xExtents.get(removedX);
-            xExtents.remove(removedX);
-            if (removedExtent != null) {
-                xExtents.set(removedX - 1, Extent.add(removedExtent, retainedExtent));
-            }
-            
             --gridXSize;
         }
     }
@@ -415,7 +527,6 @@ public class GridProcessor {
      */
     private void reduceY() {
         // Determine duplicate cell sets on y-axis.
-        BitSet yRemoves = new BitSet();
         int y = 1;
         
         int size = cellArrays.size();
@@ -467,14 +578,6 @@ public class GridProcessor {
             
             // Remove the duplicate cell array.
             cellArrays.remove(removedY);
-            
-            // Calculate Extent-size of merged indices.
-            Extent retainedExtent = (Extent) yExtents.get(removedY - 1);
-            Extent removedExtent = (Extent) yExtents.get(removedY);
-            yExtents.remove(removedY);
-            if (removedExtent != null) {
-                yExtents.set(removedY - 1, Extent.add(removedExtent, retainedExtent));
-            }
 
             // Decrement the grid size to reflect cell array removal.
             --gridYSize;
@@ -489,7 +592,7 @@ public class GridProcessor {
      * @param cells the grid cells
      */
     private void renderCellMatrix(Cell[] cells) {
-        gridXSize = ((Integer) grid.getRenderProperty(Grid.PROPERTY_SIZE, DEFAULT_SIZE)).intValue();
+        gridXSize = size;
         
         int x = 0, y = 0;
         Cell[] yCells = getCellArray(y, true);
@@ -552,6 +655,27 @@ public class GridProcessor {
         gridYSize = cellArrays.size();
     }
     
+    /**
+     * Stores the x- and y-spans specified by the layout data of a child 
+     * <code>Component</code>.
+     * 
+     * @param child the child <code>Component</code>
+     * @param spanArray the array in which to store the spans
+     * @param index the index of the child, the spans are stored at
+     *        <code>index * 2</code> and <code>index * 2 + 1</code>
+     */
+    private void storeSpans(Component child, int[] spanArray, int index) {
+        LayoutData layoutData = (LayoutData) child.getRenderProperty(Grid.PROPERTY_LAYOUT_DATA);
+        if (layoutData instanceof GridLayoutData) {
+            GridLayoutData gcLayoutData = (GridLayoutData) layoutData;
+            spanArray[index * 2] = horizontalOrientation ? gcLayoutData.getColumnSpan() : gcLayoutData.getRowSpan();
+            spanArray[index * 2 + 1] = horizontalOrientation ? gcLayoutData.getRowSpan() : gcLayoutData.getColumnSpan();
+        } else {
+            spanArray[index * 2] = 1;
+            spanArray[index * 2 + 1] = 1;
+        }
+    }
+    
     /**
      * Special case: Trim excess null cells from Grid x-size if the 
      * Grid y-size is 1.
@@ -36,12 +36,19 @@ import nextapp.echo2.app.Extent;
 import nextapp.echo2.app.Font;
 import nextapp.echo2.app.ImageReference;
 import nextapp.echo2.app.Label;
+import nextapp.echo2.app.update.PropertyUpdate;
 import nextapp.echo2.app.update.ServerComponentUpdate;
 import nextapp.echo2.webcontainer.ContainerInstance;
 import nextapp.echo2.webcontainer.DomUpdateSupport;
+import nextapp.echo2.webcontainer.PartialUpdateManager;
+import nextapp.echo2.webcontainer.PartialUpdateParticipant;
 import nextapp.echo2.webcontainer.RenderContext;
+import nextapp.echo2.webcontainer.RenderFingerprint;
 import nextapp.echo2.webcontainer.ComponentSynchronizePeer;
 import nextapp.echo2.webcontainer.image.ImageRenderSupport;
+import nextapp.echo2.webcontainer.image.ImageTools;
+import nextapp.echo2.webcontainer.partialupdate.ColorUpdate;
+import nextapp.echo2.webcontainer.partialupdate.FontUpdate;
 import nextapp.echo2.webcontainer.propertyrender.AlignmentRender;
 import nextapp.echo2.webcontainer.propertyrender.ColorRender;
 import nextapp.echo2.webcontainer.propertyrender.FontRender;
@@ -69,6 +76,134 @@ implements DomUpdateSupport, ImageRenderSupport, ComponentSynchronizePeer {
     private static final Extent DEFAULT_ICON_TEXT_MARGIN = new Extent(3);
     private static final String IMAGE_ID_ICON = "icon";
     
+    /**
+     * Determines whether an update to a property replaces a non-null value
+     * with another non-null value, such that the structure of the rendered
+     * HTML is not affected by the update.
+     * 
+     * @param update the update
+     * @param propertyName the name of the property
+     * @return true if the property value was replaced
+     */
+    private static boolean isValueReplaced(ServerComponentUpdate update, String propertyName) {
+        PropertyUpdate propertyUpdate = update.getUpdatedProperty(propertyName);
+        return propertyUpdate != null && propertyUpdate.getOldValue() != null && propertyUpdate.getNewValue() != null;
+    }
+    
+    /**
+     * <code>PartialUpdateParticipant</code> to update the text of a label.
+     */
+    private class TextUpdate 
+    implements PartialUpdateParticipant {
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#canRenderProperty(nextapp.echo2.webcontainer.RenderContext, 
+         *      nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public boolean canRenderProperty(RenderContext rc, ServerComponentUpdate update) {
+            return isValueReplaced(update, Label.PROPERTY_TEXT);
+        }
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#renderProperty(
+         *      nextapp.echo2.webcontainer.RenderContext, nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public void renderProperty(RenderContext rc, ServerComponentUpdate update) {
+            Component label = update.getParent();
+            String elementId = ContainerInstance.getElementId(label);
+            if (label.getRenderProperty(Label.PROPERTY_ICON) != null) {
+                // Text is rendered in cell 0 of a TriCellTable.
+                elementId += "_td_0";
+            }
+            DomUpdate.renderTextUpdate(rc.getServerMessage(), elementId, 
+                    (String) label.getRenderProperty(Label.PROPERTY_TEXT));
+        }
+    }
+    
+    /**
+     * <code>PartialUpdateParticipant</code> to update the icon of a label.
+     */
+    private class IconUpdate 
+    implements PartialUpdateParticipant {
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#canRenderProperty(nextapp.echo2.webcontainer.RenderContext, 
+         *      nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public boolean canRenderProperty(RenderContext rc, ServerComponentUpdate update) {
+            return isValueReplaced(update, Label.PROPERTY_ICON);
+        }
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#renderProperty(
+         *      nextapp.echo2.webcontainer.RenderContext, nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public void renderProperty(RenderContext rc, ServerComponentUpdate update) {
+            Component label = update.getParent();
+            String elementId = ContainerInstance.getElementId(label);
+            if (label.getRenderProperty(Label.PROPERTY_TEXT) != null) {
+                elementId += "_icon";
+            }
+            DomUpdate.renderAttributeUpdate(rc.getServerMessage(), elementId, "src", 
+                    ImageTools.getUri(rc, LabelPeer.this, label, IMAGE_ID_ICON));
+        }
+    }
+    
+    /**
+     * <code>PartialUpdateParticipant</code> which updates a style of a 
+     * label that renders text.  Such styles are not rendered for labels 
+     * containing only an icon, in which case a full update is performed.
+     */
+    private static class TextStyleUpdate 
+    implements PartialUpdateParticipant {
+        
+        private PartialUpdateParticipant styleUpdate;
+        
+        /**
+         * Creates a new <code>TextStyleUpdate</code>.
+         * 
+         * @param styleUpdate the participant which renders the style
+         */
+        private TextStyleUpdate(PartialUpdateParticipant styleUpdate) {
+            super();
+            this.styleUpdate = styleUpdate;
+        }
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#canRenderProperty(nextapp.echo2.webcontainer.RenderContext, 
+         *      nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public boolean canRenderProperty(RenderContext rc, ServerComponentUpdate update) {
+            return update.getParent().getRenderProperty(Label.PROPERTY_TEXT) != null 
+                    && styleUpdate.canRenderProperty(rc, update);
+        }
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#renderProperty(
+         *      nextapp.echo2.webcontainer.RenderContext, nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public void renderProperty(RenderContext rc, ServerComponentUpdate update) {
+            styleUpdate.renderProperty(rc, update);
+        }
+    }
+    
+    private PartialUpdateManager partialUpdateManager;
+    
+    /**
+     * Default constructor.
+     */
+    public LabelPeer() {
+        super();
+        partialUpdateManager = new PartialUpdateManager();
+        partialUpdateManager.add(Label.PROPERTY_TEXT, new TextUpdate());
+        partialUpdateManager.add(Label.PROPERTY_ICON, new IconUpdate());
+        partialUpdateManager.add(Label.PROPERTY_FOREGROUND, new TextStyleUpdate(new ColorUpdate(Label.PROPERTY_FOREGROUND, 
+                null, ColorUpdate.CSS_COLOR)));
+        partialUpdateManager.add(Label.PROPERTY_BACKGROUND, new TextStyleUpdate(new ColorUpdate(Label.PROPERTY_BACKGROUND, 
+                null, ColorUpdate.CSS_BACKGROUND_COLOR)));
+        partialUpdateManager.add(Label.PROPERTY_FONT, new TextStyleUpdate(new FontUpdate(Label.PROPERTY_FONT, null)));
+    }
+    
     /**
      * @see nextapp.echo2.webcontainer.ComponentSynchronizePeer#renderAdd(nextapp.echo2.webcontainer.RenderContext, 
      *      nextapp.echo2.app.update.ServerComponentUpdate, java.lang.String, nextapp.echo2.app.Component)
@@ -112,7 +247,24 @@ implements DomUpdateSupport, ImageRenderSupport, ComponentSynchronizePeer {
      *      nextapp.echo2.app.update.ServerComponentUpdate, org.w3c.dom.Node, nextapp.echo2.app.Component)
      */
     public void renderHtml(RenderContext rc, ServerComponentUpdate update, Node parentNode, Component component) {
-        Label label = (Label) component;
+        if (rc.getContainerInstance().isRenderFingerprintEnabled()) {
+            DocumentFragment htmlFragment = parentNode.getOwnerDocument().createDocumentFragment();
+            renderLabel(rc, htmlFragment, (Label) component);
+            RenderFingerprint.storeFingerprint(rc.getContainerInstance(), component, RenderFingerprint.create(htmlFragment));
+            parentNode.appendChild(htmlFragment);
+        } else {
+            renderLabel(rc, parentNode, (Label) component);
+        }
+    }
+    
+    /**
+     * Renders the HTML of a label.
+     * 
+     * @param rc the relevant <code>RenderContext</code>
+     * @param parentNode the parent node
+     * @param label the <code>Label</code>
+     */
+    private void renderLabel(RenderContext rc, Node parentNode, Label label) {
         ImageReference icon = (ImageReference) label.getRenderProperty(Label.PROPERTY_ICON);
         String text = (String) label.getRenderProperty(Label.PROPERTY_TEXT);
         
@@ -181,6 +333,7 @@ implements DomUpdateSupport, ImageRenderSupport, ComponentSynchronizePeer {
         DomUtil.setElementText(textTdElement, text);
  
         Element imgElement = ImageReferenceRender.renderImageReferenceElement(rc, this, label, IMAGE_ID_ICON);
+        imgElement.setAttribute("id", elementId + "_icon");
         Element iconTdElement = tct.getTdElement(1);
         iconTdElement.appendChild(imgElement);
         
@@ -242,6 +395,23 @@ implements DomUpdateSupport, ImageRenderSupport, ComponentSynchronizePeer {
      * nextapp.echo2.app.update.ServerComponentUpdate, java.lang.String)
      */
     public boolean renderUpdate(RenderContext rc, ServerComponentUpdate update, String targetId) {
+        if (rc.getContainerInstance().isRenderFingerprintEnabled()) {
+            Component label = update.getParent();
+            RenderFingerprint previous = RenderFingerprint.getFingerprint(rc.getContainerInstance(), label);
+            DocumentFragment htmlFragment = rc.getServerMessage().getDocument().createDocumentFragment();
+            renderHtml(rc, update, htmlFragment, label);
+            RenderFingerprint current = RenderFingerprint.getFingerprint(rc.getContainerInstance(), label);
+            if (current == null || current == previous || !current.renderDelta(rc.getServerMessage(), previous)) {
+                DomUpdate.renderElementRemove(rc.getServerMessage(), ContainerInstance.getElementId(label));
+                Element domAddElement = DomUpdate.renderElementAdd(rc.getServerMessage());
+                DomUpdate.renderElementAddContent(rc.getServerMessage(), domAddElement, targetId, htmlFragment);
+            }
+            return false;
+        }
+        if (partialUpdateManager.canProcess(rc, update)) {
+            partialUpdateManager.process(rc, update);
+            return false;
+        }
         DomUpdate.renderElementRemove(rc.getServerMessage(), ContainerInstance.getElementId(update.getParent()));
         renderAdd(rc, update, targetId, update.getParent());
         return false;
@@ -29,9 +29,13 @@
 
 package nextapp.echo2.webcontainer.syncpeer;
 
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -53,8 +57,11 @@ import nextapp.echo2.webcontainer.ComponentSynchronizePeer;
 import nextapp.echo2.webcontainer.ContainerInstance;
 import nextapp.echo2.webcontainer.FocusSupport;
 import nextapp.echo2.webcontainer.PartialUpdateManager;
+import nextapp.echo2.webcontainer.PartialUpdateParticipant;
 import nextapp.echo2.webcontainer.PropertyUpdateProcessor;
 import nextapp.echo2.webcontainer.RenderContext;
+import nextapp.echo2.webcontainer.RenderState;
+import nextapp.echo2.webcontainer.StreamingPropertyUpdateProcessor;
 import nextapp.echo2.webcontainer.propertyrender.BorderRender;
 import nextapp.echo2.webcontainer.propertyrender.ColorRender;
 import nextapp.echo2.webcontainer.propertyrender.ExtentRender;
@@ -69,6 +76,7 @@ import nextapp.echo2.webrender.servermessage.DomUpdate;
 import nextapp.echo2.webrender.servermessage.WindowUpdate;
 import nextapp.echo2.webrender.service.JavaScriptService;
 import nextapp.echo2.webrender.util.DomUtil;
+import nextapp.echo2.webrender.util.XmlStreamUtil;
 
 /**
  * <code>ComponentSynchronizePeer</code> implementation for 
@@ -84,7 +92,7 @@ import nextapp.echo2.webrender.util.DomUtil;
  * Echo framework.
  */
 public class ListComponentPeer 
-implements ActionProcessor, ComponentSynchronizePeer, FocusSupport, PropertyUpdateProcessor {
+implements ActionProcessor, ComponentSynchronizePeer, FocusSupport, StreamingPropertyUpdateProcessor {
 
     /**
      * Service to provide supporting JavaScript library.
@@ -215,6 +223,115 @@ implements ActionProcessor, ComponentSynchronizePeer, FocusSupport, PropertyUpda
             return true;
         }
     }
+    
+    /**
+     * <code>RenderState</code> implementation.
+     */
+    private static class ListComponentRenderState 
+    implements RenderState {
+        
+        /**
+         * Flag indicating whether the component was rendered to allow 
+         * multiple selection.
+         */
+        private boolean multipleSelect;
+        
+        /**
+         * The selection state of the component on the client, as last 
+         * rendered or as last reported by the client.
+         */
+        private BitSet selection;
+    }
+    
+    /**
+     * <code>PartialUpdateParticipant</code> to render only the indices 
+     * whose selection state differs from that known to the client.
+     */
+    private class SelectionUpdate 
+    implements PartialUpdateParticipant {
+
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#canRenderProperty(
+         *      nextapp.echo2.webcontainer.RenderContext, nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public boolean canRenderProperty(RenderContext rc, ServerComponentUpdate update) {
+            AbstractListComponent listComponent = (AbstractListComponent) update.getParent();
+            ListComponentRenderState renderState 
+                    = (ListComponentRenderState) rc.getContainerInstance().getRenderState(listComponent);
+            return renderState != null && renderState.multipleSelect == isMultipleSelect(listComponent);
+        }
+
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#renderProperty(
+         *      nextapp.echo2.webcontainer.RenderContext, nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public void renderProperty(RenderContext rc, ServerComponentUpdate update) {
+            AbstractListComponent listComponent = (AbstractListComponent) update.getParent();
+            ListComponentRenderState renderState 
+                    = (ListComponentRenderState) rc.getContainerInstance().getRenderState(listComponent);
+            BitSet selection = getSelection(listComponent, renderState.multipleSelect);
+            BitSet changed = (BitSet) selection.clone();
+            changed.xor(renderState.selection);
+            if (changed.length() == 0) {
+                return;
+            }
+            
+            ServerMessage serverMessage = rc.getServerMessage();
+            serverMessage.addLibrary(LIST_COMPONENT_SERVICE.getId());
+            Document document = serverMessage.getDocument();
+            Element updateSelectionElement = serverMessage.appendPartDirective(ServerMessage.GROUP_ID_UPDATE, 
+                    "EchoListComponent.MessageProcessor", "update-selection");
+            updateSelectionElement.setAttribute("eid", ContainerInstance.getElementId(listComponent));
+            for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+                Element itemElement = document.createElement("item");
+                itemElement.setAttribute("index", Integer.toString(i));
+                itemElement.setAttribute("selected", selection.get(i) ? "true" : "false");
+                updateSelectionElement.appendChild(itemElement);
+            }
+            renderState.selection = selection;
+        }
+    }
+    
+    /**
+     * Returns the selection state of a list component, as it is rendered to
+     * the client.
+     * 
+     * @param listComponent the list component
+     * @param multipleSelect flag indicating whether the component is rendered
+     *        to allow multiple selection, such that only the minimum selected
+     *        index is rendered if false
+     * @return a <code>BitSet</code> containing the selected indices
+     */
+    private static BitSet getSelection(AbstractListComponent listComponent, boolean multipleSelect) {
+        BitSet selection = new BitSet();
+        ListSelectionModel selectionModel = listComponent.getSelectionModel();
+        int minIndex = selectionModel.getMinSelectedIndex();
+        if (minIndex >= 0) {
+            if (multipleSelect) {
+                int maxIndex = selectionModel.getMaxSelectedIndex();
+                for (int i = minIndex; i <= maxIndex; ++i) {
+                    if (selectionModel.isSelectedIndex(i)) {
+                        selection.set(i);
+                    }
+                }
+            } else {
+                selection.set(minIndex);
+            }
+        }
+        return selection;
+    }
+    
+    /**
+     * Determines whether a list component is rendered to allow multiple 
+     * selection.
+     * 
+     * @param listComponent the list component
+     * @return true if multiple selection is allowed
+     */
+    private static boolean isMultipleSelect(AbstractListComponent listComponent) {
+        return listComponent instanceof ListBox 
+                && ((ListBox) listComponent).getSelectionMode() == ListSelectionModel.MULTIPLE_SELECTION;
+    }
 
     /**
      * Default constructor.
@@ -222,6 +339,7 @@ implements ActionProcessor, ComponentSynchronizePeer, FocusSupport, PropertyUpda
     public ListComponentPeer() {
         super();
         partialUpdateManager = new PartialUpdateManager();   
+        partialUpdateManager.add(AbstractListComponent.SELECTION_CHANGED_PROPERTY, new SelectionUpdate());
     }
 
     /**
@@ -332,11 +450,66 @@ implements ActionProcessor, ComponentSynchronizePeer, FocusSupport, PropertyUpda
             for (int i = 0; i < itemElements.length; ++i) {
                 selectedIndices[i] = Integer.parseInt(itemElements[i].getAttribute("index"));
             }
+            storeClientSelection(ci, component, selectedIndices);
             ci.getUpdateManager().getClientUpdateManager().setComponentProperty(component, 
                     AbstractListComponent.SELECTION_CHANGED_PROPERTY, selectedIndices);
         }
     }
 
+    /**
+     * @see nextapp.echo2.webcontainer.StreamingPropertyUpdateProcessor#processPropertyUpdate(
+     *      nextapp.echo2.webcontainer.ContainerInstance,
+     *      nextapp.echo2.app.Component, javax.xml.stream.XMLStreamReader)
+     */
+    public void processPropertyUpdate(ContainerInstance ci, Component component, XMLStreamReader reader)
+    throws XMLStreamException {
+        String propertyName = XmlStreamUtil.getAttribute(reader, PropertyUpdateProcessor.PROPERTY_NAME);
+        if (PROPERTY_SELECTION.equals(propertyName)) {
+            int[] selectedIndices = new int[16];
+            int selectedCount = 0;
+            while (XmlStreamUtil.nextChildElement(reader)) {
+                if ("item".equals(reader.getLocalName())) {
+                    if (selectedCount == selectedIndices.length) {
+                        int[] newIndices = new int[selectedIndices.length * 2];
+                        System.arraycopy(selectedIndices, 0, newIndices, 0, selectedCount);
+                        selectedIndices = newIndices;
+                    }
+                    selectedIndices[selectedCount++] = Integer.parseInt(XmlStreamUtil.getAttribute(reader, "index"));
+                }
+                XmlStreamUtil.skipElement(reader);
+            }
+            if (selectedCount != selectedIndices.length) {
+                int[] trimmedIndices = new int[selectedCount];
+                System.arraycopy(selectedIndices, 0, trimmedIndices, 0, selectedCount);
+                selectedIndices = trimmedIndices;
+            }
+            storeClientSelection(ci, component, selectedIndices);
+            ci.getUpdateManager().getClientUpdateManager().setComponentProperty(component, 
+                    AbstractListComponent.SELECTION_CHANGED_PROPERTY, selectedIndices);
+        }
+    }
+    
+    /**
+     * Records the selection state reported by the client in the component's
+     * <code>RenderState</code>, such that later selection updates are 
+     * rendered relative to it.
+     * 
+     * @param ci the relevant <code>ContainerInstance</code>
+     * @param component the list component
+     * @param selectedIndices the indices selected on the client
+     */
+    private void storeClientSelection(ContainerInstance ci, Component component, int[] selectedIndices) {
+        ListComponentRenderState renderState = (ListComponentRenderState) ci.getRenderState(component);
+        if (renderState == null) {
+            return;
+        }
+        BitSet selection = new BitSet();
+        for (int i = 0; i < selectedIndices.length; ++i) {
+            selection.set(selectedIndices[i]);
+        }
+        renderState.selection = selection;
+    }
+
     /**
      * @see nextapp.echo2.webcontainer.ComponentSynchronizePeer#renderAdd(
      *      nextapp.echo2.webcontainer.RenderContext, nextapp.echo2.app.update.ServerComponentUpdate, 
@@ -489,24 +662,25 @@ implements ActionProcessor, ComponentSynchronizePeer, FocusSupport, PropertyUpda
         }
         
         // Render selection state.
-        ListSelectionModel selectionModel = listComponent.getSelectionModel();
-        int minIndex = selectionModel.getMinSelectedIndex();
-        if (minIndex >= 0) {
+        BitSet selection = getSelection(listComponent, multipleSelect);
+        if (selection.length() > 0) {
             if (multipleSelect) {
                 Element selectionElement = document.createElement("selection");
-                int maxIndex = selectionModel.getMaxSelectedIndex();
-                for (int i = minIndex; i <= maxIndex; ++i) {
-                    if (selectionModel.isSelectedIndex(i)) {
-                        Element itemElement = document.createElement("item");
-                        itemElement.setAttribute("index", Integer.toString(i));
-                        selectionElement.appendChild(itemElement);
-                    }
+                for (int i = selection.nextSetBit(0); i >= 0; i = selection.nextSetBit(i + 1)) {
+                    Element itemElement = document.createElement("item");
+                    itemElement.setAttribute("index", Integer.toString(i));
+                    selectionElement.appendChild(itemElement);
                 }
                 initElement.appendChild(selectionElement);
             } else {
-                initElement.setAttribute("selection-index", Integer.toString(minIndex));
+                initElement.setAttribute("selection-index", Integer.toString(selection.nextSetBit(0)));
             }
         }
+        
+        ListComponentRenderState renderState = new ListComponentRenderState();
+        renderState.multipleSelect = multipleSelect;
+        renderState.selection = selection;
+        rc.getContainerInstance().setRenderState(listComponent, renderState);
     }
     
     /**
@@ -56,6 +56,7 @@ import nextapp.echo2.webcontainer.SynchronizePeerFactory;
 import nextapp.echo2.webcontainer.image.ImageRenderSupport;
 import nextapp.echo2.webcontainer.partialupdate.BorderUpdate;
 import nextapp.echo2.webcontainer.partialupdate.ColorUpdate;
+import nextapp.echo2.webcontainer.partialupdate.FontUpdate;
 import nextapp.echo2.webcontainer.partialupdate.InsetsUpdate;
 import nextapp.echo2.webcontainer.propertyrender.AlignmentRender;
 import nextapp.echo2.webcontainer.propertyrender.BorderRender;
@@ -107,6 +108,7 @@ implements ComponentSynchronizePeer, DomUpdateSupport, ImageRenderSupport {
                 ColorUpdate.CSS_BACKGROUND_COLOR));
         partialUpdateManager.add(Row.PROPERTY_INSETS, new InsetsUpdate(Row.PROPERTY_INSETS, null, 
                 InsetsUpdate.CSS_PADDING));
+        partialUpdateManager.add(Row.PROPERTY_FONT, new FontUpdate(Row.PROPERTY_FONT, null));
     }
     
     /**
@@ -186,23 +188,19 @@ implements ComponentSynchronizePeer, DomUpdateSupport, ImageRenderSupport {
         String elementId = ContainerInstance.getElementId(row);
         String trElementId = elementId + "_tr";
         
-        Component[] components = update.getParent().getVisibleComponents();
-        Component[] addedChildren = update.getAddedChildren();
+        int componentCount = row.getVisibleComponentCount();
         
-        for (int componentIndex = components.length - 1; componentIndex >= 0; --componentIndex) {
-            boolean childFound = false;
-            for (int addedChildrenIndex = 0; !childFound && addedChildrenIndex < addedChildren.length; ++addedChildrenIndex) {
-                if (addedChildren[addedChildrenIndex] == components[componentIndex]) {
-                    DocumentFragment htmlFragment = rc.getServerMessage().getDocument().createDocumentFragment();
-                    renderChild(rc, update, htmlFragment, row, components[componentIndex]);
-                    if (componentIndex == components.length - 1) {
-                        DomUpdate.renderElementAddContent(rc.getServerMessage(), domAddElement, trElementId, htmlFragment);
-                    } else {
-                        DomUpdate.renderElementAddContent(rc.getServerMessage(), domAddElement, trElementId, 
-                                elementId + "_cell_" + ContainerInstance.getElementId(components[componentIndex + 1]), 
-                                htmlFragment);
-                    }
-                    childFound = true;
+        for (int componentIndex = componentCount - 1; componentIndex >= 0; --componentIndex) {
+            Component child = row.getVisibleComponent(componentIndex);
+            if (update.hasAddedChild(child)) {
+                DocumentFragment htmlFragment = rc.getServerMessage().getDocument().createDocumentFragment();
+                renderChild(rc, update, htmlFragment, row, child);
+                if (componentIndex == componentCount - 1) {
+                    DomUpdate.renderElementAddContent(rc.getServerMessage(), domAddElement, trElementId, htmlFragment);
+                } else {
+                    DomUpdate.renderElementAddContent(rc.getServerMessage(), domAddElement, trElementId, 
+                            elementId + "_cell_" + ContainerInstance.getElementId(row.getVisibleComponent(componentIndex + 1)), 
+                            htmlFragment);
                 }
             }
         }
@@ -217,17 +215,11 @@ implements ComponentSynchronizePeer, DomUpdateSupport, ImageRenderSupport {
                 // At this point it is known that the child which was previously last is present, but is no longer last.
 
                 // In the event the child was removed and re-added, the special case is unnecessary.
-                boolean lastChildMoved = false;
-                for (int i = 0; i < addedChildren.length; ++i) {
-                    if (renderState.lastChild == addedChildren[i]) {
-                        lastChildMoved = true;
-                    }
-                }
-                if (!lastChildMoved) {
+                if (!update.hasAddedChild(renderState.lastChild)) {
                     DocumentFragment htmlFragment = rc.getServerMessage().getDocument().createDocumentFragment();
                     renderSpacingCell(htmlFragment, row, renderState.lastChild);
                     DomUpdate.renderElementAddContent(rc.getServerMessage(), domAddElement, trElementId,
-                            elementId + "_cell_" + ContainerInstance.getElementId(components[previousLastChildIndex + 1]),
+                            elementId + "_cell_" + ContainerInstance.getElementId(row.getVisibleComponent(previousLastChildIndex + 1)),
                             htmlFragment);
                 }
             }
@@ -318,9 +310,9 @@ implements ComponentSynchronizePeer, DomUpdateSupport, ImageRenderSupport {
         trElement.setAttribute("id", elementId + "_tr");
         tbodyElement.appendChild(trElement);
         
-        Component[] children = row.getVisibleComponents();
-        for (int i = 0; i < children.length; ++i) {
-            renderChild(rc, update, trElement, component, children[i]);
+        int componentCount = row.getVisibleComponentCount();
+        for (int i = 0; i < componentCount; ++i) {
+            renderChild(rc, update, trElement, component, row.getVisibleComponent(i));
         }
         
         storeRenderState(rc, row);
@@ -29,6 +29,8 @@
 
 package nextapp.echo2.webcontainer.syncpeer;
 
+import java.util.BitSet;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.DocumentFragment;
 import org.w3c.dom.Element;
@@ -51,8 +53,10 @@ import nextapp.echo2.app.table.TableColumnModel;
 import nextapp.echo2.app.update.ServerComponentUpdate;
 import nextapp.echo2.webcontainer.ActionProcessor;
 import nextapp.echo2.webcontainer.ContainerInstance;
+import nextapp.echo2.webcontainer.DiscardableRenderState;
 import nextapp.echo2.webcontainer.DomUpdateSupport;
 import nextapp.echo2.webcontainer.PartialUpdateManager;
+import nextapp.echo2.webcontainer.PartialUpdateParticipant;
 import nextapp.echo2.webcontainer.PropertyUpdateProcessor;
 import nextapp.echo2.webcontainer.RenderContext;
 import nextapp.echo2.webcontainer.ComponentSynchronizePeer;
@@ -108,6 +112,107 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport, Proper
 
     protected PartialUpdateManager propertyRenderRegistry;
     
+    /**
+     * <code>RenderState</code> implementation.
+     */
+    private static class TableRenderState 
+    implements DiscardableRenderState {
+        
+        /**
+         * The selection mode with which the table was rendered.
+         */
+        private int selectionMode;
+        
+        /**
+         * The selected rows on the client, as last rendered or as last
+         * reported by the client.
+         */
+        private BitSet selection;
+    }
+    
+    /**
+     * <code>PartialUpdateParticipant</code> to render only the rows whose
+     * selection state differs from that known to the client.
+     */
+    private class SelectionUpdate 
+    implements PartialUpdateParticipant {
+
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#canRenderProperty(
+         *      nextapp.echo2.webcontainer.RenderContext, nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public boolean canRenderProperty(RenderContext rc, ServerComponentUpdate update) {
+            Table table = (Table) update.getParent();
+            TableRenderState renderState = (TableRenderState) rc.getContainerInstance().getRenderState(table);
+            return renderState != null 
+                    && renderState.selectionMode == table.getSelectionModel().getSelectionMode()
+                    && ((Boolean) table.getRenderProperty(Table.PROPERTY_SELECTION_ENABLED, Boolean.FALSE)).booleanValue();
+        }
+
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#renderProperty(
+         *      nextapp.echo2.webcontainer.RenderContext, nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public void renderProperty(RenderContext rc, ServerComponentUpdate update) {
+            Table table = (Table) update.getParent();
+            TableRenderState renderState = (TableRenderState) rc.getContainerInstance().getRenderState(table);
+            BitSet selection = getSelection(table);
+            BitSet changed = (BitSet) selection.clone();
+            changed.xor(renderState.selection);
+            if (changed.length() == 0) {
+                return;
+            }
+            
+            ServerMessage serverMessage = rc.getServerMessage();
+            serverMessage.addLibrary(TABLE_SERVICE.getId());
+            Document document = serverMessage.getDocument();
+            Element updateSelectionElement = serverMessage.appendPartDirective(ServerMessage.GROUP_ID_POSTUPDATE, 
+                    "EchoTable.MessageProcessor", "update-selection");
+            updateSelectionElement.setAttribute("eid", ContainerInstance.getElementId(table));
+            for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+                Element rowElement = document.createElement("row");
+                rowElement.setAttribute("index", Integer.toString(i));
+                rowElement.setAttribute("selected", selection.get(i) ? "true" : "false");
+                updateSelectionElement.appendChild(rowElement);
+            }
+            renderState.selection = selection;
+        }
+    }
+    
+    /**
+     * Returns the selected rows of a table, limited to the rows present in 
+     * its model.
+     * 
+     * @param table the table
+     * @return a <code>BitSet</code> containing the selected row indices
+     */
+    private static BitSet getSelection(Table table) {
+        BitSet selection = new BitSet();
+        ListSelectionModel selectionModel = table.getSelectionModel();
+        int minimumIndex = selectionModel.getMinSelectedIndex();
+        if (minimumIndex != -1) {
+            int maximumIndex = selectionModel.getMaxSelectedIndex();
+            if (maximumIndex > table.getModel().getRowCount() - 1) {
+                maximumIndex = table.getModel().getRowCount() - 1;
+            }
+            for (int i = minimumIndex; i <= maximumIndex; ++i) {
+                if (selectionModel.isSelectedIndex(i)) {
+                    selection.set(i);
+                }
+            }
+        }
+        return selection;
+    }
+    
+    /**
+     * Default constructor.
+     */
+    public TablePeer() {
+        super();
+        propertyRenderRegistry = new PartialUpdateManager();
+        propertyRenderRegistry.add(Table.SELECTION_CHANGED_PROPERTY, new SelectionUpdate());
+    }
+    
     /**
      * @see nextapp.echo2.webcontainer.ComponentSynchronizePeer#getContainerId(nextapp.echo2.app.Component)
      */
@@ -181,6 +286,14 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport, Proper
             for (int i = 0; i < optionElements.length; ++i) {
                 selectedIndices[i] = Integer.parseInt(optionElements[i].getAttribute("index"));
             }
+            TableRenderState renderState = (TableRenderState) ci.getRenderState(component);
+            if (renderState != null) {
+                BitSet selection = new BitSet();
+                for (int i = 0; i < selectedIndices.length; ++i) {
+                    selection.set(selectedIndices[i]);
+                }
+                renderState.selection = selection;
+            }
             ci.getUpdateManager().getClientUpdateManager().setComponentProperty(component, 
                     Table.SELECTION_CHANGED_PROPERTY, selectedIndices);
         }
@@ -444,22 +557,22 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport, Proper
             if (selectionModel.getSelectionMode() == ListSelectionModel.MULTIPLE_SELECTION) {
                 itemElement.setAttribute("selection-mode", "multiple");
             }
-            if (selectionModel.getMinSelectedIndex() != -1) {
+            BitSet selection = getSelection(table);
+            if (selection.length() > 0) {
                 Element selectionElement = document.createElement("selection");
-                int minimumIndex = selectionModel.getMinSelectedIndex();
-                int maximumIndex = selectionModel.getMaxSelectedIndex();
-                if (maximumIndex > table.getModel().getRowCount() - 1) {
-                    maximumIndex = table.getModel().getRowCount() - 1;
-                }
-                for (int i = minimumIndex; i <= maximumIndex; ++i) {
-                    if (selectionModel.isSelectedIndex(i)) {
-                        Element rowElement = document.createElement("row");
-                        rowElement.setAttribute("index", Integer.toString(i));
-                        selectionElement.appendChild(rowElement);
-                    }
+                for (int i = selection.nextSetBit(0); i >= 0; i = selection.nextSetBit(i + 1)) {
+                    Element rowElement = document.createElement("row");
+                    rowElement.setAttribute("index", Integer.toString(i));
+                    selectionElement.appendChild(rowElement);
                 }
                 itemElement.appendChild(selectionElement);
             }
+            TableRenderState renderState = new TableRenderState();
+            renderState.selectionMode = selectionModel.getSelectionMode();
+            renderState.selection = selection;
+            rc.getContainerInstance().setRenderState(table, renderState);
+        } else {
+            rc.getContainerInstance().removeRenderState(table);
         }
         
         if (!table.isRenderEnabled()) {
@@ -540,6 +653,12 @@ implements ActionProcessor, ComponentSynchronizePeer, ImageRenderSupport, Proper
      */
     public boolean renderUpdate(RenderContext rc, ServerComponentUpdate update, String targetId) {
         Table table = (Table) update.getParent();
+        if (!update.hasAddedChildren() && !update.hasRemovedChildren() && !update.hasUpdatedLayoutDataChildren()
+                && propertyRenderRegistry.canProcess(rc, update)) {
+            // Only the selection has changed: render the rows whose selection state differs from the client.
+            propertyRenderRegistry.process(rc, update);
+            return false;
+        }
         renderDisposeDirective(rc, table);
         DomUpdate.renderElementRemove(rc.getServerMessage(), ContainerInstance.getElementId(table));
         renderAdd(rc, update, targetId, table);
@@ -32,6 +32,9 @@ package nextapp.echo2.webcontainer.syncpeer;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.DocumentFragment;
 import org.w3c.dom.Element;
 
@@ -56,6 +59,8 @@ import nextapp.echo2.webcontainer.PartialUpdateParticipant;
 import nextapp.echo2.webcontainer.PropertyUpdateProcessor;
 import nextapp.echo2.webcontainer.RenderContext;
 import nextapp.echo2.webcontainer.ComponentSynchronizePeer;
+import nextapp.echo2.webcontainer.StreamingPropertyUpdateProcessor;
+import nextapp.echo2.webcontainer.TextSyncState;
 import nextapp.echo2.webcontainer.image.ImageRenderSupport;
 import nextapp.echo2.webcontainer.partialupdate.BorderUpdate;
 import nextapp.echo2.webcontainer.partialupdate.ColorUpdate;
@@ -77,6 +82,7 @@ import nextapp.echo2.webrender.servermessage.DomUpdate;
 import nextapp.echo2.webrender.servermessage.WindowUpdate;
 import nextapp.echo2.webrender.service.JavaScriptService;
 import nextapp.echo2.webrender.util.DomUtil;
+import nextapp.echo2.webrender.util.XmlStreamUtil;
 
 /**
  * Abstract base synchronization peer for the built-in
@@ -86,9 +92,22 @@ import nextapp.echo2.webrender.util.DomUtil;
  * framework.
  */
 public abstract class TextComponentPeer 
-implements ActionProcessor, ComponentSynchronizePeer, DomUpdateSupport, FocusSupport, ImageRenderSupport, PropertyUpdateProcessor {
+implements ActionProcessor, ComponentSynchronizePeer, DomUpdateSupport, FocusSupport, ImageRenderSupport, 
+        StreamingPropertyUpdateProcessor {
 
     private static final String IMAGE_ID_BACKGROUND = "background";
+    
+    /**
+     * Name of the client property by which the client requests the complete
+     * text after failing to apply a text delta.
+     */
+    private static final String PROPERTY_TEXT_RESYNC = "textResync";
+    
+    /**
+     * Name of the (non-component) update property which requests the complete
+     * text from the client after failing to apply a text delta.
+     */
+    private static final String REQUEST_TEXT_PROPERTY = "echoRequestText";
 
     /**
      * Service to provide supporting JavaScript library.
@@ -127,10 +146,79 @@ implements ActionProcessor, ComponentSynchronizePeer, DomUpdateSupport, FocusSup
                     "EchoTextComponent.MessageProcessor", "set-text", new String[0], new String[0]);
             Element itemElement = serverMessage.getDocument().createElement("item");
             itemElement.setAttribute("eid", elementId);
-            itemElement.setAttribute("text", textComponent.getText());
+            String text = textComponent.getText();
+            TextSyncState textSyncState = TextSyncState.getState(rc.getContainerInstance(), textComponent);
+            if (textSyncState != null && textSyncState.getText() != null && text != null) {
+                renderTextDelta(itemElement, textSyncState.getText(), text);
+            } else {
+                itemElement.setAttribute("text", text);
+            }
+            if (textSyncState != null) {
+                textSyncState.setText(text);
+            }
             itemizedUpdateElement.appendChild(itemElement);
             
         }
+        
+        /**
+         * Renders the difference between the text held by the client and the
+         * new text as a delta.
+         * 
+         * @param itemElement the <code>item</code> element
+         * @param clientText the text held by the client
+         * @param text the new text
+         */
+        private void renderTextDelta(Element itemElement, String clientText, String text) {
+            int prefix = 0;
+            int maximumPrefix = Math.min(clientText.length(), text.length());
+            while (prefix < maximumPrefix && clientText.charAt(prefix) == text.charAt(prefix)) {
+                ++prefix;
+            }
+            int suffix = 0;
+            int maximumSuffix = maximumPrefix - prefix;
+            while (suffix < maximumSuffix 
+                    && clientText.charAt(clientText.length() - suffix - 1) == text.charAt(text.length() - suffix - 1)) {
+                ++suffix;
+            }
+            itemElement.setAttribute(TextSyncState.ATTRIBUTE_DELTA, "true");
+            itemElement.setAttribute(TextSyncState.ATTRIBUTE_OFFSET, Integer.toString(prefix));
+            itemElement.setAttribute(TextSyncState.ATTRIBUTE_REMOVE, Integer.toString(clientText.length() - prefix - suffix));
+            itemElement.setAttribute(TextSyncState.ATTRIBUTE_CHECKSUM, Integer.toString(TextSyncState.checksum(text)));
+            itemElement.setAttribute("text", text.substring(prefix, text.length() - suffix));
+        }
+    }
+    
+    /**
+     * A <code>PartialUpdateParticipant</code> to request the complete text
+     * from the client after a text delta could not be applied.
+     */
+    private class RequestTextUpdate
+    implements PartialUpdateParticipant {
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#canRenderProperty(nextapp.echo2.webcontainer.RenderContext, 
+         *      nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public boolean canRenderProperty(RenderContext rc, ServerComponentUpdate update) {
+            return true;
+        }
+    
+        /**
+         * @see nextapp.echo2.webcontainer.PartialUpdateParticipant#renderProperty(
+         *      nextapp.echo2.webcontainer.RenderContext, nextapp.echo2.app.update.ServerComponentUpdate)
+         */
+        public void renderProperty(RenderContext rc, ServerComponentUpdate update) {
+            if (update.getUpdatedProperty(TextComponent.TEXT_CHANGED_PROPERTY) != null) {
+                // Complete text is being rendered, replacing the client's text.
+                return;
+            }
+            ServerMessage serverMessage = rc.getServerMessage();
+            Element itemizedUpdateElement = serverMessage.getItemizedDirective(ServerMessage.GROUP_ID_POSTUPDATE,
+                    "EchoTextComponent.MessageProcessor", "request-text", new String[0], new String[0]);
+            Element itemElement = serverMessage.getDocument().createElement("item");
+            itemElement.setAttribute("eid", ContainerInstance.getElementId(update.getParent()));
+            itemizedUpdateElement.appendChild(itemElement);
+        }
     }
 
     private PartialUpdateManager partialUpdateManager;
@@ -149,6 +237,7 @@ implements ActionProcessor, ComponentSynchronizePeer, DomUpdateSupport, FocusSup
         partialUpdateManager.add(TextComponent.PROPERTY_INSETS,
                 new InsetsUpdate(TextComponent.PROPERTY_INSETS, null, InsetsUpdate.CSS_PADDING));
         partialUpdateManager.add(TextComponent.TEXT_CHANGED_PROPERTY, new TextUpdate());
+        partialUpdateManager.add(REQUEST_TEXT_PROPERTY, new RequestTextUpdate());
     }
 
     /**
@@ -289,19 +378,105 @@ implements ActionProcessor, ComponentSynchronizePeer, DomUpdateSupport, FocusSup
     public void processPropertyUpdate(ContainerInstance ci, Component component, Element propertyElement) {
         String propertyName = propertyElement.getAttribute(PropertyUpdateProcessor.PROPERTY_NAME);
         if (TextComponent.TEXT_CHANGED_PROPERTY.equals(propertyName)) {
-            String propertyValue = DomUtil.getElementText(propertyElement);
+            processTextUpdate(ci, component, DomUtil.getElementText(propertyElement),
+                    propertyElement.getAttribute(TextSyncState.ATTRIBUTE_DELTA), 
+                    propertyElement.getAttribute(TextSyncState.ATTRIBUTE_OFFSET),
+                    propertyElement.getAttribute(TextSyncState.ATTRIBUTE_REMOVE),
+                    propertyElement.getAttribute(TextSyncState.ATTRIBUTE_CHECKSUM));
+        } else {
+            processPropertyUpdate(ci, component, propertyName, 
+                    propertyElement.getAttribute(PropertyUpdateProcessor.PROPERTY_VALUE));
+        }
+    }
+
+    /**
+     * @see nextapp.echo2.webcontainer.StreamingPropertyUpdateProcessor#processPropertyUpdate(
+     *      nextapp.echo2.webcontainer.ContainerInstance,
+     *      nextapp.echo2.app.Component, javax.xml.stream.XMLStreamReader)
+     */
+    public void processPropertyUpdate(ContainerInstance ci, Component component, XMLStreamReader reader)
+    throws XMLStreamException {
+        String propertyName = XmlStreamUtil.getAttribute(reader, PropertyUpdateProcessor.PROPERTY_NAME);
+        if (TextComponent.TEXT_CHANGED_PROPERTY.equals(propertyName)) {
+            // Delta attributes must be read before the reader is advanced to the element text.
+            String delta = XmlStreamUtil.getAttribute(reader, TextSyncState.ATTRIBUTE_DELTA);
+            String offset = XmlStreamUtil.getAttribute(reader, TextSyncState.ATTRIBUTE_OFFSET);
+            String removeLength = XmlStreamUtil.getAttribute(reader, TextSyncState.ATTRIBUTE_REMOVE);
+            String checksum = XmlStreamUtil.getAttribute(reader, TextSyncState.ATTRIBUTE_CHECKSUM);
+            processTextUpdate(ci, component, XmlStreamUtil.getElementText(reader), delta, offset, removeLength, checksum);
+        } else {
+            processPropertyUpdate(ci, component, propertyName, 
+                    XmlStreamUtil.getAttribute(reader, PropertyUpdateProcessor.PROPERTY_VALUE));
+        }
+    }
+    
+    /**
+     * Processes a property update, independent of how the ClientMessage is
+     * being parsed.
+     * 
+     * @param ci the relevant <code>ContainerInstance</code>
+     * @param component the target <code>Component</code>
+     * @param propertyName the name of the updated property
+     * @param propertyValue the text content of the 'property' element for the
+     *        text property, the value attribute for all others
+     */
+    private void processPropertyUpdate(ContainerInstance ci, Component component, String propertyName, 
+            String propertyValue) {
+        if (TextComponent.TEXT_CHANGED_PROPERTY.equals(propertyName)) {
             ci.getUpdateManager().getClientUpdateManager().setComponentProperty(component, 
                     TextComponent.TEXT_CHANGED_PROPERTY, propertyValue);
         } else if (TextComponent.PROPERTY_HORIZONTAL_SCROLL.equals(propertyName)) {
-            Extent propertyValue = new Extent(Integer.parseInt(
-                    fixWhenNotAnInteger(propertyElement.getAttribute(PropertyUpdateProcessor.PROPERTY_VALUE))));
+            Extent extentValue = new Extent(Integer.parseInt(fixWhenNotAnInteger(propertyValue)));
             ci.getUpdateManager().getClientUpdateManager().setComponentProperty(component, 
-                    TextComponent.PROPERTY_HORIZONTAL_SCROLL, propertyValue);
+                    TextComponent.PROPERTY_HORIZONTAL_SCROLL, extentValue);
         } else if (TextComponent.PROPERTY_VERTICAL_SCROLL.equals(propertyName)) {
-            Extent propertyValue = new Extent(Integer.parseInt(
-                    fixWhenNotAnInteger(propertyElement.getAttribute(PropertyUpdateProcessor.PROPERTY_VALUE))));
+            Extent extentValue = new Extent(Integer.parseInt(fixWhenNotAnInteger(propertyValue)));
             ci.getUpdateManager().getClientUpdateManager().setComponentProperty(component, 
-                    TextComponent.PROPERTY_VERTICAL_SCROLL, propertyValue);
+                    TextComponent.PROPERTY_VERTICAL_SCROLL, extentValue);
+        } else if (PROPERTY_TEXT_RESYNC.equals(propertyName)) {
+            // Client failed to apply a text delta: render complete text.
+            TextSyncState textSyncState = TextSyncState.getState(ci, component);
+            if (textSyncState != null) {
+                textSyncState.setText(null);
+            }
+            String text = ((TextComponent) component).getText();
+            ci.getUpdateManager().getServerUpdateManager().processComponentPropertyUpdate(component, 
+                    TextComponent.TEXT_CHANGED_PROPERTY, null, text);
+        }
+    }
+    
+    /**
+     * Processes an update to the text property, which may contain either
+     * the complete text or, if text delta synchronization is enabled, a 
+     * delta against the text last known to be held by the client.
+     * If a delta cannot be applied, the text is not updated and the 
+     * complete text is requested from the client.
+     * 
+     * @param ci the relevant <code>ContainerInstance</code>
+     * @param component the target <code>Component</code>
+     * @param value the text content of the 'property' element
+     * @param delta the value of the delta attribute
+     * @param offset the value of the offset attribute
+     * @param removeLength the value of the remove attribute
+     * @param checksum the value of the checksum attribute
+     */
+    private void processTextUpdate(ContainerInstance ci, Component component, String value, String delta,
+            String offset, String removeLength, String checksum) {
+        TextSyncState textSyncState = TextSyncState.getState(ci, component);
+        if (textSyncState == null) {
+            if (!"true".equals(delta)) {
+                processPropertyUpdate(ci, component, TextComponent.TEXT_CHANGED_PROPERTY, value);
+                return;
+            }
+            textSyncState = new TextSyncState();
+            ci.setRenderState(component, textSyncState);
+        }
+        String text = textSyncState.applyUpdate(value, delta, offset, removeLength, checksum);
+        if (text == null && "true".equals(delta)) {
+            ci.getUpdateManager().getServerUpdateManager().processComponentPropertyUpdate(component, 
+                    REQUEST_TEXT_PROPERTY, null, Boolean.TRUE);
+        } else {
+            processPropertyUpdate(ci, component, TextComponent.TEXT_CHANGED_PROPERTY, text);
         }
     }
 
@@ -477,6 +652,17 @@ implements ActionProcessor, ComponentSynchronizePeer, DomUpdateSupport, FocusSup
         if (textComponent.hasActionListeners()) {
             itemElement.setAttribute("server-notify", "true");
         }
+        ContainerInstance ci = rc.getContainerInstance();
+        if (ci.isTextDeltaSyncEnabled()) {
+            String text = textComponent.getText();
+            TextSyncState textSyncState = new TextSyncState();
+            textSyncState.setText(text);
+            ci.setRenderState(textComponent, textSyncState);
+            itemElement.setAttribute("delta-sync", "true");
+            itemElement.setAttribute(TextSyncState.ATTRIBUTE_CHECKSUM, Integer.toString(TextSyncState.checksum(text)));
+        } else if (ci.getRenderState(textComponent) instanceof TextSyncState) {
+            ci.removeRenderState(textComponent);
+        }
 
         itemizedUpdateElement.appendChild(itemElement);
     }
@@ -511,4 +697,4 @@ implements ActionProcessor, ComponentSynchronizePeer, DomUpdateSupport, FocusSup
 
         return false;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -93,6 +93,19 @@ implements Serializable {
         return object;
     }
     
+    /**
+     * Returns the number of objects registered with the 
+     * <code>IdTable</code>, after purging garbage collected entries.
+     * 
+     * @return the number of registered objects
+     */
+    public int size() {
+        purge();
+        synchronized (idToReferenceMap) {
+            return idToReferenceMap.size();
+        }
+    }
+    
     /**
      * Purges dereferenced/garbage collected entries from the 
      * <code>IdTable</code>.
@@ -207,7 +207,7 @@ implements SynchronizeService.ClientMessagePartProcessor {
             clientProperties.setProperty(ClientProperties.QUIRK_SELECT_REQUIRES_NULL_OPTION, Boolean.TRUE);
             clientProperties.setProperty(ClientProperties.NOT_SUPPORTED_CSS_MANIPULATION, Boolean.TRUE);
             String unescapeTest = clientProperties.getString(ClientProperties.UNESCAPED_XHR_TEST);
-            if (unescapeTest.equals("&")) {
+            if ("&".equals(unescapeTest)) {
                 clientProperties.setProperty(ClientProperties.QUIRK_SAFARI_UNESCAPED_XHR, Boolean.TRUE);
             }
         }
@@ -220,6 +220,26 @@ implements SynchronizeService.ClientMessagePartProcessor {
         return "EchoClientAnalyzer";
     }
     
+    /**
+     * Creates provisional <code>ClientProperties</code> based on the headers
+     * of the active request, for use when a <code>ServerMessage</code> is 
+     * rendered before the client script has analyzed its environment.
+     * Browser type and quirk information is inferred from the user agent,
+     * properties such as screen size and UTC offset are unavailable until
+     * the client provides them.
+     * 
+     * @param userInstance the relevant <code>UserInstance</code>
+     */
+    public void processRequestHeaders(UserInstance userInstance) {
+        Connection conn = WebRenderServlet.getActiveConnection();
+        String userAgent = conn.getRequest().getHeader("user-agent");
+        
+        ClientProperties clientProperties = new ClientProperties();
+        clientProperties.setProperty(ClientProperties.NAVIGATOR_USER_AGENT, userAgent == null ? "" : userAgent);
+        userInstance.setClientProperties(clientProperties);
+        analyze(clientProperties);
+    }
+    
     /**
      * @see nextapp.echo2.webrender.service.SynchronizeService.ClientMessagePartProcessor#process(
      *      nextapp.echo2.webrender.UserInstance, org.w3c.dom.Element)
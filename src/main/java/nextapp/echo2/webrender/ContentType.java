@@ -40,6 +40,7 @@ import java.io.Serializable;
 public class ContentType 
 implements Serializable {
 
+    public static final ContentType APPLICATION_JSON = new ContentType("application/json", false);
     public static final ContentType IMAGE_GIF = new ContentType("image/gif", true);
     public static final ContentType IMAGE_PNG = new ContentType("image/png", true);
     public static final ContentType IMAGE_JPEG = new ContentType("image/jpeg", true);
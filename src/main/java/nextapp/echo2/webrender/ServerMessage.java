@@ -29,6 +29,8 @@
 
 package nextapp.echo2.webrender;
 
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -36,7 +38,7 @@ import java.util.Set;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import org.w3c.dom.Node;
 
 import nextapp.echo2.webrender.output.XmlDocument;
 
@@ -57,6 +59,70 @@ public class ServerMessage extends XmlDocument {
      * indicating a right-to-left layout direction.
      */
     public static final int RIGHT_TO_LEFT = 1;
+    
+    /**
+     * The name of the client-side processor of DOM update directives, whose
+     * directives are subject to coalescing.
+     */
+    private static final String DOM_UPDATE_PROCESSOR = "EchoDomUpdate.MessageProcessor";
+    
+    /** Total number of directives rendered by all <code>ServerMessage</code>s. */
+    private static long totalDirectiveCount;
+    
+    /** Total number of directives discarded by coalescing in all <code>ServerMessage</code>s. */
+    private static long totalCoalescedDirectiveCount;
+    
+    /**
+     * Returns the total number of directives contained in all 
+     * <code>ServerMessage</code>s which have been coalesced, prior to 
+     * coalescing.
+     * 
+     * @return the directive count
+     */
+    public static synchronized long getTotalDirectiveCount() {
+        return totalDirectiveCount;
+    }
+    
+    /**
+     * Returns the total number of directives discarded by coalescing from
+     * all <code>ServerMessage</code>s.
+     * 
+     * @return the coalesced directive count
+     */
+    public static synchronized long getTotalCoalescedDirectiveCount() {
+        return totalCoalescedDirectiveCount;
+    }
+    
+    /**
+     * Updates the VM-wide directive counters.
+     * 
+     * @param directiveCount the number of directives in a coalesced message
+     * @param coalescedDirectiveCount the number of directives discarded
+     */
+    private static synchronized void updateTotals(int directiveCount, int coalescedDirectiveCount) {
+        totalDirectiveCount += directiveCount;
+        totalCoalescedDirectiveCount += coalescedDirectiveCount;
+    }
+
+    /**
+     * Mapping from group ids to "message-part-group" elements.
+     */
+    private Map groupIdToElementMap = new HashMap();
+    
+    /**
+     * Flag indicating whether the message has been coalesced.
+     */
+    private boolean coalesced;
+    
+    /**
+     * The number of directives in the message prior to coalescing.
+     */
+    private int directiveCount;
+    
+    /**
+     * The number of directives discarded by coalescing.
+     */
+    private int coalescedDirectiveCount;
 
     /**
      * A hash table associating <code>ItemizedDirectiveLookupKey</code>s to
@@ -248,6 +314,7 @@ public class ServerMessage extends XmlDocument {
         Element messagePartGroupElement = getDocument().createElement("message-part-group");
         messagePartGroupElement.setAttribute("id", groupId);
         serverMessageElement.appendChild(messagePartGroupElement);
+        groupIdToElementMap.put(groupId, messagePartGroupElement);
         return messagePartGroupElement;
     }
 
@@ -258,15 +325,7 @@ public class ServerMessage extends XmlDocument {
      * @return the "message-part-group" element
      */
     public Element getPartGroup(String groupId) {
-        NodeList groupList = serverMessageElement.getElementsByTagName("message-part-group");
-        int length = groupList.getLength();
-        for (int i = 0; i < length; ++i) {
-            Element groupElement = (Element) groupList.item(i);
-            if (groupId.equals(groupElement.getAttribute("id"))) {
-                return groupElement;
-            }
-        }
-        return null;
+        return (Element) groupIdToElementMap.get(groupId);
     }
 
     /**
@@ -288,6 +347,187 @@ public class ServerMessage extends XmlDocument {
         return messagePartElement;
     }
 
+    /**
+     * Removes redundant DOM update directives from the message.  Invoked
+     * automatically when the message is rendered; repeated invocations have
+     * no effect.
+     * <p>
+     * The following directives are discarded:
+     * <ul>
+     *  <li><code>style-update</code>, <code>attribute-update</code> and
+     *   <code>text-update</code> directives which are superseded by a later 
+     *   directive setting the same property of the same element.</li>
+     *  <li>Update directives targeting an element which is removed by a
+     *   <code>dom-remove</code> directive in the "remove" group, and which 
+     *   would be processed before any element could be re-added.</li>
+     *  <li>Repeated <code>dom-remove</code> directives for the same 
+     *   element.</li>
+     * </ul>
+     * Directives are never coalesced across a <code>dom-add</code> directive
+     * or a message part of another processor, as either may create the
+     * targeted elements.
+     */
+    public void coalesce() {
+        if (coalesced) {
+            return;
+        }
+        coalesced = true;
+        
+        for (Node groupNode = serverMessageElement.getFirstChild(); groupNode != null; 
+                groupNode = groupNode.getNextSibling()) {
+            for (Node partNode = groupNode.getFirstChild(); partNode != null; partNode = partNode.getNextSibling()) {
+                for (Node directiveNode = partNode.getFirstChild(); directiveNode != null; 
+                        directiveNode = directiveNode.getNextSibling()) {
+                    if (directiveNode.getNodeType() == Node.ELEMENT_NODE) {
+                        ++directiveCount;
+                    }
+                }
+            }
+        }
+        
+        Set removedIds = coalesceRemoveGroup();
+        coalesceUpdateGroup(removedIds);
+        
+        updateTotals(directiveCount, coalescedDirectiveCount);
+    }
+    
+    /**
+     * Discards repeated <code>dom-remove</code> directives from the "remove"
+     * group.
+     * 
+     * @return the set of removed element ids which may not be re-added 
+     *         before processing of the "update" group
+     */
+    private Set coalesceRemoveGroup() {
+        Set removedIds = new HashSet();
+        Element groupElement = getPartGroup(GROUP_ID_REMOVE);
+        Node partNode = groupElement.getFirstChild();
+        while (partNode != null) {
+            Node nextPartNode = partNode.getNextSibling();
+            Element partElement = (Element) partNode;
+            if (DOM_UPDATE_PROCESSOR.equals(partElement.getAttribute("processor"))) {
+                Node directiveNode = partElement.getFirstChild();
+                while (directiveNode != null) {
+                    Node nextDirectiveNode = directiveNode.getNextSibling();
+                    if ("dom-remove".equals(directiveNode.getNodeName())) {
+                        String targetId = ((Element) directiveNode).getAttribute("target-id");
+                        if (!removedIds.add(targetId)) {
+                            discardDirective(directiveNode);
+                        }
+                    }
+                    directiveNode = nextDirectiveNode;
+                }
+            } else {
+                // Another processor may add elements to the DOM.
+                removedIds.clear();
+            }
+            partNode = nextPartNode;
+        }
+        return removedIds;
+    }
+    
+    /**
+     * Discards superseded <code>style-update</code>, 
+     * <code>attribute-update</code> and <code>text-update</code> directives
+     * from the "update" group, as well as those targeting elements which
+     * will have been removed.
+     * 
+     * @param removedIds the ids of elements removed prior to processing of
+     *        the "update" group
+     */
+    private void coalesceUpdateGroup(Set removedIds) {
+        Element groupElement = getPartGroup(GROUP_ID_UPDATE);
+        
+        // Discard updates to removed elements which precede any possible re-addition.
+        if (!removedIds.isEmpty()) {
+            Node partNode = groupElement.getFirstChild();
+            scan:
+            while (partNode != null) {
+                Node nextPartNode = partNode.getNextSibling();
+                if (!DOM_UPDATE_PROCESSOR.equals(((Element) partNode).getAttribute("processor"))) {
+                    break;
+                }
+                Node directiveNode = partNode.getFirstChild();
+                while (directiveNode != null) {
+                    Node nextDirectiveNode = directiveNode.getNextSibling();
+                    String coalesceKey = getUpdateCoalesceKey(directiveNode);
+                    if (coalesceKey == null) {
+                        if ("dom-add".equals(directiveNode.getNodeName())) {
+                            break scan;
+                        }
+                    } else if (removedIds.contains(((Element) directiveNode).getAttribute("target-id"))) {
+                        discardDirective(directiveNode);
+                    }
+                    directiveNode = nextDirectiveNode;
+                }
+                partNode = nextPartNode;
+            }
+        }
+        
+        // Discard superseded updates, scanning backwards such that the last update of each property is retained.
+        Set supersedingKeys = new HashSet();
+        Node partNode = groupElement.getLastChild();
+        while (partNode != null) {
+            Node previousPartNode = partNode.getPreviousSibling();
+            if (DOM_UPDATE_PROCESSOR.equals(((Element) partNode).getAttribute("processor"))) {
+                Node directiveNode = partNode.getLastChild();
+                while (directiveNode != null) {
+                    Node previousDirectiveNode = directiveNode.getPreviousSibling();
+                    String coalesceKey = getUpdateCoalesceKey(directiveNode);
+                    if (coalesceKey == null) {
+                        if ("dom-add".equals(directiveNode.getNodeName())) {
+                            supersedingKeys.clear();
+                        }
+                    } else if (!supersedingKeys.add(coalesceKey)) {
+                        discardDirective(directiveNode);
+                    }
+                    directiveNode = previousDirectiveNode;
+                }
+            } else {
+                supersedingKeys.clear();
+            }
+            partNode = previousPartNode;
+        }
+    }
+    
+    /**
+     * Returns a key identifying the element property set by a DOM update
+     * directive, such that directives with equal keys supersede one another.
+     * 
+     * @param directiveNode the directive
+     * @return the key, or null if the directive is not a property update
+     */
+    private static String getUpdateCoalesceKey(Node directiveNode) {
+        if (directiveNode.getNodeType() != Node.ELEMENT_NODE) {
+            return null;
+        }
+        Element directiveElement = (Element) directiveNode;
+        String directiveName = directiveElement.getNodeName();
+        if ("style-update".equals(directiveName) || "attribute-update".equals(directiveName)) {
+            return directiveName + " " + directiveElement.getAttribute("target-id") + " " 
+                    + directiveElement.getAttribute("name");
+        } else if ("text-update".equals(directiveName)) {
+            return directiveName + " " + directiveElement.getAttribute("target-id");
+        } else {
+            return null;
+        }
+    }
+    
+    /**
+     * Removes a directive from the message, along with its containing 
+     * message part should it become empty.
+     * 
+     * @param directiveNode the directive to remove
+     */
+    private void discardDirective(Node directiveNode) {
+        Node partNode = directiveNode.getParentNode();
+        partNode.removeChild(directiveNode);
+        ++coalescedDirectiveCount;
+        if (!partNode.hasChildNodes()) {
+            partNode.getParentNode().removeChild(partNode);
+        }
+    }
+    
     /**
      * Creates and appends a directive element beneath to a message part.
      * Attempts to append the directive to an existing message part if the last
@@ -361,6 +601,39 @@ public class ServerMessage extends XmlDocument {
         return element;
     }
     
+    /**
+     * Returns the number of directives discarded from the message by 
+     * coalescing.
+     * 
+     * @return the coalesced directive count
+     * @see #coalesce()
+     */
+    public int getCoalescedDirectiveCount() {
+        return coalescedDirectiveCount;
+    }
+    
+    /**
+     * Returns the number of directives contained in the message prior to 
+     * coalescing, or zero if the message has not been coalesced.
+     * 
+     * @return the directive count
+     * @see #coalesce()
+     */
+    public int getDirectiveCount() {
+        return directiveCount;
+    }
+    
+    /**
+     * Coalesces redundant directives and renders the message.
+     * 
+     * @see nextapp.echo2.webrender.output.XmlDocument#render(java.io.PrintWriter)
+     */
+    public void render(PrintWriter pw)
+    throws IOException {
+        coalesce();
+        super.render(pw);
+    }
+    
     /**
      * Sets the interval between asynchronous requests to the server to check
      * for server-pushed updates.
@@ -420,4 +693,4 @@ public class ServerMessage extends XmlDocument {
     public void setTransactionId(long transactionId) {
         serverMessageElement.setAttribute("trans-id", Long.toString(transactionId));
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,258 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.webrender;
+
+import java.util.LinkedList;
+
+import jakarta.servlet.AsyncContext;
+
+/**
+ * Admission control for the synchronization requests of a single
+ * <code>UserInstance</code>.
+ * <p>
+ * Requests are admitted for processing one at a time, in order of arrival.
+ * A request which arrives while another is being processed waits its turn,
+ * either by blocking its thread or, where the container supports it, by
+ * being suspended with Servlet asynchronous processing such that it does not
+ * occupy a container thread while waiting.  Suspended requests are
+ * dispatched again by the container once admitted.  A request which arrives
+ * while the maximum number of requests are already waiting is rejected.
+ */
+public class SynchronizeQueue {
+
+    /**
+     * A place in the queue, representing a single request.
+     */
+    public static final class Ticket {
+
+        /**
+         * Flag indicating whether the request has been admitted.
+         */
+        private boolean admitted;
+
+        /**
+         * Flag indicating whether processing of the admitted request has
+         * started.
+         */
+        private boolean started;
+
+        /**
+         * The <code>AsyncContext</code> of a suspended request, to be
+         * dispatched when the request is admitted.
+         */
+        private AsyncContext asyncContext;
+
+        /**
+         * Creates a new <code>Ticket</code>.
+         */
+        private Ticket() {
+            super();
+        }
+    }
+
+    /**
+     * The ticket of the admitted request, or null if no request is admitted.
+     */
+    private Ticket owner;
+
+    /**
+     * Tickets of waiting requests, in order of arrival.
+     */
+    private LinkedList waiting = new LinkedList();
+
+    /**
+     * Waits until a ticket is admitted, blocking the current thread.
+     * Should the thread be interrupted while waiting, the ticket leaves the
+     * queue and the interrupt status of the thread is restored.
+     *
+     * @param ticket the ticket
+     * @return true if the ticket was admitted, false if the thread was
+     *         interrupted
+     */
+    public synchronized boolean await(Ticket ticket) {
+        while (!ticket.admitted) {
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                if (!ticket.admitted) {
+                    waiting.remove(ticket);
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cancels a ticket whose request will not be processed, e.g., because the
+     * suspended request failed.  A ticket which has been admitted and whose
+     * processing has started is unaffected, as it will leave the queue when
+     * processing completes.
+     *
+     * @param ticket the ticket
+     */
+    public void cancel(Ticket ticket) {
+        synchronized (this) {
+            if (waiting.remove(ticket) || owner != ticket || ticket.started) {
+                return;
+            }
+        }
+        leave(ticket);
+    }
+
+    /**
+     * Enters a request into the queue.  The request is admitted immediately
+     * if no other request is admitted.
+     *
+     * @param maximumWaiting the maximum number of requests which may be
+     *        waiting
+     * @return a ticket representing the request, or null if the request
+     *         is rejected because <code>maximumWaiting</code> requests are
+     *         already waiting
+     */
+    public synchronized Ticket enter(int maximumWaiting) {
+        Ticket ticket = new Ticket();
+        if (owner == null) {
+            owner = ticket;
+            ticket.admitted = true;
+        } else if (waiting.size() < maximumWaiting) {
+            waiting.addLast(ticket);
+        } else {
+            return null;
+        }
+        return ticket;
+    }
+
+    /**
+     * Returns the number of waiting requests.
+     *
+     * @return the number of waiting requests
+     */
+    public synchronized int getWaitingCount() {
+        return waiting.size();
+    }
+
+    /**
+     * Withdraws a waiting ticket from the queue, e.g., because its suspended
+     * request has timed out.
+     *
+     * @param ticket the ticket
+     * @return true if the ticket was withdrawn, false if it had already 
+     *         been admitted
+     */
+    public synchronized boolean withdraw(Ticket ticket) {
+        return waiting.remove(ticket);
+    }
+    
+    /**
+     * Determines whether a ticket has been admitted.
+     *
+     * @param ticket the ticket
+     * @return true if the ticket has been admitted
+     */
+    public synchronized boolean isAdmitted(Ticket ticket) {
+        return ticket.admitted;
+    }
+
+    /**
+     * Removes a ticket from the queue once its request has been processed,
+     * admitting the next waiting request.  A suspended request is
+     * dispatched when admitted.
+     *
+     * @param ticket the ticket
+     */
+    public void leave(Ticket ticket) {
+        while (ticket != null) {
+            AsyncContext asyncContext;
+            synchronized (this) {
+                if (owner != ticket) {
+                    waiting.remove(ticket);
+                    return;
+                }
+                if (waiting.isEmpty()) {
+                    owner = null;
+                    return;
+                }
+                owner = (Ticket) waiting.removeFirst();
+                owner.admitted = true;
+                notifyAll();
+                ticket = owner;
+                asyncContext = ticket.asyncContext;
+                if (asyncContext == null) {
+                    // Blocked thread will proceed.
+                    return;
+                }
+                ticket.asyncContext = null;
+            }
+            try {
+                asyncContext.dispatch();
+                return;
+            } catch (IllegalStateException ex) {
+                // Request has already completed (e.g., the client disconnected): admit the next request.
+            }
+        }
+    }
+
+    /**
+     * Marks the start of processing of an admitted request.
+     *
+     * @param ticket the ticket
+     * @return true if processing may start, false if the ticket is no longer
+     *         admitted because it was cancelled
+     */
+    public synchronized boolean start(Ticket ticket) {
+        if (owner != ticket) {
+            return false;
+        }
+        ticket.started = true;
+        return true;
+    }
+
+    /**
+     * Suspends a waiting request until its ticket is admitted, at which time
+     * <code>asyncContext</code> will be dispatched.  If the ticket has
+     * already been admitted, <code>asyncContext</code> is dispatched
+     * immediately.
+     *
+     * @param ticket the ticket
+     * @param asyncContext the <code>AsyncContext</code> of the request,
+     *        created by <code>ServletRequest.startAsync()</code>
+     */
+    public void suspend(Ticket ticket, AsyncContext asyncContext) {
+        synchronized (this) {
+            if (!ticket.admitted) {
+                ticket.asyncContext = asyncContext;
+                return;
+            }
+        }
+        asyncContext.dispatch();
+    }
+}
@@ -92,6 +92,12 @@ implements HttpSessionActivationListener, HttpSessionBindingListener /* , Serial
      */
     private long transactionId = 0;
     
+    /**
+     * Admission control for synchronization requests made on behalf of this
+     * <code>UserInstance</code>.
+     */
+    private transient SynchronizeQueue synchronizeQueue = new SynchronizeQueue();
+    
     /**
      * Creates a new <code>UserInstance</code>.
      * 
@@ -215,6 +221,16 @@ implements HttpSessionActivationListener, HttpSessionBindingListener /* , Serial
         return servletUri;
     }
 
+    /**
+     * Returns the <code>SynchronizeQueue</code> which admits synchronization
+     * requests made on behalf of this <code>UserInstance</code>.
+     * 
+     * @return the <code>SynchronizeQueue</code>
+     */
+    public SynchronizeQueue getSynchronizeQueue() {
+        return synchronizeQueue;
+    }
+    
     /**
      * Returns the <code>UserInstanceUpdateManager</code> providing information
      * about updated <code>UserInstance</code> properties.
@@ -240,6 +256,9 @@ implements HttpSessionActivationListener, HttpSessionBindingListener /* , Serial
      */
     public void sessionDidActivate(HttpSessionEvent e) {
         session = e.getSession();
+        if (synchronizeQueue == null) {
+            synchronizeQueue = new SynchronizeQueue();
+        }
     }
 
     /**
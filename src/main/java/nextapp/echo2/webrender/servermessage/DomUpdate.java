@@ -215,6 +215,21 @@ public class DomUpdate {
         element.setAttribute("value", attributeValue);
     }
     
+    /**
+     * Creates a <code>text-update</code> operation to replace the content of
+     * the element identified by <code>targetId</code> in the client DOM
+     * with a single text node.
+     * 
+     * @param serverMessage the outgoing <code>ServerMessage</code>
+     * @param targetId the id of the element whose text is to be updated
+     * @param text the new text content of the element
+     */
+    public static void renderTextUpdate(ServerMessage serverMessage, String targetId, String text) {
+        Element element = serverMessage.appendPartDirective(ServerMessage.GROUP_ID_UPDATE, MESSAGE_PART_NAME, "text-update");
+        element.setAttribute("target-id", targetId);
+        element.setAttribute("text", text);
+    }
+    
     /**
      * Creates a <code>stylesheet-add-rule</code> directive to add a rule 
      * to a stylesheet
@@ -0,0 +1,369 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.webrender.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import nextapp.echo2.webrender.ContentType;
+import nextapp.echo2.webrender.util.DomUtil;
+
+/**
+ * <code>MessageCodec</code> encoding messages as compact JSON.
+ * <p>
+ * Each element is encoded as an array containing the element name, 
+ * followed by an object of its attributes (omitted if the element has no
+ * attributes), followed by its child nodes.  Text nodes are encoded as 
+ * strings.  For example, the XML 
+ * <code>&lt;a x="1"&gt;&lt;b/&gt;text&lt;/a&gt;</code> is encoded as
+ * <code>["a",{"x":"1"},["b"],"text"]</code>.  Namespaces are represented 
+ * by "xmlns" attributes, as they are in XML.
+ */
+public class JsonMessageCodec 
+implements MessageCodec {
+
+    /**
+     * The name of the codec.
+     */
+    public static final String NAME = "json";
+    
+    /**
+     * Hexadecimal digits, used to escape control characters.
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    
+    /**
+     * A parser of the JSON encoding of a ClientMessage.
+     */
+    private static class Parser {
+        
+        private Reader reader;
+        private Document document;
+        private int next;
+        
+        /**
+         * Creates a new <code>Parser</code>.
+         * 
+         * @param reader the <code>Reader</code> providing the encoded message
+         * @param document the <code>Document</code> in which to create nodes
+         */
+        private Parser(Reader reader, Document document) 
+        throws IOException {
+            super();
+            this.reader = reader;
+            this.document = document;
+            next = reader.read();
+        }
+        
+        /**
+         * Consumes the next non-whitespace character, which must be
+         * <code>expected</code>.
+         * 
+         * @param expected the expected character
+         */
+        private void expect(char expected) 
+        throws IOException {
+            skipWhitespace();
+            if (next != expected) {
+                throw new IOException("Invalid JSON message: expected '" + expected + "'.");
+            }
+            next = reader.read();
+        }
+        
+        /**
+         * Determines whether the next non-whitespace character is 
+         * <code>c</code>, consuming it if so.
+         * 
+         * @param c the character
+         * @return true if the character was consumed
+         */
+        private boolean consume(char c) 
+        throws IOException {
+            skipWhitespace();
+            if (next != c) {
+                return false;
+            }
+            next = reader.read();
+            return true;
+        }
+        
+        /**
+         * Parses an encoded element.
+         * 
+         * @param namespaceUri the namespace URI inherited from the parent 
+         *        element, or null
+         * @return the parsed element
+         */
+        private Element parseElement(String namespaceUri) 
+        throws IOException {
+            expect('[');
+            String name = parseString();
+            Element element = null;
+            if (consume(',')) {
+                skipWhitespace();
+                if (next == '{') {
+                    next = reader.read();
+                    String[] names = new String[4];
+                    String[] values = new String[4];
+                    int count = 0;
+                    if (!consume('}')) {
+                        do {
+                            if (count == names.length) {
+                                String[] newNames = new String[count * 2];
+                                String[] newValues = new String[count * 2];
+                                System.arraycopy(names, 0, newNames, 0, count);
+                                System.arraycopy(values, 0, newValues, 0, count);
+                                names = newNames;
+                                values = newValues;
+                            }
+                            names[count] = parseString();
+                            expect(':');
+                            values[count] = parseString();
+                            if ("xmlns".equals(names[count])) {
+                                namespaceUri = values[count].length() == 0 ? null : values[count];
+                            }
+                            ++count;
+                        } while (consume(','));
+                        expect('}');
+                    }
+                    element = createElement(namespaceUri, name);
+                    for (int i = 0; i < count; ++i) {
+                        element.setAttribute(names[i], values[i]);
+                    }
+                    if (!consume(',')) {
+                        expect(']');
+                        return element;
+                    }
+                } else {
+                    element = createElement(namespaceUri, name);
+                }
+                do {
+                    skipWhitespace();
+                    if (next == '[') {
+                        element.appendChild(parseElement(namespaceUri));
+                    } else {
+                        element.appendChild(document.createTextNode(parseString()));
+                    }
+                } while (consume(','));
+            } else {
+                element = createElement(namespaceUri, name);
+            }
+            expect(']');
+            return element;
+        }
+        
+        /**
+         * Parses a string.
+         * 
+         * @return the parsed string
+         */
+        private String parseString() 
+        throws IOException {
+            expect('"');
+            StringBuffer out = new StringBuffer();
+            while (next != '"') {
+                if (next == -1) {
+                    throw new IOException("Invalid JSON message: unterminated string.");
+                } else if (next == '\\') {
+                    next = reader.read();
+                    switch (next) {
+                    case 'b': out.append('\b'); break;
+                    case 'f': out.append('\f'); break;
+                    case 'n': out.append('\n'); break;
+                    case 'r': out.append('\r'); break;
+                    case 't': out.append('\t'); break;
+                    case 'u':
+                        int value = 0;
+                        for (int i = 0; i < 4; ++i) {
+                            int digit = Character.digit((char) reader.read(), 16);
+                            if (digit == -1) {
+                                throw new IOException("Invalid JSON message: invalid escape sequence.");
+                            }
+                            value = value * 16 + digit;
+                        }
+                        out.append((char) value);
+                        break;
+                    case -1:
+                        throw new IOException("Invalid JSON message: unterminated string.");
+                    default:
+                        out.append((char) next);
+                    }
+                } else {
+                    out.append((char) next);
+                }
+                next = reader.read();
+            }
+            next = reader.read();
+            return out.toString();
+        }
+        
+        /**
+         * Creates an element.
+         * 
+         * @param namespaceUri the namespace URI of the element, or null
+         * @param name the name of the element
+         * @return the created element
+         */
+        private Element createElement(String namespaceUri, String name) {
+            return namespaceUri == null ? document.createElement(name) : document.createElementNS(namespaceUri, name);
+        }
+        
+        /**
+         * Skips whitespace characters.
+         */
+        private void skipWhitespace() 
+        throws IOException {
+            while (next == ' ' || next == '\t' || next == '\n' || next == '\r') {
+                next = reader.read();
+            }
+        }
+    }
+    
+    /**
+     * Writes a string as a JSON string literal.
+     * 
+     * @param pw the <code>PrintWriter</code>
+     * @param value the string
+     */
+    private static void writeString(PrintWriter pw, String value) {
+        pw.write('"');
+        int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; ++i) {
+            char ch = value.charAt(i);
+            if (ch >= 0x20 && ch != '"' && ch != '\\') {
+                continue;
+            }
+            pw.write(value, start, i - start);
+            start = i + 1;
+            switch (ch) {
+            case '"':  pw.write("\\\""); break;
+            case '\\': pw.write("\\\\"); break;
+            case '\n': pw.write("\\n"); break;
+            case '\r': pw.write("\\r"); break;
+            case '\t': pw.write("\\t"); break;
+            default:
+                pw.write("\\u");
+                pw.write(HEX_DIGITS[(ch >> 12) & 0xf]);
+                pw.write(HEX_DIGITS[(ch >> 8) & 0xf]);
+                pw.write(HEX_DIGITS[(ch >> 4) & 0xf]);
+                pw.write(HEX_DIGITS[ch & 0xf]);
+            }
+        }
+        pw.write(value, start, length - start);
+        pw.write('"');
+    }
+    
+    /**
+     * Writes an element and its descendants.
+     * 
+     * @param pw the <code>PrintWriter</code>
+     * @param element the element
+     */
+    private static void writeElement(PrintWriter pw, Element element) {
+        pw.write('[');
+        writeString(pw, element.getNodeName());
+        NamedNodeMap attributes = element.getAttributes();
+        int attributeCount = attributes.getLength();
+        if (attributeCount > 0) {
+            pw.write(",{");
+            for (int i = 0; i < attributeCount; ++i) {
+                Attr attribute = (Attr) attributes.item(i);
+                if (i > 0) {
+                    pw.write(',');
+                }
+                writeString(pw, attribute.getName());
+                pw.write(':');
+                writeString(pw, attribute.getValue());
+            }
+            pw.write('}');
+        }
+        for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+            switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                pw.write(',');
+                writeElement(pw, (Element) node);
+                break;
+            case Node.TEXT_NODE:
+            case Node.CDATA_SECTION_NODE:
+                pw.write(',');
+                writeString(pw, node.getNodeValue());
+                break;
+            }
+        }
+        pw.write(']');
+    }
+    
+    /**
+     * @see nextapp.echo2.webrender.service.MessageCodec#getContentType()
+     */
+    public ContentType getContentType() {
+        return ContentType.APPLICATION_JSON;
+    }
+    
+    /**
+     * @see nextapp.echo2.webrender.service.MessageCodec#getName()
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * @see nextapp.echo2.webrender.service.MessageCodec#read(java.io.InputStream, java.lang.String)
+     */
+    public Document read(InputStream in, String characterEncoding) 
+    throws IOException {
+        Document document = DomUtil.getDocumentBuilder().newDocument();
+        Reader reader = new InputStreamReader(in, characterEncoding);
+        try {
+            document.appendChild(new Parser(reader, document).parseElement(null));
+        } finally {
+            reader.close();
+        }
+        return document;
+    }
+
+    /**
+     * @see nextapp.echo2.webrender.service.MessageCodec#write(org.w3c.dom.Document, java.io.PrintWriter)
+     */
+    public void write(Document document, PrintWriter pw) {
+        writeElement(pw, document.getDocumentElement());
+        pw.flush();
+    }
+}
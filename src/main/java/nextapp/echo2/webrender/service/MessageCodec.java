@@ -0,0 +1,92 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.webrender.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+
+import org.w3c.dom.Document;
+
+import nextapp.echo2.webrender.ContentType;
+
+/**
+ * An alternative encoding of the ClientMessage and ServerMessage documents 
+ * exchanged by the <code>SynchronizeService</code>.
+ * <p>
+ * Codecs encode the same documents which are otherwise exchanged as XML,
+ * such that <code>ServerMessage</code> and 
+ * <code>ClientMessagePartProcessor</code> implementations are unaffected by
+ * the encoding in use.  XML remains the default encoding: a codec is used 
+ * for a synchronization only if it is registered with the 
+ * <code>SynchronizeService</code> and the client declares support for it.
+ * 
+ * @see SynchronizeService#registerMessageCodec(MessageCodec)
+ */
+public interface MessageCodec {
+    
+    /**
+     * Returns the content type of encoded messages.  A ClientMessage is 
+     * decoded by the codec whose content type matches that of the request.
+     * 
+     * @return the content type
+     */
+    public ContentType getContentType();
+    
+    /**
+     * Returns the name of the codec, by which the client declares support 
+     * for it, e.g., "json".
+     * 
+     * @return the name
+     */
+    public String getName();
+    
+    /**
+     * Decodes a ClientMessage.
+     * 
+     * @param in the <code>InputStream</code> from which to read the message
+     * @param characterEncoding the character encoding of the stream
+     * @return the decoded ClientMessage document
+     * @throws IOException if the input is invalid
+     */
+    public Document read(InputStream in, String characterEncoding)
+    throws IOException;
+    
+    /**
+     * Encodes a ServerMessage.
+     * 
+     * @param document the ServerMessage document
+     * @param pw the <code>PrintWriter</code> to which the message should be
+     *        written
+     * @throws IOException if the message cannot be written
+     */
+    public void write(Document document, PrintWriter pw)
+    throws IOException;
+}
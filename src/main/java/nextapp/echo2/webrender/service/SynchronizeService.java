@@ -34,24 +34,37 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.StringTokenizer;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.xml.sax.SAXException;
 
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import nextapp.echo2.webrender.ClientAnalyzerProcessor;
 import nextapp.echo2.webrender.Connection;
 import nextapp.echo2.webrender.ContentType;
 import nextapp.echo2.webrender.ServerMessage;
 import nextapp.echo2.webrender.Service;
+import nextapp.echo2.webrender.SynchronizeQueue;
 import nextapp.echo2.webrender.UserInstance;
 import nextapp.echo2.webrender.UserInstanceUpdateManager;
+import nextapp.echo2.webrender.WebRenderServletException;
 import nextapp.echo2.webrender.servermessage.ClientConfigurationUpdate;
 import nextapp.echo2.webrender.servermessage.ClientPropertiesStore;
 import nextapp.echo2.webrender.servermessage.ServerDelayMessageUpdate;
 import nextapp.echo2.webrender.util.DomUtil;
+import nextapp.echo2.webrender.util.XmlStreamUtil;
 
 /**
  * A service which synchronizes the state of the client with that of the server.
@@ -63,6 +76,9 @@ import nextapp.echo2.webrender.util.DomUtil;
  * Once the input has been processed by the server application, an output
  * "ServerMessage" containing instructions to update the client state is
  * generated as a response.
+ * <p>
+ * Messages may alternatively be exchanged in a more compact encoding by 
+ * registering a <code>MessageCodec</code>.
  */
 public abstract class SynchronizeService 
 implements Service {
@@ -94,17 +110,158 @@ implements Service {
          */
         public void process(UserInstance userInstance, Element messagePartElement);
     }
+    
+    /**
+     * A <code>ClientMessagePartProcessor</code> which is capable of processing
+     * a message part directly from an <code>XMLStreamReader</code>, without 
+     * the message part being materialized as a DOM.
+     * <p>
+     * When the ClientMessage is streamed, processors which do not implement
+     * this interface are handed a DOM <code>Element</code> built from the
+     * message part alone.  The DOM-based <code>process()</code> method is 
+     * used when streaming is disabled.
+     */
+    public static interface StreamingClientMessagePartProcessor 
+    extends ClientMessagePartProcessor {
+        
+        /**
+         * Processes a MessagePart of a ClientMessage from a stream.
+         * 
+         * @param userInstance the relevant <code>UserInstance</code>
+         * @param reader the <code>XMLStreamReader</code>, positioned at the
+         *        <code>START_ELEMENT</code> of the <code>message-part</code>
+         *        element.  The processor must consume the element entirely,
+         *        leaving the reader positioned at its <code>END_ELEMENT</code>.
+         * @throws XMLStreamException if the input is not well formed
+         */
+        public void process(UserInstance userInstance, XMLStreamReader reader)
+        throws XMLStreamException;
+    }
 
     /**
      * <code>Service</code> identifier.
      */
     public static final String SERVICE_ID = "Echo.Synchronize";
+    
+    /**
+     * <code>Connection</code> property key under which the 
+     * <code>XMLStreamReader</code> of a streamed ClientMessage is stored until
+     * its message parts have been processed.
+     */
+    private static final String CLIENT_MESSAGE_READER = SynchronizeService.class.getName() + ".clientMessageReader";
+    
+    /**
+     * Request attribute key under which the <code>SynchronizeQueue.Ticket</code>
+     * of a suspended request is stored, such that it is recognized as
+     * admitted when dispatched.
+     */
+    private static final String TICKET_ATTRIBUTE = SynchronizeService.class.getName() + ".ticket";
+    
+    /**
+     * Default maximum number of requests which may wait for admission per
+     * <code>UserInstance</code>.
+     */
+    public static final int DEFAULT_MAXIMUM_QUEUE_DEPTH = 4;
+    
+    /**
+     * Value of the "Retry-After" header, in seconds, sent with responses to
+     * rejected requests.
+     */
+    private static final String RETRY_AFTER_SECONDS = "1";
+    
+    /**
+     * <code>AsyncListener</code> which cancels the ticket of a suspended 
+     * request which fails before it is processed, and rejects a request 
+     * which times out before it is admitted.
+     */
+    private static class SuspendedRequestListener 
+    implements AsyncListener {
+        
+        private SynchronizeQueue queue;
+        private SynchronizeQueue.Ticket ticket;
+        
+        /**
+         * Creates a new <code>SuspendedRequestListener</code>.
+         * 
+         * @param queue the <code>SynchronizeQueue</code>
+         * @param ticket the ticket of the suspended request
+         */
+        private SuspendedRequestListener(SynchronizeQueue queue, SynchronizeQueue.Ticket ticket) {
+            super();
+            this.queue = queue;
+            this.ticket = ticket;
+        }
+        
+        /**
+         * @see jakarta.servlet.AsyncListener#onComplete(jakarta.servlet.AsyncEvent)
+         */
+        public void onComplete(AsyncEvent e) {
+            queue.cancel(ticket);
+        }
+
+        /**
+         * @see jakarta.servlet.AsyncListener#onError(jakarta.servlet.AsyncEvent)
+         */
+        public void onError(AsyncEvent e) {
+            queue.cancel(ticket);
+        }
+
+        /**
+         * @see jakarta.servlet.AsyncListener#onStartAsync(jakarta.servlet.AsyncEvent)
+         */
+        public void onStartAsync(AsyncEvent e) {
+        }
+
+        /**
+         * @see jakarta.servlet.AsyncListener#onTimeout(jakarta.servlet.AsyncEvent)
+         */
+        public void onTimeout(AsyncEvent e) {
+            if (queue.withdraw(ticket)) {
+                rejectRequest((HttpServletResponse) e.getSuppliedResponse());
+                e.getAsyncContext().complete();
+            }
+        }
+    }
+    
+    /**
+     * Responds to a synchronization request which is not admitted with
+     * "503 Service Unavailable", indicating that the client should retry.
+     * 
+     * @param response the <code>HttpServletResponse</code>
+     */
+    private static void rejectRequest(HttpServletResponse response) {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+    }
 
     /**
      * Map containing registered <code>ClientMessagePartProcessor</code>s.
      */
     private Map clientMessagePartProcessorMap = new HashMap(); 
     
+    /**
+     * Map from names to registered <code>MessageCodec</code>s.
+     */
+    private Map messageCodecMap = new HashMap();
+    
+    /**
+     * Flag indicating whether ClientMessages are parsed with a streaming 
+     * parser rather than into a complete DOM.
+     */
+    private boolean streamingEnabled = true;
+    
+    /**
+     * The maximum number of requests which may wait for admission per
+     * <code>UserInstance</code>.
+     */
+    private int maximumQueueDepth = DEFAULT_MAXIMUM_QUEUE_DEPTH;
+    
+    /**
+     * The time, in milliseconds, a suspended request may wait for admission
+     * before being rejected.
+     */
+    private long queueTimeout = 60000;
+    
     /**
      * Creates a new <code>SynchronizeService</code>.
      */
@@ -156,6 +313,84 @@ implements Service {
         return SERVICE_ID;
     }
     
+    /**
+     * Returns the maximum number of synchronization requests which may wait
+     * for admission per <code>UserInstance</code>.
+     * 
+     * @return the maximum queue depth
+     * @see #setMaximumQueueDepth(int)
+     */
+    public int getMaximumQueueDepth() {
+        return maximumQueueDepth;
+    }
+    
+    /**
+     * Returns the time a suspended synchronization request may wait for 
+     * admission before being rejected.
+     * 
+     * @return the timeout, in milliseconds
+     * @see #setQueueTimeout(long)
+     */
+    public long getQueueTimeout() {
+        return queueTimeout;
+    }
+    
+    /**
+     * Returns the registered <code>MessageCodec</code> which decodes the
+     * ClientMessage of a request, based on the request's content type.
+     * 
+     * @param conn the relevant <code>Connection</code>
+     * @return the <code>MessageCodec</code>, or null if the ClientMessage
+     *         is XML
+     */
+    private MessageCodec getRequestCodec(Connection conn) {
+        if (messageCodecMap.isEmpty()) {
+            return null;
+        }
+        String contentType = conn.getRequest().getContentType();
+        if (contentType == null) {
+            return null;
+        }
+        int semicolonIndex = contentType.indexOf(';');
+        if (semicolonIndex != -1) {
+            contentType = contentType.substring(0, semicolonIndex);
+        }
+        contentType = contentType.trim();
+        Iterator it = messageCodecMap.values().iterator();
+        while (it.hasNext()) {
+            MessageCodec codec = (MessageCodec) it.next();
+            if (codec.getContentType().getMimeType().equalsIgnoreCase(contentType)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Returns the registered <code>MessageCodec</code> with which the
+     * ServerMessage will be encoded.  The first registered codec among those
+     * named by the space-separated "accept-codec" attribute of the
+     * ClientMessage is selected.
+     * 
+     * @param clientMessageDocument the ClientMessage document
+     * @return the <code>MessageCodec</code>, or null if the ServerMessage
+     *         should be XML
+     */
+    private MessageCodec getResponseCodec(Document clientMessageDocument) {
+        if (messageCodecMap.isEmpty()) {
+            return null;
+        }
+        String acceptCodec = clientMessageDocument.getDocumentElement().getAttribute("accept-codec");
+        StringTokenizer st = new StringTokenizer(acceptCodec, " ");
+        while (st.hasMoreTokens()) {
+            MessageCodec codec = (MessageCodec) messageCodecMap.get(st.nextToken());
+            if (codec != null) {
+                return codec;
+            }
+        }
+        return null;
+    }
+    
     /**
      * @see nextapp.echo2.webrender.Service#getVersion()
      */
@@ -163,6 +398,56 @@ implements Service {
         return DO_NOT_CACHE;
     }
     
+    /**
+     * Determines whether ClientMessages are parsed with a streaming parser.
+     * 
+     * @return true if streaming is enabled
+     * @see #setStreamingEnabled(boolean)
+     */
+    public boolean isStreamingEnabled() {
+        return streamingEnabled;
+    }
+    
+    /**
+     * Sets the maximum number of synchronization requests which may wait for
+     * admission per <code>UserInstance</code> while another request is being
+     * processed.  Requests beyond this depth are rejected with 
+     * "503 Service Unavailable", and are retried by the client.
+     * 
+     * @param newValue the new maximum queue depth
+     */
+    public void setMaximumQueueDepth(int newValue) {
+        maximumQueueDepth = newValue;
+    }
+    
+    /**
+     * Sets the time a synchronization request suspended with Servlet 
+     * asynchronous processing may wait for admission before it is rejected.
+     * Requests which wait by blocking their thread are not subject to this
+     * timeout.
+     * 
+     * @param newValue the new timeout, in milliseconds, or zero to wait 
+     *        indefinitely
+     */
+    public void setQueueTimeout(long newValue) {
+        queueTimeout = newValue;
+    }
+    
+    /**
+     * Sets whether ClientMessages are parsed with a streaming parser.
+     * When enabled (the default), the <code>Document</code> provided to
+     * <code>renderInit()</code> and <code>renderUpdate()</code> contains only
+     * the ClientMessage's document element and its attributes, the message 
+     * parts are read from the request when <code>processClientMessage()</code>
+     * is invoked.  When disabled, the entire ClientMessage is parsed into a
+     * DOM up front.
+     * 
+     * @param newValue true to enable streaming
+     */
+    public void setStreamingEnabled(boolean newValue) {
+        streamingEnabled = newValue;
+    }
+    
     /**
      * Generates a DOM representation of the XML input POSTed to this service.
      * 
@@ -193,6 +478,30 @@ implements Service {
         }
     }
 
+    /**
+     * Opens a streaming parser on the XML input POSTed to this service.
+     * The returned <code>Document</code> contains only the document element
+     * and its attributes, the reader is stored in the <code>Connection</code>
+     * for consumption by <code>processClientMessage()</code>.
+     * <p>
+     * The Konqueror whitespace workaround of 
+     * <code>parseRequestDocument()</code> is not needed, as the input 
+     * following the document element is never read.
+     * 
+     * @param conn the relevant <code>Connection</code>
+     * @return a <code>Document</code> containing the ClientMessage's 
+     *         document element
+     * @throws IOException if the input is invalid
+     */
+    private Document openRequestStream(Connection conn) 
+    throws IOException {
+        XMLStreamReader reader = XmlStreamUtil.createReader(conn.getRequest().getInputStream());
+        Document document = DomUtil.getDocumentBuilder().newDocument();
+        document.appendChild(XmlStreamUtil.createElement(reader, document));
+        conn.setProperty(CLIENT_MESSAGE_READER, reader);
+        return document;
+    }
+    
     /**
      * Processes a "ClientMessage" XML document containing application UI state 
      * change information from the client.  This method will parse the
@@ -205,6 +514,16 @@ implements Service {
      */
     protected void processClientMessage(Connection conn, Document clientMessageDocument) {
         UserInstance userInstance = conn.getUserInstance();
+        XMLStreamReader reader = (XMLStreamReader) conn.getProperty(CLIENT_MESSAGE_READER);
+        if (reader != null) {
+            conn.setProperty(CLIENT_MESSAGE_READER, null);
+            try {
+                processClientMessage(userInstance, reader, clientMessageDocument);
+            } catch (XMLStreamException ex) {
+                throw new WebRenderServletException("Provided ClientMessage cannot be parsed.", ex);
+            }
+            return;
+        }
         Element[] messageParts = DomUtil.getChildElementsByTagName(clientMessageDocument.getDocumentElement(), 
                 "message-part");
         for (int i = 0; i < messageParts.length; ++i) {
@@ -217,6 +536,42 @@ implements Service {
         }
     }
     
+    /**
+     * Processes the message parts of a streamed "ClientMessage".
+     * Message parts whose processor is not a 
+     * <code>StreamingClientMessagePartProcessor</code> are materialized
+     * individually as DOM <code>Element</code>s.
+     * 
+     * @param userInstance the relevant <code>UserInstance</code>
+     * @param reader the <code>XMLStreamReader</code>, positioned at the 
+     *        <code>START_ELEMENT</code> of the document element
+     * @param clientMessageDocument the <code>Document</code> used to create 
+     *        DOM representations of message parts
+     * @throws XMLStreamException if the input is not well formed
+     */
+    private void processClientMessage(UserInstance userInstance, XMLStreamReader reader, Document clientMessageDocument) 
+    throws XMLStreamException {
+        while (XmlStreamUtil.nextChildElement(reader)) {
+            if (!"message-part".equals(reader.getLocalName())) {
+                XmlStreamUtil.skipElement(reader);
+                continue;
+            }
+            String processorName = XmlStreamUtil.getAttribute(reader, "processor");
+            ClientMessagePartProcessor processor = (ClientMessagePartProcessor) clientMessagePartProcessorMap.get(processorName);
+            if (processor == null) {
+                throw new RuntimeException("Invalid processor name \"" + processorName + "\".");
+            }
+            if (processor instanceof StreamingClientMessagePartProcessor) {
+                ((StreamingClientMessagePartProcessor) processor).process(userInstance, reader);
+                if (reader.getEventType() != XMLStreamConstants.END_ELEMENT) {
+                    throw new IllegalStateException("Processor \"" + processorName + "\" did not consume its message part.");
+                }
+            } else {
+                processor.process(userInstance, XmlStreamUtil.readElement(reader, clientMessageDocument));
+            }
+        }
+    }
+    
     /**
      * Registers a <code>ClientMessagePartProcessor</code> to handle a
      * specific type of message part.
@@ -233,6 +588,24 @@ implements Service {
         clientMessagePartProcessorMap.put(processor.getName(), processor);
     }
     
+    /**
+     * Registers a <code>MessageCodec</code> which may be used in place of 
+     * XML to encode ClientMessages and ServerMessages.  A codec is used only 
+     * for clients which declare support for it: XML remains the default 
+     * and is used for all other clients.  Codecs should be registered 
+     * before the service handles its first request.
+     * 
+     * @param codec the <code>MessageCodec</code> to register
+     * @throws IllegalStateException if a codec with the same name is 
+     *         already registered
+     */
+    public void registerMessageCodec(MessageCodec codec) {
+        if (messageCodecMap.containsKey(codec.getName())) {
+            throw new IllegalStateException("Codec already registered with name \"" + codec.getName() + "\".");
+        }
+        messageCodecMap.put(codec.getName(), codec);
+    }
+    
     /**
      * Renders a <code>ServerMessage</code> in response to the initial
      * synchronization.
@@ -259,31 +632,150 @@ implements Service {
     public void service(Connection conn) 
     throws IOException {
         UserInstance userInstance = conn.getUserInstance();
+        SynchronizeQueue queue = userInstance.getSynchronizeQueue();
+        HttpServletRequest request = conn.getRequest();
+        
+        SynchronizeQueue.Ticket ticket = (SynchronizeQueue.Ticket) request.getAttribute(TICKET_ATTRIBUTE);
+        if (ticket == null) {
+            ticket = queue.enter(maximumQueueDepth);
+            if (ticket == null) {
+                rejectRequest(conn.getResponse());
+                return;
+            }
+            if (!queue.isAdmitted(ticket)) {
+                if (request.isAsyncSupported()) {
+                    // Release the container thread until the request is admitted, at which time it is dispatched again.
+                    request.setAttribute(TICKET_ATTRIBUTE, ticket);
+                    AsyncContext asyncContext = request.startAsync();
+                    asyncContext.setTimeout(queueTimeout);
+                    asyncContext.addListener(new SuspendedRequestListener(queue, ticket));
+                    queue.suspend(ticket, asyncContext);
+                    return;
+                } else if (!queue.await(ticket)) {
+                    rejectRequest(conn.getResponse());
+                    return;
+                }
+            }
+        } else {
+            request.removeAttribute(TICKET_ATTRIBUTE);
+        }
+        
+        try {
+            if (queue.start(ticket)) {
+                service(conn, userInstance);
+            } else {
+                rejectRequest(conn.getResponse());
+            }
+        } finally {
+            queue.leave(ticket);
+        }
+    }
+    
+    /**
+     * Processes an admitted synchronization request.
+     * 
+     * @param conn the relevant <code>Connection</code>
+     * @param userInstance the relevant <code>UserInstance</code>
+     */
+    private void service(Connection conn, UserInstance userInstance) 
+    throws IOException {
         synchronized(userInstance) {
-            Document clientMessageDocument = parseRequestDocument(conn);
-            String messageType = clientMessageDocument.getDocumentElement().getAttribute("type");
-            ServerMessage serverMessage;
-            
-            if ("initialize".equals(messageType)) {
-                serverMessage = renderInit(conn, clientMessageDocument);
-                ClientPropertiesStore.renderStoreDirective(serverMessage, userInstance.getClientProperties());
-                ClientConfigurationUpdate.renderUpdateDirective(serverMessage, userInstance.getClientConfiguration());
-                ServerDelayMessageUpdate.renderUpdateDirective(serverMessage, userInstance.getServerDelayMessage());
-                
-                // Add "test attribute" used by ClientEngine to determine if browser is correctly (un)escaping
-                // attribute values.  Safari does not do this correctly and a workaround is thus employed if such
-                // bugs are detected.
-                serverMessage.getDocument().getDocumentElement().setAttribute("xml-attr-test", "x&y");
+            MessageCodec requestCodec = getRequestCodec(conn);
+            Document clientMessageDocument;
+            if (requestCodec != null) {
+                clientMessageDocument = requestCodec.read(conn.getRequest().getInputStream(), 
+                        userInstance.getCharacterEncoding());
             } else {
-                serverMessage = renderUpdate(conn, clientMessageDocument);
-                processUserInstanceUpdates(userInstance, serverMessage);
+                clientMessageDocument = streamingEnabled ? openRequestStream(conn) : parseRequestDocument(conn);
             }
+            try {
+                MessageCodec responseCodec = getResponseCodec(clientMessageDocument);
+                String messageType = clientMessageDocument.getDocumentElement().getAttribute("type");
+                ServerMessage serverMessage;
+                
+                if ("initialize".equals(messageType)) {
+                    serverMessage = renderInitMessage(conn, clientMessageDocument);
+                } else {
+                    serverMessage = renderUpdate(conn, clientMessageDocument);
+                    processUserInstanceUpdates(userInstance, serverMessage);
+                }
+                serverMessage.setTransactionId(userInstance.getNextTransactionId());
+                if (responseCodec == null) {
+                    conn.setContentType(ContentType.TEXT_XML);
+                    serverMessage.render(conn.getWriter());
+                } else {
+                    serverMessage.coalesce();
+                    conn.setContentType(responseCodec.getContentType());
+                    responseCodec.write(serverMessage.getDocument(), conn.getWriter());
+                }
+            } finally {
+                XMLStreamReader reader = (XMLStreamReader) conn.getProperty(CLIENT_MESSAGE_READER);
+                if (reader != null) {
+                    conn.setProperty(CLIENT_MESSAGE_READER, null);
+                    XmlStreamUtil.close(reader);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Renders the <code>ServerMessage</code> of the initial synchronization
+     * without a request from the client, such that it may be embedded in the
+     * page which loads the client engine.  This saves the client the round 
+     * trip of its initial synchronization.
+     * <p>
+     * If the client has not yet reported its properties, provisional
+     * <code>ClientProperties</code> are created from the request headers.
+     * The client is expected to report its properties with its next 
+     * ClientMessage, which will replace the provisional properties.
+     * <p>
+     * The message is assigned the next transaction id of the 
+     * <code>UserInstance</code>, exactly as the response to an initial 
+     * synchronization request would be.
+     * 
+     * @param conn the relevant <code>Connection</code>
+     * @return the generated <code>ServerMessage</code>
+     */
+    public ServerMessage renderInitialMessage(Connection conn) {
+        UserInstance userInstance = conn.getUserInstance();
+        synchronized(userInstance) {
+            if (userInstance.getClientProperties() == null) {
+                new ClientAnalyzerProcessor().processRequestHeaders(userInstance);
+            }
+            Document clientMessageDocument = DomUtil.getDocumentBuilder().newDocument();
+            Element clientMessageElement = clientMessageDocument.createElement("client-message");
+            clientMessageElement.setAttribute("type", "initialize");
+            clientMessageDocument.appendChild(clientMessageElement);
+            
+            ServerMessage serverMessage = renderInitMessage(conn, clientMessageDocument);
             serverMessage.setTransactionId(userInstance.getNextTransactionId());
-            conn.setContentType(ContentType.TEXT_XML);
-            serverMessage.render(conn.getWriter());
+            return serverMessage;
         }
     }
     
+    /**
+     * Renders a <code>ServerMessage</code> in response to the initial
+     * synchronization, including the directives to store the
+     * <code>UserInstance</code>'s client properties and configuration.
+     * 
+     * @param conn the relevant <code>Connection</code>
+     * @param clientMessageDocument the ClientMessage XML document
+     * @return the generated <code>ServerMessage</code>
+     */
+    private ServerMessage renderInitMessage(Connection conn, Document clientMessageDocument) {
+        UserInstance userInstance = conn.getUserInstance();
+        ServerMessage serverMessage = renderInit(conn, clientMessageDocument);
+        ClientPropertiesStore.renderStoreDirective(serverMessage, userInstance.getClientProperties());
+        ClientConfigurationUpdate.renderUpdateDirective(serverMessage, userInstance.getClientConfiguration());
+        ServerDelayMessageUpdate.renderUpdateDirective(serverMessage, userInstance.getServerDelayMessage());
+    
+        // Add "test attribute" used by ClientEngine to determine if browser is correctly (un)escaping
+        // attribute values.  Safari does not do this correctly and a workaround is thus employed if such
+        // bugs are detected.
+        serverMessage.getDocument().getDocumentElement().setAttribute("xml-attr-test", "x&y");
+        return serverMessage;
+    }
+    
     /**
      * Renders updates to <code>UserInstance</code> properties.
      * 
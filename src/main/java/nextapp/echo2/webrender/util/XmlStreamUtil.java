@@ -0,0 +1,292 @@
+/* 
+ * This file is part of the Echo Web Application Framework (hereinafter "Echo").
+ * Copyright (C) 2002-2009 NextApp, Inc.
+ *
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package nextapp.echo2.webrender.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * A utility class which provides methods for working with a StAX 
+ * <code>XMLStreamReader</code>.
+ * <p>
+ * Methods which consume an element expect the reader to be positioned at 
+ * the <code>START_ELEMENT</code> event of that element and leave it 
+ * positioned at the matching <code>END_ELEMENT</code> event.
+ */
+public class XmlStreamUtil {
+
+    /**
+     * Shared <code>XMLInputFactory</code>, configured to not support DTDs
+     * or external entities to avoid external entity injection.
+     * <code>XMLInputFactory</code> instances are thread-safe once configured.
+     */
+    private static final XMLInputFactory inputFactory;
+    static {
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+    }
+    
+    /**
+     * Creates an <code>XMLStreamReader</code> for the given 
+     * <code>InputStream</code> and advances it to the document element.
+     * 
+     * @param in the <code>InputStream</code>, whose character encoding will
+     *        be determined from the XML declaration
+     * @return the reader, positioned at the <code>START_ELEMENT</code> of 
+     *         the document element
+     * @throws IOException if the stream does not contain a document element
+     */
+    public static XMLStreamReader createReader(InputStream in) 
+    throws IOException {
+        try {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+            while (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+                if (!reader.hasNext()) {
+                    throw new IOException("Provided InputStream does not contain a document element.");
+                }
+                reader.next();
+            }
+            return reader;
+        } catch (XMLStreamException ex) {
+            throw new IOException("Provided InputStream cannot be parsed: " + ex);
+        }
+    }
+    
+    /**
+     * Closes an <code>XMLStreamReader</code>, ignoring any exception.
+     * 
+     * @param reader the reader to close, may be null
+     */
+    public static void close(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException ex) { }
+        }
+    }
+    
+    /**
+     * Determines whether a specific boolean flag is set on the current
+     * element.
+     * 
+     * @param reader the reader, positioned at a <code>START_ELEMENT</code>
+     * @param attributeName The name of the boolean 'flag' attribute.
+     * @return True if the value of the attribute is 'true', false if it is
+     *         not or if the attribute does not exist.
+     * @see DomUtil#getBooleanAttribute(Element, String)
+     */
+    public static boolean getBooleanAttribute(XMLStreamReader reader, String attributeName) {
+        return "true".equals(reader.getAttributeValue(null, attributeName));
+    }
+
+    /**
+     * Returns the value of an attribute of the current element, or an empty
+     * string if the attribute is not present, mirroring the behavior of 
+     * <code>Element.getAttribute()</code>.
+     * 
+     * @param reader the reader, positioned at a <code>START_ELEMENT</code>
+     * @param attributeName the name of the attribute
+     * @return the attribute value, or an empty string
+     */
+    public static String getAttribute(XMLStreamReader reader, String attributeName) {
+        String value = reader.getAttributeValue(null, attributeName);
+        return value == null ? "" : value;
+    }
+    
+    /**
+     * Advances the reader to the next immediate child element of the current
+     * element.  The reader must either be positioned at the 
+     * <code>START_ELEMENT</code> of the parent element or at the 
+     * <code>END_ELEMENT</code> of a previous child element.
+     * 
+     * @param reader the reader
+     * @return true if the reader is now positioned at the 
+     *         <code>START_ELEMENT</code> of a child, false if it is positioned
+     *         at the <code>END_ELEMENT</code> of the parent
+     * @throws XMLStreamException if the input is not well formed
+     */
+    public static boolean nextChildElement(XMLStreamReader reader) 
+    throws XMLStreamException {
+        while (true) {
+            int eventType = reader.next();
+            if (eventType == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * Skips the current element, including all its descendants.
+     * 
+     * @param reader the reader, positioned at a <code>START_ELEMENT</code>
+     * @throws XMLStreamException if the input is not well formed
+     */
+    public static void skipElement(XMLStreamReader reader) 
+    throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int eventType = reader.next();
+            if (eventType == XMLStreamConstants.START_ELEMENT) {
+                ++depth;
+            } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+                --depth;
+            }
+        }
+    }
+    
+    /**
+     * Reads the text content of the current element.  Child elements are 
+     * skipped.
+     * 
+     * @param reader the reader, positioned at a <code>START_ELEMENT</code>
+     * @return the text content, or null if the element contains no text,
+     *         mirroring the behavior of 
+     *         <code>DomUtil.getElementText()</code>
+     * @throws XMLStreamException if the input is not well formed
+     * @see DomUtil#getElementText(Element)
+     */
+    public static String getElementText(XMLStreamReader reader) 
+    throws XMLStreamException {
+        String text = null;
+        StringBuffer buffer = null;
+        int depth = 1;
+        while (depth > 0) {
+            int eventType = reader.next();
+            switch (eventType) {
+            case XMLStreamConstants.START_ELEMENT:
+                ++depth;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                --depth;
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                if (depth == 1) {
+                    if (text == null) {
+                        text = reader.getText();
+                    } else {
+                        if (buffer == null) {
+                            buffer = new StringBuffer(text);
+                        }
+                        buffer.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
+                }
+                break;
+            }
+        }
+        return buffer == null ? text : buffer.toString();
+    }
+    
+    /**
+     * Materializes the current element, including all its descendants, as a 
+     * DOM <code>Element</code>.  This is used to hand streamed input to code 
+     * which expects a DOM, and should be limited to small elements.
+     * 
+     * @param reader the reader, positioned at a <code>START_ELEMENT</code>
+     * @param document the <code>Document</code> used to create the nodes
+     *        (the created element is not appended to it)
+     * @return the created <code>Element</code>
+     * @throws XMLStreamException if the input is not well formed
+     */
+    public static Element readElement(XMLStreamReader reader, Document document) 
+    throws XMLStreamException {
+        Element rootElement = createElement(reader, document);
+        Node currentNode = rootElement;
+        while (currentNode != null) {
+            int eventType = reader.next();
+            switch (eventType) {
+            case XMLStreamConstants.START_ELEMENT:
+                Element element = createElement(reader, document);
+                currentNode.appendChild(element);
+                currentNode = element;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                currentNode = currentNode == rootElement ? null : currentNode.getParentNode();
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+                currentNode.appendChild(document.createTextNode(reader.getText()));
+                break;
+            case XMLStreamConstants.CDATA:
+                currentNode.appendChild(document.createCDATASection(reader.getText()));
+                break;
+            }
+        }
+        return rootElement;
+    }
+    
+    /**
+     * Creates a DOM <code>Element</code> with the name and attributes of the 
+     * current element, without its content.
+     * 
+     * @param reader the reader, positioned at a <code>START_ELEMENT</code>
+     * @param document the <code>Document</code> used to create the element
+     * @return the created <code>Element</code>
+     */
+    public static Element createElement(XMLStreamReader reader, Document document) {
+        String namespaceUri = reader.getNamespaceURI();
+        String prefix = reader.getPrefix();
+        String qualifiedName = prefix == null || prefix.length() == 0 
+                ? reader.getLocalName() : prefix + ":" + reader.getLocalName();
+        Element element = namespaceUri == null || namespaceUri.length() == 0 
+                ? document.createElement(reader.getLocalName()) : document.createElementNS(namespaceUri, qualifiedName);
+        int attributeCount = reader.getAttributeCount();
+        for (int i = 0; i < attributeCount; ++i) {
+            String attributeUri = reader.getAttributeNamespace(i);
+            if (attributeUri == null || attributeUri.length() == 0) {
+                element.setAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+            } else {
+                String attributePrefix = reader.getAttributePrefix(i);
+                String attributeName = attributePrefix == null || attributePrefix.length() == 0 
+                        ? reader.getAttributeLocalName(i) : attributePrefix + ":" + reader.getAttributeLocalName(i);
+                element.setAttributeNS(attributeUri, attributeName, reader.getAttributeValue(i));
+            }
+        }
+        return element;
+    }
+
+    /** Non-instantiable class. */
+    private XmlStreamUtil() { }
+}
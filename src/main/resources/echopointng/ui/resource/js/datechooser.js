@@ -80,7 +80,19 @@ EPDateChooser.MessageProcessor.processDatesChanged = function(directiveXML) {
 		    if (ymdStr) {
     			dateChooser.selectedDate = dateChooser.fromymd(ymdStr);
 			}
+			// the range is always sent in full, a missing end means no limit
+			ymdStr = itemXML.getAttribute('maximumDate');
+			dateChooser.maximumDate = ymdStr ? dateChooser.fromymd(ymdStr) : null;
+			ymdStr = itemXML.getAttribute('minimumDate');
+			dateChooser.minimumDate = ymdStr ? dateChooser.fromymd(ymdStr) : null;
+			
 			dateChooser.updateDisplay();
+			
+			var selectionText = itemXML.getAttribute('selectionText');
+			var selE = document.getElementById(elementId + '|sel');
+			if (selectionText && selE) {
+				dateChooser.setElementText(selE,selectionText);
+			}
 		}
     }
 };
@@ -673,6 +673,7 @@ EPRTA = function(elementId) {
 	this.rtaWin = null;
 
 	this.currentHTML = null;
+	this.textDelta = null;
 	this.toolbarItems = [];
 	EP.ObjectMap.put(elementId,this);
 };
@@ -710,7 +711,12 @@ EPRTA.prototype.saveState = function() {
 	var state = this.rtaDoc.body.innerHTML;
 	if (state != this.currentHTML) {
 		this.currentHTML = state;
-		EP.Event.setClientValue(this.elementId,"text",state);
+		if (this.textDelta) {
+			this.textDelta.storeProperty(this.elementId,"text",state);
+			EchoDebugManager.updateClientMessage();
+		} else {
+			EP.Event.setClientValue(this.elementId,"text",state);
+		}
 	}
 };
 
@@ -1033,6 +1039,9 @@ EPRTA.MessageProcessor.process = function(messagePartElement) {
             case "htmlChanged":
                 EPRTA.MessageProcessor.processHtmlChanged(messagePartElement.childNodes[i]);
                 break;
+            case "requestHtml":
+                EPRTA.MessageProcessor.processRequestHtml(messagePartElement.childNodes[i]);
+                break;
             }
         }
     }
@@ -1067,6 +1076,10 @@ EPRTA.MessageProcessor.processHtmlChanged = function(messageElement) {
         
         var rta = EP.ObjectMap.get(elementId);
         rta.setHtmlText(htmlText);
+        if (rta.textDelta) {
+        	// the browser re-serialises the HTML so the server no longer knows our text
+        	rta.textDelta.reset(null);
+        }
         
         rta.spellCheckInProgress = (item.getAttribute("spellCheckInProgress") == "true");
         // initialise spelling support
@@ -1083,6 +1096,23 @@ EPRTA.MessageProcessor.processHtmlChanged = function(messageElement) {
     }
 };
 
+//------------------------------------------------------------
+// The server could not apply a text delta so send it the
+// complete HTML
+//------------------------------------------------------------
+EPRTA.MessageProcessor.processRequestHtml = function(messageElement) {
+	for (var item = messageElement.firstChild; item; item = item.nextSibling) {
+        var elementId = item.getAttribute("eid");
+        var rta = EP.ObjectMap.get(elementId);
+        if (rta && rta.textDelta) {
+        	rta.textDelta.reset(null);
+        	rta.currentHTML = null;
+        	rta.saveState();
+        	window.setTimeout("EchoServerTransaction.connect();", 0);
+        }
+    }
+};
+
 EPRTA.MessageProcessor.processInit = function(messageElement) {
 	//debugger;
     for (var item = messageElement.firstChild; item; item = item.nextSibling) {
@@ -1091,6 +1121,9 @@ EPRTA.MessageProcessor.processInit = function(messageElement) {
 		//
         // create a EPRTA object
 		var rta = new EPRTA(elementId);
+        if (item.getAttribute("delta-sync") == "true") {
+        	rta.textDelta = new EchoTextDelta();
+        }
         if (item.getAttribute("enabled") == "false") {
             EchoDomPropertyStore.setPropertyValue(elementId, "EchoClientEngine.inputDisabled", true);
         }
@@ -206,7 +206,13 @@ ExtrasMenu = Core.extend({
          */
         create: function() {
             EchoDomPropertyStore.setPropertyValue(this.elementId, "component", this);
-        }
+        },
+        
+        /**
+         * Updates the rendered state of the menu after its model has been
+         * changed by <code>updateModel()</code>.
+         */
+        renderModelUpdate: function() { }
     },
 
     /**
@@ -468,6 +474,48 @@ ExtrasMenu = Core.extend({
     
     setModel: function(menuModel) {
         this.menuModel = menuModel;
+    },
+    
+    /**
+     * Applies item additions, removals, and menu title updates described by
+     * an <code>update-model</code> element to the menu model, in order.
+     * Any open menus are closed.
+     *
+     * @param updateElement the <code>update-model</code> element
+     */
+    updateModel: function(updateElement) {
+        this.processCancel();
+        for (var i = 0; i < updateElement.childNodes.length; ++i) {
+            var node = updateElement.childNodes[i];
+            if (node.nodeType != 1) {
+                continue;
+            }
+            var path = node.getAttribute("path");
+            var lastDotPosition = path.lastIndexOf(".");
+            var parentModel = lastDotPosition == -1 ? this.menuModel 
+                    : ExtrasMenu.getItemModel(this.menuModel, path.substring(0, lastDotPosition));
+            var index = parseInt(path.substring(lastDotPosition + 1), 10);
+            switch (node.nodeName) {
+            case "add":
+                for (var j = 0; j < node.childNodes.length; ++j) {
+                    if (node.childNodes[j].nodeType == 1) {
+                        parentModel.insertItem(ExtrasMenu.MessageParser.parseItemModel(node.childNodes[j]), index);
+                        break;
+                    }
+                }
+                break;
+            case "remove":
+                parentModel.removeItem(parentModel.items[index]);
+                break;
+            case "update":
+                var menuModel = parentModel.items[index];
+                menuModel.text = node.getAttribute("text");
+                menuModel.icon = node.getAttribute("icon");
+                menuModel.enabled = node.getAttribute("enabled") != "false";
+                break;
+            }
+        }
+        this.renderModelUpdate();
     }
 });
 
@@ -503,6 +551,17 @@ ExtrasMenu.MenuModel = Core.extend({
         item.parent = this;
     },
     
+    /**
+     * Inserts an item into the MenuModel.
+     *
+     * @param item the item (must be a MenuModel, OptionModel, or SeparatorModel.
+     * @param index the index at which the item should be inserted
+     */
+    insertItem: function(item, index) {
+        this.items.splice(index, 0, item);
+        item.parent = this;
+    },
+    
     getItem: function(id) {
         var i;
         for (i = 0; i < this.items.length; ++i) {
@@ -530,6 +589,20 @@ ExtrasMenu.MenuModel = Core.extend({
         return -1;
     },
     
+    /**
+     * Removes an item from the MenuModel.
+     *
+     * @param item the item to remove
+     */
+    removeItem: function(item) {
+        var index = this.indexOfItem(item);
+        if (index == -1) {
+            return;
+        }
+        this.items.splice(index, 1);
+        item.parent = null;
+    },
+    
     /**
      * toString() implementation.
      */
@@ -597,33 +670,47 @@ ExtrasMenu.MessageParser = {
         for (var i = 0; i < menuElement.childNodes.length; ++i) {
             var node = menuElement.childNodes[i];
             if (node.nodeType == 1) { // Element
-                if (node.nodeName == "option") {
-                    var optionModel;
-                    var text = node.getAttribute("text");
-                    var selected = node.getAttribute("selected") == "true"; 
-                    switch (node.getAttribute("type")) {
-                    case "radio":
-                        optionModel = new ExtrasMenu.RadioOptionModel(text, selected);
-                        break;
-                    case "toggle":
-                        optionModel = new ExtrasMenu.ToggleOptionModel(text, selected);
-                        break;
-                    default:
-                        var icon = node.getAttribute("icon");
-                        optionModel = new ExtrasMenu.OptionModel(text, icon);
-                    }
-                    optionModel.enabled = node.getAttribute("enabled") != "false"; 
-                    menuModel.addItem(optionModel);
-                } else if (node.nodeName == "menu") {
-                    var childMenuModel = ExtrasMenu.MessageParser.parseMenuModel(node);
-                    menuModel.addItem(childMenuModel);
-                } else if (node.nodeName == "separator") {
-                    var separatorModel = new ExtrasMenu.SeparatorModel();
-                    menuModel.addItem(separatorModel);
+                var itemModel = ExtrasMenu.MessageParser.parseItemModel(node);
+                if (itemModel) {
+                    menuModel.addItem(itemModel);
                 }
             }
         }
         return menuModel;
+    },
+    
+    /**
+     * Parses an item represented as an XML 'menu', 'option', or 'separator'
+     * element into the appropriate model instance.
+     *
+     * @param node the element to translate
+     * @return the created model instance, or null if the element is not
+     *         recognized
+     */
+    parseItemModel: function(node) {
+        if (node.nodeName == "option") {
+            var optionModel;
+            var text = node.getAttribute("text");
+            var selected = node.getAttribute("selected") == "true"; 
+            switch (node.getAttribute("type")) {
+            case "radio":
+                optionModel = new ExtrasMenu.RadioOptionModel(text, selected);
+                break;
+            case "toggle":
+                optionModel = new ExtrasMenu.ToggleOptionModel(text, selected);
+                break;
+            default:
+                var icon = node.getAttribute("icon");
+                optionModel = new ExtrasMenu.OptionModel(text, icon);
+            }
+            optionModel.enabled = node.getAttribute("enabled") != "false"; 
+            return optionModel;
+        } else if (node.nodeName == "menu") {
+            return ExtrasMenu.MessageParser.parseMenuModel(node);
+        } else if (node.nodeName == "separator") {
+            return new ExtrasMenu.SeparatorModel();
+        }
+        return null;
     }
 };
 
@@ -810,6 +897,28 @@ ExtrasDropDownMenu = Core.extend(ExtrasMenu, {
         }
     },
     
+    renderModelUpdate: function() {
+        if (!this.selectedItem) {
+            return;
+        }
+        var rootModel = this.selectedItem;
+        while (rootModel.parent != null) {
+            rootModel = rootModel.parent;
+        }
+        if (rootModel == this.menuModel) {
+            // Redisplay selection, its text or icon may have changed.
+            this.setSelection(this.selectedItem);
+        } else {
+            // Selected item has been removed.
+            this.selectedItem = null;
+            var contentDivElement = document.getElementById(this.elementId + "_content");
+            for (var i = contentDivElement.childNodes.length - 1; i >= 0; --i) {
+                contentDivElement.removeChild(contentDivElement.childNodes[i]);
+            }
+            contentDivElement.appendChild(document.createTextNode("\u00a0"));
+        }
+    },
+    
     setSelection: function(menuModel) {
         var imgElement, tableElement, tbodyElement, trElement, tdElement, i, contentDivElement;
         
@@ -875,6 +984,9 @@ ExtrasDropDownMenu.MessageProcessor = {
                 case "init":
                     ExtrasDropDownMenu.MessageProcessor.processInit(messagePartElement.childNodes[i]);
                     break;
+                case "update-model":
+                    ExtrasDropDownMenu.MessageProcessor.processUpdateModel(messagePartElement.childNodes[i]);
+                    break;
                 }
             }
         }
@@ -990,6 +1102,19 @@ ExtrasDropDownMenu.MessageProcessor = {
         }
     
         menu.create();
+    },
+    
+    /**
+     * Processes an <code>update-model</code> message to apply incremental
+     * changes to the model of a menu.
+     *
+     * @param updateMessageElement the <code>update-model</code> element to process
+     */
+    processUpdateModel: function(updateMessageElement) {
+        var menu = ExtrasMenu.getComponent(updateMessageElement.getAttribute("eid"));
+        if (menu) {
+            menu.updateModel(updateMessageElement);
+        }
     }
 };
 
@@ -1212,26 +1337,10 @@ ExtrasMenuBarPane = Core.extend(ExtrasMenu, {
         menuBarTableElement.appendChild(menuBarTbodyElement);
         
         var menuBarTrElement = document.createElement("tr");
+        menuBarTrElement.id = this.elementId + "_bar_tr";
         menuBarTbodyElement.appendChild(menuBarTrElement);
         
-        if (this.menuModel != null) {
-            for (var i = 0; i < this.menuModel.items.length; ++i) {
-                if (this.menuModel.items[i] instanceof ExtrasMenu.OptionModel ||
-                        this.menuModel.items[i] instanceof ExtrasMenu.MenuModel) {
-                    var menuBarItemTdElement = document.createElement("td");
-                    menuBarItemTdElement.id = this.elementId + "_bar_td_item_" + this.menuModel.items[i].id;
-                    menuBarItemTdElement.style.padding = "0px";
-                    menuBarItemTdElement.style.height = "100%";
-                    menuBarItemTdElement.style.cursor = "pointer";
-                    menuBarTrElement.appendChild(menuBarItemTdElement);
-                    var menuBarItemDivElement = document.createElement("div");
-                    menuBarItemDivElement.style.padding = this.menuBarItemInsets;
-                    menuBarItemTdElement.appendChild(menuBarItemDivElement);
-                    var textNode = document.createTextNode(this.menuModel.items[i].text);
-                    menuBarItemDivElement.appendChild(textNode);
-                }
-            }
-        }
+        this.renderMenuBarItems(menuBarTrElement);
         
         containerElement.appendChild(menuBarDivElement);
     
@@ -1246,6 +1355,33 @@ ExtrasMenuBarPane = Core.extend(ExtrasMenu, {
         }
     },
     
+    /**
+     * Renders the items of the top-level menu model into the menu bar.
+     *
+     * @param menuBarTrElement the table row element of the menu bar
+     */
+    renderMenuBarItems: function(menuBarTrElement) {
+        if (this.menuModel == null) {
+            return;
+        }
+        for (var i = 0; i < this.menuModel.items.length; ++i) {
+            if (this.menuModel.items[i] instanceof ExtrasMenu.OptionModel ||
+                    this.menuModel.items[i] instanceof ExtrasMenu.MenuModel) {
+                var menuBarItemTdElement = document.createElement("td");
+                menuBarItemTdElement.id = this.elementId + "_bar_td_item_" + this.menuModel.items[i].id;
+                menuBarItemTdElement.style.padding = "0px";
+                menuBarItemTdElement.style.height = "100%";
+                menuBarItemTdElement.style.cursor = "pointer";
+                menuBarTrElement.appendChild(menuBarItemTdElement);
+                var menuBarItemDivElement = document.createElement("div");
+                menuBarItemDivElement.style.padding = this.menuBarItemInsets;
+                menuBarItemTdElement.appendChild(menuBarItemDivElement);
+                var textNode = document.createTextNode(this.menuModel.items[i].text);
+                menuBarItemDivElement.appendChild(textNode);
+            }
+        }
+    },
+    
     renderMenuBarDispose: function() {
         var menuBarDivElement = document.getElementById(this.elementId);
         EchoEventProcessor.removeHandler(menuBarDivElement, "click");
@@ -1256,6 +1392,14 @@ ExtrasMenuBarPane = Core.extend(ExtrasMenu, {
         } else {
             EchoDomUtil.removeEventListener(menuBarDivElement, "mousedown", ExtrasMenu.absorbMouseSelection, false);
         }
+    },
+    
+    renderModelUpdate: function() {
+        var menuBarTrElement = document.getElementById(this.elementId + "_bar_tr");
+        for (var i = menuBarTrElement.childNodes.length - 1; i >= 0; --i) {
+            menuBarTrElement.removeChild(menuBarTrElement.childNodes[i]);
+        }
+        this.renderMenuBarItems(menuBarTrElement);
     }
 });
 
@@ -1281,6 +1425,9 @@ ExtrasMenuBarPane.MessageProcessor = {
                 case "init":
                     ExtrasMenuBarPane.MessageProcessor.processInit(messagePartElement.childNodes[i]);
                     break;
+                case "update-model":
+                    ExtrasMenuBarPane.MessageProcessor.processUpdateModel(messagePartElement.childNodes[i]);
+                    break;
                 }
             }
         }
@@ -1396,5 +1543,18 @@ ExtrasMenuBarPane.MessageProcessor = {
         menu.setModel(menuBarModel);
     
         menu.create();
+    },
+    
+    /**
+     * Processes an <code>update-model</code> message to apply incremental
+     * changes to the model of a menu.
+     *
+     * @param updateMessageElement the <code>update-model</code> element to process
+     */
+    processUpdateModel: function(updateMessageElement) {
+        var menu = ExtrasMenu.getComponent(updateMessageElement.getAttribute("eid"));
+        if (menu) {
+            menu.updateModel(updateMessageElement);
+        }
     }
 };
@@ -671,6 +671,9 @@ EchoListComponent.MessageProcessor = {
                 case "init":
                     EchoListComponent.MessageProcessor.processInit(messagePartElement.childNodes[i]);
                     break;
+                case "update-selection":
+                    EchoListComponent.MessageProcessor.processUpdateSelection(messagePartElement.childNodes[i]);
+                    break;
                 }
             }
         }
@@ -770,5 +773,44 @@ EchoListComponent.MessageProcessor = {
             }
             EchoServerMessage.setTemporaryProperty("EchoListComponent.Styles." + contentId, styleArray);
         }
+    },
+    
+    /**
+     * Processes an <code>update-selection</code> message to select and/or
+     * deselect individual items of an existing selection component,
+     * leaving the selection state of all other items unchanged.
+     *
+     * @param updateSelectionElement the <code>update-selection</code> element to process
+     */
+    processUpdateSelection: function(updateSelectionElement) {
+        var i, index, item,
+            listComponent = EchoListComponent.getComponent(updateSelectionElement.getAttribute("eid")),
+            selected = {};
+        if (!listComponent) {
+            return;
+        }
+        
+        if (listComponent.selectedIndices) {
+            for (i = 0; i < listComponent.selectedIndices.length; ++i) {
+                selected[listComponent.selectedIndices[i]] = true;
+            }
+        }
+        for (item = updateSelectionElement.firstChild; item; item = item.nextSibling) {
+            index = parseInt(item.getAttribute("index"), 10);
+            if (item.getAttribute("selected") == "true") {
+                selected[index] = true;
+            } else {
+                delete selected[index];
+            }
+        }
+        
+        listComponent.selectedIndices = [];
+        for (index in selected) {
+            if (selected.hasOwnProperty(index)) {
+                listComponent.selectedIndices.push(parseInt(index, 10));
+            }
+        }
+        listComponent.selectedIndices.sort(EchoListComponent.sortArrayNumeric);
+        listComponent.loadSelection();
     }
 };
@@ -439,6 +439,9 @@ EchoTable.MessageProcessor = {
                 case "dispose":
                     EchoTable.MessageProcessor.processDispose(messagePartElement.childNodes[i]);
                     break;
+                case "update-selection":
+                    EchoTable.MessageProcessor.processUpdateSelection(messagePartElement.childNodes[i]);
+                    break;
                 }
             }
         }
@@ -495,5 +498,26 @@ EchoTable.MessageProcessor = {
                 table.setSelected(tableRowIndex, true);
             }
         }
+    },
+    
+    /**
+     * Processes an <code>update-selection</code> message to apply changes
+     * to the selection state of an existing Table component.  Only rows 
+     * whose selection state has changed are specified.
+     *
+     * @param updateSelectionElement the <code>update-selection</code> element to process
+     */
+    processUpdateSelection: function(updateSelectionElement) {
+        var table = EchoTable.getComponent(updateSelectionElement.getAttribute("eid"));
+        if (!table) {
+            return;
+        }
+        var rowElements = updateSelectionElement.getElementsByTagName("row");
+        for (var i = 0; i < rowElements.length; ++i) {
+            var tableRowIndex = parseInt(rowElements[i].getAttribute("index"), 10);
+            if (tableRowIndex >= 0 && tableRowIndex < table.rowCount) {
+                table.setSelected(tableRowIndex, rowElements[i].getAttribute("selected") == "true");
+            }
+        }
     }
 };
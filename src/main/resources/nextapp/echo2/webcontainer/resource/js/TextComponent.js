@@ -216,6 +216,14 @@ EchoTextComponent = Core.extend({
             }
         }
         
+        if (this.deltaSync) {
+            // Text held by the server is known only if the rendered text is intact.
+            this.textDelta = new EchoTextDelta();
+            if (EchoTextDelta.checksum(element.value) == this.checksum) {
+                this.textDelta.reset(element.value);
+            }
+        }
+        
         EchoEventProcessor.addHandler(element, "mouseout", "EchoTextComponent.processChange");
         EchoEventProcessor.addHandler(element, "blur", "EchoTextComponent.processBlur");
         EchoEventProcessor.addHandler(element, "focus", "EchoTextComponent.processFocus");
@@ -319,12 +327,16 @@ EchoTextComponent = Core.extend({
      */
     updateClientMessage: function() {
         var element = this.getElement();
-        var textPropertyElement = EchoClientMessage.createPropertyElement(this.elementId, "text");
-        
-        if (textPropertyElement.firstChild) {
-            textPropertyElement.firstChild.nodeValue = element.value;
+        if (this.textDelta) {
+            this.textDelta.storeProperty(this.elementId, "text", element.value);
         } else {
-            textPropertyElement.appendChild(EchoClientMessage.messageDocument.createTextNode(element.value));
+            var textPropertyElement = EchoClientMessage.createPropertyElement(this.elementId, "text");
+            
+            if (textPropertyElement.firstChild) {
+                textPropertyElement.firstChild.nodeValue = element.value;
+            } else {
+                textPropertyElement.appendChild(EchoClientMessage.messageDocument.createTextNode(element.value));
+            }
         }
         
         EchoClientMessage.setPropertyValue(this.elementId, "horizontalScroll", element.scrollLeft);
@@ -357,6 +369,9 @@ EchoTextComponent.MessageProcessor = {
                 case "set-text":
                     EchoTextComponent.MessageProcessor.processSetText(messagePartElement.childNodes[i]);
                     break;
+                case "request-text":
+                    EchoTextComponent.MessageProcessor.processRequestText(messagePartElement.childNodes[i]);
+                    break;
                 }
             }
         }
@@ -378,9 +393,31 @@ EchoTextComponent.MessageProcessor = {
         }
     },
     
+    /**
+     * Processes a <code>request-text</code> message, sent when the server 
+     * could not apply a text delta, to send the complete text of a Text
+     * Component to the server.
+     *
+     * @param requestTextMessageElement the <code>request-text</code> element to process
+     */
+    processRequestText: function(requestTextMessageElement) {
+        for (var item = requestTextMessageElement.firstChild; item; item = item.nextSibling) {
+            var elementId = item.getAttribute("eid");
+            var textComponent = EchoTextComponent.getComponent(elementId);
+            if (textComponent && textComponent.textDelta) {
+                textComponent.textDelta.reset(null);
+                textComponent.updateClientMessage();
+                window.setTimeout("EchoServerTransaction.connect();", 0);
+            }
+        }
+    },
+    
     /**
      * Processes a <code>set-text</code> message to update the text displayed in a
-     * Text Component.
+     * Text Component.  The text is either complete, or a delta against the 
+     * text last known to be held by the server (when the <code>delta</code>
+     * attribute is set).  The complete text is requested from the server
+     * in the event a delta cannot be applied.
      *
      * @param setTextMessageElement the <code>set-text</code> element to process
      */
@@ -389,10 +426,24 @@ EchoTextComponent.MessageProcessor = {
             var elementId = item.getAttribute("eid");
             var text = item.getAttribute("text");
             var textComponent = document.getElementById(elementId);
-            textComponent.value = text;
+            var textDelta = EchoTextComponent.getComponent(elementId) ? 
+                    EchoTextComponent.getComponent(elementId).textDelta : null;
             
             // Remove any updates to text component that occurred during client/server transaction.
             EchoClientMessage.removePropertyElement(textComponent.id, "text");
+            
+            if (item.getAttribute("delta") == "true") {
+                text = textDelta ? textDelta.apply(parseInt(item.getAttribute("offset"), 10), 
+                        parseInt(item.getAttribute("remove"), 10), text, parseInt(item.getAttribute("checksum"), 10)) : null;
+                if (text == null) {
+                    EchoClientMessage.setPropertyValue(textComponent.id, "textResync", "true");
+                    window.setTimeout("EchoServerTransaction.connect();", 0);
+                    continue;
+                }
+            } else if (textDelta) {
+                textDelta.reset(text);
+            }
+            textComponent.value = text;
         }
     },
     
@@ -415,6 +466,8 @@ EchoTextComponent.MessageProcessor = {
                     parseInt(item.getAttribute("horizontal-scroll"), 10) : 0;
             textComponent.verticalScroll = item.getAttribute("vertical-scroll") ? 
                     parseInt(item.getAttribute("vertical-scroll"), 10) : 0;
+            textComponent.deltaSync = item.getAttribute("delta-sync") == "true";
+            textComponent.checksum = textComponent.deltaSync ? parseInt(item.getAttribute("checksum"), 10) : 0;
                     
             textComponent.init();
         }
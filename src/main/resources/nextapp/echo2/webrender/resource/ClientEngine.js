@@ -688,8 +688,12 @@ EchoClientEngine = {
      * Initializes the Echo2 Client Engine.
      *
      * @param baseServerUri the base URI of the Echo application server
+     * @param debugEnabled flag indicating whether debugging options are enabled
+     * @param initialMessage (optional) the text of the initial ServerMessage, if
+     *        it was embedded in the page by the server; when provided, the 
+     *        initial synchronization request is not made
      */
-    init: function(baseServerUri, debugEnabled) {
+    init: function(baseServerUri, debugEnabled, initialMessage) {
         EchoClientEngine.baseServerUri = baseServerUri;
         EchoClientEngine.debugEnabled = debugEnabled;
         
@@ -699,14 +703,25 @@ EchoClientEngine = {
             EchoDebugManager.launch();
         }
     
-        // Confiugre initial client message.
-        EchoClientMessage.setInitialize();
+        if (initialMessage) {
+            // Analyze client information, to be sent with the next client message.  The server
+            // rendered the initial message based on properties inferred from the request headers.
+            EchoClientAnalyzer.analyze();
+            
+            // Process initial state provided by server.
+            EchoServerTransaction.active = true;
+            EchoServerMessage.init(EchoDomUtil.parseDocument(initialMessage), EchoServerTransaction.postProcess);
+            EchoServerMessage.process();
+        } else {
+            // Confiugre initial client message.
+            EchoClientMessage.setInitialize();
+            
+            // Analyze client information.
+            EchoClientAnalyzer.analyze();
         
-        // Analyze client information.
-        EchoClientAnalyzer.analyze();
-    
-        // Synchronize initial state from server.
-        EchoServerTransaction.connect();
+            // Synchronize initial state from server.
+            EchoServerTransaction.connect();
+        }
     
         // Add disposal listener.
         EchoDomUtil.addEventListener(window, "unload", EchoClientEngine.dispose);
@@ -1606,6 +1621,9 @@ EchoDomUpdate = {
                     case "style-update":
                         this.processStyleUpdate(messagePartElement.childNodes[i]);
                         break;
+                    case "text-update":
+                        this.processTextUpdate(messagePartElement.childNodes[i]);
+                        break;
                     case "stylesheet-add-rule":
                         this.processStyleSheetAddRule(messagePartElement.childNodes[i]);
                         break;
@@ -1748,6 +1766,25 @@ EchoDomUpdate = {
                 throw new EchoDomUpdate.TargetNotFoundException("StyleUpdate", "target", targetId);
             }
             targetElement.style[styleUpdateElement.getAttribute("name")] = styleUpdateElement.getAttribute("value");
+        },
+        
+        /**
+         * Processes a <code>text-update</code> directive to replace the content
+         * of a DOM element with a single text node.
+         *
+         * @param textUpdateElement the <code>text-update</code> element to 
+         *        process
+         */
+        processTextUpdate: function(textUpdateElement) {
+            var targetId = textUpdateElement.getAttribute("target-id");
+            var targetElement = document.getElementById(targetId);
+            if (!targetElement) {
+                throw new EchoDomUpdate.TargetNotFoundException("TextUpdate", "target", targetId);
+            }
+            while (targetElement.firstChild) {
+                targetElement.removeChild(targetElement.firstChild);
+            }
+            targetElement.appendChild(document.createTextNode(textUpdateElement.getAttribute("text")));
         }
     },
     
@@ -1880,6 +1917,26 @@ EchoDomUtil = {
         }
     },
     
+    /**
+     * Creates a new XML DOM by parsing XML text.
+     *
+     * @param text the XML text
+     * @return the created DOM
+     */
+    parseDocument: function(text) {
+        if (window.DOMParser) {
+            return new DOMParser().parseFromString(text, "application/xml");
+        } else if (window.ActiveXObject) {
+            // Internet Explorer: the XML declaration is removed as its encoding does not describe the string.
+            var parsedDocument = new ActiveXObject("Microsoft.XMLDOM");
+            parsedDocument.async = false;
+            parsedDocument.loadXML(text.replace(/^<\?xml[^>]*\?>/, ""));
+            return parsedDocument;
+        } else {
+            throw "Unable to parse Document.";
+        }
+    },
+    
     /**
      * Converts a hyphen-separated CSS attribute name into a camelCase
      * property name.
@@ -2773,6 +2830,171 @@ EchoHttpConnection = Core.extend({
     }
 });
 
+// _______________________
+// Object EchoMessageCodec
+
+/**
+ * Static object/namespace providing the compact JSON encoding of
+ * ClientMessages and ServerMessages, used in place of XML if the server
+ * has the JSON codec enabled.
+ * <p>
+ * Each element is encoded as an array containing the element name, followed
+ * by an object of its attributes (omitted if the element has no attributes),
+ * followed by its child nodes.  Text nodes are encoded as strings.
+ * Namespaces are represented by "xmlns" attributes.  Messages are decoded
+ * into XML DOMs, such that message processors are unaffected by the
+ * encoding in use.
+ */
+EchoMessageCodec = {
+
+    /**
+     * The name of the codec, by which the client declares support for it.
+     */
+    NAME: "json",
+    
+    /**
+     * The content type of JSON-encoded messages.
+     */
+    CONTENT_TYPE: "application/json",
+    
+    /**
+     * Flag indicating whether the server has responded with a JSON-encoded
+     * ServerMessage, and thus will accept JSON-encoded ClientMessages.
+     */
+    enabled: false,
+
+    /**
+     * Decodes a JSON-encoded message into an XML DOM.
+     *
+     * @param text the JSON-encoded message
+     * @return the message, as an XML DOM
+     */
+    decode: function(text) {
+        var data = JSON.parse(text);
+        var attributes = EchoMessageCodec.getAttributes(data);
+        var namespaceUri = attributes && attributes.xmlns ? attributes.xmlns : null;
+        var messageDocument = EchoDomUtil.createDocument(namespaceUri, data[0]);
+        EchoMessageCodec.decodeContent(messageDocument.documentElement, data, attributes, namespaceUri);
+        return messageDocument;
+    },
+    
+    /**
+     * Decodes the attributes and child nodes of an encoded element.
+     *
+     * @param element the element to which the attributes and child nodes
+     *        should be added
+     * @param data the encoded element
+     * @param attributes the attributes object of the encoded element, or null
+     * @param namespaceUri the namespace URI of the element
+     */
+    decodeContent: function(element, data, attributes, namespaceUri) {
+        var messageDocument = element.ownerDocument;
+        var i = 1;
+        if (attributes) {
+            for (var name in attributes) {
+                if (name != "xmlns") {
+                    element.setAttribute(name, attributes[name]);
+                }
+            }
+            ++i;
+        }
+        for (; i < data.length; ++i) {
+            var childData = data[i];
+            if (typeof childData == "string") {
+                element.appendChild(messageDocument.createTextNode(childData));
+            } else {
+                var childAttributes = EchoMessageCodec.getAttributes(childData);
+                var childNamespaceUri = namespaceUri;
+                if (childAttributes && childAttributes.xmlns != null) {
+                    childNamespaceUri = childAttributes.xmlns ? childAttributes.xmlns : null;
+                }
+                var childElement = childNamespaceUri ? messageDocument.createElementNS(childNamespaceUri, childData[0])
+                        : messageDocument.createElement(childData[0]);
+                EchoMessageCodec.decodeContent(childElement, childData, childAttributes, childNamespaceUri);
+                element.appendChild(childElement);
+            }
+        }
+    },
+    
+    /**
+     * Encodes an XML DOM message as JSON.
+     *
+     * @param messageDocument the message, as an XML DOM
+     * @return the JSON-encoded message
+     */
+    encode: function(messageDocument) {
+        return JSON.stringify(EchoMessageCodec.encodeElement(messageDocument.documentElement, null));
+    },
+    
+    /**
+     * Encodes an element and its descendants.
+     *
+     * @param element the element
+     * @param parentNamespaceUri the namespace URI of the parent element
+     * @return the encoded element
+     */
+    encodeElement: function(element, parentNamespaceUri) {
+        var data = [element.nodeName];
+        var attributes = null;
+        var namespaceUri = element.namespaceURI ? element.namespaceURI : null;
+        if (namespaceUri != parentNamespaceUri) {
+            attributes = { xmlns: namespaceUri ? namespaceUri : "" };
+        }
+        for (var i = 0; i < element.attributes.length; ++i) {
+            var attribute = element.attributes[i];
+            if (attribute.name == "xmlns" || attribute.name.indexOf("xmlns:") == 0) {
+                continue;
+            }
+            if (!attributes) {
+                attributes = {};
+            }
+            attributes[attribute.name] = attribute.value;
+        }
+        if (attributes) {
+            data.push(attributes);
+        }
+        for (var childNode = element.firstChild; childNode; childNode = childNode.nextSibling) {
+            if (childNode.nodeType == 1) {
+                data.push(EchoMessageCodec.encodeElement(childNode, namespaceUri));
+            } else if (childNode.nodeType == 3 || childNode.nodeType == 4) {
+                data.push(childNode.nodeValue);
+            }
+        }
+        return data;
+    },
+    
+    /**
+     * Returns the attributes object of an encoded element.
+     *
+     * @param data the encoded element
+     * @return the attributes object, or null if the element has no attributes
+     */
+    getAttributes: function(data) {
+        var attributes = data[1];
+        return attributes != null && typeof attributes == "object" && !(attributes instanceof Array) ? attributes : null;
+    },
+    
+    /**
+     * Determines whether the client is capable of using the codec.
+     *
+     * @return true if the codec is supported
+     */
+    isSupported: function() {
+        return !!(window.JSON && document.implementation && document.implementation.createDocument);
+    },
+    
+    /**
+     * Determines whether an HTTP response contains a JSON-encoded message.
+     *
+     * @param conn the EchoHttpConnection containing the response
+     * @return true if the response is JSON-encoded
+     */
+    isResponseEncoded: function(conn) {
+        var contentType = conn.xmlHttpRequest.getResponseHeader("Content-Type");
+        return contentType != null && contentType.indexOf(EchoMessageCodec.CONTENT_TYPE) == 0;
+    }
+};
+
 // _______________________
 // Object EchoModalManager
 
@@ -3397,6 +3619,13 @@ EchoServerTransaction = {
      */
     synchronizeServiceRequest: "?serviceId=Echo.Synchronize",
     
+    /**
+     * Default interval (in milliseconds) after which a synchronization
+     * rejected by the server due to other pending requests is retried,
+     * used if the server does not provide a "Retry-After" header.
+     */
+    retryInterval: 500,
+    
     /**
      * Initiates a client-server transaction my making a request to the server.
      * This operation is asynchronous; this method will return before the server
@@ -3412,11 +3641,23 @@ EchoServerTransaction = {
         
         EchoServerDelayMessage.activate();
         EchoAsyncMonitor.stop();
-        if (EchoClientProperties.get("quirkSafariUnescapedXHR")) {
-            EchoDomUtil.fixSafariEscaping(EchoClientMessage.messageDocument);
+        var message, contentType;
+        if (EchoMessageCodec.isSupported()) {
+            // Request an encoded response with every message, including those which are themselves encoded.
+            EchoClientMessage.messageDocument.documentElement.setAttribute("accept-codec", EchoMessageCodec.NAME);
+        }
+        if (EchoMessageCodec.enabled) {
+            message = EchoMessageCodec.encode(EchoClientMessage.messageDocument);
+            contentType = EchoMessageCodec.CONTENT_TYPE;
+        } else {
+            if (EchoClientProperties.get("quirkSafariUnescapedXHR")) {
+                EchoDomUtil.fixSafariEscaping(EchoClientMessage.messageDocument);
+            }
+            message = EchoClientMessage.messageDocument;
+            contentType = "text/xml";
         }
         var conn = new EchoHttpConnection(EchoClientEngine.baseServerUri + EchoServerTransaction.synchronizeServiceRequest, 
-                "POST", EchoClientMessage.messageDocument, "text/xml");
+                "POST", message, contentType);
         conn.responseHandler = EchoServerTransaction.responseHandler;
         conn.invalidResponseHandler = EchoServerTransaction.invalidResponseHandler;
         EchoServerTransaction.active = true;
@@ -3434,6 +3675,19 @@ EchoServerTransaction = {
      * @param conn the EchoHttpConnection containing the response information. 
      */
     invalidResponseHandler: function(conn) {
+        if (conn.xmlHttpRequest.status == 503) {
+            // Request was not admitted by the server due to other pending requests for this session:
+            // resend the same ClientMessage, leaving the transaction active.
+            var retryAfter = parseInt(conn.xmlHttpRequest.getResponseHeader("Retry-After"), 10);
+            var interval = isNaN(retryAfter) ? EchoServerTransaction.retryInterval : retryAfter * 1000;
+            // Message is retained here, as the connection is disposed once this handler returns.
+            var message = conn.messageObject;
+            var contentType = conn.contentType;
+            window.setTimeout(function() {
+                EchoServerTransaction.retry(message, contentType);
+            }, interval);
+            return;
+        }
         EchoServerTransaction.postProcess();
         if (conn.xmlHttpRequest.status == 500) {
             EchoClientEngine.processServerError();
@@ -3444,6 +3698,20 @@ EchoServerTransaction = {
         }
     },
     
+    /**
+     * Resends a ClientMessage which was not admitted by the server.
+     *
+     * @param message the ClientMessage, as an XML DOM or encoded text
+     * @param contentType the content type of the ClientMessage
+     */
+    retry: function(message, contentType) {
+        var conn = new EchoHttpConnection(EchoClientEngine.baseServerUri + EchoServerTransaction.synchronizeServiceRequest, 
+                "POST", message, contentType);
+        conn.responseHandler = EchoServerTransaction.responseHandler;
+        conn.invalidResponseHandler = EchoServerTransaction.invalidResponseHandler;
+        conn.connect();
+    },
+    
     /**
      * Handles post processing cleanup tasks, i.e., disabling server message delay
      * pane and setting active flag state to false.
@@ -3460,7 +3728,14 @@ EchoServerTransaction = {
      */
     responseHandler: function(conn) {
         EchoServerTransaction.timer = new Date().getTime();
-        EchoServerMessage.init(conn.getResponseXml(), EchoServerTransaction.postProcess);
+        var messageDocument;
+        if (EchoMessageCodec.isResponseEncoded(conn)) {
+            EchoMessageCodec.enabled = true;
+            messageDocument = EchoMessageCodec.decode(conn.getResponseText());
+        } else {
+            messageDocument = conn.getResponseXml();
+        }
+        EchoServerMessage.init(messageDocument, EchoServerTransaction.postProcess);
         EchoServerMessage.process();
     }
 };    
@@ -3485,6 +3760,139 @@ EchoStringUtil = {
     }
 };
 
+// ___________________
+// Object EchoTextDelta
+
+/**
+ * Class which synchronizes the value of a text property with the server by
+ * exchanging deltas rather than complete text.
+ * The object tracks the text last known to the server (the "baseline").
+ * Updates written to the ClientMessage describe the replaced range of the 
+ * baseline (offset and removed length), the inserted text, and a checksum
+ * of the resulting text, allowing the server to detect a lost baseline and
+ * request the complete text.  Checksums are computed in the same manner as
+ * Java's <code>String.hashCode()</code>.
+ */
+EchoTextDelta = Core.extend({
+
+    $static: {
+    
+        /**
+         * Computes the checksum of a string.
+         *
+         * @param text the string
+         * @return the checksum, a signed 32 bit integer
+         */
+        checksum: function(text) {
+            var hash = 0;
+            for (var i = 0; i < text.length; ++i) {
+                hash = ((hash << 5) - hash + text.charCodeAt(i)) | 0;
+            }
+            return hash;
+        }
+    },
+
+    /**
+     * Creates a new text delta synchronizer.
+     * The baseline is initially unknown, such that the first update will
+     * contain the complete text.
+     */
+    $construct: function() {
+        this.baseline = null;
+        this.pendingText = null;
+        this.pendingDocument = null;
+    },
+    
+    /**
+     * Applies a delta received from the server to the baseline.
+     *
+     * @param offset the offset of the replaced range
+     * @param removeLength the length of the replaced range
+     * @param insertText the text inserted at the offset
+     * @param checksum the checksum of the resulting text
+     * @return the resulting text, or null if the delta could not be applied
+     *         (in which case the baseline is reset)
+     */
+    apply: function(offset, removeLength, insertText, checksum) {
+        this.pendingDocument = null;
+        if (this.baseline == null || offset < 0 || removeLength < 0 || offset + removeLength > this.baseline.length) {
+            this.baseline = null;
+            return null;
+        }
+        var text = this.baseline.substring(0, offset) + insertText + this.baseline.substring(offset + removeLength);
+        if (EchoTextDelta.checksum(text) != checksum) {
+            this.baseline = null;
+            return null;
+        }
+        this.baseline = text;
+        return text;
+    },
+    
+    /**
+     * Sets the baseline, i.e., the text known to be held by the server.
+     *
+     * @param text the new baseline, or null if unknown
+     */
+    reset: function(text) {
+        this.baseline = text;
+        this.pendingText = null;
+        this.pendingDocument = null;
+    },
+    
+    /**
+     * Writes the text of a property to the outgoing ClientMessage, as a delta
+     * against the baseline if it is known.
+     * The update previously written by this object is assumed to have been 
+     * received by the server if the ClientMessage has since been sent.
+     *
+     * @param componentId the id of the component
+     * @param propertyName the name of the property
+     * @param text the current text
+     */
+    storeProperty: function(componentId, propertyName, text) {
+        if (this.pendingDocument != null && this.pendingDocument != EchoClientMessage.messageDocument) {
+            this.baseline = this.pendingText;
+        }
+        
+        var propertyElement = EchoClientMessage.createPropertyElement(componentId, propertyName);
+        var value;
+        if (this.baseline == null) {
+            propertyElement.removeAttribute("delta");
+            propertyElement.removeAttribute("offset");
+            propertyElement.removeAttribute("remove");
+            propertyElement.removeAttribute("checksum");
+            value = text;
+        } else {
+            var baseline = this.baseline;
+            var prefix = 0;
+            var maximumPrefix = Math.min(baseline.length, text.length);
+            while (prefix < maximumPrefix && baseline.charCodeAt(prefix) == text.charCodeAt(prefix)) {
+                ++prefix;
+            }
+            var suffix = 0;
+            var maximumSuffix = maximumPrefix - prefix;
+            while (suffix < maximumSuffix 
+                    && baseline.charCodeAt(baseline.length - suffix - 1) == text.charCodeAt(text.length - suffix - 1)) {
+                ++suffix;
+            }
+            propertyElement.setAttribute("delta", "true");
+            propertyElement.setAttribute("offset", prefix);
+            propertyElement.setAttribute("remove", baseline.length - prefix - suffix);
+            propertyElement.setAttribute("checksum", EchoTextDelta.checksum(text));
+            value = text.substring(prefix, text.length - suffix);
+        }
+        
+        if (propertyElement.firstChild) {
+            propertyElement.firstChild.nodeValue = value;
+        } else {
+            propertyElement.appendChild(EchoClientMessage.messageDocument.createTextNode(value));
+        }
+        
+        this.pendingText = text;
+        this.pendingDocument = EchoClientMessage.messageDocument;
+    }
+});
+
 // __________________________
 // Object EchoVirtualPosition
 